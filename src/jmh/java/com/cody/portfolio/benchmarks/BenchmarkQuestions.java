@@ -0,0 +1,78 @@
+package com.cody.portfolio.benchmarks;
+
+import java.util.Random;
+
+import com.cody.portfolio.domain.Question;
+
+/**
+ * Builds Question arrays with a chosen distribution of Types for the benchmarks.
+ */
+public final class BenchmarkQuestions {
+	
+	private BenchmarkQuestions() {}
+	
+	/**
+	 * How Types are laid out across the array, in the order of QuestionTypeComparator.
+	 */
+	public enum Distribution {
+		SORTED,
+		REVERSED,
+		RANDOM
+	}
+	
+	/**
+	 * Creates questions with Types laid out by the distribution and random Difficulties.
+	 * 
+	 * @param size The number of questions.
+	 * @param distribution The Type layout.
+	 * @param random The source of randomness; seed it for repeatable fixtures.
+	 */
+	static Question[] questions(int size, Distribution distribution, Random random) {
+		Question.Type[] types = Question.Type.values();
+		Question.Difficulty[] difficulties = Question.Difficulty.values();
+		Question[] questions = new Question[size];
+		
+		for (int i = 0; i < size; i++) {
+			int block = (int) ((long) i * types.length / size);
+			Question question = new Question("question " + i, "answer " + i);
+			question.setType(switch (distribution) {
+				case SORTED -> types[block];
+				case REVERSED -> types[types.length - 1 - block];
+				case RANDOM -> types[random.nextInt(types.length)];
+			});
+			question.setDifficulty(difficulties[random.nextInt(difficulties.length)]);
+			questions[i] = question;
+		}
+		return questions;
+	}
+	
+	/**
+	 * Creates questions of eight to fifteen words drawn from a fixed random vocabulary, so that unlike the numbered
+	 * questions above, the texts of unrelated questions share few shingles.
+	 * 
+	 * @param size The number of questions.
+	 * @param random The source of randomness; seed it for repeatable fixtures.
+	 */
+	static Question[] worded(int size, Random random) {
+		String[] vocabulary = new String[4096];
+		Random words = new Random(7); // The same vocabulary for every fixture.
+		for (int i = 0; i < vocabulary.length; i++) {
+			char letters[] = new char[3 + words.nextInt(7)];
+			for (int j = 0; j < letters.length; j++) {
+				letters[j] = (char) ('a' + words.nextInt(26));
+			}
+			vocabulary[i] = new String(letters);
+		}
+		
+		Question[] questions = new Question[size];
+		for (int i = 0; i < size; i++) {
+			StringBuilder text = new StringBuilder();
+			int length = 8 + random.nextInt(8);
+			for (int j = 0; j < length; j++) {
+				text.append(vocabulary[random.nextInt(vocabulary.length)]).append(' ');
+			}
+			questions[i] = new Question(text.toString().trim() + "?", "answer " + i);
+		}
+		return questions;
+	}
+}
@@ -0,0 +1,99 @@
+package com.cody.portfolio.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Executors;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.cody.portfolio.domain.Question;
+import com.cody.portfolio.domain.IdGenerator;
+import com.cody.portfolio.domain.TimeOrderedIdGenerator;
+import com.cody.portfolio.service.QuestionService;
+import com.cody.portfolio.service.sorting.AdaptiveSortingStrategy;
+import com.cody.portfolio.service.sorting.QuestionTypeComparator;
+
+/**
+ * Compares random version 4 ids, which draw on one shared SecureRandom, with time-ordered version 7 ids,
+ * which each thread generates on its own, as 1 to 32 threads create Questions at once.
+ * generate only creates Questions; insert also stores each one in a fresh QuestionService.
+ * Each invocation creates IDS_PER_THREAD, or stores INSERTS_PER_THREAD, Questions on every thread.
+ * Every insert builds the next Snapshot, which grows with the service, so inserts are fewer to keep invocations short.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdGeneratorBenchmark {
+	private static final int IDS_PER_THREAD = 10_000;
+	private static final int INSERTS_PER_THREAD = 250;
+	
+	@Param({"random", "time-ordered"})
+	public String generator;
+	
+	@Param({"1", "2", "4", "8", "16", "32"})
+	public int threads;
+	
+	private IdGenerator ids;
+	private ExecutorService executor;
+	private QuestionService questionService;
+	
+	@Setup(Level.Trial)
+	public void open() {
+		this.ids = this.generator.equals("random") ? IdGenerator.RANDOM : new TimeOrderedIdGenerator(0);
+		this.executor = Executors.newFixedThreadPool(this.threads);
+	}
+	
+	@Setup(Level.Invocation)
+	public void emptyService() {
+		this.questionService = new QuestionService(new AdaptiveSortingStrategy(new QuestionTypeComparator()));
+	}
+	
+	@TearDown(Level.Trial)
+	public void close() throws InterruptedException {
+		this.executor.shutdown();
+		this.executor.awaitTermination(1, TimeUnit.MINUTES);
+	}
+	
+	/**
+	 * Creates IDS_PER_THREAD Questions on each thread.
+	 */
+	@Benchmark
+	public void generate(Blackhole blackhole) throws InterruptedException {
+		onEveryThread(() -> {
+			for (int i = 0; i < IDS_PER_THREAD; i++) {
+				blackhole.consume(new Question("a valid question", "a valid answer", this.ids.next()));
+			}
+		});
+	}
+	
+	/**
+	 * Creates and stores INSERTS_PER_THREAD Questions on each thread.
+	 */
+	@Benchmark
+	public void insert() throws InterruptedException {
+		onEveryThread(() -> {
+			for (int i = 0; i < INSERTS_PER_THREAD; i++) {
+				this.questionService.setQuestion(new Question("a valid question", "a valid answer", this.ids.next()));
+			}
+		});
+	}
+	
+	private void onEveryThread(Runnable task) throws InterruptedException {
+		CountDownLatch done = new CountDownLatch(this.threads);
+		for (int t = 0; t < this.threads; t++) {
+			this.executor.execute(() -> {
+				try {
+					task.run();
+				} finally {
+					done.countDown();
+				}
+			});
+		}
+		done.await();
+	}
+}
@@ -0,0 +1,73 @@
+package com.cody.portfolio.benchmarks;
+
+import java.util.Random;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.cody.portfolio.domain.Question;
+import com.cody.portfolio.service.QuestionService;
+import com.cody.portfolio.service.search.DuplicatePolicy;
+import com.cody.portfolio.service.sorting.AdaptiveSortingStrategy;
+import com.cody.portfolio.service.sorting.QuestionTypeComparator;
+import com.cody.portfolio.service.persistence.InMemoryQuestionRepository;
+
+/**
+ * Measures what near-duplicate detection adds to the insert path, which should not grow with the bank size.
+ * Compare setQuestionThenDelete at action OFF and REJECT across sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NearDuplicateBenchmark {
+	private static final int POOL_SIZE = 1024; // A power of two, so the cursor can wrap with a mask.
+	
+	@Param({"1000", "100000", "1000000"})
+	public int size;
+	
+	@Param({"OFF", "REJECT"})
+	public DuplicatePolicy.Action action;
+	
+	private QuestionService questionService;
+	private Question[] unstored; // Questions that are inserted and deleted again by the write benchmark.
+	private Question[] reworded; // Stored questions with one word dropped.
+	private int cursor;
+	
+	@Setup(Level.Trial)
+	public void fill() {
+		Random random = new Random(42);
+		Question[] stored = BenchmarkQuestions.worded(this.size, random);
+		DuplicatePolicy policy = (this.action == DuplicatePolicy.Action.OFF) ? DuplicatePolicy.OFF : new DuplicatePolicy(this.action, 0.8);
+		this.questionService = new QuestionService(new AdaptiveSortingStrategy(new QuestionTypeComparator()), new InMemoryQuestionRepository(), policy);
+		this.questionService.setQuestions(stored);
+		
+		this.unstored = BenchmarkQuestions.worded(POOL_SIZE, random);
+		this.reworded = new Question[POOL_SIZE];
+		for (int i = 0; i < POOL_SIZE; i++) {
+			String text = stored[random.nextInt(stored.length)].getQuestion();
+			this.reworded[i] = new Question(text.substring(text.indexOf(' ') + 1), "a reworded answer");
+		}
+	}
+	
+	/**
+	 * Stores a question and deletes it again, so the bank keeps its size across invocations.
+	 */
+	@Benchmark
+	public boolean setQuestionThenDelete() {
+		Question question = this.unstored[this.cursor++ & (POOL_SIZE - 1)];
+		this.questionService.setQuestion(question);
+		return this.questionService.delete(question.getID());
+	}
+	
+	/**
+	 * Looks up a stored question with its first word dropped.
+	 */
+	@Benchmark
+	public Optional<Question> findNearDuplicate() {
+		return this.questionService.findNearDuplicate(this.reworded[this.cursor++ & (POOL_SIZE - 1)]);
+	}
+}
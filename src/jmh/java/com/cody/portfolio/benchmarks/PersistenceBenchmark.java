@@ -0,0 +1,160 @@
+package com.cody.portfolio.benchmarks;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Comparator;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.cody.portfolio.domain.Question;
+import com.cody.portfolio.service.QuestionService;
+import com.cody.portfolio.service.persistence.QuestionRepository;
+import com.cody.portfolio.service.persistence.FileQuestionRepository;
+import com.cody.portfolio.service.persistence.ArenaQuestionRepository;
+import com.cody.portfolio.service.sorting.AdaptiveSortingStrategy;
+import com.cody.portfolio.service.sorting.QuestionTypeComparator;
+
+/**
+ * Measures the durable repositories: acknowledged write throughput with one writer and with writers sharing
+ * each flush through group commit, and recovery time from a log alone, from a snapshot, or from an arena.
+ */
+public class PersistenceBenchmark {
+	private static final int POOL_SIZE = 1024; // A power of two, so the cursor can wrap with a mask.
+	private static final int BATCH_SIZE = 512;
+	
+	/**
+	 * A service backed by a fresh repository directory, shared by the writer threads.
+	 */
+	@State(Scope.Benchmark)
+	public static class Writes {
+		@Param({"LOG", "ARENA"})
+		public String storage;
+		
+		Path directory;
+		QuestionRepository repository;
+		QuestionService questionService;
+		
+		@Setup(Level.Trial)
+		public void open() throws IOException {
+			this.directory = Files.createTempDirectory("question-writes");
+			this.repository = openRepository(this.storage, this.directory, FileQuestionRepository.DEFAULT_CHECKPOINT_INTERVAL);
+			this.questionService = new QuestionService(new AdaptiveSortingStrategy(new QuestionTypeComparator()), this.repository);
+		}
+		
+		@TearDown(Level.Trial)
+		public void close() {
+			this.repository.close();
+			deleteDirectory(this.directory);
+		}
+	}
+	
+	/**
+	 * Questions owned by one writer thread, stored and deleted again so the bank keeps its size.
+	 */
+	@State(Scope.Thread)
+	public static class Writer {
+		Question[] unstored;
+		int cursor;
+		
+		@Setup(Level.Trial)
+		public void create() {
+			this.unstored = BenchmarkQuestions.questions(POOL_SIZE, BenchmarkQuestions.Distribution.RANDOM, new Random());
+		}
+	}
+	
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	@Warmup(iterations = 2, time = 1)
+	@Measurement(iterations = 5, time = 1)
+	@Fork(1)
+	@Threads(1)
+	public boolean setQuestionThenDelete(Writes writes, Writer writer) {
+		Question question = writer.unstored[writer.cursor++ & (POOL_SIZE - 1)];
+		writes.questionService.setQuestion(question);
+		return writes.questionService.delete(question.getID());
+	}
+	
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	@Warmup(iterations = 2, time = 1)
+	@Measurement(iterations = 5, time = 1)
+	@Fork(1)
+	@Threads(8)
+	public boolean setQuestionThenDeleteGroupCommit(Writes writes, Writer writer) {
+		return setQuestionThenDelete(writes, writer);
+	}
+	
+	/**
+	 * A repository directory holding a bank of questions, all in the log, all in a snapshot, or in an arena.
+	 */
+	@State(Scope.Benchmark)
+	public static class Recovery {
+		@Param({"1000", "100000", "1000000"})
+		public int size;
+		
+		@Param({"LOG", "SNAPSHOT", "ARENA"})
+		public String source;
+		
+		Path directory;
+		
+		@Setup(Level.Trial)
+		public void fill() throws IOException {
+			this.directory = Files.createTempDirectory("question-recovery");
+			Question[] questions = BenchmarkQuestions.questions(this.size, BenchmarkQuestions.Distribution.RANDOM, new Random(42));
+			
+			// A checkpoint interval of the bank size snapshots everything once the last batch is logged.
+			int interval = this.source.equals("SNAPSHOT") ? this.size : Integer.MAX_VALUE;
+			QuestionRepository repository = openRepository(this.source, this.directory, interval);
+			QuestionService questionService = new QuestionService(new AdaptiveSortingStrategy(new QuestionTypeComparator()), repository);
+			for (int from = 0; from < questions.length; from += BATCH_SIZE) {
+				questionService.setQuestions(Arrays.copyOfRange(questions, from, Math.min(from + BATCH_SIZE, questions.length)));
+			}
+			repository.close();
+		}
+		
+		@TearDown(Level.Trial)
+		public void delete() {
+			deleteDirectory(this.directory);
+		}
+	}
+	
+	/**
+	 * Opens the repository and rebuilds the service from it, as on startup.
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 3)
+	@Measurement(iterations = 10)
+	@Fork(1)
+	public int recover(Recovery recovery) {
+		// The largest interval keeps recovery from starting a checkpoint that would change the next iteration.
+		QuestionRepository repository = openRepository(recovery.source, recovery.directory, Integer.MAX_VALUE);
+		QuestionService questionService = new QuestionService(new AdaptiveSortingStrategy(new QuestionTypeComparator()), repository);
+		repository.close();
+		return questionService.size();
+	}
+	
+	private static QuestionRepository openRepository(String storage, Path directory, int checkpointInterval) {
+		if (storage.equals("ARENA")) return new ArenaQuestionRepository(directory);
+		return new FileQuestionRepository(directory, checkpointInterval);
+	}
+	
+	static void deleteDirectory(Path directory) {
+		try (Stream<Path> files = Files.walk(directory)) {
+			for (Path file : files.sorted(Comparator.reverseOrder()).toArray(Path[]::new)) {
+				Files.delete(file);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package com.cody.portfolio.benchmarks;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+
+import com.cody.portfolio.domain.Question;
+import com.cody.portfolio.service.QuestionPage;
+import com.cody.portfolio.service.QuestionService;
+import com.cody.portfolio.service.metrics.QuestionMetrics;
+import com.cody.portfolio.service.search.DuplicatePolicy;
+import com.cody.portfolio.service.persistence.InMemoryQuestionRepository;
+import com.cody.portfolio.service.sorting.AdaptiveSortingStrategy;
+import com.cody.portfolio.service.sorting.QuestionTypeComparator;
+
+/**
+ * Measures the QuestionService operations behind each endpoint at several bank sizes.
+ * Run with the gc profiler (the benchmarks profile default) to see the allocation rate per operation.
+ * metrics=prometheus records every operation into a Prometheus registry, as in production; compare it
+ * with metrics=off for the cost of the instrumentation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuestionServiceBenchmark {
+	private static final int POOL_SIZE = 1024; // A power of two, so the cursor can wrap with a mask.
+	private static final int QUIZ_SIZE = 20;
+	private static final Set<Question.Type> QUIZ_TYPES = EnumSet.of(Question.Type.Programming, Question.Type.DataStructures);
+	
+	@Param({"10", "1000", "100000", "1000000"})
+	public int size;
+	
+	@Param({"off", "prometheus"})
+	public String metrics;
+	
+	private QuestionService questionService;
+	private UUID[] storedIds;
+	private Question[] unstored; // Questions that are inserted and deleted again by the write benchmark.
+	private int cursor;
+	private Random random;
+	
+	@Setup(Level.Trial)
+	public void fill() {
+		Random random = new Random(42);
+		Question[] stored = BenchmarkQuestions.questions(this.size, BenchmarkQuestions.Distribution.RANDOM, random);
+		QuestionMetrics questionMetrics = this.metrics.equals("off") ? QuestionMetrics.OFF : new QuestionMetrics(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT));
+		this.questionService = new QuestionService(new AdaptiveSortingStrategy(new QuestionTypeComparator()), new InMemoryQuestionRepository(), DuplicatePolicy.OFF, questionMetrics);
+		this.questionService.setQuestions(stored);
+		
+		this.storedIds = new UUID[POOL_SIZE];
+		for (int i = 0; i < POOL_SIZE; i++) {
+			this.storedIds[i] = stored[random.nextInt(stored.length)].getID();
+		}
+		this.unstored = BenchmarkQuestions.questions(POOL_SIZE, BenchmarkQuestions.Distribution.RANDOM, random);
+		this.random = random;
+	}
+	
+	@Benchmark
+	public Optional<Question> getQuestion() {
+		return this.questionService.getQuestion(this.storedIds[this.cursor++ & (POOL_SIZE - 1)]);
+	}
+	
+	@Benchmark
+	public Optional<Question[]> getQuestions() {
+		return this.questionService.getQuestions(Question.Type.Programming);
+	}
+	
+	@Benchmark
+	public Optional<Question[]> getQuestionsByTypeAndDifficulty() {
+		return this.questionService.getQuestions(Question.Type.Programming, Question.Difficulty.Medium);
+	}
+	
+	@Benchmark
+	public Optional<Question[]> getAll() {
+		return this.questionService.getAll();
+	}
+	
+	/**
+	 * Draws a 20 question quiz from two Types, which should cost the same at every bank size.
+	 */
+	@Benchmark
+	public Question[] sample() {
+		return this.questionService.sample(QUIZ_TYPES, null, QUIZ_SIZE, this.random);
+	}
+	
+	/**
+	 * Searches for one question by a word every question shares and a word only it has,
+	 * so the rare posting list drives a skip through the common one.
+	 */
+	@Benchmark
+	public QuestionPage search() {
+		return this.questionService.search("question " + (this.cursor++ & (POOL_SIZE - 1)) % this.size, null, 20);
+	}
+	
+	/**
+	 * Stores a question and deletes it again, so the bank keeps its size across invocations.
+	 */
+	@Benchmark
+	public boolean setQuestionThenDelete() {
+		Question question = this.unstored[this.cursor++ & (POOL_SIZE - 1)];
+		this.questionService.setQuestion(question);
+		return this.questionService.delete(question.getID());
+	}
+}
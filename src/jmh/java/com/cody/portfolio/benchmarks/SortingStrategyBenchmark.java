@@ -0,0 +1,62 @@
+package com.cody.portfolio.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.cody.portfolio.domain.Question;
+import com.cody.portfolio.service.sorting.AbstractSortingStrategy;
+import com.cody.portfolio.service.sorting.AdaptiveSortingStrategy;
+import com.cody.portfolio.service.sorting.CountingSortStrategy;
+import com.cody.portfolio.service.sorting.InsertionSortStrategy;
+import com.cody.portfolio.service.sorting.MergeSortStrategy;
+import com.cody.portfolio.service.sorting.ParallelMergeSortStrategy;
+import com.cody.portfolio.service.sorting.QuestionTypeComparator;
+
+/**
+ * Measures each SortingStrategy on sorted, reversed, and randomly ordered Types.
+ * Every invocation sorts a fresh copy of the fixture, so the copy is part of each score.
+ * Insertion sort is quadratic; expect it to take seconds per operation on the largest size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SortingStrategyBenchmark {
+	
+	@Param({"Insertion", "Merge", "ParallelMerge", "Counting", "Adaptive"})
+	public String strategy;
+	
+	@Param({"SORTED", "REVERSED", "RANDOM"})
+	public BenchmarkQuestions.Distribution distribution;
+	
+	@Param({"10", "1000", "100000"})
+	public int size;
+	
+	private AbstractSortingStrategy sortingStrategy;
+	private Question[] fixture;
+	
+	@Setup(Level.Trial)
+	public void prepare() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		this.sortingStrategy = switch (this.strategy) {
+			case "Insertion" -> new InsertionSortStrategy(comparator);
+			case "Merge" -> new MergeSortStrategy(comparator);
+			case "ParallelMerge" -> new ParallelMergeSortStrategy(comparator);
+			case "Counting" -> new CountingSortStrategy(comparator);
+			case "Adaptive" -> new AdaptiveSortingStrategy(comparator);
+			default -> throw new IllegalArgumentException("Unknown strategy " + this.strategy + "!");
+		};
+		this.fixture = BenchmarkQuestions.questions(this.size, this.distribution, new Random(42));
+	}
+	
+	@Benchmark
+	public Question[] sort() {
+		Question[] questions = this.fixture.clone();
+		this.sortingStrategy.sort(questions);
+		return questions;
+	}
+}
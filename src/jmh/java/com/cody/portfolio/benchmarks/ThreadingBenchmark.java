@@ -0,0 +1,111 @@
+package com.cody.portfolio.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Executors;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.cody.portfolio.domain.Question;
+import com.cody.portfolio.service.QuestionService;
+import com.cody.portfolio.service.persistence.FileQuestionRepository;
+import com.cody.portfolio.service.sorting.AdaptiveSortingStrategy;
+import com.cody.portfolio.service.sorting.QuestionTypeComparator;
+
+/**
+ * Compares serving a burst of concurrent requests on a platform thread pool the size of Tomcat's default
+ * with serving each request on its own virtual thread.
+ * A request stores a Question durably, reads it back, waits on a simulated downstream call, and deletes it durably.
+ * Platform threads cap the requests in flight at the pool size; virtual threads let every request of the burst
+ * wait at once, so more writers share each log flush and the downstream waits overlap.
+ * 
+ * VIRTUAL needs Java 21 or later; on Java 17 run with -p threads=PLATFORM.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ThreadingBenchmark {
+	private static final int PLATFORM_POOL_SIZE = 200; // Tomcat's default server.tomcat.threads.max.
+	
+	@Param({"PLATFORM", "VIRTUAL"})
+	public String threads;
+	
+	/** Requests in one burst. */
+	@Param({"200", "2000", "10000"})
+	public int concurrency;
+	
+	/** The simulated downstream call of each request. */
+	@Param({"0", "10"})
+	public int latencyMillis;
+	
+	private Path directory;
+	private FileQuestionRepository repository;
+	private QuestionService questionService;
+	private ExecutorService executor;
+	
+	@Setup(Level.Trial)
+	public void open() throws IOException {
+		this.directory = Files.createTempDirectory("question-threading");
+		this.repository = new FileQuestionRepository(this.directory);
+		this.questionService = new QuestionService(new AdaptiveSortingStrategy(new QuestionTypeComparator()), this.repository);
+		this.executor = this.threads.equals("VIRTUAL") ? newVirtualThreadPerTaskExecutor() : Executors.newFixedThreadPool(PLATFORM_POOL_SIZE);
+	}
+	
+	@TearDown(Level.Trial)
+	public void close() throws InterruptedException {
+		this.executor.shutdown();
+		this.executor.awaitTermination(1, TimeUnit.MINUTES);
+		this.repository.close();
+		PersistenceBenchmark.deleteDirectory(this.directory);
+	}
+	
+	/**
+	 * Serves one burst of requests and waits for the last to finish.
+	 */
+	@Benchmark
+	public void burst() throws InterruptedException {
+		CountDownLatch done = new CountDownLatch(this.concurrency);
+		for (int i = 0; i < this.concurrency; i++) {
+			this.executor.execute(() -> {
+				try {
+					request();
+				} finally {
+					done.countDown();
+				}
+			});
+		}
+		done.await();
+	}
+	
+	private void request() {
+		Question question = new Question("a valid question", "a valid answer");
+		this.questionService.setQuestion(question);
+		this.questionService.getQuestion(question.getID());
+		if (this.latencyMillis > 0) {
+			try {
+				Thread.sleep(this.latencyMillis);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		this.questionService.delete(question.getID());
+	}
+	
+	/**
+	 * Looks up Executors.newVirtualThreadPerTaskExecutor, so the benchmarks still compile for Java 17.
+	 */
+	private static ExecutorService newVirtualThreadPerTaskExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Virtual threads need Java 21 or later!", e);
+		}
+	}
+}
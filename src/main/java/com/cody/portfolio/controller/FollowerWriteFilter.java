@@ -0,0 +1,47 @@
+package com.cody.portfolio.controller;
+
+import java.io.IOException;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+
+import tools.jackson.databind.json.JsonMapper;
+
+import com.cody.portfolio.controller.dto.ApiResponse;
+
+/**
+ * Refuses writes to /questions on a replication follower with 403 and the leader to send them to,
+ * since a follower's Questions are replaced by what it copies from the leader.
+ * Reads, quizzes, and grading are served as usual.
+ */
+@Component
+@ConditionalOnProperty(name = "quiz.replication.role", havingValue = "follower")
+public class FollowerWriteFilter extends OncePerRequestFilter {
+	private final JsonMapper jsonMapper;
+	private final String leaderUrl;
+	
+	public FollowerWriteFilter(JsonMapper jsonMapper, @Value("${quiz.replication.leader-url}") String leaderUrl) {
+		this.jsonMapper = jsonMapper;
+		this.leaderUrl = leaderUrl;
+	}
+	
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws ServletException, IOException {
+		if (!request.getRequestURI().startsWith("/questions/") || request.getMethod().equals("GET") || request.getMethod().equals("HEAD")) {
+			chain.doFilter(request, response);
+			return;
+		}
+		response.setStatus(HttpStatus.FORBIDDEN.value());
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		this.jsonMapper.writeValue(response.getOutputStream(), new ApiResponse(false, "Failed: This instance is a read-only follower; send writes to " + this.leaderUrl + "!"));
+	}
+}
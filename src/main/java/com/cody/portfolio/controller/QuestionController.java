@@ -1,45 +1,106 @@
 package com.cody.portfolio.controller;
 
 import java.util.UUID;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ThreadLocalRandom;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.MappingIterator;
+import tools.jackson.databind.json.JsonMapper;
 
 import com.cody.portfolio.domain.Question;
-import com.cody.portfolio.service.QuestionService;
+import com.cody.portfolio.domain.IdGenerator;
+import com.cody.portfolio.service.QuestionPage;
+import com.cody.portfolio.service.QuestionBank;
+import com.cody.portfolio.service.StoreOutcome;
+import com.cody.portfolio.service.persistence.StorageFullException;
 import com.cody.portfolio.controller.dto.ApiResponse;
 import com.cody.portfolio.controller.dto.QuestionBody;
+import com.cody.portfolio.controller.dto.ImportResult;
 
 /**
  * This controller is responsible for managing Questions. 
  * 
  * Provides explicit endpoints for creating, retrieving, listing, and deleting Questions.
- * Domain logic and state are delegated to QuestionService; this conroller is the REST endpoint.
+ * Domain logic and state are delegated to the QuestionBank; this conroller is the REST endpoint.
+ * 
+ * get-all and get-many carry a strong ETag built from the QuestionBank version (per Type for get-many)
+ * and must be revalidated by caches. A request whose If-None-Match holds the current ETag is answered
+ * with 304 before any Questions are read or serialized.
+ * Their bodies are encoded once per version into a ResponseCache, as UTF-8 JSON or gzip when the client accepts it,
+ * and written as bytes without passing through Jackson again.
+ * The ResponseCache hits, misses, and size are published to the MeterRegistry when there is one.
  */
 @RestController
 @RequestMapping("/questions")
 public class QuestionController {
-	private final QuestionService questionService;
+	private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+	private static final int EXPORT_FLUSH_INTERVAL = 256; // Questions written between flushes.
+	private static final int IMPORT_BATCH_SIZE = 512; // Questions stored per QuestionService write.
+	private static final String STORED = "Success: Question stored!";
+	private static final String FULL = "Failed: The question array is full!";
+	private static final CacheControl REVALIDATE = CacheControl.noCache(); // Caches may store responses but must check their ETag.
+	
+	private final QuestionBank questionService;
+	private final IdGenerator ids;
+	private final ObjectWriter questionWriter;
+	private final ObjectWriter resultWriter;
+	private final ObjectReader questionBodyReader;
+	private final ObjectWriter listWriter;
+	private final ResponseCache responseCache;
+	private final String etagPrefix; // Versions restart with the service, so ETags from an earlier run must not match.
 	
-	public QuestionController(QuestionService questionService) {
+	/**
+	 * @param ids The IdGenerator that assigns the id of each Question created from a request.
+	 * @param responseCacheBytes The byte budget of the encoded get-all and get-many bodies; 0 disables the cache.
+	 * @param meterRegistry The registry the ResponseCache meters are published through, if any.
+	 */
+	public QuestionController(QuestionBank questionService, IdGenerator ids, JsonMapper jsonMapper, @Value("${quiz.response-cache.max-bytes:67108864}") long responseCacheBytes, ObjectProvider<MeterRegistry> meterRegistry) {
 		this.questionService = questionService;
+		this.ids = ids;
+		this.listWriter = jsonMapper.writerFor(Question[].class);
+		this.responseCache = new ResponseCache(responseCacheBytes);
+		meterRegistry.ifAvailable(this.responseCache::bindTo);
+		this.etagPrefix = Long.toHexString(ThreadLocalRandom.current().nextLong());
+		this.questionWriter = jsonMapper.writerFor(Question.class);
+		this.resultWriter = jsonMapper.writerFor(ImportResult.class);
+		this.questionBodyReader = jsonMapper.readerFor(QuestionBody.class);
 	}
 	
 	@PostMapping("/set-single")
 	public ResponseEntity<ApiResponse> setQuestion(@RequestBody QuestionBody questionBody) {
 		try {
 			
-			Question question = new Question(
-					questionBody.question(),
-					questionBody.answer()
-			);
+			Question question = toQuestion(questionBody);
 					
 			boolean success = questionService.setQuestion(question);
 			
 			if (success) {
-				return ResponseEntity.ok(new ApiResponse(true, "Success: Question stored!"));
+				return ResponseEntity.ok(new ApiResponse(true, storedMessage(question)));
 			} else {
-				return ResponseEntity.badRequest().body(new ApiResponse(false, "Failed: The question array is full!"));
+				return ResponseEntity.badRequest().body(new ApiResponse(false, FULL));
 			}
 			
 		} catch (IllegalArgumentException e) {
@@ -47,6 +108,55 @@ public class QuestionController {
 		}
 	}
 	
+	/**
+	 * Stores many Questions from a JSON array or a newline delimited JSON stream of QuestionBody objects.
+	 * The request is parsed and validated one Question at a time, and valid Questions are stored in
+	 * batches, each as a single QuestionService write. One ImportResult per Question is streamed back
+	 * as newline delimited JSON after each batch, so neither the request nor the response is held in memory.
+	 * A malformed document ends the import with a failed result at the position it was found.
+	 */
+	@PostMapping(value = "/set-many", consumes = {MediaType.APPLICATION_JSON_VALUE, "application/x-ndjson"}, produces = "application/x-ndjson")
+	public void setManyQuestions(HttpServletRequest request, HttpServletResponse response) throws IOException {
+		response.setContentType(NDJSON.toString());
+		OutputStream output = response.getOutputStream();
+		
+		Question[] batch = new Question[IMPORT_BATCH_SIZE];
+		ImportResult[] results = new ImportResult[IMPORT_BATCH_SIZE];
+		int batchStart = 0; // Request index of results[0].
+		int count = 0;
+		
+		// readValues reads a root level sequence, or the elements of a root level array.
+		try (MappingIterator<QuestionBody> bodies = questionBodyReader.readValues(request.getInputStream())) {
+			while (true) {
+				QuestionBody body;
+				try {
+					if (!bodies.hasNextValue()) break;
+					body = bodies.nextValue();
+				} catch (JacksonException e) {
+					results[count] = new ImportResult(batchStart + count, false, "Failed: Malformed JSON!", null);
+					count++;
+					break;
+				}
+				
+				try {
+					batch[count] = toQuestion(body);
+					results[count] = null; // Decided when the batch is stored.
+				} catch (IllegalArgumentException e) {
+					batch[count] = null;
+					results[count] = new ImportResult(batchStart + count, false, e.getMessage(), null);
+				}
+				
+				if (++count == IMPORT_BATCH_SIZE) {
+					storeBatch(batch, results, count, batchStart, output);
+					batchStart += count;
+					count = 0;
+				}
+			}
+		}
+		storeBatch(batch, results, count, batchStart, output);
+		output.flush();
+	}
+	
 	@GetMapping("/get-single/{id}")
 	public ResponseEntity<Question> getSingleQuestion(@PathVariable UUID id) {
 		return questionService.getQuestion(id)
@@ -55,17 +165,81 @@ public class QuestionController {
 	}
 	
 	@GetMapping("/get-many/{type}")
-	public ResponseEntity<Question[]> getManyQuestions(@PathVariable Question.Type type) {
-		return questionService.getQuestions(type)
-				.map(array -> ResponseEntity.ok(array))
-				.orElseGet(() -> ResponseEntity.notFound().build());
+	public ResponseEntity<byte[]> getManyQuestions(@PathVariable Question.Type type,
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+			@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+		return list(type.name(), questionService.version(type), ifNoneMatch, acceptEncoding, () -> questionService.getQuestions(type));
+	}
+	
+	@GetMapping("/get-many/{type}/{difficulty}")
+	public ResponseEntity<byte[]> getManyQuestions(@PathVariable Question.Type type, @PathVariable Question.Difficulty difficulty,
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+			@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+		return list(type.name() + "-" + difficulty.name(), questionService.version(type), ifNoneMatch, acceptEncoding, () -> questionService.getQuestions(type, difficulty));
+	}
+	
+	@GetMapping(value = "/get-many/{type}", params = "limit")
+	public ResponseEntity<QuestionPage> getManyQuestionsPage(@PathVariable Question.Type type, @RequestParam int limit, @RequestParam(required = false) String after) {
+		return ResponseEntity.ok(questionService.getQuestionsPage(type, after, limit));
+	}
+	
+	@GetMapping(value = "/get-many/{type}/{difficulty}", params = "limit")
+	public ResponseEntity<QuestionPage> getManyQuestionsPage(@PathVariable Question.Type type, @PathVariable Question.Difficulty difficulty, @RequestParam int limit, @RequestParam(required = false) String after) {
+		return ResponseEntity.ok(questionService.getQuestionsPage(type, difficulty, after, limit));
 	}
 	
 	@GetMapping("/get-all")
-	public ResponseEntity<Question[]> getAllQuestions() {
-		return questionService.getAll()
-				.map(array -> ResponseEntity.ok(array))
-				.orElseGet(() -> ResponseEntity.notFound().build());
+	public ResponseEntity<byte[]> getAllQuestions(
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+			@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+		return list("all", questionService.version(), ifNoneMatch, acceptEncoding, () -> questionService.getAll());
+	}
+	
+	@GetMapping(value = "/get-all", params = "limit")
+	public ResponseEntity<QuestionPage> getAllQuestionsPage(@RequestParam int limit, @RequestParam(required = false) String after) {
+		return ResponseEntity.ok(questionService.getAllPage(after, limit));
+	}
+	
+	/**
+	 * Finds the Questions whose text contains every word of q, most relevant first, one page at a time.
+	 */
+	@GetMapping("/search")
+	public ResponseEntity<QuestionPage> searchQuestions(@RequestParam String q, @RequestParam(defaultValue = "20") int limit, @RequestParam(required = false) String after) {
+		return ResponseEntity.ok(questionService.search(q, after, limit));
+	}
+	
+	/**
+	 * Streams the Questions as newline delimited JSON, one Question per line, while walking the store.
+	 * Only one Question is encoded at a time, so memory use does not grow with the number of Questions.
+	 */
+	@GetMapping("/export-all")
+	public ResponseEntity<StreamingResponseBody> exportQuestions(@RequestParam(required = false) Question.Type type, @RequestParam(required = false) Question.Difficulty difficulty) {
+		Iterator<Question> questions = questionService.stream(type, difficulty).iterator();
+		
+		StreamingResponseBody body = (OutputStream output) -> {
+			int written = 0;
+			while (questions.hasNext()) {
+				output.write(questionWriter.writeValueAsBytes(questions.next()));
+				output.write('\n');
+				if (++written % EXPORT_FLUSH_INTERVAL == 0) output.flush();
+			}
+			output.flush();
+		};
+		return ResponseEntity.ok().contentType(NDJSON).body(body);
+	}
+	
+	/**
+	 * Replaces the question text, the answer text, or both; Type and Difficulty in the body are ignored.
+	 */
+	@PutMapping("/edit-single/{id}")
+	public ResponseEntity<ApiResponse> editQuestion(@PathVariable UUID id, @RequestBody QuestionBody questionBody) {
+		boolean success = questionService.edit(id, questionBody.question(), questionBody.answer());
+		
+		if (success) {
+			return ResponseEntity.ok(new ApiResponse(true, "Success: Question edited!"));
+		} else {
+			return ResponseEntity.badRequest().body(new ApiResponse(false, "Failed: Question not found in array!"));
+		}
 	}
 	
 	@DeleteMapping("/delete-single/{id}")
@@ -78,4 +252,163 @@ public class QuestionController {
 			return ResponseEntity.badRequest().body(new ApiResponse(false, "Failed: Question not found in array!"));
 		}
 	}
+	
+	/**
+	 * Creates a Question from a request body, with an id from the IdGenerator.
+	 * Type and Difficulty are optional; unknown names are rejected by valueOf.
+	 * 
+	 * @throws IllegalArgumentException If the body does not describe a valid Question.
+	 */
+	private Question toQuestion(QuestionBody questionBody) {
+		if (questionBody == null) throw new IllegalArgumentException("The question body must not be null!");
+		Question question = new Question(
+				questionBody.question(),
+				questionBody.answer(),
+				this.ids.next()
+		);
+		if (questionBody.type() != null) question.setType(Question.Type.valueOf(questionBody.type()));
+		if (questionBody.difficulty() != null) question.setDifficulty(Question.Difficulty.valueOf(questionBody.difficulty()));
+		return question;
+	}
+	
+	/**
+	 * Stores the valid Questions of a batch with one write, then writes a result line for every batch position.
+	 * Positions that already hold a result failed validation or parsing.
+	 */
+	private void storeBatch(Question[] batch, ImportResult[] results, int count, int batchStart, OutputStream output) throws IOException {
+		int valid = 0;
+		Question[] accepted = new Question[count];
+		for (int i = 0; i < count; i++) {
+			if (results[i] == null) accepted[valid++] = batch[i];
+		}
+		StoreOutcome outcomes[];
+		String full = null;
+		try {
+			outcomes = (valid == 0) ? new StoreOutcome[0] : questionService.setQuestions(Arrays.copyOf(accepted, valid));
+		} catch (StorageFullException e) {
+			// The response is already streaming, so the batch is reported as failed instead of answering 507.
+			outcomes = null;
+			full = e.getMessage();
+		}
+		
+		int next = 0;
+		for (int i = 0; i < count; i++) {
+			if (results[i] == null && outcomes == null) {
+				results[i] = new ImportResult(batchStart + i, false, full, null);
+			} else if (results[i] == null) {
+				StoreOutcome outcome = outcomes[next++];
+				boolean success = outcome.stored();
+				results[i] = new ImportResult(batchStart + i, success, success ? storedMessage(batch[i]) : notStoredMessage(batch[i], outcome), success ? batch[i].getID() : null);
+			}
+			output.write(resultWriter.writeValueAsBytes(results[i]));
+			output.write('\n');
+			batch[i] = null;
+			results[i] = null;
+		}
+		output.flush();
+	}
+	
+	/**
+	 * Answers a list endpoint: 304 if the client holds the current ETag, 404 if the list is empty,
+	 * otherwise the encoded body from the ResponseCache.
+	 * The version is read before the Questions, so a write in between can only make the ETag older than
+	 * the body, which costs the client one more full response rather than a stale 304.
+	 * 
+	 * @param view The name of the list, unique among the list endpoints.
+	 * @param version The version of the list, read before the list itself.
+	 */
+	private ResponseEntity<byte[]> list(String view, long version, String ifNoneMatch, String acceptEncoding, Supplier<Optional<Question[]>> read) {
+		boolean gzip = acceptsGzip(acceptEncoding);
+		String etag = etag(view, version, gzip);
+		if (matches(ifNoneMatch, etag)) return notModified(etag);
+		
+		byte body[] = responseCache.body(view, version, gzip, () -> read.get().map(listWriter::writeValueAsBytes).orElse(null));
+		if (body == null) return ResponseEntity.notFound().build();
+		
+		ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+				.eTag(etag)
+				.cacheControl(REVALIDATE)
+				.varyBy(HttpHeaders.ACCEPT_ENCODING)
+				.contentType(MediaType.APPLICATION_JSON);
+		if (gzip) response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+		return response.body(body);
+	}
+	
+	/**
+	 * Builds a strong ETag for a view of the Questions at a version; the gzip body is a different representation.
+	 */
+	private String etag(String view, long version, boolean gzip) {
+		return "\"" + etagPrefix + "-" + view + "-" + version + (gzip ? "-gzip" : "") + "\"";
+	}
+	
+	/**
+	 * Returns true if an Accept-Encoding header accepts gzip, that is lists it without a zero quality.
+	 */
+	private static boolean acceptsGzip(String acceptEncoding) {
+		if (acceptEncoding == null) return false;
+		for (String candidate : acceptEncoding.split(",")) {
+			String parameters[] = candidate.trim().split(";");
+			if (!parameters[0].trim().equalsIgnoreCase("gzip")) continue;
+			for (int i = 1; i < parameters.length; i++) {
+				if (parameters[i].trim().matches("[qQ]=0(\\.0*)?")) return false;
+			}
+			return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Returns true if an If-None-Match header lists the ETag. GET compares weakly, so a W/ prefix is ignored.
+	 */
+	private static boolean matches(String ifNoneMatch, String etag) {
+		if (ifNoneMatch == null) return false;
+		for (String candidate : ifNoneMatch.split(",")) {
+			String tag = candidate.trim();
+			if (tag.startsWith("W/")) tag = tag.substring(2);
+			if (tag.equals(etag)) return true;
+		}
+		return false;
+	}
+	
+	private static <T> ResponseEntity<T> notModified(String etag) {
+		return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDATE).varyBy(HttpHeaders.ACCEPT_ENCODING).build();
+	}
+	
+	/**
+	 * Returns the message for a stored Question, naming the Question it nearly repeats when the service flags one.
+	 */
+	private String storedMessage(Question question) {
+		return questionService.findNearDuplicate(question)
+				.map((Question duplicate) -> STORED + " It is a near-duplicate of " + duplicate.getID() + "!")
+				.orElse(STORED);
+	}
+	
+	/**
+	 * Returns the message for a Question a bulk import did not store, from the reason the service gave.
+	 */
+	private String notStoredMessage(Question question, StoreOutcome outcome) {
+		return switch (outcome) {
+			case NEAR_DUPLICATE -> questionService.findNearDuplicate(question)
+					.map((Question duplicate) -> "The question is a near-duplicate of " + duplicate.getID() + "!")
+					.orElse("The question is a near-duplicate of another question in the import!");
+			case STORED_ID -> "Failed: A question with this id is already stored!";
+			default -> FULL;
+		};
+	}
+	
+	/**
+	 * Reports invalid request parameters, such as a malformed page cursor, as a bad request.
+	 */
+	@ExceptionHandler(IllegalArgumentException.class)
+	public ResponseEntity<ApiResponse> handleIllegalArgument(IllegalArgumentException e) {
+		return ResponseEntity.badRequest().body(new ApiResponse(false, e.getMessage()));
+	}
+	
+	/**
+	 * Reports a write the storage has no room for as 507, rather than failing it as an internal error.
+	 */
+	@ExceptionHandler(StorageFullException.class)
+	public ResponseEntity<ApiResponse> handleStorageFull(StorageFullException e) {
+		return ResponseEntity.status(HttpStatus.INSUFFICIENT_STORAGE).body(new ApiResponse(false, e.getMessage()));
+	}
 }
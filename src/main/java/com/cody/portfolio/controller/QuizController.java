@@ -0,0 +1,150 @@
+package com.cody.portfolio.controller;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.List;
+import java.util.UUID;
+import java.util.Random;
+import java.util.EnumMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import com.cody.portfolio.domain.Question;
+import com.cody.portfolio.service.QuestionBank;
+import com.cody.portfolio.service.grading.Grade;
+import com.cody.portfolio.service.stats.QuestionStats;
+import com.cody.portfolio.service.stats.StatsSnapshot;
+import com.cody.portfolio.controller.dto.ApiResponse;
+import com.cody.portfolio.controller.dto.GradeReport;
+import com.cody.portfolio.controller.dto.GradeRequest;
+import com.cody.portfolio.controller.dto.Submission;
+import com.cody.portfolio.controller.dto.Quiz;
+
+/**
+ * This controller is responsible for serving quizzes drawn from the stored Questions, grading the answers,
+ * and reporting how each Question is used.
+ * Sampling, grading, and statistics are delegated to the QuestionBank; this controller is the REST endpoint.
+ */
+@RestController
+@RequestMapping("/quizzes")
+public class QuizController {
+	private final QuestionBank questionService;
+	
+	public QuizController(QuestionBank questionService) {
+		this.questionService = questionService;
+	}
+	
+	/**
+	 * Draws count distinct Questions at random, optionally limited to some Types and Difficulties.
+	 * A mix sets how many Questions of each Type (typeCounts) or of each Difficulty (difficultyCounts) are drawn,
+	 * as Name:count pairs such as typeCounts=Programming:3,Networks:2; the quiz then holds their sum.
+	 * Without a seed a random one is chosen; the response always carries the seed used.
+	 */
+	@GetMapping("/generate")
+	public ResponseEntity<Quiz> generateQuiz(
+			@RequestParam(required = false) Integer count,
+			@RequestParam(required = false) Set<Question.Type> type,
+			@RequestParam(required = false) Set<Question.Difficulty> difficulty,
+			@RequestParam(required = false) List<String> typeCounts,
+			@RequestParam(required = false) List<String> difficultyCounts,
+			@RequestParam(required = false) Long seed) {
+		if (typeCounts != null && difficultyCounts != null) throw new IllegalArgumentException("The parameters typeCounts and difficultyCounts must not both be given!");
+		if (typeCounts != null && type != null) throw new IllegalArgumentException("The parameters type and typeCounts must not both be given!");
+		if (difficultyCounts != null && difficulty != null) throw new IllegalArgumentException("The parameters difficulty and difficultyCounts must not both be given!");
+		long quizSeed = (seed != null) ? seed : ThreadLocalRandom.current().nextLong();
+		Random random = new Random(quizSeed);
+		
+		Question[] questions;
+		if (typeCounts != null) {
+			questions = questionService.sampleByType(mix(typeCounts, Question.Type.class, "typeCounts", count), difficulty, random);
+		} else if (difficultyCounts != null) {
+			questions = questionService.sampleByDifficulty(mix(difficultyCounts, Question.Difficulty.class, "difficultyCounts", count), type, random);
+		} else {
+			if (count == null) throw new IllegalArgumentException("The parameter count must be given unless typeCounts or difficultyCounts is!");
+			questions = questionService.sample(type, difficulty, count, random);
+		}
+		return ResponseEntity.ok(new Quiz(quizSeed, questions));
+	}
+	
+	/**
+	 * Grades a batch of submitted answers against the stored answers in one request.
+	 * Unknown Question ids grade UNKNOWN rather than failing the batch; every other answer counts as an attempt.
+	 */
+	@PostMapping("/grade")
+	public ResponseEntity<GradeReport> grade(@RequestBody GradeRequest request) {
+		Submission[] submissions = request.submissions();
+		if (submissions == null) throw new IllegalArgumentException("The parameter submissions must not be null!");
+		UUID[] ids = new UUID[submissions.length];
+		String[] answers = new String[submissions.length];
+		long[] answerMillis = new long[submissions.length];
+		for (int i = 0; i < submissions.length; i++) {
+			if (submissions[i] == null) throw new IllegalArgumentException("The parameter submissions must not hold null!");
+			ids[i] = submissions[i].questionId();
+			answers[i] = submissions[i].answer();
+			answerMillis[i] = (submissions[i].answerMillis() == null) ? 0 : submissions[i].answerMillis();
+		}
+		
+		Grade[] grades = questionService.grade(ids, answers, answerMillis, (request.maxEdits() == null) ? 0 : request.maxEdits());
+		int correct = 0;
+		for (Grade grade : grades) {
+			if (grade == Grade.CORRECT) correct++;
+		}
+		return ResponseEntity.ok(new GradeReport(correct, grades));
+	}
+	
+	/**
+	 * Returns the last periodic snapshot of the statistics of every Question served or attempted, most attempted first.
+	 */
+	@GetMapping("/stats")
+	public ResponseEntity<StatsSnapshot> getStats() {
+		return ResponseEntity.ok(questionService.getStatsSnapshot());
+	}
+	
+	/**
+	 * Returns the current statistics of one Question.
+	 */
+	@GetMapping("/stats/{id}")
+	public ResponseEntity<QuestionStats> getStats(@PathVariable UUID id) {
+		return questionService.getStats(id)
+				.map(ResponseEntity::ok)
+				.orElseGet(() -> ResponseEntity.notFound().build());
+	}
+	
+	/**
+	 * A helper method that parses the Name:count pairs of a quiz mix.
+	 * 
+	 * @param count The count given alongside the mix, or null; if given it must equal the sum of the mix.
+	 * @throws IllegalArgumentException If a pair is malformed, names an unknown category or one already given,
+	 * or the counts do not add up to count.
+	 */
+	private static <C extends Enum<C>> Map<C, Integer> mix(List<String> pairs, Class<C> category, String parameter, Integer count) {
+		EnumMap<C, Integer> mix = new EnumMap<>(category);
+		long sum = 0;
+		for (String pair : pairs) {
+			int colon = pair.indexOf(':');
+			if (colon < 0) throw new IllegalArgumentException("The parameter " + parameter + " must hold Name:count pairs!");
+			C name;
+			int wanted;
+			try {
+				name = Enum.valueOf(category, pair.substring(0, colon).trim());
+				wanted = Integer.parseInt(pair.substring(colon + 1).trim());
+			} catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException("The parameter " + parameter + " must hold Name:count pairs of a known " + category.getSimpleName() + " and a number!");
+			}
+			if (mix.put(name, wanted) != null) throw new IllegalArgumentException("The parameter " + parameter + " must not name " + name + " twice!");
+			sum += wanted;
+		}
+		if (count != null && count != sum) throw new IllegalArgumentException("The parameter count must equal the sum of " + parameter + "!");
+		return mix;
+	}
+	
+	/**
+	 * Reports an invalid count or mix, a count the matching Questions cannot fill, or an invalid grading batch, as a bad request.
+	 */
+	@ExceptionHandler(IllegalArgumentException.class)
+	public ResponseEntity<ApiResponse> handleIllegalArgument(IllegalArgumentException e) {
+		return ResponseEntity.badRequest().body(new ApiResponse(false, e.getMessage()));
+	}
+}
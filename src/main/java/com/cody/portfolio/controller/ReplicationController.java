@@ -0,0 +1,65 @@
+package com.cody.portfolio.controller;
+
+import java.io.IOException;
+import java.io.DataOutputStream;
+import java.io.ByteArrayOutputStream;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.web.bind.annotation.*;
+
+import com.cody.portfolio.controller.dto.ApiResponse;
+import com.cody.portfolio.service.replication.ReplicationLog;
+
+/**
+ * This controller is responsible for serving a leader's ReplicationLog to followers.
+ * The bodies are the binary output of ReplicationLog.writeFrames and writeSnapshot.
+ * On an instance that is not a leader every endpoint answers 404.
+ */
+@RestController
+@RequestMapping("/replication")
+public class ReplicationController {
+	private final ObjectProvider<ReplicationLog> replicationLog;
+	
+	public ReplicationController(ObjectProvider<ReplicationLog> replicationLog) {
+		this.replicationLog = replicationLog;
+	}
+	
+	/**
+	 * Returns the writes after a follower's offset, waiting up to waitMillis for one when there are none yet.
+	 */
+	@GetMapping("/log")
+	public ResponseEntity<?> getLog(@RequestParam long epoch, @RequestParam long after, @RequestParam(defaultValue = "0") long waitMillis) throws IOException, InterruptedException {
+		ReplicationLog log = this.replicationLog.getIfAvailable();
+		if (log == null) return notLeader();
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		log.writeFrames(epoch, after, waitMillis, new DataOutputStream(body));
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_OCTET_STREAM).body(body.toByteArray());
+	}
+	
+	/**
+	 * Returns every stored Question as of the latest replication snapshot, with its offset.
+	 */
+	@GetMapping("/snapshot")
+	public ResponseEntity<?> getSnapshot() throws IOException {
+		ReplicationLog log = this.replicationLog.getIfAvailable();
+		if (log == null) return notLeader();
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		log.writeSnapshot(new DataOutputStream(body));
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_OCTET_STREAM).body(body.toByteArray());
+	}
+	
+	/**
+	 * Reports an out of range waitMillis as a bad request.
+	 */
+	@ExceptionHandler(IllegalArgumentException.class)
+	public ResponseEntity<ApiResponse> handleIllegalArgument(IllegalArgumentException e) {
+		return ResponseEntity.badRequest().body(new ApiResponse(false, e.getMessage()));
+	}
+	
+	private static ResponseEntity<ApiResponse> notLeader() {
+		return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ApiResponse(false, "Failed: This instance is not a replication leader!"));
+	}
+}
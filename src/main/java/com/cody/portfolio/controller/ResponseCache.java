@@ -0,0 +1,184 @@
+package com.cody.portfolio.controller;
+
+import java.util.Map;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.function.Supplier;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.ByteArrayOutputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.concurrent.locks.ReentrantLock;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Encoded response bodies of the list endpoints, so an unchanged list is serialized once rather than per request.
+ * 
+ * Each view (get-all, or get-many for a Type and optionally a Difficulty) keeps the body for one version: the UTF-8
+ * JSON, and its gzip compression once a client has accepted it. A request at a newer version replaces the entry,
+ * so a version bump evicts it. Entries are dropped least recently used first to keep the total size within a
+ * byte budget, and a body larger than the whole budget is encoded for its request without being kept.
+ * 
+ * Bodies are encoded outside the lock, so concurrent misses on one view may each encode it once.
+ * Hits and misses are counted under the lock the lookup already takes, and published by bindTo.
+ */
+final class ResponseCache implements MeterBinder {
+	private final long maxBytes;
+	private final ReentrantLock lock;
+	
+	// Guarded by lock.
+	private final LinkedHashMap<String, Entry> entries; // In access order, least recently used first.
+	private long bytes;
+	private long hits;
+	private long misses; // Lookups that encoded the JSON, the gzip body, or both.
+	
+	/**
+	 * @param maxBytes The largest total size of the kept bodies; 0 keeps none.
+	 * @throws IllegalArgumentException If maxBytes is negative.
+	 */
+	ResponseCache(long maxBytes) {
+		if (maxBytes < 0) throw new IllegalArgumentException("The parameter maxBytes must not be negative!");
+		this.maxBytes = maxBytes;
+		this.lock = new ReentrantLock();
+		this.entries = new LinkedHashMap<>(16, 0.75f, true);
+	}
+	
+	/**
+	 * Returns the body of a view at a version, encoding it only if it is not kept yet.
+	 * 
+	 * @param view The name of the view.
+	 * @param version The version the body is read at; read it before reading the content.
+	 * @param gzip True for the gzip compressed body.
+	 * @param encoder Encodes the UTF-8 JSON body, or returns null when the view has no content.
+	 * @return The body, or null if the encoder returned null.
+	 */
+	byte[] body(String view, long version, boolean gzip, Supplier<byte[]> encoder) {
+		byte json[] = null;
+		this.lock.lock();
+		try {
+			Entry entry = this.entries.get(view);
+			if (entry != null && entry.version() == version) {
+				if (!gzip || entry.gzip() != null) {
+					this.hits++;
+					return gzip ? entry.gzip() : entry.json();
+				}
+				json = entry.json();
+			}
+			this.misses++;
+		} finally {
+			this.lock.unlock();
+		}
+		
+		if (json == null) json = encoder.get();
+		if (json == null) return null;
+		byte compressed[] = gzip ? gzip(json) : null;
+		keep(view, new Entry(version, json, compressed));
+		return gzip ? compressed : json;
+	}
+	
+	/**
+	 * Returns the total size of the kept bodies.
+	 */
+	long bytes() {
+		this.lock.lock();
+		try {
+			return this.bytes;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+	
+	/**
+	 * Returns the number of lookups answered with a kept body.
+	 */
+	long hits() {
+		this.lock.lock();
+		try {
+			return this.hits;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+	
+	/**
+	 * Returns the number of lookups that encoded a body.
+	 */
+	long misses() {
+		this.lock.lock();
+		try {
+			return this.misses;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+	
+	/**
+	 * Publishes the hits, misses, and kept bytes; they are read when the registry is scraped.
+	 */
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		FunctionCounter.builder("quiz.response-cache.requests", this, ResponseCache::hits)
+				.description("Lookups of encoded get-all and get-many bodies")
+				.tag("result", "hit")
+				.register(registry);
+		FunctionCounter.builder("quiz.response-cache.requests", this, ResponseCache::misses)
+				.description("Lookups of encoded get-all and get-many bodies")
+				.tag("result", "miss")
+				.register(registry);
+		Gauge.builder("quiz.response-cache.size", this, ResponseCache::bytes)
+				.description("The total size of the kept bodies")
+				.baseUnit("bytes")
+				.register(registry);
+	}
+	
+	/**
+	 * A helper method that keeps an entry unless a newer version of the view is kept, then evicts to the budget.
+	 */
+	private void keep(String view, Entry entry) {
+		if (entry.size() > this.maxBytes) return;
+		this.lock.lock();
+		try {
+			Entry kept = this.entries.get(view);
+			if (kept != null) {
+				if (kept.version() > entry.version()) return;
+				if (kept.version() == entry.version() && kept.gzip() != null && entry.gzip() == null) return;
+				this.bytes -= kept.size();
+			}
+			this.entries.put(view, entry);
+			this.bytes += entry.size();
+			
+			Iterator<Map.Entry<String, Entry>> eldest = this.entries.entrySet().iterator();
+			while (this.bytes > this.maxBytes) {
+				Map.Entry<String, Entry> evicted = eldest.next();
+				this.bytes -= evicted.getValue().size();
+				eldest.remove();
+			}
+		} finally {
+			this.lock.unlock();
+		}
+	}
+	
+	private static byte[] gzip(byte json[]) {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4 + 64);
+		try (GZIPOutputStream output = new GZIPOutputStream(compressed)) {
+			output.write(json);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return compressed.toByteArray();
+	}
+	
+	/**
+	 * The bodies of one view at one version; gzip is null until a client accepts it.
+	 */
+	private record Entry(long version, byte[] json, byte[] gzip) {
+		
+		private long size() {
+			return this.json.length + ((this.gzip == null) ? 0 : this.gzip.length);
+		}
+	}
+}
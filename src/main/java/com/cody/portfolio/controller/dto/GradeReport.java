@@ -0,0 +1,14 @@
+package com.cody.portfolio.controller.dto;
+
+import com.cody.portfolio.service.grading.Grade;
+
+/**
+ * A simple DTO to return the grades of a batch of answers.
+ * 
+ * @param correct The number of answers graded CORRECT.
+ * @param grades The grade of each answer, in the order submitted.
+ */
+public record GradeReport(
+	int correct,
+	Grade[] grades
+) {}
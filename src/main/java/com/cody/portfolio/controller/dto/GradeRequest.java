@@ -0,0 +1,12 @@
+package com.cody.portfolio.controller.dto;
+
+/**
+ * A simple DTO to submit a batch of answers for grading.
+ * 
+ * @param submissions The answers to grade.
+ * @param maxEdits The character edits tolerated between an answer and a long enough stored answer; null if omitted, which allows none.
+ */
+public record GradeRequest(
+	Submission[] submissions,
+	Integer maxEdits
+) {}
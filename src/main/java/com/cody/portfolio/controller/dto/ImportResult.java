@@ -0,0 +1,18 @@
+package com.cody.portfolio.controller.dto;
+
+import java.util.UUID;
+
+/**
+ * A simple DTO to report the outcome of one Question in a bulk import.
+ * 
+ * @param index The zero based position of the Question in the request.
+ * @param success True if the Question was stored.
+ * @param message The same message set-single would respond with.
+ * @param id The id of the stored Question, or null if it was not stored.
+ */
+public record ImportResult(
+	int index,
+	boolean success,
+	String message,
+	UUID id
+) {}
@@ -0,0 +1,14 @@
+package com.cody.portfolio.controller.dto;
+
+import com.cody.portfolio.domain.Question;
+
+/**
+ * A simple DTO to return a generated quiz.
+ * 
+ * @param seed The seed the quiz was drawn with; passing it back draws the same quiz while the stored Questions are unchanged.
+ * @param questions The drawn Questions, in quiz order.
+ */
+public record Quiz(
+	long seed,
+	Question[] questions
+) {}
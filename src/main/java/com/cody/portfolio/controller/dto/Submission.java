@@ -0,0 +1,16 @@
+package com.cody.portfolio.controller.dto;
+
+import java.util.UUID;
+
+/**
+ * A simple DTO to submit one answer for grading.
+ * 
+ * @param questionId The id of the Question answered.
+ * @param answer The submitted answer text.
+ * @param answerMillis The time taken to answer, counted in the Question's statistics; null if omitted.
+ */
+public record Submission(
+	UUID questionId,
+	String answer,
+	Long answerMillis
+) {}
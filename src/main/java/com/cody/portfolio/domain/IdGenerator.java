@@ -0,0 +1,18 @@
+package com.cody.portfolio.domain;
+
+import java.util.UUID;
+
+/**
+ * Assigns the identifier of each new Question.
+ * Implementations must be safe for concurrent use and must not return an id twice.
+ */
+@FunctionalInterface
+public interface IdGenerator {
+	/** Random version 4 UUIDs from UUID.randomUUID, which draws on a shared SecureRandom. */
+	IdGenerator RANDOM = UUID::randomUUID;
+	
+	/**
+	 * Returns a new, unique identifier.
+	 */
+	UUID next();
+}
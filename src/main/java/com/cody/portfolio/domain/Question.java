@@ -6,7 +6,8 @@ import java.util.UUID;
  * Represents a single quiz question within the domain.
  * A Question must always contain non-null, non-blank text for both
  * the question and the answer. This invariant is enforced at construction and at modification.
- * Each Question is assigned a unique, opaque identifier (UUID) on creation.
+ * Each Question is assigned a unique, opaque identifier (UUID) on creation: the one given, or otherwise one from
+ * a TimeOrderedIdGenerator for node 0. The application creates Questions with ids from its configured IdGenerator.
  */
 public class Question {
 	private Type type;
@@ -15,12 +16,31 @@ public class Question {
 	private String answer;
 	private final UUID uuid;
 	
+	private static final IdGenerator DEFAULT_IDS = new TimeOrderedIdGenerator(0);
+	
 	public Question(String question, String answer) {
+		this(question, answer, DEFAULT_IDS.next());
+	}
+	
+	/**
+	 * Creates a Question with a known identifier, for example when loading stored Questions
+	 * or when the id comes from an IdGenerator.
+	 */
+	public Question(String question, String answer, UUID id) {
 		if (question == null || question.isBlank()) throw new IllegalArgumentException("The parameter question must have non-null, non-blank text!");
 		if (answer == null || answer.isBlank())  throw new IllegalArgumentException("The parameter answer must have non-null, non-blank text!");
+		if (id == null) throw new IllegalArgumentException("The parameter id must not be null!");
 		this.question = question;
 		this.answer = answer;
-		this.uuid = UUID.randomUUID();
+		this.uuid = id;
+	}
+	
+	/**
+	 * Creates a Question whose state is held outside this object, such as a view of a stored record.
+	 * Subclasses must override every getter and setter.
+	 */
+	protected Question() {
+		this.uuid = null;
 	}
 	
 	public void setType(Type type) {
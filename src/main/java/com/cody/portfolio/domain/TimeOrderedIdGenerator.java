@@ -0,0 +1,89 @@
+package com.cody.portfolio.domain;
+
+import java.util.UUID;
+import java.util.function.LongSupplier;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generates version 7 UUIDs: a 48-bit millisecond timestamp first, so ids sort by creation time and land next to
+ * each other in ordered indexes and logs, followed by bits that keep ids unique without coordination.
+ * 
+ * Bits after the version and variant, from most significant:
+ * 48  timestamp       Milliseconds since the epoch.
+ * 12  sequence, high  
+ * 10  node            The node id, so generators on different nodes never collide.
+ * 22  thread tag      The low bits of the thread's id, so threads on one node never collide.
+ * 30  sequence, low   
+ * 
+ * Each thread keeps its own timestamp and 42-bit sequence, so generating takes no lock, no shared atomic, and no
+ * SecureRandom. The sequence starts at a random 32-bit value every millisecond and counts up within it, so a thread's
+ * ids are strictly increasing even if the clock steps back. The JVM never reuses a thread id, so tags only repeat
+ * after 2^22 threads; two live threads sharing a tag would also need the same random sequence start in the same
+ * millisecond to collide.
+ * 
+ * The state is held in a ThreadLocal. A platform thread creates it once and reuses it for every id it generates.
+ * A virtual thread usually serves one request, so it creates its state on its first id, one small allocation,
+ * and reuses it for the rest of the request, for example every Question of an import.
+ */
+public final class TimeOrderedIdGenerator implements IdGenerator {
+	/** The largest node id. */
+	public static final int MAX_NODE = (1 << 10) - 1;
+	
+	private static final int TAG_BITS = 22;
+	private static final int LOW_BITS = 30;
+	private static final long LOW_MASK = (1L << LOW_BITS) - 1;
+	private static final long MAX_SEQUENCE = (1L << 42) - 1;
+	private static final long VERSION = 7L << 12;
+	private static final long VARIANT = 2L << 62;
+	
+	private final long node;
+	private final LongSupplier clock;
+	private final ThreadLocal<State> states;
+	
+	/**
+	 * @param node This node's id, between 0 and MAX_NODE, unique among the nodes that create Questions.
+	 * @throws IllegalArgumentException If node is out of range.
+	 */
+	public TimeOrderedIdGenerator(int node) {
+		this(node, System::currentTimeMillis);
+	}
+	
+	/**
+	 * Creates a generator that reads the time in milliseconds from a clock, for tests.
+	 */
+	TimeOrderedIdGenerator(int node, LongSupplier clock) {
+		if (node < 0 || node > MAX_NODE) throw new IllegalArgumentException("The parameter node must be between 0 and " + MAX_NODE + "!");
+		this.node = node;
+		this.clock = clock;
+		this.states = ThreadLocal.withInitial(() -> new State(Thread.currentThread().getId()));
+	}
+	
+	@Override
+	public UUID next() {
+		State state = this.states.get();
+		long now = this.clock.getAsLong();
+		if (now > state.millis) {
+			state.millis = now;
+			state.sequence = ThreadLocalRandom.current().nextInt() & 0xFFFFFFFFL;
+		} else if (++state.sequence > MAX_SEQUENCE) {
+			state.millis++; // Borrow the next millisecond rather than repeat a sequence.
+			state.sequence = 0;
+		}
+		long msb = (state.millis << 16) | VERSION | (state.sequence >>> LOW_BITS);
+		long lsb = VARIANT | (this.node << (TAG_BITS + LOW_BITS)) | (state.tag << LOW_BITS) | (state.sequence & LOW_MASK);
+		return new UUID(msb, lsb);
+	}
+	
+	/**
+	 * The timestamp and sequence of one thread's last id.
+	 */
+	private static final class State {
+		private final long tag;
+		private long millis = Long.MIN_VALUE;
+		private long sequence;
+		
+		private State(long tag) {
+			this.tag = tag & ((1L << TAG_BITS) - 1);
+		}
+	}
+}
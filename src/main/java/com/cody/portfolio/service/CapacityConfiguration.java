@@ -0,0 +1,21 @@
+package com.cody.portfolio.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Selects the CapacityPolicy from the application properties.
+ * quiz.capacity.initial is the number of slots allocated up front (20 by default), and quiz.capacity.limit
+ * the largest number of stored Questions, or 0 (the default) to grow as needed.
+ */
+@Configuration
+public class CapacityConfiguration {
+
+	@Bean
+	public CapacityPolicy capacityPolicy(
+			@Value("${quiz.capacity.initial:20}") int initial,
+			@Value("${quiz.capacity.limit:0}") int limit) {
+		return new CapacityPolicy(initial, limit);
+	}
+}
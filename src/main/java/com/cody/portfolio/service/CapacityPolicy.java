@@ -0,0 +1,39 @@
+package com.cody.portfolio.service;
+
+/**
+ * How many Questions QuestionService makes room for, and how many it stores at most.
+ *
+ * @param initial The number of slots allocated up front.
+ * @param limit The largest number of stored Questions, or NO_LIMIT to grow as needed.
+ */
+public record CapacityPolicy(int initial, int limit) {
+	/** A limit of 0 lets the service grow as needed. */
+	public static final int NO_LIMIT = 0;
+
+	/** Room for 20 Questions up front, growing as needed. */
+	public static final CapacityPolicy DEFAULT = new CapacityPolicy(20, NO_LIMIT);
+
+	/**
+	 * @throws IllegalArgumentException If initial is less than 1, or limit is neither NO_LIMIT nor at least initial.
+	 */
+	public CapacityPolicy {
+		if (initial < 1) throw new IllegalArgumentException("The initial capacity must not be less than 1!");
+		if (limit != NO_LIMIT && limit < initial) throw new IllegalArgumentException("The capacity limit must be 0 (none) or at least the initial capacity!");
+	}
+
+	/**
+	 * Returns a policy that allocates every slot up front and never grows.
+	 *
+	 * @throws IllegalArgumentException If capacity is less than 1.
+	 */
+	public static CapacityPolicy fixed(int capacity) {
+		return new CapacityPolicy(capacity, capacity);
+	}
+
+	/**
+	 * Returns true if the number of stored Questions is limited.
+	 */
+	public boolean limited() {
+		return this.limit != NO_LIMIT;
+	}
+}
@@ -0,0 +1,29 @@
+package com.cody.portfolio.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.cody.portfolio.domain.IdGenerator;
+import com.cody.portfolio.domain.TimeOrderedIdGenerator;
+
+/**
+ * Selects the IdGenerator that assigns new Question ids from the application properties.
+ * It is injected where requests create Questions; nothing global is set, so each application context has its own.
+ * quiz.ids.generator is time-ordered (version 7 UUIDs, the default) or random (version 4 UUIDs), and
+ * quiz.ids.node the node id of the time-ordered generator, unique per instance (0 by default).
+ */
+@Configuration
+public class IdConfiguration {
+	
+	@Bean
+	public IdGenerator idGenerator(
+			@Value("${quiz.ids.generator:time-ordered}") String generator,
+			@Value("${quiz.ids.node:0}") int node) {
+		return switch (generator) {
+			case "time-ordered" -> new TimeOrderedIdGenerator(node);
+			case "random" -> IdGenerator.RANDOM;
+			default -> throw new IllegalArgumentException("quiz.ids.generator must be time-ordered or random!");
+		};
+	}
+}
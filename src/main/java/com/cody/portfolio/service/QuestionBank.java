@@ -0,0 +1,79 @@
+package com.cody.portfolio.service;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.Random;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import com.cody.portfolio.domain.Question;
+import com.cody.portfolio.service.grading.Grade;
+import com.cody.portfolio.service.stats.QuestionStats;
+import com.cody.portfolio.service.stats.StatsSnapshot;
+
+/**
+ * The operations the controllers use on the stored Questions, served either by one QuestionService or by a
+ * ShardedQuestionService spreading them over several. QuestionService documents each operation; a
+ * ShardedQuestionService documents where it differs.
+ * 
+ * The application runs one QuestionService unless quiz.shards is above 1.
+ */
+public interface QuestionBank {
+	
+	boolean setQuestion(Question question);
+	
+	StoreOutcome[] setQuestions(Question[] batch);
+	
+	Optional<Question> getQuestion(UUID id);
+	
+	Optional<Question> findNearDuplicate(Question question);
+	
+	int size();
+	
+	/**
+	 * Returns a version of the stored Questions that increases with every successful write.
+	 */
+	long version();
+	
+	/**
+	 * Returns a version of the Questions of a Type that increases with every successful write to that Type.
+	 *
+	 * @throws IllegalArgumentException If type is null.
+	 */
+	long version(Question.Type type);
+	
+	Optional<Question[]> getQuestions(Question.Type type);
+	
+	Optional<Question[]> getQuestions(Question.Type type, Question.Difficulty difficulty);
+	
+	Optional<Question[]> getAll();
+	
+	QuestionPage getAllPage(String after, int limit);
+	
+	QuestionPage getQuestionsPage(Question.Type type, String after, int limit);
+	
+	QuestionPage getQuestionsPage(Question.Type type, Question.Difficulty difficulty, String after, int limit);
+	
+	Stream<Question> stream(Question.Type type, Question.Difficulty difficulty);
+	
+	QuestionPage search(String query, String after, int limit);
+	
+	Question[] sample(Set<Question.Type> types, Set<Question.Difficulty> difficulties, int count, Random random);
+	
+	Question[] sampleByType(Map<Question.Type, Integer> typeCounts, Set<Question.Difficulty> difficulties, Random random);
+	
+	Question[] sampleByDifficulty(Map<Question.Difficulty, Integer> difficultyCounts, Set<Question.Type> types, Random random);
+	
+	Optional<QuestionStats> getStats(UUID id);
+	
+	StatsSnapshot getStatsSnapshot();
+	
+	StatsSnapshot refreshStats();
+	
+	boolean edit(UUID id, String question, String answer);
+	
+	Grade[] grade(UUID[] ids, String[] answers, long[] answerMillis, int maxEdits);
+	
+	boolean delete(UUID id);
+}
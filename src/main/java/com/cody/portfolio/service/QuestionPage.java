@@ -0,0 +1,11 @@
+package com.cody.portfolio.service;
+
+import com.cody.portfolio.domain.Question;
+
+/**
+ * One page of Questions and the cursor that continues after it.
+ * 
+ * @param questions The Questions in the page, in insertion order.
+ * @param next The opaque cursor for the following page, or null if this is the last page.
+ */
+public record QuestionPage(Question[] questions, String next) {}
@@ -1,138 +1,1086 @@
 package com.cody.portfolio.service;
 
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.Random;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Optional;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.nio.ByteBuffer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.IntStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 
 import com.cody.portfolio.domain.Question;
 import com.cody.portfolio.utility.ArrayUtility;
+import com.cody.portfolio.service.search.InvertedIndex;
+import com.cody.portfolio.service.search.DuplicatePolicy;
+import com.cody.portfolio.service.search.NearDuplicateIndex;
+import com.cody.portfolio.service.grading.Grade;
+import com.cody.portfolio.service.grading.Grader;
+import com.cody.portfolio.service.metrics.QuestionMetrics;
+import com.cody.portfolio.service.stats.QuestionStats;
+import com.cody.portfolio.service.stats.StatsSnapshot;
+import com.cody.portfolio.service.stats.QuestionCounters;
 import com.cody.portfolio.service.sorting.AbstractSortingStrategy;
+import com.cody.portfolio.service.persistence.QuestionRepository;
+import com.cody.portfolio.service.persistence.InMemoryQuestionRepository;
 
 /**
  * An array backed service responsible for managing a collection of Question objects.
  * Provides operations for storing, retrieving, filtering, sorting, and deleting.
  * Uses AbstractSortingStrategy to implement a sorting algorithm appropriate for the collection size.
+ * 
+ * Questions live in slots of the internal array. A UUID to slot hash index answers lookups by id,
+ * and a stack of freed slots lets inserts and deletes find their slot without scanning the array.
+ * The slots double when they are full. A CapacityPolicy sets the slots allocated up front and an optional
+ * limit on the stored Questions. When deletes leave fewer than a quarter of the slots in use, the Questions in
+ * the upper slots move into the holes below and the slots above are released.
+ * Secondary indexes keep one bucket per Type and per Type and Difficulty pair,
+ * so filtered reads cost the size of the result rather than the size of the collection.
+ * Type and Difficulty are indexed when the Question is stored.
+ * An InvertedIndex over the question and answer text serves keyword search, and is kept up to date by
+ * every store, edit, and delete.
+ * When a DuplicatePolicy is given, a NearDuplicateIndex of the question text finds stored Questions that new ones
+ * nearly repeat, and Questions are rejected or stored with the near-duplicate left for callers to look up.
+ * The normalized form of every answer is kept in its entry when it is stored or edited, as the answer key the
+ * repository returns, so grading neither normalizes nor decodes the stored side. A repository that keeps Questions
+ * outside the heap keeps their keys there too.
+ * Each entry also holds the QuestionCounters of its Question, counted when it is served by id or in a quiz and when
+ * an answer to it is graded. Counting is lock-free and striped, and a StatsSnapshot of every used Question is
+ * rebuilt on demand, typically on a schedule, so reading all statistics does not sum the counters each time.
+ * 
+ * The service is safe for concurrent use. Reads never lock: lookups by id go through a concurrent map,
+ * and list reads go through an immutable Snapshot that every write replaces as a whole.
+ * Stored Questions are never changed either: an edit replaces the Question with an edited copy.
+ * Questions handed out by the service must not be changed by callers, since their setters bypass
+ * the indexes and the repository; edit is the way to change a stored Question.
+ * Writes are serialized by a single lock, held only while the slot, index, and Snapshot are updated.
+ * Every lock is a ReentrantLock and the write lock is not held across a repository sync, so on virtual threads a
+ * waiting request unmounts from its carrier instead of pinning it. The durable repositories do hold their sync lock
+ * while one writer forces the file for the others; that writer blocks its carrier for the force.
+ * Sorting happens once per write when the next Snapshot is built, so list reads neither sort nor copy.
+ * The price is that every write, deletes and edits included, is linear in the buckets it touches, since it copies
+ * them into the next Snapshot; O(1) removal with tombstones was given up so that readers never skip or filter them.
+ * 
+ * Writes are recorded in a QuestionRepository while the lock is held, and made durable after it is released,
+ * so concurrent writers can share a flush. A write is acknowledged only once it is durable.
+ * The stored Questions are loaded from the repository on construction. The service holds the Questions
+ * the repository hands back, which may be views of records it keeps outside the heap.
+ * 
+ * Operation latencies, sorts, rejected inserts, and occupancy are recorded in QuestionMetrics.
+ * 
+ * It is the application's QuestionBank unless quiz.shards is above 1, when a ShardedQuestionService holds one per shard.
  */
 @Service
-public class QuestionService {
-	private Question questions[];
-	private AbstractSortingStrategy sortingStrategy;
+@ConditionalOnExpression("${quiz.shards:1} == 1")
+public class QuestionService implements QuestionBank {
+	private static final int INITIAL_FREE_SLOTS = 20;
+	private static final int COMPACTION_RATIO = 4; // Compact when fewer than 1 in 4 slots hold a Question.
+	
+	/** The largest number of Questions returned in one page. */
+	public static final int MAX_PAGE_SIZE = 1000;
+	/** The largest number of answers graded in one call. */
+	public static final int MAX_GRADE_SIZE = 10_000;
+	
+	private final ConcurrentHashMap<UUID, Entry> index; // Question id -> stored entry.
+	private volatile Snapshot snapshot;
+	private final ReentrantLock writeLock;
+	private final AbstractSortingStrategy sortingStrategy;
+	private final QuestionRepository repository;
+	private final InvertedIndex searchIndex;
+	private final NearDuplicateIndex nearDuplicates; // Null when the DuplicatePolicy is OFF.
+	private final boolean rejectDuplicates;
+	private final QuestionMetrics metrics;
+	private volatile StatsSnapshot stats;
+	
+	// Guarded by writeLock.
+	private final QuestionSlots slots;
+	private int freeSlots[]; // Stack of slots released by delete.
+	private int freeCount;
+	private int nextSlot; // Slots at or above this index have never been used.
+	private long nextSequence; // Insertion sequence of the next stored Question.
+	private final int initialCapacity;
+	private final int limit; // The most Questions stored at once; Integer.MAX_VALUE when unlimited.
 	
 	/**
-	 * Creates a QuestionService with a default capacity of 20 Questions.
+	 * Creates a QuestionService with an initial capacity of 20 Questions that keeps them in memory only.
+	 * The internal array grows as needed, so the service is never full.
 	 * 
 	 * @param strategy The sorting strategy used to order the internal Question array.
 	 */
-	@Autowired
 	public QuestionService(AbstractSortingStrategy strategy) {
-		this.sortingStrategy = strategy;
-		this.questions = new Question[20];
+		this(strategy, new InMemoryQuestionRepository());
+	}
+	
+	/**
+	 * Creates a growable QuestionService that records its writes in a repository,
+	 * starting with the Questions the repository has stored.
+	 * 
+	 * @param strategy The sorting strategy used to order the internal Question array.
+	 * @param repository The repository the Questions are loaded from and written to.
+	 */
+	public QuestionService(AbstractSortingStrategy strategy, QuestionRepository repository) {
+		this(strategy, repository, DuplicatePolicy.OFF);
+	}
+	
+	/**
+	 * Creates a growable QuestionService that records its writes in a repository and checks new Questions
+	 * for near-duplicates, starting with the Questions the repository has stored.
+	 * Stored Questions are indexed for the check but not checked against each other.
+	 * 
+	 * @param strategy The sorting strategy used to order the internal Question array.
+	 * @param repository The repository the Questions are loaded from and written to.
+	 * @param duplicatePolicy What to do with new Questions that nearly repeat a stored one.
+	 */
+	public QuestionService(AbstractSortingStrategy strategy, QuestionRepository repository, DuplicatePolicy duplicatePolicy) {
+		this(strategy, repository, duplicatePolicy, QuestionMetrics.OFF);
+	}
+	
+	/**
+	 * Creates a growable QuestionService that records its writes in a repository, checks new Questions
+	 * for near-duplicates, and records its operations in QuestionMetrics.
+	 * 
+	 * @param strategy The sorting strategy used to order the internal Question array.
+	 * @param repository The repository the Questions are loaded from and written to.
+	 * @param duplicatePolicy What to do with new Questions that nearly repeat a stored one.
+	 * @param metrics The meters the service records to.
+	 */
+	public QuestionService(AbstractSortingStrategy strategy, QuestionRepository repository, DuplicatePolicy duplicatePolicy, QuestionMetrics metrics) {
+		this(strategy, repository, duplicatePolicy, CapacityPolicy.DEFAULT, metrics);
 	}
 	
 	/**
-	 * Creates a QuestionService with a caller specified capacity.
+	 * Creates a QuestionService sized by a CapacityPolicy that records its writes in a repository, checks new
+	 * Questions for near-duplicates, and records its operations in QuestionMetrics.
+	 * Every stored Question is loaded, even beyond the limit; new Questions are then rejected until deletes make room.
+	 * 
+	 * @param strategy The sorting strategy used to order the internal Question array.
+	 * @param repository The repository the Questions are loaded from and written to.
+	 * @param duplicatePolicy What to do with new Questions that nearly repeat a stored one.
+	 * @param capacityPolicy The slots allocated up front and the limit on stored Questions.
+	 * @param metrics The meters the service records to.
+	 */
+	@Autowired
+	public QuestionService(AbstractSortingStrategy strategy, QuestionRepository repository, DuplicatePolicy duplicatePolicy, CapacityPolicy capacityPolicy, QuestionMetrics metrics) {
+		this(strategy, capacityPolicy, repository, duplicatePolicy, metrics);
+		
+		Question[] stored = repository.load();
+		if (stored.length == 0) return;
+		this.writeLock.lock();
+		try {
+			store(stored, null, false);
+		} finally {
+			this.writeLock.unlock();
+		}
+	}
+	
+	/**
+	 * Creates a QuestionService with a caller specified, fixed capacity.
 	 * 
 	 * @param strategy The sorting strategy used to order the internal Question array.
 	 * @param numQuestions The desired array size; must be at least 1.
 	 * @throws IllegalArgumentException If numQuestions is less than 1.
 	 */
 	public QuestionService(AbstractSortingStrategy strategy, int numQuestions)  {
-		this.sortingStrategy = strategy;
-		if (numQuestions < 1) throw new IllegalArgumentException("numQuestions must not be less than 1; default is 20!");
-		this.questions = new Question[numQuestions];
+		this(strategy, fixedCapacity(numQuestions), new InMemoryQuestionRepository(), DuplicatePolicy.OFF, QuestionMetrics.OFF);
+	}
+	
+	private QuestionService(AbstractSortingStrategy strategy, CapacityPolicy capacityPolicy, QuestionRepository repository, DuplicatePolicy duplicatePolicy, QuestionMetrics metrics) {
+		this.metrics = metrics;
+		this.stats = StatsSnapshot.EMPTY;
+		this.sortingStrategy = metrics.meter(strategy);
+		this.repository = repository;
+		this.searchIndex = new InvertedIndex();
+		boolean detecting = duplicatePolicy.action() != DuplicatePolicy.Action.OFF;
+		this.nearDuplicates = detecting ? new NearDuplicateIndex(duplicatePolicy.threshold()) : null;
+		this.rejectDuplicates = duplicatePolicy.action() == DuplicatePolicy.Action.REJECT;
+		this.slots = new QuestionSlots(capacityPolicy.initial());
+		this.freeSlots = new int[INITIAL_FREE_SLOTS];
+		this.initialCapacity = capacityPolicy.initial();
+		this.limit = capacityPolicy.limited() ? capacityPolicy.limit() : Integer.MAX_VALUE;
+		this.index = new ConcurrentHashMap<>();
+		this.snapshot = Snapshot.EMPTY;
+		this.writeLock = new ReentrantLock();
+		metrics.bindStore(this, QuestionService::size, QuestionService::capacity);
 	}
 	
 	/**
 	 * Attempts to store a new Question in the service's internal array.
-	 * Rejects null Questions.
+	 * Rejects null Questions and Questions whose id is already stored.
+	 * Reuses the most recently freed slot, otherwise the next unused slot.
 	 * 
 	 * @param question The Question to store.
-	 * @return True if the Question was stored; false if the array is full.
+	 * @return True if the Question was stored; false if the array is full or the id is already stored.
+	 * @throws IllegalArgumentException If question is null, or the DuplicatePolicy rejects it as a near-duplicate.
 	 */
+	@Override
 	public boolean setQuestion(Question question) {
-	
-		for (int i = 0; i < this.questions.length; i++) {
+		if (question == null) throw new IllegalArgumentException("The parameter question must not be null!");
+		long start = System.nanoTime();
+		try {
+			int signature[] = (this.nearDuplicates == null) ? null : NearDuplicateIndex.signature(question);
 			
-			if (this.questions[i] == (null)) {
-				this.questions[i] = question;
-				return true;
+			long position;
+			this.writeLock.lock();
+			try {
+				if (this.index.containsKey(question.getID())) {
+					this.metrics.reject(QuestionMetrics.Rejection.STORED_ID, 1);
+					return false;
+				}
+				if (freeCapacity() == 0) {
+					this.metrics.reject(QuestionMetrics.Rejection.FULL, 1);
+					return false;
+				}
+				if (this.rejectDuplicates) {
+					NearDuplicateIndex.Match match = this.nearDuplicates.find(signature, question.getID());
+					if (match != null) {
+						this.metrics.reject(QuestionMetrics.Rejection.NEAR_DUPLICATE, 1);
+						throw new IllegalArgumentException("The question is a near-duplicate of " + match.question().getID() + "!");
+					}
+				}
+				
+				position = store(new Question[] {question}, new int[][] {signature}, true);
+			} finally {
+				this.writeLock.unlock();
 			}
+			this.repository.sync(position);
+			return true;
+		} finally {
+			this.metrics.record(QuestionMetrics.Operation.SET, start);
 		}
-		return false;
 	}
 	
 	/**
-	 * Attempts to retrieve a Question by UUID.
+	 * Attempts to store several new Questions as one write, publishing a single Snapshot for the batch.
+	 * Each Question is accepted or rejected as setQuestion would; Questions beyond the free capacity are rejected.
+	 * Near-duplicates rejected by the DuplicatePolicy, of stored Questions or of earlier Questions in the batch,
+	 * are not stored rather than thrown.
+	 * 
+	 * @param batch The Questions to store.
+	 * @return For each Question in the batch, STORED, or the reason it was not stored.
+	 * @throws IllegalArgumentException If the batch contains a null Question; nothing is stored.
+	 */
+	@Override
+	public StoreOutcome[] setQuestions(Question[] batch) {
+		return setQuestions(batch, true);
+	}
+	
+	/**
+	 * Stores Questions a replication leader stored, as one write. The leader applied its CapacityPolicy and
+	 * DuplicatePolicy before it logged them, so neither is applied again: a follower configured with a lower limit
+	 * or a stricter policy still holds every Question the leader holds. Only ids already stored are skipped.
+	 * Meant for ReplicationFollower; client writes go through setQuestion and setQuestions.
+	 * 
+	 * @param batch The Questions the leader stored in one write.
+	 * @return For each Question in the batch, STORED, or STORED_ID if its id is already stored.
+	 * @throws IllegalArgumentException If the batch contains a null Question; nothing is stored.
+	 */
+	public StoreOutcome[] applyReplicated(Question[] batch) {
+		return setQuestions(batch, false);
+	}
+	
+	/**
+	 * Attempts to retrieve a Question by UUID, counting it as served.
 	 * 
 	 * @param id The UUID of the Question you are searching for
-	 * @return An Optional containing the matching Question, or Optional.isEmpty() if no matching id's exist.
+	 * @return An Optional containing the matching Question, or Optional.isEmpty() if no matching id's exist or id is null.
 	 */
+	@Override
 	public Optional<Question> getQuestion(UUID id) {
-		// Remove nulls before sorting.
-		Question[] myQuestions = ArrayUtility.removeNulls(this.questions.clone(), (int size) -> new Question[size]);
-		if (myQuestions.length > 1) sort(myQuestions);
-		
-		for (Question element : myQuestions) {
-			if (element.getID().equals(id)) return Optional.of(element);
-		}
-		return Optional.empty();
+		long start = System.nanoTime();
+		Entry entry = entry(id);
+		this.metrics.record(QuestionMetrics.Operation.GET, start);
+		if (entry == null) return Optional.empty();
+		entry.counters().served();
+		return Optional.of(entry.question());
+	}
+	
+	/**
+	 * Finds the stored Question whose question text is most similar to a Question's, other than the Question itself,
+	 * if their estimated Jaccard similarity reaches the DuplicatePolicy threshold.
+	 * 
+	 * @param question The Question to compare, stored or not.
+	 * @return An Optional containing the most similar stored Question, or Optional.isEmpty() if none is a
+	 * near-duplicate or the DuplicatePolicy is OFF.
+	 * @throws IllegalArgumentException If question is null.
+	 */
+	@Override
+	public Optional<Question> findNearDuplicate(Question question) {
+		if (question == null) throw new IllegalArgumentException("The parameter question must not be null!");
+		if (this.nearDuplicates == null) return Optional.empty();
+		NearDuplicateIndex.Match match = this.nearDuplicates.find(NearDuplicateIndex.signature(question), question.getID());
+		return (match == null) ? Optional.empty() : Optional.of(match.question());
+	}
+	
+	/**
+	 * Returns the number of Questions currently stored.
+	 */
+	@Override
+	public int size() {
+		return this.snapshot.all.questions().length;
+	}
+	
+	/**
+	 * Returns the number of slots in the internal array: the Questions it holds before growing, or before
+	 * it is full when the capacity is fixed. Without the write lock the value may trail a concurrent write.
+	 */
+	public int capacity() {
+		return this.slots.capacity();
+	}
+	
+	/**
+	 * Returns the version of the stored Questions; it increases by one with every successful write.
+	 */
+	@Override
+	public long version() {
+		return this.snapshot.version;
+	}
+	
+	/**
+	 * Returns the version of the Questions of a Type: the version of the last write that stored, edited,
+	 * or deleted a Question of that Type, or 0 if none has. Writes to other Types leave it unchanged,
+	 * so it identifies the content of get-many for the Type and for each of its Difficulties.
+	 * 
+	 * @param type The Type enum in Question
+	 * @throws IllegalArgumentException If type is null.
+	 */
+	@Override
+	public long version(Question.Type type) {
+		if (type == null) throw new IllegalArgumentException("The parameter type must not be null!");
+		return this.snapshot.typeVersions[type.ordinal()];
 	}
 	
 	/**
 	 * Attempts to return an array of match type Questions.
+	 * The returned array is shared between callers and must not be modified.
 	 * 
 	 * @param type The Type enum in Question
 	 * @return An Optional containing the matching Question Type in a Question[], or Optional.isEmpty() if the type does not exist.
 	 */
+	@Override
 	public Optional<Question[]> getQuestions(Question.Type type) {
-		// Remove nulls before sorting.
-		Question[] myQuestions = ArrayUtility.removeNulls(this.questions.clone(), (int size) -> new Question[size]);
-		if (myQuestions.length > 1) sort(myQuestions);
+		if (type == null) return Optional.empty();
+		long start = System.nanoTime();
+		Optional<Question[]> questions = read(this.snapshot.byType[type.ordinal()]);
+		this.metrics.record(QuestionMetrics.Operation.GET_MANY, start);
+		return questions;
+	}
+	
+	/**
+	 * Attempts to return an array of Questions matching both a type and a difficulty.
+	 * The returned array is shared between callers and must not be modified.
+	 * 
+	 * @param type The Type enum in Question
+	 * @param difficulty The Difficulty enum in Question
+	 * @return An Optional containing the matching Questions in a Question[], or Optional.isEmpty() if none match.
+	 */
+	@Override
+	public Optional<Question[]> getQuestions(Question.Type type, Question.Difficulty difficulty) {
+		if (type == null || difficulty == null) return Optional.empty();
+		long start = System.nanoTime();
+		Optional<Question[]> questions = read(this.snapshot.byTypeAndDifficulty[type.ordinal()][difficulty.ordinal()]);
+		this.metrics.record(QuestionMetrics.Operation.GET_MANY, start);
+		return questions;
+	}
+	
+	/**
+	 * Returns all.
+	 * The returned array is shared between callers and must not be modified.
+	 * 
+	 * @return An Optional containing all Questions in a Question[], or Optional.isEmpty() if no Questions have been stored.
+	 */
+	@Override
+	public Optional<Question[]> getAll() {
+		long start = System.nanoTime();
+		Optional<Question[]> questions = read(this.snapshot.all);
+		this.metrics.record(QuestionMetrics.Operation.GET_ALL, start);
+		return questions;
+	}
+	
+	/**
+	 * Returns one page of all Questions in insertion order.
+	 * Pages are keyed by insertion sequence rather than position, so inserts and deletes between
+	 * requests neither repeat nor skip the Questions that were stored throughout.
+	 * 
+	 * @param after The next cursor of the previous page, or null for the first page.
+	 * @param limit The maximum number of Questions in the page, between 1 and MAX_PAGE_SIZE.
+	 * @return The page, whose next cursor is null when no Questions follow it.
+	 * @throws IllegalArgumentException If the cursor is not valid or the limit is out of range.
+	 */
+	@Override
+	public QuestionPage getAllPage(String after, int limit) {
+		return page(this.snapshot.all, after, limit);
+	}
+	
+	/**
+	 * Returns one page of the Questions of a Type in insertion order.
+	 * 
+	 * @param type The Type enum in Question
+	 * @param after The next cursor of the previous page, or null for the first page.
+	 * @param limit The maximum number of Questions in the page, between 1 and MAX_PAGE_SIZE.
+	 * @return The page, whose next cursor is null when no Questions follow it.
+	 * @throws IllegalArgumentException If the cursor is not valid or the limit is out of range.
+	 * @see #getAllPage(String, int)
+	 */
+	@Override
+	public QuestionPage getQuestionsPage(Question.Type type, String after, int limit) {
+		if (type == null) throw new IllegalArgumentException("The parameter type must not be null!");
+		return page(this.snapshot.byType[type.ordinal()], after, limit);
+	}
+	
+	/**
+	 * Returns one page of the Questions of a Type and Difficulty in insertion order.
+	 * 
+	 * @param type The Type enum in Question
+	 * @param difficulty The Difficulty enum in Question
+	 * @param after The next cursor of the previous page, or null for the first page.
+	 * @param limit The maximum number of Questions in the page, between 1 and MAX_PAGE_SIZE.
+	 * @return The page, whose next cursor is null when no Questions follow it.
+	 * @throws IllegalArgumentException If the cursor is not valid or the limit is out of range.
+	 * @see #getAllPage(String, int)
+	 */
+	@Override
+	public QuestionPage getQuestionsPage(Question.Type type, Question.Difficulty difficulty, String after, int limit) {
+		if (type == null || difficulty == null) throw new IllegalArgumentException("The parameters type and difficulty must not be null!");
+		return page(this.snapshot.byTypeAndDifficulty[type.ordinal()][difficulty.ordinal()], after, limit);
+	}
+	
+	/**
+	 * Returns a lazy stream over the Questions stored when it was called, in insertion order.
+	 * The stream walks the current Snapshot directly, so it neither copies nor sorts the collection,
+	 * and later writes do not affect it. Both filters are optional.
+	 * 
+	 * @param type The Type to keep, or null for every Type.
+	 * @param difficulty The Difficulty to keep, or null for every Difficulty.
+	 */
+	@Override
+	public Stream<Question> stream(Question.Type type, Question.Difficulty difficulty) {
+		Snapshot current = this.snapshot;
+		if (type != null && difficulty != null) return Arrays.stream(current.byTypeAndDifficulty[type.ordinal()][difficulty.ordinal()].inserted());
+		if (type != null) return Arrays.stream(current.byType[type.ordinal()].inserted());
 		
-		Question returnArray[] = new Question[myQuestions.length];
+		Stream<Question> all = Arrays.stream(current.all.inserted());
+		if (difficulty == null) return all;
+		return all.filter((Question question) -> question.getDifficulty() == difficulty);
+	}
+	
+	/**
+	 * Returns one page of the Questions whose question or answer text contains every word of the query,
+	 * most relevant first. Words are compared case insensitively; relevance is the BM25 score.
+	 * Pages are keyed by rank, so writes between requests may shift later pages.
+	 * 
+	 * @param query The words to search for.
+	 * @param after The next cursor of the previous page, or null for the first page.
+	 * @param limit The maximum number of Questions in the page, between 1 and MAX_PAGE_SIZE.
+	 * @return The page, whose next cursor is null when no Questions follow it.
+	 * @throws IllegalArgumentException If the query has no words, the cursor is not valid, or the limit is out of range.
+	 */
+	@Override
+	public QuestionPage search(String query, String after, int limit) {
+		if (query == null) throw new IllegalArgumentException("The parameter query must not be null!");
+		if (limit < 1 || limit > MAX_PAGE_SIZE) throw new IllegalArgumentException("The parameter limit must be between 1 and " + MAX_PAGE_SIZE + "!");
+		long offset = (after == null) ? 0 : Cursor.decode(after);
+		if (offset < 0 || offset > Integer.MAX_VALUE - limit) throw new IllegalArgumentException("The cursor is not valid!");
 		
-		// Add discovered types.
-		int count = 0;
-		for (Question element : myQuestions) {
-			if (element.getType() == type) {
-				returnArray[count++] = element;
+		InvertedIndex.Result result = this.searchIndex.search(query, (int) offset, limit);
+		String next = result.more() ? Cursor.encode(offset + result.questions().length) : null;
+		return new QuestionPage(result.questions(), next);
+	}
+	
+	/**
+	 * Draws distinct Questions uniformly at random from those matching the filters, in random order.
+	 * The matching index buckets are treated as one range and sampled with Floyd's algorithm,
+	 * so the cost grows with count rather than with the number of Questions, and nothing is copied or sorted.
+	 * The same Random seed draws the same Questions from the same stored Questions.
+	 * Filtering by Difficulty alone only considers Questions with a Type.
+	 * 
+	 * @param types The Types to draw from, or null or empty for every Type.
+	 * @param difficulties The Difficulties to draw from, or null or empty for every Difficulty.
+	 * @param count The number of Questions to draw, between 1 and MAX_PAGE_SIZE.
+	 * @param random The source of randomness.
+	 * @return count distinct Questions.
+	 * @throws IllegalArgumentException If count is out of range or fewer than count Questions match.
+	 */
+	@Override
+	public Question[] sample(Set<Question.Type> types, Set<Question.Difficulty> difficulties, int count, Random random) {
+		if (count < 1 || count > MAX_PAGE_SIZE) throw new IllegalArgumentException("The parameter count must be between 1 and " + MAX_PAGE_SIZE + "!");
+		Question[][] pools = this.snapshot.pools(types, difficulties);
+		int total = size(pools);
+		if (count > total) throw new IllegalArgumentException("Only " + total + " Questions match; a quiz of " + count + " cannot be generated!");
+		
+		Question[] quiz = new Question[count];
+		draw(pools, total, random, quiz, 0, count);
+		return served(shuffle(quiz, random));
+	}
+	
+	/**
+	 * Draws a set number of distinct Questions of each Type, uniformly at random within the Type, in random order.
+	 * Each Type is drawn as sample draws, from one Snapshot, so the cost grows with the Questions drawn.
+	 * Types are drawn in declaration order, so the same Random seed draws the same quiz from the same stored Questions.
+	 * 
+	 * @param typeCounts The number of Questions to draw of each Type; Types missing or mapped to 0 are not drawn.
+	 * @param difficulties The Difficulties to draw from, or null or empty for every Difficulty.
+	 * @param random The source of randomness.
+	 * @return The drawn Questions; as many as the counts add up to.
+	 * @throws IllegalArgumentException If typeCounts is null, holds a negative count, or its counts do not add up
+	 * to between 1 and MAX_PAGE_SIZE, or fewer Questions of a Type match than its count.
+	 */
+	@Override
+	public Question[] sampleByType(Map<Question.Type, Integer> typeCounts, Set<Question.Difficulty> difficulties, Random random) {
+		Snapshot snapshot = this.snapshot;
+		return sampleMix(Question.Type.values(), typeCounts, "typeCounts", (Question.Type type) -> snapshot.pools(Set.of(type), difficulties), random);
+	}
+	
+	/**
+	 * Draws a set number of distinct Questions of each Difficulty, as sampleByType does for Types.
+	 * Only Questions with a Type have a Difficulty bucket, so untyped Questions are never drawn.
+	 * 
+	 * @param difficultyCounts The number of Questions to draw of each Difficulty; Difficulties missing or mapped to 0 are not drawn.
+	 * @param types The Types to draw from, or null or empty for every Type.
+	 * @throws IllegalArgumentException If difficultyCounts is null, holds a negative count, or its counts do not add up
+	 * to between 1 and MAX_PAGE_SIZE, or fewer Questions of a Difficulty match than its count.
+	 */
+	@Override
+	public Question[] sampleByDifficulty(Map<Question.Difficulty, Integer> difficultyCounts, Set<Question.Type> types, Random random) {
+		Snapshot snapshot = this.snapshot;
+		return sampleMix(Question.Difficulty.values(), difficultyCounts, "difficultyCounts", (Question.Difficulty difficulty) -> snapshot.pools(types, Set.of(difficulty)), random);
+	}
+	
+	/**
+	 * Validates the counts of a quiz mix, as sampleByType and sampleByDifficulty take them, and returns their sum.
+	 * 
+	 * @param parameter The name of the counts parameter, for error messages.
+	 * @throws IllegalArgumentException If counts is null, holds a null or negative count, or its sum is not between 1 and MAX_PAGE_SIZE.
+	 */
+	public static int mixSize(Map<? extends Enum<?>, Integer> counts, String parameter) {
+		if (counts == null) throw new IllegalArgumentException("The parameter " + parameter + " must not be null!");
+		long sum = 0;
+		for (Integer count : counts.values()) {
+			if (count == null || count < 0) throw new IllegalArgumentException("The parameter " + parameter + " must not hold a negative or null count!");
+			sum += count;
+		}
+		if (sum < 1 || sum > MAX_PAGE_SIZE) throw new IllegalArgumentException("The parameter " + parameter + " must add up to between 1 and " + MAX_PAGE_SIZE + "!");
+		return (int) sum;
+	}
+	
+	/**
+	 * Returns the number of Questions sample draws from with the same filters.
+	 * 
+	 * @param types The Types to count, or null or empty for every Type.
+	 * @param difficulties The Difficulties to count, or null or empty for every Difficulty.
+	 */
+	public int count(Set<Question.Type> types, Set<Question.Difficulty> difficulties) {
+		return size(this.snapshot.pools(types, difficulties));
+	}
+	
+	/**
+	 * Sums the usage counters of a stored Question now, rather than reading the last StatsSnapshot.
+	 * 
+	 * @param id The UUID of the Question.
+	 * @return An Optional containing its statistics, or Optional.isEmpty() if no Question has the id or id is null.
+	 */
+	@Override
+	public Optional<QuestionStats> getStats(UUID id) {
+		Entry entry = entry(id);
+		if (entry == null) return Optional.empty();
+		return Optional.of(entry.counters().stats(id));
+	}
+	
+	/**
+	 * Returns the last StatsSnapshot taken by refreshStats, or StatsSnapshot.EMPTY before the first.
+	 */
+	@Override
+	public StatsSnapshot getStatsSnapshot() {
+		return this.stats;
+	}
+	
+	/**
+	 * Takes a StatsSnapshot of every stored Question that was served or attempted, and publishes it to
+	 * getStatsSnapshot. Reads the id index without locking, so Questions stored or deleted meanwhile may or may not
+	 * be included.
+	 * 
+	 * @return The snapshot taken.
+	 */
+	@Override
+	public StatsSnapshot refreshStats() {
+		ArrayList<QuestionStats> used = new ArrayList<>();
+		for (Entry entry : this.index.values()) {
+			if (!entry.counters().unused()) used.add(entry.counters().stats(entry.question().getID()));
+		}
+		QuestionStats[] questions = used.toArray(new QuestionStats[0]);
+		Arrays.sort(questions, Comparator.comparingLong(QuestionStats::attempts).reversed());
+		StatsSnapshot next = new StatsSnapshot(System.currentTimeMillis(), questions);
+		this.stats = next;
+		return next;
+	}
+	
+	/**
+	 * Replaces the question text, the answer text, or both, of a stored Question as one write.
+	 * The stored Question is not changed: an edited copy with the same id, Type, and Difficulty takes its place,
+	 * so a reader holding the old Question keeps seeing consistent text.
+	 * 
+	 * @param id The UUID of the Question to edit.
+	 * @param question The new question text, or null to keep it.
+	 * @param answer The new answer text, or null to keep it.
+	 * @return True if the Question was edited; false if no Question has the id, or id is null.
+	 * @throws IllegalArgumentException If both texts are null, or a given text is blank.
+	 */
+	@Override
+	public boolean edit(UUID id, String question, String answer) {
+		if (question == null && answer == null) throw new IllegalArgumentException("The parameters question and answer must not both be null!");
+		if (question != null && question.isBlank()) throw new IllegalArgumentException("The parameter question must have non-null, non-blank text!");
+		if (answer != null && answer.isBlank()) throw new IllegalArgumentException("The parameter answer must have non-null, non-blank text!");
+		long start = System.nanoTime();
+		try {
+			long position;
+			this.writeLock.lock();
+			try {
+				Entry entry = entry(id);
+				if (entry == null) return false;
+				
+				Question stored = entry.question();
+				Question edited = new Question((question == null) ? stored.getQuestion() : question, (answer == null) ? stored.getAnswer() : answer, stored.getID());
+				edited.setType(entry.type());
+				edited.setDifficulty(entry.difficulty());
+				Question held = this.repository.holdEdit(stored, edited);
+				
+				// Build the next Snapshot before touching the service, so a Comparator failure leaves it untouched.
+				Snapshot next = this.snapshot.replaced(entry, held, this.sortingStrategy);
+				position = this.repository.appendEdit(held);
+				
+				this.slots.set(entry.slot(), held);
+				this.searchIndex.put(entry.slot(), held);
+				if (this.nearDuplicates != null) this.nearDuplicates.put(entry.slot(), held, NearDuplicateIndex.signature(held));
+				this.index.put(id, new Entry(held, entry.slot(), entry.sequence(), entry.type(), entry.difficulty(), this.repository.answerKey(held), entry.counters()));
+				publish(next);
+			} finally {
+				this.writeLock.unlock();
 			}
+			this.repository.sync(position);
+			return true;
+		} finally {
+			this.metrics.record(QuestionMetrics.Operation.EDIT, start);
 		}
-		if (count == 0) return Optional.empty();
-		
-		// Remove nulls from elements not added.
-		return Optional.of(ArrayUtility.removeNulls(returnArray, (int size) -> new Question[size]));
 	}
 	
 	/**
-	 * Returns all.
-	 * @return An Optional containing all Questions in a Question[], or Optional.isEmpty() if no Questions have been stored.
+	 * Grades a batch of submitted answers against the stored answers, without locking or counting attempts.
+	 * Answers are compared in normalized form, ignoring case, whitespace, and punctuation; see AnswerKey.
+	 * A stored answer without letters or digits, such as "?", is only matched by the same text.
+	 * With maxEdits above 0 an answer within that many character edits of a long enough stored answer
+	 * is also correct; see Grader.
+	 * 
+	 * @param ids The UUID of the Question each answer is for; a null or unknown id grades UNKNOWN.
+	 * @param answers The submitted answers, in the same order as ids; a null answer grades INCORRECT.
+	 * @param maxEdits The character edits tolerated, between 0 and Grader.MAX_EDITS.
+	 * @return The grade of each answer, in the order submitted.
+	 * @throws IllegalArgumentException If ids or answers is null, their lengths differ or exceed MAX_GRADE_SIZE,
+	 * or maxEdits is out of range.
 	 */
-	public Optional<Question[]> getAll() {
-		// Remove nulls before sorting.
-		Question[] myQuestions = ArrayUtility.removeNulls(this.questions.clone(), (int size) -> new Question[size]);
-		if (myQuestions.length > 1) sort(myQuestions);
-		if (myQuestions.length == 0) return Optional.empty();
-		return Optional.of(myQuestions);
+	public Grade[] grade(UUID[] ids, String[] answers, int maxEdits) {
+		return grade(ids, answers, null, maxEdits);
+	}
+	
+	/**
+	 * Grades a batch of submitted answers as grade(ids, answers, maxEdits) does, and counts each answer
+	 * to a stored Question as an attempt, with the time taken to answer it.
+	 * 
+	 * @param answerMillis The time taken to give each answer, in the same order as ids, 0 where it is unknown;
+	 * or null if no time is known.
+	 * @throws IllegalArgumentException If ids or answers is null, their lengths or that of answerMillis differ,
+	 * they exceed MAX_GRADE_SIZE, or maxEdits is out of range.
+	 */
+	@Override
+	public Grade[] grade(UUID[] ids, String[] answers, long[] answerMillis, int maxEdits) {
+		if (ids == null || answers == null) throw new IllegalArgumentException("The parameters ids and answers must not be null!");
+		if (ids.length != answers.length) throw new IllegalArgumentException("The parameters ids and answers must have the same length!");
+		if (answerMillis != null && answerMillis.length != ids.length) throw new IllegalArgumentException("The parameter answerMillis must have the same length as ids!");
+		if (ids.length > MAX_GRADE_SIZE) throw new IllegalArgumentException("The parameter ids must not hold more than " + MAX_GRADE_SIZE + " ids!");
+		Grader grader = new Grader(maxEdits);
+		long start = System.nanoTime();
+		try {
+			Grade[] grades = new Grade[ids.length];
+			for (int i = 0; i < ids.length; i++) {
+				Entry entry = entry(ids[i]);
+				if (entry == null) {
+					grades[i] = Grade.UNKNOWN;
+					continue;
+				}
+				grades[i] = grader.grade(entry.answerKey(), answers[i]);
+				entry.counters().attempted(grades[i] == Grade.CORRECT, (answerMillis == null) ? 0 : answerMillis[i]);
+			}
+			return grades;
+		} finally {
+			this.metrics.record(QuestionMetrics.Operation.GRADE, start);
+		}
 	}
 	
 	/**
 	 * Attempts to delete a question from the internal Question array.
+	 * The id index gives the Question's slot directly, and the slot is pushed on the free slot stack for the next
+	 * insert to reuse, so finding and freeing the slot is O(1). The delete as a whole is linear in the size of the
+	 * buckets the Question was in: the next Snapshot copies each of them without it, and finds it in their sorted
+	 * arrays by a scan. Removing in place with tombstones would make it O(1), but every lock-free read would then
+	 * have to skip them.
 	 * 
 	 * @param id The UUID of the Question you want to delete.
-	 * @return True if the Question was deleted from the array.
+	 * @return True if the Question was deleted from the array; false if no Question has the id, or id is null.
 	 */
+	@Override
 	public boolean delete(UUID id) {
+		long start = System.nanoTime();
+		try {
+			long position;
+			this.writeLock.lock();
+			try {
+				Entry entry = entry(id);
+				if (entry == null) return false;
+				
+				Snapshot next = this.snapshot.without(entry, this.sortingStrategy);
+				position = this.repository.appendDelete(entry.question());
+				
+				this.index.remove(id);
+				this.searchIndex.remove(entry.slot());
+				if (this.nearDuplicates != null) this.nearDuplicates.remove(entry.slot());
+				this.slots.set(entry.slot(), null);
+				releaseSlot(entry.slot());
+				if (this.nextSlot - this.freeCount < this.slots.capacity() / COMPACTION_RATIO && this.slots.capacity() > this.initialCapacity) compact();
+				publish(next);
+			} finally {
+				this.writeLock.unlock();
+			}
+			this.repository.sync(position);
+			return true;
+		} finally {
+			this.metrics.record(QuestionMetrics.Operation.DELETE, start);
+		}
+	}
+	
+	/**
+	 * Closes the repository once the write in progress, if any, is done. The service must not be used afterwards.
+	 * A service created as a bean leaves this to the repository bean; an owner that creates services with
+	 * repositories of their own, such as ShardedQuestionService, closes them with this.
+	 */
+	public void close() {
+		this.writeLock.lock();
+		try {
+			this.repository.close();
+		} finally {
+			this.writeLock.unlock();
+		}
+	}
+	
+	/**
+	 * A helper method that stores accepted Questions in slots and the id index, then publishes the next Snapshot.
+	 * Must be called while holding the write lock, with no more Questions than freeCapacity.
+	 * 
+	 * @param signatures The near-duplicate signature of each accepted Question, or null to compute them here if needed.
+	 * @param logged True to record the write in the repository; false for Questions loaded from it.
+	 * @return The repository position to sync before acknowledging the write.
+	 */
+	private long store(Question[] accepted, int[][] signatures, boolean logged) {
+		Question[] held = logged ? this.repository.hold(accepted) : accepted;
+		long sequences[] = new long[held.length];
+		for (int i = 0; i < held.length; i++) {
+			sequences[i] = this.nextSequence + i;
+		}
+		
+		// Build the next Snapshot before touching the service, so a Comparator failure leaves it untouched.
+		Snapshot next = this.snapshot.with(new Batch(held, sequences), this.sortingStrategy);
+		long position = logged ? this.repository.append(held) : 0;
+		
+		for (int i = 0; i < held.length; i++) {
+			Question question = held[i];
+			int slot = claimSlot();
+			this.slots.set(slot, question);
+			this.searchIndex.put(slot, question);
+			if (this.nearDuplicates != null) this.nearDuplicates.put(slot, question, (signatures == null) ? NearDuplicateIndex.signature(question) : signatures[i]);
+			this.index.put(question.getID(), new Entry(question, slot, sequences[i], question.getType(), question.getDifficulty(), this.repository.answerKey(question), new QuestionCounters()));
+		}
+		this.nextSequence += held.length;
+		publish(next);
+		return position;
+	}
+	
+	/**
+	 * A helper method that draws the counted Questions of each category from its pools, then shuffles them together.
+	 * 
+	 * @param categories Every category, in the order they are drawn.
+	 * @param parameter The name of the counts parameter, for error messages.
+	 * @param poolsOf The Snapshot buckets of a category.
+	 */
+	private <C extends Enum<C>> Question[] sampleMix(C[] categories, Map<C, Integer> counts, String parameter, Function<C, Question[][]> poolsOf, Random random) {
+		int count = mixSize(counts, parameter);
+		Question[] quiz = new Question[count];
+		int next = 0;
+		for (C category : categories) {
+			Integer wanted = counts.get(category);
+			if (wanted == null || wanted == 0) continue;
+			Question[][] pools = poolsOf.apply(category);
+			int total = size(pools);
+			if (wanted > total) throw new IllegalArgumentException("Only " + total + " " + category + " Questions match; " + wanted + " cannot be drawn!");
+			draw(pools, total, random, quiz, next, wanted);
+			next += wanted;
+		}
+		return served(shuffle(quiz, random));
+	}
+	
+	/**
+	 * A helper method that draws count distinct Questions uniformly at random from pools holding total Questions,
+	 * treating them as one range, into quiz from position at.
+	 * Floyd's algorithm makes one draw per chosen position, each position equally likely, so nothing is copied.
+	 */
+	private static void draw(Question[][] pools, int total, Random random, Question[] quiz, int at, int count) {
+		// starts[i] is the position of pools[i] in the combined range.
+		int starts[] = new int[pools.length];
+		for (int i = 1; i < pools.length; i++) {
+			starts[i] = starts[i - 1] + pools[i - 1].length;
+		}
 		
-		for (int i = 0; i < this.questions.length; i++) {
-			if (this.questions[i].getID().equals(id)) {
-				this.questions[i] = null;
-				return true;
+		Set<Integer> chosen = new LinkedHashSet<>();
+		for (int j = total - count; j < total; j++) {
+			int position = random.nextInt(j + 1);
+			chosen.add(chosen.contains(position) ? j : position);
+		}
+		
+		int next = at;
+		for (int position : chosen) {
+			// Pools are not empty, so starts only grows; binarySearch returns -(insertion point) - 1 inside a pool.
+			int pool = Arrays.binarySearch(starts, position);
+			if (pool < 0) pool = -pool - 2;
+			quiz[next++] = pools[pool][position - starts[pool]];
+		}
+	}
+	
+	/**
+	 * A helper method that shuffles a drawn quiz in place, since Floyd's algorithm does not order its picks uniformly.
+	 */
+	private static Question[] shuffle(Question[] quiz, Random random) {
+		for (int i = quiz.length - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			Question swap = quiz[i];
+			quiz[i] = quiz[j];
+			quiz[j] = swap;
+		}
+		return quiz;
+	}
+	
+	/**
+	 * A helper method that counts every drawn Question as served.
+	 */
+	private Question[] served(Question[] quiz) {
+		for (Question question : quiz) {
+			Entry entry = this.index.get(question.getID());
+			if (entry != null) entry.counters().served(); // Null if deleted since the Snapshot was read.
+		}
+		return quiz;
+	}
+	
+	/**
+	 * A helper method that returns the number of Questions in Snapshot buckets.
+	 */
+	private static int size(Question[][] pools) {
+		int total = 0;
+		for (Question[] pool : pools) {
+			total += pool.length;
+		}
+		return total;
+	}
+	
+	/**
+	 * A helper method that looks up the entry of an id; ConcurrentHashMap does not accept a null key.
+	 */
+	private Entry entry(UUID id) {
+		return (id == null) ? null : this.index.get(id);
+	}
+	
+	/**
+	 * A helper method that publishes the next Snapshot, then starts a repository checkpoint of it when one is due.
+	 * Must be called while holding the write lock.
+	 */
+	private void publish(Snapshot next) {
+		this.snapshot = next;
+		if (this.repository.checkpointDue()) this.repository.checkpoint(next.all.inserted());
+	}
+	
+	/**
+	 * A helper method that stores several new Questions as one write, for setQuestions and applyReplicated.
+	 * 
+	 * @param policies True to apply the capacity limit and the DuplicatePolicy; false to store every new id.
+	 */
+	private StoreOutcome[] setQuestions(Question[] batch, boolean policies) {
+		for (Question question : batch) {
+			if (question == null) throw new IllegalArgumentException("The parameter batch must not contain null Questions!");
+		}
+		int signatures[][] = null;
+		if (this.nearDuplicates != null) {
+			signatures = new int[batch.length][];
+			for (int i = 0; i < batch.length; i++) {
+				signatures[i] = NearDuplicateIndex.signature(batch[i]);
+			}
+		}
+		long start = System.nanoTime();
+		try {
+			StoreOutcome outcomes[] = new StoreOutcome[batch.length];
+			Arrays.fill(outcomes, StoreOutcome.FULL); // Questions after the loop did not fit.
+			long position = 0;
+			
+			this.writeLock.lock();
+			try {
+				// Select the Questions that fit, skipping stored ids, repeats within the batch, and rejected near-duplicates.
+				Question[] accepted = new Question[batch.length];
+				int acceptedSignatures[][] = (signatures == null) ? null : new int[batch.length][];
+				boolean rejectDuplicates = policies && this.rejectDuplicates;
+				NearDuplicateIndex acceptedDuplicates = rejectDuplicates ? new NearDuplicateIndex(this.nearDuplicates.threshold()) : null;
+				Set<UUID> batchIds = new HashSet<>();
+				int available = policies ? freeCapacity() : Integer.MAX_VALUE;
+				int count = 0;
+				int storedIds = 0;
+				int duplicates = 0;
+				int i = 0;
+				for (; i < batch.length && count < available; i++) {
+					UUID id = batch[i].getID();
+					if (this.index.containsKey(id) || batchIds.contains(id)) {
+						outcomes[i] = StoreOutcome.STORED_ID;
+						storedIds++;
+						continue;
+					}
+					if (rejectDuplicates) {
+						if (this.nearDuplicates.find(signatures[i], id) != null || acceptedDuplicates.find(signatures[i], id) != null) {
+							outcomes[i] = StoreOutcome.NEAR_DUPLICATE;
+							duplicates++;
+							continue;
+						}
+						acceptedDuplicates.put(count, batch[i], signatures[i]);
+					}
+					batchIds.add(id);
+					if (signatures != null) acceptedSignatures[count] = signatures[i];
+					accepted[count++] = batch[i];
+					outcomes[i] = StoreOutcome.STORED;
+				}
+				this.metrics.reject(QuestionMetrics.Rejection.STORED_ID, storedIds);
+				this.metrics.reject(QuestionMetrics.Rejection.NEAR_DUPLICATE, duplicates);
+				this.metrics.reject(QuestionMetrics.Rejection.FULL, batch.length - i);
+				
+				if (count > 0) position = store(Arrays.copyOf(accepted, count), (signatures == null) ? null : Arrays.copyOf(acceptedSignatures, count), true);
+			} finally {
+				this.writeLock.unlock();
 			}
+			this.repository.sync(position);
+			return outcomes;
+		} finally {
+			this.metrics.record(QuestionMetrics.Operation.SET_MANY, start);
 		}
-		return false;
+	}
+	
+	/**
+	 * A helper method that returns how many more Questions can be stored.
+	 * Must be called while holding the write lock.
+	 */
+	private int freeCapacity() {
+		return Math.max(0, this.limit - (this.nextSlot - this.freeCount));
+	}
+	
+	/**
+	 * A helper method that pops a freed slot, or takes the next unused one, growing the slots if needed.
+	 * Must be called while holding the write lock.
+	 */
+	private int claimSlot() {
+		if (this.freeCount > 0) return this.freeSlots[--this.freeCount];
+		if (this.nextSlot == this.slots.capacity()) this.slots.grow();
+		return this.nextSlot++;
+	}
+	
+	/**
+	 * A helper method that moves the Questions above twice the stored count (but at least the initial capacity)
+	 * into the empty slots below it, releases the slots above, and rebuilds the free slot stack lowest slot first.
+	 * Readers go through the index and Snapshot, which hold the Questions themselves, so they are not affected.
+	 * Must be called while holding the write lock.
+	 */
+	private void compact() {
+		int target = Math.max(this.initialCapacity, 2 * (this.nextSlot - this.freeCount));
+		int hole = 0;
+		for (int slot = this.nextSlot - 1; slot >= target; slot--) {
+			Question question = this.slots.get(slot);
+			if (question == null) continue;
+			while (this.slots.get(hole) != null) hole++;
+			moveSlot(slot, hole, question);
+		}
+		
+		this.nextSlot = Math.min(this.nextSlot, target);
+		while (this.nextSlot > 0 && this.slots.get(this.nextSlot - 1) == null) this.nextSlot--;
+		this.freeCount = 0;
+		this.freeSlots = new int[Math.max(INITIAL_FREE_SLOTS, this.nextSlot / COMPACTION_RATIO)];
+		for (int slot = this.nextSlot - 1; slot >= 0; slot--) {
+			if (this.slots.get(slot) == null) releaseSlot(slot);
+		}
+		this.slots.shrink(target);
+	}
+	
+	/**
+	 * A helper method that moves a stored Question to an empty slot, in the slots, the id index, and the text indexes.
+	 * Must be called while holding the write lock.
+	 */
+	private void moveSlot(int from, int to, Question question) {
+		this.slots.set(to, question);
+		this.slots.set(from, null);
+		this.searchIndex.move(from, to);
+		if (this.nearDuplicates != null) this.nearDuplicates.move(from, to);
+		Entry entry = this.index.get(question.getID());
+		this.index.put(question.getID(), new Entry(question, to, entry.sequence(), entry.type(), entry.difficulty(), entry.answerKey(), entry.counters()));
+	}
+	
+	/**
+	 * A helper method that pushes a slot released by delete for reuse by setQuestion.
+	 * Must be called while holding the write lock.
+	 */
+	private void releaseSlot(int slot) {
+		if (this.freeCount == this.freeSlots.length) this.freeSlots = Arrays.copyOf(this.freeSlots, this.freeSlots.length * 2);
+		this.freeSlots[this.freeCount++] = slot;
+	}
+	
+	/**
+	 * A helper method that returns the CapacityPolicy of a fixed capacity service.
+	 * 
+	 * @throws IllegalArgumentException If numQuestions is less than 1.
+	 */
+	private static CapacityPolicy fixedCapacity(int numQuestions) {
+		if (numQuestions < 1) throw new IllegalArgumentException("numQuestions must not be less than 1; default is 20!");
+		return CapacityPolicy.fixed(numQuestions);
+	}
+	
+	/**
+	 * A helper method that returns a sorted Snapshot bucket as is.
+	 * A bucket the strategy could not sort is copied and sorted here, so the Comparator's error reaches the caller.
+	 */
+	private Optional<Question[]> read(Bucket bucket) {
+		if (bucket.questions().length == 0) return Optional.empty();
+		if (bucket.sorted()) return Optional.of(bucket.questions());
+		
+		Question[] myQuestions = bucket.questions().clone();
+		sort(myQuestions);
+		return Optional.of(myQuestions);
+	}
+	
+	/**
+	 * A helper method that validates the paging parameters and reads a page from a Snapshot bucket.
+	 */
+	private static QuestionPage page(Bucket bucket, String after, int limit) {
+		if (limit < 1 || limit > MAX_PAGE_SIZE) throw new IllegalArgumentException("The parameter limit must be between 1 and " + MAX_PAGE_SIZE + "!");
+		return bucket.page(Cursor.decode(after), limit);
 	}
 	
 	/**
@@ -141,4 +1089,286 @@ public class QuestionService {
 	private void sort(Question[] questionArray) {
 		this.sortingStrategy.sort(questionArray);
 	}
+	
+	/**
+	 * A stored Question, its slot, its insertion sequence, the Type and Difficulty it was indexed under,
+	 * its normalized answer, and its usage counters, which survive edits and slot moves.
+	 */
+	private record Entry(Question question, int slot, long sequence, Question.Type type, Question.Difficulty difficulty, CharSequence answerKey, QuestionCounters counters) {}
+	
+	/**
+	 * Questions being added by one write, with the insertion sequence assigned to each.
+	 */
+	private record Batch(Question[] questions, long[] sequences) {
+		
+		private Batch filter(Predicate<Question> predicate) {
+			int positions[] = IntStream.range(0, this.questions.length).filter((int i) -> predicate.test(this.questions[i])).toArray();
+			Question[] matching = new Question[positions.length];
+			long matchingSequences[] = new long[positions.length];
+			for (int i = 0; i < positions.length; i++) {
+				matching[i] = this.questions[positions[i]];
+				matchingSequences[i] = this.sequences[positions[i]];
+			}
+			return new Batch(matching, matchingSequences);
+		}
+	}
+	
+	/**
+	 * An immutable group of Questions held in two orders.
+	 * questions is ordered by the sorting strategy when sorted is true. When the Comparator cannot order
+	 * the Questions (for example a missing Type), they are kept in insertion order and readers sort a copy,
+	 * which reports the Comparator's error as before.
+	 * inserted is ordered by the insertion sequences held in the parallel sequences array, for paging.
+	 */
+	private record Bucket(Question[] questions, boolean sorted, Question[] inserted, long[] sequences) {
+		private static final Bucket EMPTY = new Bucket(new Question[0], true, new Question[0], new long[0]);
+		
+		private Bucket add(Batch batch, AbstractSortingStrategy strategy) {
+			// Sequences only grow, so the batch goes after every stored Question.
+			long newSequences[] = Arrays.copyOf(this.sequences, this.sequences.length + batch.sequences().length);
+			System.arraycopy(batch.sequences(), 0, newSequences, this.sequences.length, batch.sequences().length);
+			Question[] newInserted = ArrayUtility.appendAll(this.inserted, batch.questions());
+			
+			return order(ArrayUtility.appendAll(this.questions, batch.questions()), newInserted, newSequences, strategy);
+		}
+		
+		/**
+		 * Returns a copy without a stored Question. Linear: the arrays are copied, and the Question is found in the
+		 * sorted array by identity, since Questions the Comparator ranks equal may sit anywhere in a run.
+		 */
+		private Bucket remove(Question question, long sequence, AbstractSortingStrategy strategy) {
+			int position = Arrays.binarySearch(this.sequences, sequence);
+			long newSequences[] = new long[this.sequences.length - 1];
+			System.arraycopy(this.sequences, 0, newSequences, 0, position);
+			System.arraycopy(this.sequences, position + 1, newSequences, position, newSequences.length - position);
+			Question[] newInserted = ArrayUtility.removeAt(this.inserted, position);
+			Question[] rest = ArrayUtility.remove(this.questions, question);
+			
+			// Removing from a sorted array keeps it sorted.
+			if (this.sorted) return new Bucket(rest, true, newInserted, newSequences);
+			return order(rest, newInserted, newSequences, strategy);
+		}
+		
+		/**
+		 * Puts an edited copy in place of a stored Question, in copies of the arrays; linear, like remove.
+		 * An edit keeps the Type and Difficulty, so the order changes only under a Comparator that reads the text,
+		 * and the bucket is sorted again only then.
+		 */
+		private Bucket replace(Question question, long sequence, Question edited, AbstractSortingStrategy strategy) {
+			Question[] newInserted = this.inserted.clone();
+			newInserted[Arrays.binarySearch(this.sequences, sequence)] = edited;
+			Question[] newQuestions = this.questions.clone();
+			int position = 0;
+			while (newQuestions[position] != question) position++;
+			newQuestions[position] = edited;
+			
+			if (this.sorted && inOrder(newQuestions, position, strategy.getComparator())) return new Bucket(newQuestions, true, newInserted, this.sequences);
+			return order(newQuestions, newInserted, this.sequences, strategy);
+		}
+		
+		/**
+		 * Returns up to limit Questions inserted after the given sequence, in insertion order.
+		 */
+		private QuestionPage page(long after, int limit) {
+			// binarySearch returns -(insertion point) - 1 when the sequence is absent, e.g. deleted.
+			int from = Arrays.binarySearch(this.sequences, after);
+			from = (from >= 0) ? from + 1 : -from - 1;
+			int to = (int) Math.min((long) from + limit, this.sequences.length);
+			
+			Question[] page = Arrays.copyOfRange(this.inserted, from, to);
+			String next = (to < this.sequences.length) ? Cursor.encode(this.sequences[to - 1]) : null;
+			return new QuestionPage(page, next);
+		}
+		
+		/**
+		 * Returns true if the Question at a position of a sorted array is still ordered against its neighbours.
+		 */
+		private static boolean inOrder(Question[] questions, int position, Comparator<Question> comparator) {
+			return (position == 0 || comparator.compare(questions[position - 1], questions[position]) <= 0)
+				&& (position == questions.length - 1 || comparator.compare(questions[position], questions[position + 1]) <= 0);
+		}
+		
+		/**
+		 * Sorts a copy of an unshared array; appending to a sorted array and re-sorting is
+		 * close to linear for the adaptive strategies.
+		 */
+		private static Bucket order(Question[] questions, Question[] inserted, long sequences[], AbstractSortingStrategy strategy) {
+			if (questions.length < 2) return new Bucket(questions, true, inserted, sequences);
+			
+			Question[] ordered = questions.clone();
+			try {
+				strategy.sort(ordered);
+				return new Bucket(ordered, true, inserted, sequences);
+			} catch (IllegalArgumentException e) {
+				return new Bucket(questions, false, inserted, sequences);
+			}
+		}
+	}
+	
+	/**
+	 * Encodes insertion sequences as opaque, URL safe page cursors.
+	 */
+	private static final class Cursor {
+		private static final long BEFORE_FIRST = -1;
+		
+		private static String encode(long sequence) {
+			return Base64.getUrlEncoder().withoutPadding().encodeToString(ByteBuffer.allocate(Long.BYTES).putLong(sequence).array());
+		}
+		
+		/**
+		 * @throws IllegalArgumentException If the cursor was not produced by encode.
+		 */
+		private static long decode(String cursor) {
+			if (cursor == null) return BEFORE_FIRST;
+			try {
+				byte bytes[] = Base64.getUrlDecoder().decode(cursor);
+				if (bytes.length != Long.BYTES) throw new IllegalArgumentException("The cursor is not valid!");
+				return ByteBuffer.wrap(bytes).getLong();
+			} catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException("The cursor is not valid!");
+			}
+		}
+	}
+	
+	/**
+	 * An immutable, versioned view of the stored Questions, overall and per index bucket.
+	 * Writers build the next Snapshot from the current one, re-sorting only the buckets they touch;
+	 * the arrays are never modified once published.
+	 */
+	private static final class Snapshot {
+		private static final Snapshot EMPTY = new Snapshot(0, new long[Question.Type.values().length], Bucket.EMPTY, emptyByType(), emptyByTypeAndDifficulty());
+		
+		private final long version;
+		private final long typeVersions[]; // Indexed by Type ordinal; the version of the last write to the Type.
+		private final Bucket all;
+		private final Bucket[] byType; // Indexed by Type ordinal.
+		private final Bucket[][] byTypeAndDifficulty; // Indexed by Type ordinal, then Difficulty ordinal.
+		
+		private Snapshot(long version, long typeVersions[], Bucket all, Bucket[] byType, Bucket[][] byTypeAndDifficulty) {
+			this.version = version;
+			this.typeVersions = typeVersions;
+			this.all = all;
+			this.byType = byType;
+			this.byTypeAndDifficulty = byTypeAndDifficulty;
+		}
+		
+		/**
+		 * Adds Questions under their current Type and Difficulty, sorting each touched bucket once.
+		 * Untouched buckets are shared with this Snapshot.
+		 */
+		private Snapshot with(Batch added, AbstractSortingStrategy strategy) {
+			Bucket newAll = this.all.add(added, strategy);
+			Bucket[] newByType = this.byType.clone();
+			Bucket[][] newByTypeAndDifficulty = this.byTypeAndDifficulty.clone();
+			long newTypeVersions[] = this.typeVersions.clone();
+			
+			for (Question.Type type : Question.Type.values()) {
+				int t = type.ordinal();
+				Batch ofType = added.filter((Question question) -> question.getType() == type);
+				if (ofType.questions().length == 0) continue;
+				newByType[t] = newByType[t].add(ofType, strategy);
+				newTypeVersions[t] = this.version + 1;
+				
+				newByTypeAndDifficulty[t] = newByTypeAndDifficulty[t].clone();
+				for (Question.Difficulty difficulty : Question.Difficulty.values()) {
+					int d = difficulty.ordinal();
+					Batch ofDifficulty = ofType.filter((Question question) -> question.getDifficulty() == difficulty);
+					if (ofDifficulty.questions().length > 0) newByTypeAndDifficulty[t][d] = newByTypeAndDifficulty[t][d].add(ofDifficulty, strategy);
+				}
+			}
+			return new Snapshot(this.version + 1, newTypeVersions, newAll, newByType, newByTypeAndDifficulty);
+		}
+		
+		/**
+		 * Puts an edited copy in place of a stored entry's Question, in the buckets of the Type and Difficulty
+		 * it was stored under. Untouched buckets are shared with this Snapshot.
+		 */
+		private Snapshot replaced(Entry entry, Question edited, AbstractSortingStrategy strategy) {
+			Question question = entry.question();
+			long sequence = entry.sequence();
+			Bucket newAll = this.all.replace(question, sequence, edited, strategy);
+			if (entry.type() == null) return new Snapshot(this.version + 1, this.typeVersions, newAll, this.byType, this.byTypeAndDifficulty);
+			int t = entry.type().ordinal();
+			
+			Bucket[] newByType = this.byType.clone();
+			newByType[t] = newByType[t].replace(question, sequence, edited, strategy);
+			
+			Bucket[][] newByTypeAndDifficulty = this.byTypeAndDifficulty;
+			if (entry.difficulty() != null) {
+				int d = entry.difficulty().ordinal();
+				newByTypeAndDifficulty = this.byTypeAndDifficulty.clone();
+				newByTypeAndDifficulty[t] = newByTypeAndDifficulty[t].clone();
+				newByTypeAndDifficulty[t][d] = newByTypeAndDifficulty[t][d].replace(question, sequence, edited, strategy);
+			}
+			return new Snapshot(this.version + 1, touched(entry.type()), newAll, newByType, newByTypeAndDifficulty);
+		}
+		
+		/**
+		 * Removes a stored entry from the buckets of the Type and Difficulty it was stored under.
+		 * Untouched buckets are shared with this Snapshot.
+		 */
+		private Snapshot without(Entry entry, AbstractSortingStrategy strategy) {
+			Question question = entry.question();
+			long sequence = entry.sequence();
+			Bucket newAll = this.all.remove(question, sequence, strategy);
+			if (entry.type() == null) return new Snapshot(this.version + 1, this.typeVersions, newAll, this.byType, this.byTypeAndDifficulty);
+			int t = entry.type().ordinal();
+			
+			Bucket[] newByType = this.byType.clone();
+			newByType[t] = newByType[t].remove(question, sequence, strategy);
+			
+			Bucket[][] newByTypeAndDifficulty = this.byTypeAndDifficulty;
+			if (entry.difficulty() != null) {
+				int d = entry.difficulty().ordinal();
+				newByTypeAndDifficulty = this.byTypeAndDifficulty.clone();
+				newByTypeAndDifficulty[t] = newByTypeAndDifficulty[t].clone();
+				newByTypeAndDifficulty[t][d] = newByTypeAndDifficulty[t][d].remove(question, sequence, strategy);
+			}
+			return new Snapshot(this.version + 1, touched(entry.type()), newAll, newByType, newByTypeAndDifficulty);
+		}
+		
+		/**
+		 * Returns the Type versions of the next Snapshot, with the version of a changed Type set to it.
+		 */
+		private long[] touched(Question.Type type) {
+			if (type == null) return this.typeVersions;
+			long newTypeVersions[] = this.typeVersions.clone();
+			newTypeVersions[type.ordinal()] = this.version + 1;
+			return newTypeVersions;
+		}
+		
+		/**
+		 * Returns the inserted arrays of the non-empty buckets matching the filters; null or empty filters match everything.
+		 */
+		private Question[][] pools(Set<Question.Type> types, Set<Question.Difficulty> difficulties) {
+			boolean anyType = types == null || types.isEmpty();
+			boolean anyDifficulty = difficulties == null || difficulties.isEmpty();
+			
+			Stream<Question[]> pools;
+			if (anyType && anyDifficulty) {
+				pools = Stream.<Question[]>of(this.all.inserted());
+			} else {
+				Stream<Question.Type> matchingTypes = Arrays.stream(Question.Type.values()).filter((Question.Type type) -> anyType || types.contains(type));
+				pools = anyDifficulty
+					? matchingTypes.map((Question.Type type) -> this.byType[type.ordinal()].inserted())
+					: matchingTypes.flatMap((Question.Type type) -> difficulties.stream().map((Question.Difficulty difficulty) -> this.byTypeAndDifficulty[type.ordinal()][difficulty.ordinal()].inserted()));
+			}
+			return pools.filter((Question[] pool) -> pool.length > 0).toArray(Question[][]::new);
+		}
+		
+		private static Bucket[] emptyByType() {
+			Bucket[] buckets = new Bucket[Question.Type.values().length];
+			Arrays.fill(buckets, Bucket.EMPTY);
+			return buckets;
+		}
+		
+		private static Bucket[][] emptyByTypeAndDifficulty() {
+			Bucket[][] buckets = new Bucket[Question.Type.values().length][];
+			for (int t = 0; t < buckets.length; t++) {
+				buckets[t] = new Bucket[Question.Difficulty.values().length];
+				Arrays.fill(buckets[t], Bucket.EMPTY);
+			}
+			return buckets;
+		}
+	}
 }
@@ -0,0 +1,68 @@
+package com.cody.portfolio.service;
+
+import java.util.Arrays;
+
+import com.cody.portfolio.domain.Question;
+
+/**
+ * The numbered slots QuestionService stores Questions in, held in one array that doubles when it is full.
+ * Growing copies every slot, but only once per doubling, so it costs amortized O(1) per insert; every write
+ * already copies the Snapshot buckets it touches, which is O(n), so splitting the slots into segments would not
+ * make a write any cheaper. Shrinking copies the slots below the new capacity; the slots dropped must be empty.
+ *
+ * Not thread safe; QuestionService only uses it while holding its write lock. capacity may be read by any thread.
+ */
+final class QuestionSlots {
+	private Question[] slots;
+	private volatile int capacity;
+
+	/**
+	 * @param capacity The initial number of slots; must be at least 1.
+	 * @throws IllegalArgumentException If capacity is less than 1.
+	 */
+	QuestionSlots(int capacity) {
+		if (capacity < 1) throw new IllegalArgumentException("The parameter capacity must not be less than 1!");
+		this.slots = new Question[capacity];
+		this.capacity = capacity;
+	}
+
+	Question get(int slot) {
+		return this.slots[slot];
+	}
+
+	void set(int slot, Question question) {
+		this.slots[slot] = question;
+	}
+
+	/**
+	 * Returns the number of slots.
+	 */
+	int capacity() {
+		return this.capacity;
+	}
+
+	/**
+	 * Doubles the number of slots, up to the largest array length.
+	 */
+	void grow() {
+		resize((int) Math.min((long) this.capacity * 2, Integer.MAX_VALUE - 8));
+	}
+
+	/**
+	 * Drops the slots at or above a new capacity, which must all be empty.
+	 *
+	 * @param capacity The number of slots to keep; at least 1 and at most the current capacity.
+	 */
+	void shrink(int capacity) {
+		if (capacity < 1 || capacity > this.capacity) throw new IllegalArgumentException("The parameter capacity must be between 1 and the current capacity!");
+		resize(capacity);
+	}
+
+	/**
+	 * A helper method that copies the slots into an array of a new capacity.
+	 */
+	private void resize(int capacity) {
+		this.slots = Arrays.copyOf(this.slots, capacity);
+		this.capacity = capacity;
+	}
+}
@@ -0,0 +1,31 @@
+package com.cody.portfolio.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Refreshes the QuestionBank StatsSnapshot every quiz.stats.snapshot-seconds seconds (10 by default)
+ * on a daemon thread, which is shut down with the application context.
+ */
+@Configuration
+public class StatsConfiguration {
+	
+	@Bean(destroyMethod = "shutdownNow")
+	public ScheduledExecutorService statsSnapshotter(
+			QuestionBank questionService,
+			@Value("${quiz.stats.snapshot-seconds:10}") long seconds) {
+		if (seconds < 1) throw new IllegalArgumentException("quiz.stats.snapshot-seconds must not be less than 1!");
+		ScheduledExecutorService snapshotter = Executors.newSingleThreadScheduledExecutor((Runnable task) -> {
+			Thread thread = new Thread(task, "question-stats");
+			thread.setDaemon(true);
+			return thread;
+		});
+		snapshotter.scheduleAtFixedRate(questionService::refreshStats, 0, seconds, TimeUnit.SECONDS);
+		return snapshotter;
+	}
+}
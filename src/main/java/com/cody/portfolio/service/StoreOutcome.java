@@ -0,0 +1,22 @@
+package com.cody.portfolio.service;
+
+/**
+ * What setQuestions did with each Question of a batch: stored it, or why it did not.
+ */
+public enum StoreOutcome {
+	/** The Question was stored. */
+	STORED,
+	/** A Question with the same id is already stored, or comes earlier in the batch. */
+	STORED_ID,
+	/** The store holds as many Questions as its CapacityPolicy allows; every later Question in the batch is FULL too. */
+	FULL,
+	/** The DuplicatePolicy rejected it as a near-duplicate of a stored Question or of an earlier one in the batch. */
+	NEAR_DUPLICATE;
+	
+	/**
+	 * Returns true if the Question was stored.
+	 */
+	public boolean stored() {
+		return this == STORED;
+	}
+}
@@ -0,0 +1,91 @@
+package com.cody.portfolio.service.grading;
+
+/**
+ * The normalized form of a stored answer, computed once when the answer is stored or edited.
+ * 
+ * Normalizing folds case, keeps runs of letters and digits as words, and separates the words by single spaces,
+ * so whitespace and punctuation are ignored: "O(log n)." and "o log N" both normalize to "o log n".
+ * Words are the same runs of letters and digits the Tokenizer finds.
+ * Text without any word normalizes to itself without surrounding whitespace instead, so a stored answer of "?"
+ * is only matched by "?" rather than by every answer without words.
+ */
+public final class AnswerKey implements CharSequence {
+	private final char normalized[];
+	
+	private AnswerKey(char normalized[]) {
+		this.normalized = normalized;
+	}
+	
+	/**
+	 * Normalizes an answer.
+	 * 
+	 * @throws IllegalArgumentException If answer is null.
+	 */
+	public static AnswerKey of(String answer) {
+		if (answer == null) throw new IllegalArgumentException("The parameter answer must not be null!");
+		StringBuilder normalized = new StringBuilder(answer.length());
+		normalize(answer, normalized, Integer.MAX_VALUE);
+		char chars[] = new char[normalized.length()];
+		normalized.getChars(0, chars.length, chars, 0);
+		return new AnswerKey(chars);
+	}
+	
+	/**
+	 * Appends the normalized form of text to a buffer, stopping once the buffer holds more than limit chars.
+	 * Allocates nothing beyond the buffer's own growth.
+	 * 
+	 * @param text The text to normalize.
+	 * @param into The buffer the normalized text is appended to; it should be empty.
+	 * @param limit The length past which the rest of the text is not needed.
+	 */
+	static void normalize(CharSequence text, StringBuilder into, int limit) {
+		boolean separate = false; // A word ended since the last char appended.
+		int length = text.length();
+		int i = 0;
+		while (i < length && into.length() <= limit) {
+			int codePoint = Character.codePointAt(text, i);
+			i += Character.charCount(codePoint);
+			if (!Character.isLetterOrDigit(codePoint)) {
+				separate = into.length() > 0;
+				continue;
+			}
+			if (separate) into.append(' ');
+			separate = false;
+			into.appendCodePoint(Character.toLowerCase(codePoint));
+		}
+		if (into.length() > 0) return;
+		
+		// No words: keep the text itself, so punctuation only matches the same punctuation.
+		int start = 0;
+		int end = length;
+		while (start < end && Character.isWhitespace(text.charAt(start))) start++;
+		while (end > start && Character.isWhitespace(text.charAt(end - 1))) end--;
+		into.append(text, start, start + (int) Math.min(end - start, limit + 1L));
+	}
+	
+	/**
+	 * Returns the number of chars in the normalized answer.
+	 */
+	@Override
+	public int length() {
+		return this.normalized.length;
+	}
+	
+	@Override
+	public char charAt(int index) {
+		return this.normalized[index];
+	}
+	
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		return new String(this.normalized, start, end - start);
+	}
+	
+	/**
+	 * Returns the normalized answer.
+	 */
+	@Override
+	public String toString() {
+		return new String(this.normalized);
+	}
+}
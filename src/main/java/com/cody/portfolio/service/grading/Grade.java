@@ -0,0 +1,13 @@
+package com.cody.portfolio.service.grading;
+
+/**
+ * The outcome of grading one submitted answer.
+ */
+public enum Grade {
+	/** The answer matches the stored answer. */
+	CORRECT,
+	/** The answer does not match the stored answer. */
+	INCORRECT,
+	/** No Question with the submitted id is stored. */
+	UNKNOWN
+}
@@ -0,0 +1,113 @@
+package com.cody.portfolio.service.grading;
+
+/**
+ * Grades submitted answers against normalized stored answers, reusing its normalization buffer and one pair of
+ * edit distance rows for every answer it grades, so grading allocates nothing per answer once they have grown.
+ * The stored side is normalized once, when the answer is stored: an AnswerKey, or a key a repository kept for it.
+ * 
+ * An answer is correct when its normalized form equals the key, or, when edits are allowed, is within that many
+ * single character insertions, deletions, or substitutions of it (Levenshtein distance). A key allows one edit
+ * per CHARS_PER_EDIT chars at most, so a short answer such as "4" never accepts "5".
+ * The distance is computed in a band of width 2 * edits + 1 and abandoned as soon as every cell in a row exceeds
+ * the bound, so a wrong answer costs O(edits * length) or less.
+ * 
+ * Not thread safe; use one Grader per request or thread.
+ */
+public final class Grader {
+	/** The most edits a Grader can be asked to allow. */
+	public static final int MAX_EDITS = 3;
+	/** The normalized key length that allows each edit. */
+	static final int CHARS_PER_EDIT = 4;
+	
+	private final int maxEdits;
+	private final StringBuilder submission;
+	private int previous[];
+	private int current[];
+	
+	/**
+	 * @param maxEdits The edits allowed between a submitted answer and a long enough key, between 0 and MAX_EDITS.
+	 * @throws IllegalArgumentException If maxEdits is out of range.
+	 */
+	public Grader(int maxEdits) {
+		if (maxEdits < 0 || maxEdits > MAX_EDITS) throw new IllegalArgumentException("The parameter maxEdits must be between 0 and " + MAX_EDITS + "!");
+		this.maxEdits = maxEdits;
+		this.submission = new StringBuilder(64);
+		this.previous = new int[64];
+		this.current = new int[64];
+	}
+	
+	/**
+	 * Grades a submitted answer; a null answer is incorrect.
+	 * 
+	 * @param key A stored answer normalized as AnswerKey normalizes it, such as an AnswerKey.
+	 * @throws IllegalArgumentException If key is null.
+	 */
+	public Grade grade(CharSequence key, String answer) {
+		if (key == null) throw new IllegalArgumentException("The parameter key must not be null!");
+		if (answer == null) return Grade.INCORRECT;
+		int edits = Math.min(this.maxEdits, key.length() / CHARS_PER_EDIT);
+		
+		// Past key length + edits chars the answer cannot match, so the rest is not normalized.
+		this.submission.setLength(0);
+		AnswerKey.normalize(answer, this.submission, key.length() + edits);
+		return (withinEdits(key, edits)) ? Grade.CORRECT : Grade.INCORRECT;
+	}
+	
+	/**
+	 * A helper method that returns true if the normalized submission is within the given edits of the key.
+	 */
+	private boolean withinEdits(CharSequence key, int edits) {
+		int n = this.submission.length();
+		int m = key.length();
+		if (Math.abs(n - m) > edits) return false;
+		if (edits == 0 || n == m) {
+			int mismatches = 0;
+			for (int i = 0; i < n; i++) {
+				if (this.submission.charAt(i) != key.charAt(i) && ++mismatches > edits) break;
+			}
+			if (mismatches == 0) return true;
+			if (edits == 0) return false;
+		}
+		return distanceAtMost(key, edits);
+	}
+	
+	/**
+	 * A helper method that computes the Levenshtein distance between the submission and the key in a band,
+	 * returning false as soon as it must exceed the bound.
+	 */
+	private boolean distanceAtMost(CharSequence key, int edits) {
+		int n = this.submission.length();
+		int m = key.length();
+		if (this.previous.length <= m) {
+			this.previous = new int[m + 1];
+			this.current = new int[m + 1];
+		}
+		int beyond = edits + 1; // Stands for any distance over the bound.
+		
+		for (int j = 0; j <= m; j++) {
+			this.previous[j] = Math.min(j, beyond);
+		}
+		for (int i = 1; i <= n; i++) {
+			int from = Math.max(1, i - edits);
+			int to = Math.min(m, i + edits);
+			this.current[from - 1] = (from == 1) ? Math.min(i, beyond) : beyond;
+			int best = this.current[from - 1];
+			char c = this.submission.charAt(i - 1);
+			for (int j = from; j <= to; j++) {
+				int substitute = this.previous[j - 1] + ((c == key.charAt(j - 1)) ? 0 : 1);
+				int delete = this.previous[j] + 1;
+				int insert = this.current[j - 1] + 1;
+				int cell = Math.min(beyond, Math.min(substitute, Math.min(delete, insert)));
+				this.current[j] = cell;
+				if (cell < best) best = cell;
+			}
+			if (to < m) this.current[to + 1] = beyond;
+			if (best > edits) return false;
+			
+			int swap[] = this.previous;
+			this.previous = this.current;
+			this.current = swap;
+		}
+		return this.previous[m] <= edits;
+	}
+}
@@ -0,0 +1,19 @@
+package com.cody.portfolio.service.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers the QuestionService meters in the MeterRegistry Actuator provides,
+ * which publishes them at /actuator/prometheus.
+ */
+@Configuration
+public class MetricsConfiguration {
+
+	@Bean
+	public QuestionMetrics questionMetrics(MeterRegistry registry) {
+		return new QuestionMetrics(registry);
+	}
+}
@@ -0,0 +1,203 @@
+package com.cody.portfolio.service.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.DistributionSummary;
+
+import com.cody.portfolio.service.sorting.AbstractSortingStrategy;
+import com.cody.portfolio.service.sorting.MeteredSortingStrategy;
+
+/**
+ * The Micrometer meters of QuestionService.
+ * Every meter is registered once, on construction, and held in an array indexed by enum ordinal,
+ * so recording looks up no tags and allocates nothing.
+ *
+ * quiz.questions.operation    Timer, tagged operation: the latency of each QuestionService operation.
+ * quiz.questions.rejected     Counter, tagged reason: Questions setQuestion or setQuestions did not store.
+ * quiz.questions.stored       Gauge: the number of stored Questions.
+ * quiz.questions.capacity     Gauge: the number of slots the store holds before it grows or fills.
+ * quiz.sort.duration          Timer: the time of each call to the sorting strategy.
+ * quiz.sort.size              DistributionSummary: the length of each array sorted.
+ *
+ * The timers publish percentile histograms, so Prometheus can aggregate latency quantiles across instances.
+ * Each operation is timed once, by the store the caller holds: the shards of a sharded store use forShard.
+ * The get-all and get-many timers count reads of the store, not requests; QuestionController answers a request
+ * from its ResponseCache without reading the store when the body for the current version is kept.
+ */
+public final class QuestionMetrics {
+	/** Records nothing and registers no meters, for services created outside Spring such as in tests and benchmarks. */
+	public static final QuestionMetrics OFF = new QuestionMetrics();
+
+	private static final Duration MIN_LATENCY = Duration.ofNanos(100);
+	private static final Duration MAX_LATENCY = Duration.ofSeconds(10);
+
+	private final MeterRegistry registry;
+	private final Timer operations[]; // Indexed by Operation ordinal.
+	private final Counter rejections[]; // Indexed by Rejection ordinal.
+	private final Timer sortDuration;
+	private final DistributionSummary sortSize;
+	private final boolean shard; // True if operations and occupancy are left to the store holding the shard.
+	private final boolean off; // True if nothing is registered or recorded.
+
+	/**
+	 * The QuestionService operations that are timed, with the tag each is recorded under.
+	 */
+	public enum Operation {
+		SET("set"),
+		SET_MANY("set-many"),
+		GET("get"),
+		GET_MANY("get-many"),
+		GET_ALL("get-all"),
+		EDIT("edit"),
+		DELETE("delete"),
+		GRADE("grade");
+
+		private final String tag;
+
+		Operation(String tag) {
+			this.tag = tag;
+		}
+	}
+
+	/**
+	 * Why a Question was not stored, with the tag each is counted under.
+	 */
+	public enum Rejection {
+		/** The array is full. */
+		FULL("full"),
+		/** A Question with the same id is already stored. */
+		STORED_ID("stored-id"),
+		/** The DuplicatePolicy rejected it as a near-duplicate. */
+		NEAR_DUPLICATE("near-duplicate");
+
+		private final String tag;
+
+		Rejection(String tag) {
+			this.tag = tag;
+		}
+	}
+
+	/**
+	 * Registers the meters in a registry.
+	 *
+	 * @param registry The registry the meters are published through, such as Actuator's Prometheus registry.
+	 * @throws IllegalArgumentException If registry is null.
+	 */
+	public QuestionMetrics(MeterRegistry registry) {
+		if (registry == null) throw new IllegalArgumentException("The parameter registry must not be null!");
+		this.registry = registry;
+
+		this.operations = new Timer[Operation.values().length];
+		for (Operation operation : Operation.values()) {
+			this.operations[operation.ordinal()] = latency("quiz.questions.operation")
+					.description("The latency of QuestionService operations")
+					.tag("operation", operation.tag)
+					.register(registry);
+		}
+
+		this.rejections = new Counter[Rejection.values().length];
+		for (Rejection rejection : Rejection.values()) {
+			this.rejections[rejection.ordinal()] = Counter.builder("quiz.questions.rejected")
+					.description("Questions that were not stored")
+					.tag("reason", rejection.tag)
+					.register(registry);
+		}
+
+		this.sortDuration = latency("quiz.sort.duration")
+				.description("The time of each call to the sorting strategy")
+				.register(registry);
+		this.sortSize = DistributionSummary.builder("quiz.sort.size")
+				.description("The length of each array sorted")
+				.baseUnit("questions")
+				.publishPercentileHistogram()
+				.register(registry);
+		this.shard = false;
+		this.off = false;
+	}
+
+	private QuestionMetrics() {
+		this.registry = null;
+		this.operations = null;
+		this.rejections = null;
+		this.sortDuration = null;
+		this.sortSize = null;
+		this.shard = true;
+		this.off = true;
+	}
+
+	private QuestionMetrics(QuestionMetrics whole) {
+		this.registry = whole.registry;
+		this.operations = whole.operations;
+		this.rejections = whole.rejections;
+		this.sortDuration = whole.sortDuration;
+		this.sortSize = whole.sortSize;
+		this.shard = true;
+		this.off = whole.off;
+	}
+
+	/**
+	 * Returns meters for one shard of a store, such as a QuestionService inside a ShardedQuestionService.
+	 * Rejections and sorts are counted in the same meters, while operation latencies and the occupancy gauges are
+	 * left to the store holding the shards, so each operation is timed once and the gauges read the whole store.
+	 */
+	public QuestionMetrics forShard() {
+		if (this.off) return this;
+		return new QuestionMetrics(this);
+	}
+
+	/**
+	 * Records the latency of an operation that started at startNanos, as returned by System.nanoTime.
+	 */
+	public void record(Operation operation, long startNanos) {
+		if (this.shard) return;
+		this.operations[operation.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Counts Questions that were not stored for a reason.
+	 */
+	public void reject(Rejection rejection, int count) {
+		if (count > 0 && !this.off) this.rejections[rejection.ordinal()].increment(count);
+	}
+
+	/**
+	 * Wraps a sorting strategy so every call records its duration and array length; OFF returns it unwrapped.
+	 */
+	public AbstractSortingStrategy meter(AbstractSortingStrategy strategy) {
+		if (this.off) return strategy;
+		return new MeteredSortingStrategy(strategy, this.sortDuration, this.sortSize);
+	}
+
+	/**
+	 * Registers the occupancy gauges of a store. They are read when the registry is scraped, not on writes.
+	 * The registry holds the store weakly, and a second store registered under the same names is ignored.
+	 *
+	 * @param store The object the gauges read.
+	 * @param stored Returns the number of stored Questions.
+	 * @param capacity Returns the number of slots.
+	 */
+	public <T> void bindStore(T store, ToDoubleFunction<T> stored, ToDoubleFunction<T> capacity) {
+		if (this.shard) return;
+		Gauge.builder("quiz.questions.stored", store, stored)
+				.description("The number of stored Questions")
+				.baseUnit("questions")
+				.register(this.registry);
+		Gauge.builder("quiz.questions.capacity", store, capacity)
+				.description("The number of slots the store holds before it grows or fills")
+				.baseUnit("questions")
+				.register(this.registry);
+	}
+
+	private static Timer.Builder latency(String name) {
+		return Timer.builder(name)
+				.publishPercentileHistogram()
+				.minimumExpectedValue(MIN_LATENCY)
+				.maximumExpectedValue(MAX_LATENCY);
+	}
+}
@@ -0,0 +1,79 @@
+package com.cody.portfolio.service.persistence;
+
+import java.util.UUID;
+
+import com.cody.portfolio.domain.Question;
+
+/**
+ * A Question that is a view of a QuestionArena record.
+ * It holds only the arena and the record number, and every getter decodes the record when called.
+ * Every setter throws UnsupportedOperationException: a durable record changed in place could point at text
+ * a crash discards, so ArenaQuestionRepository.holdEdit appends a replacement record instead.
+ */
+final class ArenaQuestion extends Question {
+	private static final String READ_ONLY = "A stored question is edited through QuestionService.edit!";
+	
+	private final QuestionArena arena;
+	private final int record;
+	
+	ArenaQuestion(QuestionArena arena, int record) {
+		this.arena = arena;
+		this.record = record;
+	}
+	
+	int record() {
+		return this.record;
+	}
+	
+	/**
+	 * Returns the normalized answer kept in the record, read in place.
+	 */
+	CharSequence answerKey() {
+		return this.arena.answerKey(this.record);
+	}
+	
+	@Override
+	public void setType(Type type) {
+		throw new UnsupportedOperationException(READ_ONLY);
+	}
+	
+	@Override
+	public void setDifficulty(Difficulty difficulty) {
+		throw new UnsupportedOperationException(READ_ONLY);
+	}
+	
+	@Override
+	public void setQuestion(String question) {
+		throw new UnsupportedOperationException(READ_ONLY);
+	}
+	
+	@Override
+	public void setAnswer(String answer) {
+		throw new UnsupportedOperationException(READ_ONLY);
+	}
+	
+	@Override
+	public Type getType() {
+		return this.arena.type(this.record);
+	}
+	
+	@Override
+	public Difficulty getDifficulty() {
+		return this.arena.difficulty(this.record);
+	}
+	
+	@Override
+	public String getQuestion() {
+		return this.arena.question(this.record);
+	}
+	
+	@Override
+	public String getAnswer() {
+		return this.arena.answer(this.record);
+	}
+	
+	@Override
+	public UUID getID() {
+		return this.arena.id(this.record);
+	}
+}
@@ -0,0 +1,230 @@
+package com.cody.portfolio.service.persistence;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.locks.ReentrantLock;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import com.cody.portfolio.domain.Question;
+
+/**
+ * A repository that keeps Questions in a memory-mapped QuestionArena rather than on the heap.
+ * 
+ * hold copies each accepted Question into the arena and hands QuestionService a view of the copy,
+ * which costs a few dozen bytes of heap however long its text is, and decodes the record on every read.
+ * Reopening maps the files and creates one view per live record without decoding any text,
+ * so there is no log to replay. Writes become durable when sync forces the mapped files;
+ * writers that sync while another writer is forcing share its force, as in FileQuestionRepository.
+ * holdEdit appends a record replacing the edited one rather than changing it in place.
+ * Each record also keeps its answer normalized for grading, which answerKey returns a view of.
+ * 
+ * Deleted and replaced records keep their space in the files while the repository is open. Opening compacts
+ * the arena first when they take up more records or text than the live ones, copying the live records into new files.
+ * A write the disk has no room for throws StorageFullException and is not kept.
+ * bindTo publishes the live and dead records and text bytes, tagged with the directory.
+ */
+public class ArenaQuestionRepository implements QuestionRepository, MeterBinder {
+	/** The number of records a new arena maps room for before it first grows. */
+	public static final int DEFAULT_INITIAL_RECORDS = 1 << 16;
+	
+	private final Path directory;
+	private final QuestionArena arena;
+	private final ReentrantLock syncLock; // Held while forcing, so writers share each force.
+	private volatile long written; // Writes appended so far; the position of the last one.
+	private volatile long durable; // Writes known to be on disk.
+	
+	/**
+	 * Opens or creates an arena in a directory.
+	 * 
+	 * @param directory The directory holding the arena files; it is created if missing.
+	 * @throws UncheckedIOException If the directory cannot be read or written, or holds files that are not an arena.
+	 */
+	public ArenaQuestionRepository(Path directory) {
+		this(directory, DEFAULT_INITIAL_RECORDS);
+	}
+	
+	/**
+	 * Opens or creates an arena in a directory.
+	 * 
+	 * @param directory The directory holding the arena files; it is created if missing.
+	 * @param initialRecords The number of records a new arena maps room for; must be at least 1.
+	 * @throws IllegalArgumentException If initialRecords is less than 1.
+	 * @throws UncheckedIOException If the directory cannot be read or written, or holds files that are not an arena.
+	 */
+	public ArenaQuestionRepository(Path directory, int initialRecords) {
+		this(directory, initialRecords, QuestionArena.DEFAULT_SEGMENT_SIZE);
+	}
+	
+	/**
+	 * Opens or creates an arena whose text is mapped in segments of a given size, so tests can fill several.
+	 */
+	ArenaQuestionRepository(Path directory, int initialRecords, int segmentSize) {
+		if (directory == null) throw new IllegalArgumentException("The parameter directory must not be null!");
+		if (initialRecords < 1) throw new IllegalArgumentException("The parameter initialRecords must not be less than 1!");
+		if (segmentSize < 1) throw new IllegalArgumentException("The parameter segmentSize must not be less than 1!");
+		try {
+			Files.createDirectories(directory);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		QuestionArena.compact(directory, segmentSize);
+		this.directory = directory;
+		this.arena = new QuestionArena(directory, initialRecords, segmentSize);
+		this.syncLock = new ReentrantLock();
+	}
+	
+	/**
+	 * An edited Question is loaded from the last record of its chain of replacements,
+	 * in the place of the record the chain started from.
+	 */
+	@Override
+	public Question[] load() {
+		int records[] = this.arena.liveInOrder();
+		Question[] loaded = new Question[records.length];
+		for (int i = 0; i < records.length; i++) {
+			loaded[i] = new ArenaQuestion(this.arena, records[i]);
+		}
+		return loaded;
+	}
+	
+	/**
+	 * If a Question cannot be copied, the records already copied for the batch are deleted before the exception
+	 * is thrown, so none of them is loaded later.
+	 * 
+	 * @throws StorageFullException If the arena cannot grow to hold the batch.
+	 */
+	@Override
+	public Question[] hold(Question[] questions) {
+		Question[] views = new Question[questions.length];
+		int i = 0;
+		try {
+			for (; i < questions.length; i++) {
+				views[i] = new ArenaQuestion(this.arena, this.arena.add(questions[i]));
+			}
+		} catch (RuntimeException e) {
+			for (int j = 0; j < i; j++) {
+				this.arena.delete(((ArenaQuestion) views[j]).record());
+			}
+			throw e;
+		}
+		return views;
+	}
+	
+	/**
+	 * Appends a record holding the edited Question that replaces the stored Question's record.
+	 * 
+	 * @throws IllegalArgumentException If the stored Question was not returned by hold, holdEdit, or load.
+	 * @throws StorageFullException If the arena cannot grow to hold the edited Question.
+	 */
+	@Override
+	public Question holdEdit(Question stored, Question edited) {
+		if (!(stored instanceof ArenaQuestion view)) throw new IllegalArgumentException("The parameter stored must be held by this repository!");
+		return new ArenaQuestion(this.arena, this.arena.replace(view.record(), edited));
+	}
+	
+	/**
+	 * Returns a view of the answer key the arena wrote with the record, so the key stays off the heap with the text.
+	 */
+	@Override
+	public CharSequence answerKey(Question held) {
+		if (held instanceof ArenaQuestion view) return view.answerKey();
+		return QuestionRepository.super.answerKey(held);
+	}
+	
+	/**
+	 * The Questions were written to the arena by hold, so only the position advances.
+	 */
+	@Override
+	public long append(Question[] questions) {
+		return ++this.written;
+	}
+	
+	/**
+	 * The edited Question was written to the arena by holdEdit, so only the position advances.
+	 */
+	@Override
+	public long appendEdit(Question question) {
+		return ++this.written;
+	}
+	
+	/**
+	 * @throws IllegalArgumentException If the Question was not returned by hold or load.
+	 */
+	@Override
+	public long appendDelete(Question question) {
+		if (!(question instanceof ArenaQuestion view)) throw new IllegalArgumentException("The parameter question must be held by this repository!");
+		this.arena.delete(view.record());
+		return ++this.written;
+	}
+	
+	@Override
+	public void sync(long position) {
+		if (this.durable >= position) return;
+		
+		this.syncLock.lock();
+		try {
+			// The writer that held the lock before may have forced this write already.
+			if (this.durable >= position) return;
+			long target = this.written;
+			this.arena.force();
+			this.durable = target;
+		} finally {
+			this.syncLock.unlock();
+		}
+	}
+	
+	/**
+	 * The arena is its own snapshot, so checkpoints are never due.
+	 */
+	@Override
+	public boolean checkpointDue() {
+		return false;
+	}
+	
+	@Override
+	public void checkpoint(Question[] questions) {}
+	
+	/**
+	 * Publishes the arena's live and dead records and text bytes; they are read when the registry is scraped.
+	 * Dead records are deleted or replaced ones, and dead text also counts the unused ends of full segments.
+	 */
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		String directory = this.directory.toString();
+		QuestionArena arena = this.arena;
+		Gauge.builder("quiz.arena.records", arena, QuestionArena::liveRecords)
+				.description("Records in the question arena")
+				.tags("directory", directory, "state", "live")
+				.register(registry);
+		Gauge.builder("quiz.arena.records", arena, (QuestionArena a) -> a.count() - a.liveRecords())
+				.description("Records in the question arena")
+				.tags("directory", directory, "state", "dead")
+				.register(registry);
+		Gauge.builder("quiz.arena.text", arena, QuestionArena::liveTextBytes)
+				.description("Text bytes in the question arena")
+				.baseUnit("bytes")
+				.tags("directory", directory, "state", "live")
+				.register(registry);
+		Gauge.builder("quiz.arena.text", arena, (QuestionArena a) -> a.textBytes() - a.liveTextBytes())
+				.description("Text bytes in the question arena")
+				.baseUnit("bytes")
+				.tags("directory", directory, "state", "dead")
+				.register(registry);
+	}
+	
+	@Override
+	public void close() {
+		this.syncLock.lock();
+		try {
+			this.arena.close();
+			this.durable = this.written;
+		} finally {
+			this.syncLock.unlock();
+		}
+	}
+}
@@ -0,0 +1,445 @@
+package com.cody.portfolio.service.persistence;
+
+import java.util.UUID;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.LinkedHashMap;
+import java.io.IOException;
+import java.io.EOFException;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.UncheckedIOException;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.stream.Stream;
+import java.util.concurrent.Future;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.cody.portfolio.domain.Question;
+
+/**
+ * An embedded repository that keeps Questions in a directory as a write-ahead log and periodic snapshots.
+ * 
+ * Every write is appended to the current log file as one record: its length, a CRC32 of its payload,
+ * then the payload. Appending only writes to the file; sync forces it to disk. Writers that call sync
+ * while another writer is forcing the file wait for it and then, with a single force, make every record
+ * appended in the meantime durable. This group commit lets many writers share each fsync.
+ * 
+ * Log files are numbered by generation. A checkpoint starts the next generation, then writes a snapshot
+ * of the state up to it on a background thread, replacing the previous snapshot atomically and deleting
+ * the older logs. Recovery reads the snapshot and replays the logs from its generation onwards,
+ * stopping at the first torn or corrupt record of a file; such a record was never acknowledged.
+ */
+public class FileQuestionRepository implements QuestionRepository {
+	/** The number of logged Questions and deletes after which a checkpoint is due. */
+	public static final int DEFAULT_CHECKPOINT_INTERVAL = 10_000;
+	
+	static final String SNAPSHOT_FILE = "questions.snapshot";
+	private static final String LOG_PREFIX = "questions-";
+	private static final String LOG_SUFFIX = ".log";
+	private static final int SNAPSHOT_MAGIC = 0x51534E50; // "QSNP"
+	private static final int RECORD_HEADER = 2 * Integer.BYTES; // Payload length, then payload CRC32.
+	private static final byte INSERT = 1;
+	private static final byte DELETE = 2;
+	private static final Logger LOGGER = LoggerFactory.getLogger(FileQuestionRepository.class);
+	
+	private final Path directory;
+	private final int checkpointInterval;
+	private final ExecutorService checkpointer; // One thread, so snapshots are written in order.
+	private final ReentrantLock syncLock; // Held while forcing or replacing the log file.
+	private Question[] recovered;
+	
+	// Guarded by the caller's write lock; log, appended, and durable are also read by sync.
+	private volatile FileChannel log;
+	private long generation;
+	private long fileSize; // Bytes appended to the current log file.
+	private volatile long appended; // Bytes appended across every generation; the position of the last record.
+	private volatile long durable; // Bytes known to be on disk.
+	private int sinceCheckpoint; // Questions and deletes appended since the last checkpoint.
+	private Future<?> pendingCheckpoint;
+	
+	/**
+	 * Opens a repository with the default checkpoint interval, recovering whatever the directory holds.
+	 * 
+	 * @param directory The directory holding the log and snapshot; it is created if missing.
+	 * @throws UncheckedIOException If the directory cannot be read or written.
+	 */
+	public FileQuestionRepository(Path directory) {
+		this(directory, DEFAULT_CHECKPOINT_INTERVAL);
+	}
+	
+	/**
+	 * Opens a repository, recovering whatever the directory holds.
+	 * 
+	 * @param directory The directory holding the log and snapshot; it is created if missing.
+	 * @param checkpointInterval The number of logged Questions and deletes after which a checkpoint is due; must be at least 1.
+	 * @throws IllegalArgumentException If checkpointInterval is less than 1.
+	 * @throws UncheckedIOException If the directory cannot be read or written.
+	 */
+	public FileQuestionRepository(Path directory, int checkpointInterval) {
+		if (directory == null) throw new IllegalArgumentException("The parameter directory must not be null!");
+		if (checkpointInterval < 1) throw new IllegalArgumentException("The parameter checkpointInterval must not be less than 1!");
+		this.directory = directory;
+		this.checkpointInterval = checkpointInterval;
+		this.syncLock = new ReentrantLock();
+		this.checkpointer = Executors.newSingleThreadExecutor((Runnable task) -> {
+			Thread thread = new Thread(task, "question-checkpoint");
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			Files.createDirectories(directory);
+			this.recovered = recover();
+			this.log = openLog(this.generation);
+		} catch (IOException e) {
+			this.checkpointer.shutdown();
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	@Override
+	public Question[] load() {
+		Question[] questions = this.recovered;
+		this.recovered = new Question[0];
+		return questions;
+	}
+	
+	@Override
+	public long append(Question[] questions) {
+		ByteArrayOutputStream bytes = newRecord();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeByte(INSERT);
+			out.writeInt(questions.length);
+			for (Question question : questions) {
+				QuestionCodec.write(out, question);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return write(bytes.toByteArray(), questions.length);
+	}
+	
+	/**
+	 * Logs the whole Question again; replaying it replaces the stored Question in place.
+	 */
+	@Override
+	public long appendEdit(Question question) {
+		return append(new Question[] {question});
+	}
+	
+	@Override
+	public long appendDelete(Question question) {
+		ByteArrayOutputStream bytes = newRecord();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeByte(DELETE);
+			QuestionCodec.writeId(out, question.getID());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return write(bytes.toByteArray(), 1);
+	}
+	
+	@Override
+	public void sync(long position) {
+		if (this.durable >= position) return;
+		
+		this.syncLock.lock();
+		try {
+			// The writer that held the lock before may have forced this record already.
+			if (this.durable >= position) return;
+			long target = this.appended;
+			this.log.force(false);
+			this.durable = target;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			this.syncLock.unlock();
+		}
+	}
+	
+	@Override
+	public boolean checkpointDue() {
+		if (this.sinceCheckpoint < this.checkpointInterval) return false;
+		return this.pendingCheckpoint == null || this.pendingCheckpoint.isDone();
+	}
+	
+	/**
+	 * Starts the next log generation and writes the snapshot on a background thread.
+	 * A checkpoint that fails is reported and retried with the next write, as every record is still logged.
+	 */
+	@Override
+	public void checkpoint(Question[] questions) {
+		long covered;
+		try {
+			covered = rotate();
+		} catch (IOException e) {
+			LOGGER.warn("Starting log generation {} failed", this.generation + 1, e);
+			return;
+		}
+		this.sinceCheckpoint = 0;
+		this.pendingCheckpoint = this.checkpointer.submit(() -> {
+			try {
+				writeSnapshot(questions, covered);
+			} catch (IOException e) {
+				// The logs still hold every record, so nothing is lost; the next checkpoint tries again.
+				LOGGER.warn("Checkpoint of generation {} failed", covered, e);
+			}
+		});
+	}
+	
+	/**
+	 * Waits for a running checkpoint, then forces and closes the log.
+	 */
+	@Override
+	public void close() {
+		this.checkpointer.shutdown();
+		try {
+			if (this.pendingCheckpoint != null) this.pendingCheckpoint.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			// Already reported by the checkpoint task.
+		}
+		
+		this.syncLock.lock();
+		try {
+			this.log.force(false);
+			this.durable = this.appended;
+			this.log.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			this.syncLock.unlock();
+		}
+	}
+	
+	/**
+	 * A helper method that returns a buffer with room reserved for the record header.
+	 */
+	private static ByteArrayOutputStream newRecord() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		bytes.writeBytes(new byte[RECORD_HEADER]);
+		return bytes;
+	}
+	
+	/**
+	 * A helper method that fills in the record header and appends the record to the current log file.
+	 * A record that cannot be written completely is cut off again, so later records stay readable.
+	 */
+	private long write(byte record[], int entries) {
+		CRC32 crc = new CRC32();
+		crc.update(record, RECORD_HEADER, record.length - RECORD_HEADER);
+		ByteBuffer buffer = ByteBuffer.wrap(record);
+		buffer.putInt(0, record.length - RECORD_HEADER);
+		buffer.putInt(Integer.BYTES, (int) crc.getValue());
+		
+		try {
+			while (buffer.hasRemaining()) {
+				this.log.write(buffer);
+			}
+		} catch (IOException e) {
+			try {
+				this.log.truncate(this.fileSize);
+			} catch (IOException suppressed) {
+				e.addSuppressed(suppressed);
+			}
+			throw new UncheckedIOException(e);
+		}
+		this.fileSize += record.length;
+		this.sinceCheckpoint += entries;
+		this.appended += record.length;
+		return this.appended;
+	}
+	
+	/**
+	 * A helper method that makes the current log durable and closes it, then opens the next generation.
+	 * Returns the new generation, the first one a snapshot taken now does not cover.
+	 */
+	private long rotate() throws IOException {
+		FileChannel next = openLog(this.generation + 1);
+		this.syncLock.lock();
+		try {
+			try {
+				this.log.force(false);
+			} catch (IOException e) {
+				next.close();
+				Files.deleteIfExists(logPath(this.generation + 1));
+				throw e;
+			}
+			this.durable = this.appended;
+			this.log.close();
+			this.log = next;
+			this.fileSize = 0;
+			return ++this.generation;
+		} finally {
+			this.syncLock.unlock();
+		}
+	}
+	
+	/**
+	 * A helper method that writes a snapshot beside the current one, makes it durable, and moves it into place,
+	 * then deletes the logs it covers.
+	 */
+	private void writeSnapshot(Question[] questions, long covered) throws IOException {
+		Path temporary = this.directory.resolve(SNAPSHOT_FILE + ".tmp");
+		try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+			out.writeInt(SNAPSHOT_MAGIC);
+			out.writeLong(covered);
+			out.writeInt(questions.length);
+			for (Question question : questions) {
+				QuestionCodec.write(out, question);
+			}
+			out.flush();
+			channel.force(true);
+		}
+		Files.move(temporary, this.directory.resolve(SNAPSHOT_FILE), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		forceDirectory();
+		
+		for (long logGeneration : logGenerations()) {
+			if (logGeneration < covered) Files.deleteIfExists(logPath(logGeneration));
+		}
+	}
+	
+	/**
+	 * A helper method that rebuilds the stored Questions from the snapshot and the logs after it,
+	 * and selects the generation to append to next.
+	 */
+	private Question[] recover() throws IOException {
+		LinkedHashMap<UUID, Question> questions = new LinkedHashMap<>(); // Keeps insertion order.
+		long first = readSnapshot(questions);
+		long last = first - 1;
+		for (long logGeneration : logGenerations()) {
+			if (logGeneration < first) {
+				// Left behind by a checkpoint that stopped before deleting it.
+				Files.deleteIfExists(logPath(logGeneration));
+				continue;
+			}
+			this.sinceCheckpoint += replay(logPath(logGeneration), questions);
+			last = logGeneration;
+		}
+		// Append to a fresh file, so a torn tail is never followed by new records.
+		this.generation = Math.max(first, last + 1);
+		return questions.values().toArray(new Question[0]);
+	}
+	
+	/**
+	 * A helper method that reads the snapshot, if any, and returns the first generation it does not cover.
+	 */
+	private long readSnapshot(LinkedHashMap<UUID, Question> questions) throws IOException {
+		Path snapshot = this.directory.resolve(SNAPSHOT_FILE);
+		if (!Files.exists(snapshot)) return 0;
+		
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot), 1 << 16))) {
+			if (in.readInt() != SNAPSHOT_MAGIC) throw new IOException("Not a question snapshot: " + snapshot);
+			long covered = in.readLong();
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				Question question = QuestionCodec.read(in);
+				questions.put(question.getID(), question);
+			}
+			return covered;
+		}
+	}
+	
+	/**
+	 * A helper method that applies the records of one log file, stopping at the first incomplete or corrupt record.
+	 * Returns the number of Questions and deletes applied.
+	 */
+	private static int replay(Path logFile, LinkedHashMap<UUID, Question> questions) throws IOException {
+		int entries = 0;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(logFile), 1 << 16))) {
+			while (true) {
+				byte payload[] = readRecord(in);
+				if (payload == null) return entries;
+				
+				DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload));
+				byte operation = record.readByte();
+				if (operation == INSERT) {
+					int count = record.readInt();
+					for (int i = 0; i < count; i++) {
+						Question question = QuestionCodec.read(record);
+						questions.put(question.getID(), question);
+					}
+					entries += count;
+				} else if (operation == DELETE) {
+					questions.remove(QuestionCodec.readId(record));
+					entries++;
+				} else {
+					throw new IOException("Unknown log operation " + operation + " in " + logFile);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * A helper method that returns the payload of the next record, or null if the log ends or the record is not intact.
+	 */
+	private static byte[] readRecord(DataInputStream in) throws IOException {
+		try {
+			int length = in.readInt();
+			int checksum = in.readInt();
+			if (length < 1) return null;
+			
+			byte payload[] = in.readNBytes(length);
+			if (payload.length < length) return null;
+			CRC32 crc = new CRC32();
+			crc.update(payload);
+			return ((int) crc.getValue() == checksum) ? payload : null;
+		} catch (EOFException e) {
+			return null;
+		}
+	}
+	
+	/**
+	 * A helper method that lists the generations of the log files in the directory, in ascending order.
+	 */
+	private long[] logGenerations() throws IOException {
+		try (Stream<Path> files = Files.list(this.directory)) {
+			long generations[] = files
+				.map((Path file) -> file.getFileName().toString())
+				.filter((String name) -> name.startsWith(LOG_PREFIX) && name.endsWith(LOG_SUFFIX))
+				.mapToLong((String name) -> Long.parseLong(name.substring(LOG_PREFIX.length(), name.length() - LOG_SUFFIX.length())))
+				.toArray();
+			Arrays.sort(generations);
+			return generations;
+		}
+	}
+	
+	private Path logPath(long logGeneration) {
+		return this.directory.resolve(LOG_PREFIX + logGeneration + LOG_SUFFIX);
+	}
+	
+	private FileChannel openLog(long logGeneration) throws IOException {
+		FileChannel channel = FileChannel.open(logPath(logGeneration), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		forceDirectory();
+		return channel;
+	}
+	
+	/**
+	 * A helper method that makes file creations, renames, and deletions in the directory durable.
+	 * Not every platform can force a directory; there the rename is as durable as the platform allows.
+	 */
+	private void forceDirectory() {
+		try (FileChannel channel = FileChannel.open(this.directory, StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (IOException e) {
+			// Directories cannot be opened for reading on some platforms.
+		}
+	}
+}
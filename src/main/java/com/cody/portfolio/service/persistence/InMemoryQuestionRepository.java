@@ -0,0 +1,44 @@
+package com.cody.portfolio.service.persistence;
+
+import com.cody.portfolio.domain.Question;
+
+/**
+ * A repository that records nothing, so Questions live only as long as the QuestionService holding them.
+ * This is the default when no persistence directory is configured.
+ */
+public class InMemoryQuestionRepository implements QuestionRepository {
+	
+	@Override
+	public Question[] load() {
+		return new Question[0];
+	}
+	
+	@Override
+	public long append(Question[] questions) {
+		return 0;
+	}
+	
+	@Override
+	public long appendEdit(Question question) {
+		return 0;
+	}
+	
+	@Override
+	public long appendDelete(Question question) {
+		return 0;
+	}
+	
+	@Override
+	public void sync(long position) {}
+	
+	@Override
+	public boolean checkpointDue() {
+		return false;
+	}
+	
+	@Override
+	public void checkpoint(Question[] questions) {}
+	
+	@Override
+	public void close() {}
+}
@@ -0,0 +1,65 @@
+package com.cody.portfolio.service.persistence;
+
+import java.nio.file.Path;
+import java.nio.file.Files;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import com.cody.portfolio.service.sharding.ShardingConfiguration;
+
+/**
+ * Selects the QuestionRepository from the application properties.
+ * Questions are kept in memory only unless quiz.persistence.directory names a directory. There,
+ * quiz.persistence.storage selects a write-ahead log with snapshots (log, the default)
+ * or a memory-mapped arena that keeps the Questions off the heap (arena).
+ * With quiz.shards above 1 each shard opens its own repository instead, in a subdirectory of the directory,
+ * and a directory that holds shards is refused when quiz.shards is 1.
+ */
+@Configuration
+public class PersistenceConfiguration {
+	
+	@Bean
+	@ConditionalOnExpression("${quiz.shards:1} == 1")
+	public QuestionRepository questionRepository(
+			@Value("${quiz.persistence.directory:}") String directory,
+			@Value("${quiz.persistence.storage:log}") String storage,
+			@Value("${quiz.persistence.checkpoint-interval:" + FileQuestionRepository.DEFAULT_CHECKPOINT_INTERVAL + "}") int checkpointInterval,
+			ObjectProvider<MeterRegistry> meterRegistry) {
+		if (directory.isBlank()) return repository(null, storage, checkpointInterval);
+		Path root = Path.of(directory);
+		if (Files.exists(root.resolve(ShardingConfiguration.SHARDS_FILE)) || Files.isDirectory(root.resolve("shard-0"))) {
+			throw new IllegalStateException("quiz.persistence.directory holds sharded Questions, so quiz.shards must stay above 1 for it!");
+		}
+		QuestionRepository repository = repository(root, storage, checkpointInterval);
+		bindArena(repository, meterRegistry);
+		return repository;
+	}
+	
+	/**
+	 * Opens the repository the properties select.
+	 * 
+	 * @param directory The directory to keep the Questions in, or null to keep them in memory only.
+	 * @throws IllegalArgumentException If storage is neither log nor arena.
+	 */
+	public static QuestionRepository repository(Path directory, String storage, int checkpointInterval) {
+		if (directory == null) return new InMemoryQuestionRepository();
+		return switch (storage) {
+			case "log" -> new FileQuestionRepository(directory, checkpointInterval);
+			case "arena" -> new ArenaQuestionRepository(directory);
+			default -> throw new IllegalArgumentException("quiz.persistence.storage must be log or arena!");
+		};
+	}
+	
+	/**
+	 * Publishes the usage of an arena repository to the MeterRegistry, when there is one.
+	 */
+	public static void bindArena(QuestionRepository repository, ObjectProvider<MeterRegistry> meterRegistry) {
+		if (repository instanceof ArenaQuestionRepository arena) meterRegistry.ifAvailable(arena::bindTo);
+	}
+}
@@ -0,0 +1,741 @@
+package com.cody.portfolio.service.persistence;
+
+import java.util.UUID;
+import java.util.BitSet;
+import java.util.Arrays;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardCopyOption;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.cody.portfolio.domain.Question;
+import com.cody.portfolio.service.grading.AnswerKey;
+
+/**
+ * Question records in two memory-mapped files, so their state stays off the heap.
+ * 
+ * The record file starts with a header holding the format version, the number of durable records, the durable end
+ * of the text, and the text segment size, followed by fixed size records: the UUID as two longs, the offset and length
+ * of the question text, the answer text, and the answer key, then the Type and Difficulty ordinals, a flag byte,
+ * and the number of the record it replaces, if any. The question and answer are UTF-8, and the key is the answer
+ * normalized as an AnswerKey, in UTF-16 so that grading reads it in place without decoding it.
+ * The text file holds the text back to back at long offsets, mapped in segments of
+ * segmentSize bytes; a text never straddles two segments, so the text file is bounded by the disk rather than
+ * by the 2 GB a single mapping can hold. The record file is one mapping, so an arena holds at most MAX_RECORDS records.
+ * Records are appended in insertion order and deleted by flag, so a record number never changes while the arena is open.
+ * An edit appends a record that replaces the edited one, which stays live in the file; reopening treats
+ * a durable replacement as retiring the record it replaces, so a crash before the next force keeps the old one.
+ * 
+ * Deleted and replaced records, and their text, stay in the files until compact rewrites them before the arena is
+ * opened again, which also upgrades an arena written in an earlier format. Growing either file first checks the disk
+ * has room, and throws StorageFullException if not.
+ * 
+ * Writes go to the mapped pages and become durable on force, which writes the durable counts last.
+ * Reopening ignores anything past those counts, so a write that was not forced is dropped as a whole.
+ * A durable record is never changed again except for its flag, so its text pointers always stay within the durable text.
+ * Reads use absolute accessors on the current mappings and are safe alongside writes.
+ */
+final class QuestionArena implements AutoCloseable {
+	static final String RECORD_FILE = "questions.records";
+	static final String TEXT_FILE = "questions.text";
+	static final String COMPACTED_FILE = "questions.compacted"; // Present once both compacted files are complete.
+	static final String COMPACT_SUFFIX = ".compact";
+	static final int RECORD_SIZE = 64;
+	static final int DEFAULT_SEGMENT_SIZE = 1 << 30;
+	private static final int HEADER_SIZE = 64;
+	private static final int MAGIC = 0x51415245; // "QARE"
+	private static final int VERSION = 3;
+	static final int MAX_RECORDS = (Integer.MAX_VALUE - HEADER_SIZE) / RECORD_SIZE;
+	
+	// Header fields.
+	private static final int MAGIC_AT = 0;
+	private static final int VERSION_AT = 4;
+	private static final int COUNT_AT = 8;
+	private static final int TEXT_END_AT = 16;
+	private static final int SEGMENT_SIZE_AT = 24;
+	
+	// Record fields.
+	private static final int MOST_SIGNIFICANT_AT = 0;
+	private static final int LEAST_SIGNIFICANT_AT = 8;
+	private static final int QUESTION_AT = 16; // The offset of the text, followed by its length at LENGTH_AFTER.
+	private static final int ANSWER_AT = 28;
+	private static final int KEY_AT = 40; // The answer normalized as an AnswerKey, in UTF-16 chars.
+	private static final int LENGTH_AFTER = 8; // From an offset field to its length field.
+	private static final int TYPE_AT = 52;
+	private static final int DIFFICULTY_AT = 53;
+	private static final int FLAGS_AT = 54;
+	private static final int REPLACES_AT = 56; // The replaced record plus 1, or 0 for none.
+	
+	// Earlier formats, which compact upgrades. Before the version field the text end was an int, and each text's
+	// int offset and length were packed in one long; version 2 kept no answer key.
+	private static final int UNVERSIONED_VERSION = 0;
+	private static final Layout UNVERSIONED = new Layout(40, 16, 24, true, 32, 34, 36);
+	private static final Layout VERSION_2 = new Layout(48, 16, 28, false, 40, 42, 44);
+	
+	private static final byte LIVE = 1;
+	private static final byte DELETED = 2;
+	private static final Question.Type[] TYPES = Question.Type.values();
+	private static final Question.Difficulty[] DIFFICULTIES = Question.Difficulty.values();
+	
+	private final Path recordPath;
+	private final FileChannel recordChannel;
+	private final FileChannel textChannel;
+	private final int segmentSize;
+	private final int initialSegmentBytes;
+	private final ReentrantLock writeLock; // Serializes appends and deletes.
+	private volatile MappedByteBuffer records;
+	private volatile MappedByteBuffer[] segments; // Every segment but the last is mapped in full.
+	
+	// Guarded by writeLock.
+	private int count;
+	private long textEnd;
+	private int liveRecords;
+	private long liveTextBytes;
+	private long forcedTextEnd; // The text end when force last copied the counts.
+	
+	/**
+	 * Opens or creates the arena files in a directory.
+	 * 
+	 * @param initialRecords The number of records to map room for in a new arena.
+	 * @param segmentSize The size of each text segment of a new arena; an existing arena keeps its own.
+	 * @throws UncheckedIOException If the files cannot be opened or are not arena files of this version.
+	 */
+	QuestionArena(Path directory, int initialRecords, int segmentSize) {
+		this(directory.resolve(RECORD_FILE), directory.resolve(TEXT_FILE), initialRecords, segmentSize);
+	}
+	
+	private QuestionArena(Path recordPath, Path textPath, int initialRecords, int segmentSize) {
+		try {
+			this.recordPath = recordPath;
+			this.recordChannel = FileChannel.open(recordPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			this.textChannel = FileChannel.open(textPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			
+			boolean created = this.recordChannel.size() == 0;
+			this.records = this.recordChannel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(this.recordChannel.size(), HEADER_SIZE + (long) initialRecords * RECORD_SIZE));
+			if (created) {
+				this.records.putInt(MAGIC_AT, MAGIC);
+				this.records.putInt(VERSION_AT, VERSION);
+				this.records.putInt(SEGMENT_SIZE_AT, segmentSize);
+			} else if (this.records.getInt(MAGIC_AT) != MAGIC) {
+				throw new IOException("Not a question arena: " + recordPath);
+			} else if (this.records.getInt(VERSION_AT) != VERSION) {
+				throw new IOException("The question arena " + recordPath + " was written in another format (version " + this.records.getInt(VERSION_AT) + ")!");
+			}
+			this.segmentSize = this.records.getInt(SEGMENT_SIZE_AT);
+			this.initialSegmentBytes = (int) Math.min(this.segmentSize, (long) initialRecords * 64);
+			this.count = this.records.getInt(COUNT_AT);
+			this.textEnd = this.records.getLong(TEXT_END_AT);
+			this.forcedTextEnd = this.textEnd;
+			this.segments = mapSegments(this.textChannel.size());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		this.writeLock = new ReentrantLock();
+		countLive();
+	}
+	
+	/**
+	 * Returns the number of records, including deleted ones.
+	 */
+	int count() {
+		this.writeLock.lock();
+		try {
+			return this.count;
+		} finally {
+			this.writeLock.unlock();
+		}
+	}
+	
+	/**
+	 * Returns the number of records that hold a stored Question: not deleted, and not replaced by an edit.
+	 */
+	int liveRecords() {
+		this.writeLock.lock();
+		try {
+			return this.liveRecords;
+		} finally {
+			this.writeLock.unlock();
+		}
+	}
+	
+	/**
+	 * Returns the bytes of text written, including the text of dead records and the unused ends of full segments.
+	 */
+	long textBytes() {
+		this.writeLock.lock();
+		try {
+			return this.textEnd;
+		} finally {
+			this.writeLock.unlock();
+		}
+	}
+	
+	/**
+	 * Returns the bytes of text the live records point at.
+	 */
+	long liveTextBytes() {
+		this.writeLock.lock();
+		try {
+			return this.liveTextBytes;
+		} finally {
+			this.writeLock.unlock();
+		}
+	}
+	
+	/**
+	 * Appends a record holding a copy of the Question and returns its record number.
+	 * 
+	 * @throws StorageFullException If the arena holds MAX_RECORDS records or the disk has no room for the Question.
+	 */
+	int add(Question question) {
+		return append(question, -1);
+	}
+	
+	/**
+	 * Appends a record holding a copy of the Question that replaces a record, and returns its record number.
+	 * 
+	 * @throws StorageFullException If the arena holds MAX_RECORDS records or the disk has no room for the Question.
+	 */
+	int replace(int record, Question question) {
+		return append(question, record);
+	}
+	
+	/**
+	 * Returns the record a record replaces, or -1 if it replaces none.
+	 */
+	int replaced(int record) {
+		return this.records.getInt(offset(record) + REPLACES_AT) - 1;
+	}
+	
+	boolean isLive(int record) {
+		return this.records.get(offset(record) + FLAGS_AT) == LIVE;
+	}
+	
+	void delete(int record) {
+		this.writeLock.lock();
+		try {
+			if (!isLive(record)) return;
+			this.records.put(offset(record) + FLAGS_AT, DELETED);
+			retire(record);
+		} finally {
+			this.writeLock.unlock();
+		}
+	}
+	
+	/**
+	 * Returns the record each stored Question was loaded from, ordered by the record its chain of edits started from:
+	 * the last replacement of each chain, unless that record is deleted.
+	 */
+	int[] liveInOrder() {
+		int count = count();
+		int origins[] = new int[count];
+		int last[] = new int[count]; // Indexed by the record each chain of replacements starts from.
+		for (int record = 0; record < count; record++) {
+			int replaced = replaced(record);
+			origins[record] = (replaced < 0) ? record : origins[replaced];
+			last[origins[record]] = record;
+		}
+		int live = 0;
+		for (int origin = 0; origin < count; origin++) {
+			if (origins[origin] == origin && isLive(last[origin])) last[live++] = last[origin];
+		}
+		return Arrays.copyOf(last, live);
+	}
+	
+	UUID id(int record) {
+		MappedByteBuffer records = this.records;
+		int at = offset(record);
+		return new UUID(records.getLong(at + MOST_SIGNIFICANT_AT), records.getLong(at + LEAST_SIGNIFICANT_AT));
+	}
+	
+	String question(int record) {
+		return new String(readText(record, QUESTION_AT), StandardCharsets.UTF_8);
+	}
+	
+	String answer(int record) {
+		return new String(readText(record, ANSWER_AT), StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Returns the answer normalized as an AnswerKey, as a view of the mapped text that reads each char in place.
+	 */
+	CharSequence answerKey(int record) {
+		return text(record, KEY_AT).asReadOnlyBuffer().asCharBuffer();
+	}
+	
+	Question.Type type(int record) {
+		int ordinal = this.records.get(offset(record) + TYPE_AT);
+		return (ordinal < 0) ? null : TYPES[ordinal];
+	}
+	
+	Question.Difficulty difficulty(int record) {
+		int ordinal = this.records.get(offset(record) + DIFFICULTY_AT);
+		return (ordinal < 0) ? null : DIFFICULTIES[ordinal];
+	}
+	
+	/**
+	 * Writes every change made so far to disk, then records the counts as durable.
+	 * Appends may continue while the files are forced; callers must not force concurrently.
+	 */
+	void force() {
+		int durableCount;
+		long durableTextEnd;
+		long forcedFrom;
+		MappedByteBuffer records;
+		MappedByteBuffer[] segments;
+		this.writeLock.lock();
+		try {
+			durableCount = this.count;
+			durableTextEnd = this.textEnd;
+			forcedFrom = this.forcedTextEnd;
+			this.forcedTextEnd = durableTextEnd;
+			records = this.records;
+			segments = this.segments;
+		} finally {
+			this.writeLock.unlock();
+		}
+		
+		// Only segments that text was appended to since the last force can hold unwritten text.
+		int last = (int) Math.min(segments.length - 1, Math.max(0, durableTextEnd - 1) / this.segmentSize);
+		for (int segment = (int) (forcedFrom / this.segmentSize); segment <= last; segment++) {
+			segments[segment].force();
+		}
+		records.force();
+		records.putInt(COUNT_AT, durableCount);
+		records.putLong(TEXT_END_AT, durableTextEnd);
+		records.force(0, HEADER_SIZE);
+	}
+	
+	@Override
+	public void close() {
+		force();
+		try {
+			this.recordChannel.close();
+			this.textChannel.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	/**
+	 * Rewrites the arena in a directory without its deleted and replaced records and their text, if they take up
+	 * more than the live ones, and finishes a compaction a crash interrupted. Must be called before the arena is opened.
+	 * An arena in an earlier format is always rewritten; one from before the version field gets segments of segmentSize bytes.
+	 * 
+	 * The live records are copied in load order with plain file reads and writes into COMPACT_SUFFIX files, which
+	 * replace the arena only once both are durable and COMPACTED_FILE marks them complete; a crash before then leaves
+	 * the arena as it was, and one after it makes the next call finish the replacement. Nothing is memory-mapped,
+	 * so the files can be replaced on platforms that cannot rename a mapped file.
+	 * 
+	 * @return True if the arena was compacted.
+	 * @throws UncheckedIOException If the files cannot be read or written.
+	 */
+	static boolean compact(Path directory, int segmentSize) {
+		Path recordPath = directory.resolve(RECORD_FILE);
+		Path textPath = directory.resolve(TEXT_FILE);
+		Path compactRecords = directory.resolve(RECORD_FILE + COMPACT_SUFFIX);
+		Path compactText = directory.resolve(TEXT_FILE + COMPACT_SUFFIX);
+		try {
+			finishCompaction(directory);
+			if (!Files.exists(recordPath) || Files.size(recordPath) < HEADER_SIZE) return false;
+			
+			try (FileChannel records = FileChannel.open(recordPath, StandardOpenOption.READ);
+					FileChannel text = FileChannel.open(textPath, StandardOpenOption.READ)) {
+				ByteBuffer header = readFully(records, 0, HEADER_SIZE);
+				int version = header.getInt(VERSION_AT);
+				Layout layout = (version == UNVERSIONED_VERSION) ? UNVERSIONED : (version == 2) ? VERSION_2 : null;
+				if (header.getInt(MAGIC_AT) != MAGIC || (version != VERSION && layout == null)) return false; // Reported on open.
+				boolean upgrade = layout != null;
+				int count = header.getInt(COUNT_AT);
+				long textEnd = (layout == UNVERSIONED) ? header.getInt(TEXT_END_AT) : header.getLong(TEXT_END_AT);
+				int segment = (layout == UNVERSIONED) ? segmentSize : header.getInt(SEGMENT_SIZE_AT);
+				int recordSize = upgrade ? layout.recordSize() : RECORD_SIZE;
+				int flagsAt = upgrade ? layout.flagsAt() : FLAGS_AT;
+				int replacesAt = upgrade ? layout.replacesAt() : REPLACES_AT;
+				
+				// Resolve the chains of edits as liveInOrder does, reading the records in blocks.
+				int origins[] = new int[count];
+				int last[] = new int[count];
+				BitSet live = new BitSet(count);
+				long liveText = 0;
+				int block = Math.max(1, (1 << 20) / recordSize);
+				for (int first = 0; first < count; first += block) {
+					int n = Math.min(block, count - first);
+					ByteBuffer read = readFully(records, HEADER_SIZE + (long) first * recordSize, n * recordSize);
+					for (int i = 0; i < n; i++) {
+						int record = first + i;
+						int at = i * recordSize;
+						int replaced = read.getInt(at + replacesAt) - 1;
+						origins[record] = (replaced < 0) ? record : origins[replaced];
+						last[origins[record]] = record;
+						if (read.get(at + flagsAt) == LIVE) live.set(record);
+					}
+				}
+				int liveCount = 0;
+				for (int origin = 0; origin < count; origin++) {
+					if (origins[origin] == origin && live.get(last[origin])) last[liveCount++] = last[origin];
+				}
+				for (int i = 0; i < liveCount; i++) {
+					liveText += textLength(readRecord(records, last[i], layout), 0);
+				}
+				if (!upgrade && count - liveCount <= liveCount && textEnd - liveText <= liveText) return false;
+				
+				Files.deleteIfExists(compactRecords);
+				Files.deleteIfExists(compactText);
+				try (FileChannel recordsOut = FileChannel.open(compactRecords, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+						FileChannel textOut = FileChannel.open(compactText, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+					long end = 0;
+					for (int i = 0; i < liveCount; i++) {
+						ByteBuffer record = readRecord(records, last[i], layout);
+						ByteBuffer question = readText(text, record, QUESTION_AT);
+						ByteBuffer answer = readText(text, record, ANSWER_AT);
+						// Earlier formats kept no answer key, so it is normalized from the answer once, here.
+						ByteBuffer key = upgrade ? ByteBuffer.wrap(keyText(StandardCharsets.UTF_8.decode(answer.duplicate()).toString())) : readText(text, record, KEY_AT);
+						end = copyText(textOut, end, segment, record, QUESTION_AT, question);
+						end = copyText(textOut, end, segment, record, ANSWER_AT, answer);
+						end = copyText(textOut, end, segment, record, KEY_AT, key);
+						record.putInt(REPLACES_AT, 0);
+						record.clear();
+						writeFully(recordsOut, offset(i), record);
+					}
+					ByteBuffer compactHeader = ByteBuffer.allocate(HEADER_SIZE);
+					compactHeader.putInt(MAGIC_AT, MAGIC);
+					compactHeader.putInt(VERSION_AT, VERSION);
+					compactHeader.putInt(COUNT_AT, liveCount);
+					compactHeader.putLong(TEXT_END_AT, end);
+					compactHeader.putInt(SEGMENT_SIZE_AT, segment);
+					writeFully(recordsOut, 0, compactHeader);
+					textOut.force(true);
+					recordsOut.force(true);
+				}
+			}
+			Files.createFile(directory.resolve(COMPACTED_FILE));
+			forceDirectory(directory);
+			finishCompaction(directory);
+			return true;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	/**
+	 * A helper method that appends a record holding a copy of the Question and returns its record number.
+	 * 
+	 * @param replaced The record the new one replaces, or -1.
+	 */
+	private int append(Question question, int replaced) {
+		byte questionText[] = question.getQuestion().getBytes(StandardCharsets.UTF_8);
+		byte answerText[] = question.getAnswer().getBytes(StandardCharsets.UTF_8);
+		byte keyText[] = keyText(question.getAnswer());
+		this.writeLock.lock();
+		try {
+			ensureRecords(this.count + 1);
+			int record = this.count;
+			int at = offset(record);
+			MappedByteBuffer records = this.records;
+			records.putLong(at + MOST_SIGNIFICANT_AT, question.getID().getMostSignificantBits());
+			records.putLong(at + LEAST_SIGNIFICANT_AT, question.getID().getLeastSignificantBits());
+			writeText(record, QUESTION_AT, questionText);
+			writeText(record, ANSWER_AT, answerText);
+			writeText(record, KEY_AT, keyText);
+			records.put(at + TYPE_AT, ordinal(question.getType()));
+			records.put(at + DIFFICULTY_AT, ordinal(question.getDifficulty()));
+			records.put(at + FLAGS_AT, LIVE);
+			records.putInt(at + REPLACES_AT, replaced + 1);
+			this.count++;
+			this.liveRecords++;
+			this.liveTextBytes += questionText.length + answerText.length + keyText.length;
+			if (replaced >= 0) retire(replaced);
+			return record;
+		} finally {
+			this.writeLock.unlock();
+		}
+	}
+	
+	/**
+	 * A helper method that appends encoded text and points a field of a new record at it.
+	 * Text that does not fit in the rest of the current segment starts the next one.
+	 * Only records past the count are written, so a durable record never points at text past the durable end.
+	 * Must be called while holding the write lock.
+	 */
+	private void writeText(int record, int fieldAt, byte[] bytes) {
+		long start = startOfText(this.textEnd, bytes.length, this.segmentSize);
+		int segment = (int) (start / this.segmentSize);
+		int within = (int) (start % this.segmentSize);
+		ensureText(segment, within + bytes.length);
+		this.segments[segment].put(within, bytes);
+		this.records.putLong(offset(record) + fieldAt, start);
+		this.records.putInt(offset(record) + fieldAt + LENGTH_AFTER, bytes.length);
+		this.textEnd = start + bytes.length;
+	}
+	
+	private byte[] readText(int record, int fieldAt) {
+		ByteBuffer text = text(record, fieldAt);
+		byte bytes[] = new byte[text.capacity()];
+		text.get(0, bytes);
+		return bytes;
+	}
+	
+	/**
+	 * A helper method that returns the text a field of a record points at, as a slice of its segment.
+	 */
+	private ByteBuffer text(int record, int fieldAt) {
+		MappedByteBuffer records = this.records;
+		long textAt = records.getLong(offset(record) + fieldAt);
+		int length = records.getInt(offset(record) + fieldAt + LENGTH_AFTER);
+		int segment = (int) (textAt / this.segmentSize);
+		int within = (int) (textAt % this.segmentSize);
+		
+		MappedByteBuffer[] segments = this.segments;
+		if (segment >= segments.length || within + length > segments[segment].capacity()) {
+			// The text was appended after a remap this thread has not seen yet.
+			this.writeLock.lock();
+			try {
+				segments = this.segments;
+			} finally {
+				this.writeLock.unlock();
+			}
+		}
+		return segments[segment].slice(within, length);
+	}
+	
+	/**
+	 * A helper method that counts the live records and their text on opening.
+	 */
+	private void countLive() {
+		int live = 0;
+		long liveText = 0;
+		for (int record : liveInOrder()) {
+			live++;
+			liveText += textLength(this.records, offset(record));
+		}
+		this.writeLock.lock();
+		try {
+			this.liveRecords = live;
+			this.liveTextBytes = liveText;
+		} finally {
+			this.writeLock.unlock();
+		}
+	}
+	
+	/**
+	 * A helper method that stops counting a record that was deleted or replaced as live.
+	 * Must be called while holding the write lock.
+	 */
+	private void retire(int record) {
+		this.liveRecords--;
+		this.liveTextBytes -= textLength(this.records, offset(record));
+	}
+	
+	/**
+	 * A helper method that returns the bytes of text a record at an offset in a buffer points at.
+	 */
+	private static int textLength(ByteBuffer records, int at) {
+		return records.getInt(at + QUESTION_AT + LENGTH_AFTER) + records.getInt(at + ANSWER_AT + LENGTH_AFTER) + records.getInt(at + KEY_AT + LENGTH_AFTER);
+	}
+	
+	/**
+	 * A helper method that remaps the record file with room for a number of records, doubling its size.
+	 * Readers holding the previous mapping keep reading the same file.
+	 */
+	private void ensureRecords(int records) {
+		if (records > MAX_RECORDS) throw new StorageFullException("The question arena holds its most records, " + MAX_RECORDS + "!");
+		long needed = HEADER_SIZE + (long) records * RECORD_SIZE;
+		long capacity = this.records.capacity();
+		if (needed <= capacity) return;
+		long grown = Math.min(Math.max(needed, capacity * 2), HEADER_SIZE + (long) MAX_RECORDS * RECORD_SIZE);
+		this.records = map(this.recordChannel, 0, grown, grown - capacity);
+	}
+	
+	/**
+	 * A helper method that maps a new text segment, or remaps the last one, with room for needed bytes.
+	 * Must be called while holding the write lock.
+	 */
+	private void ensureText(int segment, int needed) {
+		MappedByteBuffer[] segments = this.segments;
+		if (segment < segments.length && needed <= segments[segment].capacity()) return;
+		
+		if (segment >= segments.length) {
+			// The previous segment keeps its mapping: no text past its capacity points into it.
+			MappedByteBuffer[] grown = Arrays.copyOf(segments, segment + 1);
+			int size = Math.max(needed, this.initialSegmentBytes);
+			grown[segment] = map(this.textChannel, (long) segment * this.segmentSize, size, size);
+			this.segments = grown;
+			return;
+		}
+		MappedByteBuffer[] remapped = segments.clone();
+		int capacity = segments[segment].capacity();
+		int size = (int) Math.min(this.segmentSize, Math.max(needed, 2L * capacity));
+		remapped[segment] = map(this.textChannel, (long) segment * this.segmentSize, size, size - capacity);
+		this.segments = remapped;
+	}
+	
+	/**
+	 * A helper method that maps the text segments of a text file of a given size when the arena is opened.
+	 */
+	private MappedByteBuffer[] mapSegments(long fileSize) throws IOException {
+		long size = Math.max(fileSize, this.initialSegmentBytes);
+		int count = (int) ((size + this.segmentSize - 1) / this.segmentSize);
+		MappedByteBuffer[] segments = new MappedByteBuffer[count];
+		for (int i = 0; i < count; i++) {
+			long from = (long) i * this.segmentSize;
+			segments[i] = this.textChannel.map(FileChannel.MapMode.READ_WRITE, from, Math.min(this.segmentSize, size - from));
+		}
+		return segments;
+	}
+	
+	/**
+	 * A helper method that maps a region of a file that grows it by added bytes, once the disk is known to have room.
+	 * 
+	 * @throws StorageFullException If the disk holding the arena has less than added bytes free.
+	 */
+	private MappedByteBuffer map(FileChannel channel, long position, long size, long added) {
+		try {
+			if (added > 0 && Files.getFileStore(this.recordPath).getUsableSpace() < added) {
+				throw new StorageFullException("The disk holding the question arena " + this.recordPath.getParent() + " is full!");
+			}
+			return channel.map(FileChannel.MapMode.READ_WRITE, position, size);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	/**
+	 * A helper method that returns where text of a given length starts if appended at end: at end itself,
+	 * or at the start of the next segment if it does not fit in the rest of end's segment.
+	 * 
+	 * @throws IllegalArgumentException If the text is longer than a segment.
+	 */
+	private static long startOfText(long end, int length, int segmentSize) {
+		if (length > segmentSize) throw new IllegalArgumentException("A text of " + length + " bytes does not fit in a question arena segment!");
+		long within = end % segmentSize;
+		return (within + length > segmentSize) ? end - within + segmentSize : end;
+	}
+	
+	/**
+	 * A helper method that moves complete compacted files over the arena, once COMPACTED_FILE marks them complete,
+	 * or deletes incomplete ones.
+	 */
+	private static void finishCompaction(Path directory) throws IOException {
+		Path compactRecords = directory.resolve(RECORD_FILE + COMPACT_SUFFIX);
+		Path compactText = directory.resolve(TEXT_FILE + COMPACT_SUFFIX);
+		Path compacted = directory.resolve(COMPACTED_FILE);
+		if (!Files.exists(compacted)) {
+			Files.deleteIfExists(compactRecords);
+			Files.deleteIfExists(compactText);
+			return;
+		}
+		// The record file moves last, so a crash between the moves leaves the compacted record file to move.
+		if (Files.exists(compactText)) Files.move(compactText, directory.resolve(TEXT_FILE), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		if (Files.exists(compactRecords)) Files.move(compactRecords, directory.resolve(RECORD_FILE), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		forceDirectory(directory);
+		Files.delete(compacted);
+		forceDirectory(directory);
+	}
+	
+	/**
+	 * A helper method that makes file creations, renames, and deletions in the directory durable.
+	 * Not every platform can force a directory; there the rename is as durable as the platform allows.
+	 */
+	private static void forceDirectory(Path directory) {
+		try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (IOException e) {
+			// Directories cannot be opened for reading on some platforms.
+		}
+	}
+	
+	/**
+	 * A helper method that reads a record with a plain file read, in the layout of this version whatever its own.
+	 * A record of an earlier format has no answer key.
+	 * 
+	 * @param layout The layout of an earlier format, or null for this version.
+	 */
+	private static ByteBuffer readRecord(FileChannel records, int record, Layout layout) throws IOException {
+		if (layout == null) return readFully(records, offset(record), RECORD_SIZE);
+		ByteBuffer old = readFully(records, HEADER_SIZE + (long) record * layout.recordSize(), layout.recordSize());
+		ByteBuffer upgraded = ByteBuffer.allocate(RECORD_SIZE);
+		upgraded.putLong(MOST_SIGNIFICANT_AT, old.getLong(MOST_SIGNIFICANT_AT));
+		upgraded.putLong(LEAST_SIGNIFICANT_AT, old.getLong(LEAST_SIGNIFICANT_AT));
+		int fields[][] = {{QUESTION_AT, layout.questionAt()}, {ANSWER_AT, layout.answerAt()}};
+		for (int field[] : fields) {
+			long offset = layout.packed() ? old.getLong(field[1]) >>> 32 : old.getLong(field[1]);
+			int length = layout.packed() ? (int) old.getLong(field[1]) : old.getInt(field[1] + LENGTH_AFTER);
+			upgraded.putLong(field[0], offset);
+			upgraded.putInt(field[0] + LENGTH_AFTER, length);
+		}
+		upgraded.put(TYPE_AT, old.get(layout.typeAt()));
+		upgraded.put(DIFFICULTY_AT, old.get(layout.typeAt() + 1));
+		upgraded.put(FLAGS_AT, old.get(layout.flagsAt()));
+		upgraded.putInt(REPLACES_AT, old.getInt(layout.replacesAt()));
+		return upgraded;
+	}
+	
+	/**
+	 * A helper method that reads the text a field of a record read by readRecord points at.
+	 */
+	private static ByteBuffer readText(FileChannel text, ByteBuffer record, int fieldAt) throws IOException {
+		return readFully(text, record.getLong(fieldAt), record.getInt(fieldAt + LENGTH_AFTER));
+	}
+	
+	/**
+	 * A helper method that appends a text to a compacted text file, where the text ends so far, and points a field
+	 * of the record at it. Returns the new end.
+	 */
+	private static long copyText(FileChannel out, long end, int segmentSize, ByteBuffer record, int fieldAt, ByteBuffer value) throws IOException {
+		int length = value.remaining();
+		long start = startOfText(end, length, segmentSize);
+		writeFully(out, start, value);
+		record.putLong(fieldAt, start);
+		record.putInt(fieldAt + LENGTH_AFTER, length);
+		return start + length;
+	}
+	
+	/**
+	 * A helper method that returns the answer key of an answer as UTF-16 text, so it is read back without decoding.
+	 */
+	private static byte[] keyText(String answer) {
+		return AnswerKey.of(answer).toString().getBytes(StandardCharsets.UTF_16BE);
+	}
+	
+	private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		readInto(channel, position, buffer);
+		return buffer;
+	}
+	
+	private static void readInto(FileChannel channel, long position, ByteBuffer buffer) throws IOException {
+		int start = buffer.position();
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position() - start) < 0) throw new IOException("The question arena ends inside a record or text!");
+		}
+		buffer.flip();
+	}
+	
+	private static void writeFully(FileChannel channel, long position, ByteBuffer buffer) throws IOException {
+		long at = position;
+		while (buffer.hasRemaining()) at += channel.write(buffer, at);
+	}
+	
+	private static int offset(int record) {
+		return HEADER_SIZE + record * RECORD_SIZE;
+	}
+	
+	private static byte ordinal(Enum<?> value) {
+		return (byte) ((value == null) ? -1 : value.ordinal());
+	}
+	
+	/**
+	 * Where a record of an earlier format keeps its fields; the Difficulty follows the Type.
+	 * 
+	 * @param packed True if each text's int offset and length are packed in one long, offset in the high int.
+	 */
+	private record Layout(int recordSize, int questionAt, int answerAt, boolean packed, int typeAt, int flagsAt, int replacesAt) {}
+}
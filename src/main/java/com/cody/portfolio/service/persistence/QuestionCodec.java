@@ -0,0 +1,71 @@
+package com.cody.portfolio.service.persistence;
+
+import java.util.UUID;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import com.cody.portfolio.domain.Question;
+
+/**
+ * The compact binary form of a Question shared by the log, the snapshot, and replication.
+ * A Question is its UUID as two longs, its Type and Difficulty ordinals as one byte each (-1 for none),
+ * then its question and answer as length prefixed UTF-8.
+ */
+public final class QuestionCodec {
+	private static final Question.Type[] TYPES = Question.Type.values();
+	private static final Question.Difficulty[] DIFFICULTIES = Question.Difficulty.values();
+	
+	private QuestionCodec() {}
+	
+	public static void write(DataOutput out, Question question) throws IOException {
+		writeId(out, question.getID());
+		out.writeByte(question.getType() == null ? -1 : question.getType().ordinal());
+		out.writeByte(question.getDifficulty() == null ? -1 : question.getDifficulty().ordinal());
+		writeText(out, question.getQuestion());
+		writeText(out, question.getAnswer());
+	}
+	
+	/**
+	 * @throws IOException If the input ends early or does not hold a valid Question.
+	 */
+	public static Question read(DataInput in) throws IOException {
+		UUID id = readId(in);
+		int type = in.readByte();
+		int difficulty = in.readByte();
+		if (type >= TYPES.length || difficulty >= DIFFICULTIES.length) throw new IOException("Unknown Type or Difficulty ordinal!");
+		
+		try {
+			Question question = new Question(readText(in), readText(in), id);
+			if (type >= 0) question.setType(TYPES[type]);
+			if (difficulty >= 0) question.setDifficulty(DIFFICULTIES[difficulty]);
+			return question;
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Stored Question is not valid!", e);
+		}
+	}
+	
+	public static void writeId(DataOutput out, UUID id) throws IOException {
+		out.writeLong(id.getMostSignificantBits());
+		out.writeLong(id.getLeastSignificantBits());
+	}
+	
+	public static UUID readId(DataInput in) throws IOException {
+		return new UUID(in.readLong(), in.readLong());
+	}
+	
+	private static void writeText(DataOutput out, String text) throws IOException {
+		byte bytes[] = text.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+	
+	private static String readText(DataInput in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) throw new IOException("Negative text length!");
+		byte bytes[] = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,102 @@
+package com.cody.portfolio.service.persistence;
+
+import com.cody.portfolio.domain.Question;
+import com.cody.portfolio.service.grading.AnswerKey;
+
+/**
+ * Durable storage underneath QuestionService.
+ * QuestionService keeps every Question in memory and reports its writes here, so a repository only
+ * needs to record them and hand the stored Questions back on startup.
+ * 
+ * hold, holdEdit, append, appendEdit, appendDelete, checkpointDue, and checkpoint are called while QuestionService holds its write lock,
+ * in the order the writes are applied. sync is called after the lock is released, so concurrent writers
+ * can share one flush to disk.
+ */
+public interface QuestionRepository extends AutoCloseable {
+	
+	/**
+	 * Returns the stored Questions in insertion order, as of the last acknowledged write.
+	 * Called once, before any write is appended.
+	 */
+	Question[] load();
+	
+	/**
+	 * Returns the Questions QuestionService holds in place of Questions it is about to store, in the same order.
+	 * By default they are the same Questions; a repository that keeps Questions outside the heap
+	 * copies them into its storage and returns lightweight views of the copies.
+	 * 
+	 * @param questions The Questions accepted by one write.
+	 */
+	default Question[] hold(Question[] questions) {
+		return questions;
+	}
+	
+	/**
+	 * Returns the Question QuestionService holds in place of the edited copy of a stored Question.
+	 * By default it is the copy itself; a repository that keeps Questions outside the heap
+	 * copies it into its storage as the replacement of the stored Question and returns a view of the copy.
+	 * 
+	 * @param stored The stored Question as returned by hold or load.
+	 * @param edited A new Question with the id, Type, and Difficulty of the stored one and the new text.
+	 */
+	default Question holdEdit(Question stored, Question edited) {
+		return edited;
+	}
+	
+	/**
+	 * Returns the normalized answer QuestionService grades submitted answers against, once per stored Question.
+	 * By default it is a new AnswerKey on the heap; a repository that keeps Questions outside the heap
+	 * keeps the key there too and returns a view of it.
+	 * 
+	 * @param held A Question as returned by hold, holdEdit, or load.
+	 */
+	default CharSequence answerKey(Question held) {
+		return AnswerKey.of(held.getAnswer());
+	}
+	
+	/**
+	 * Records Questions stored by one write.
+	 * 
+	 * @param questions The stored Questions as returned by hold, in insertion order.
+	 * @return The position to pass to sync before acknowledging the write.
+	 */
+	long append(Question[] questions);
+	
+	/**
+	 * Records new text for a stored Question.
+	 * 
+	 * @param question The edited Question as returned by holdEdit, which replaces the stored one.
+	 * @return The position to pass to sync before acknowledging the write.
+	 */
+	long appendEdit(Question question);
+	
+	/**
+	 * Records the deletion of a stored Question.
+	 * 
+	 * @param question The deleted Question as returned by hold.
+	 * @return The position to pass to sync before acknowledging the write.
+	 */
+	long appendDelete(Question question);
+	
+	/**
+	 * Blocks until every write up to the position is durable.
+	 * 
+	 * @param position A position returned by append, appendEdit, or appendDelete.
+	 */
+	void sync(long position);
+	
+	/**
+	 * Returns true when enough writes have been appended since the last checkpoint to start another.
+	 */
+	boolean checkpointDue();
+	
+	/**
+	 * Starts a checkpoint of the given state, after which the writes appended so far need not be replayed.
+	 * 
+	 * @param questions Every stored Question in insertion order; the array is not modified by either side.
+	 */
+	void checkpoint(Question[] questions);
+	
+	@Override
+	void close();
+}
@@ -0,0 +1,13 @@
+package com.cody.portfolio.service.persistence;
+
+/**
+ * Thrown when a repository cannot take another write because its files cannot grow, such as when the disk is full.
+ * Nothing of the write is kept, and the Questions stored before it are unchanged.
+ */
+public class StorageFullException extends IllegalStateException {
+	private static final long serialVersionUID = 1L;
+	
+	public StorageFullException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,50 @@
+package com.cody.portfolio.service.replication;
+
+import java.net.URI;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+
+import com.cody.portfolio.service.QuestionService;
+import com.cody.portfolio.service.persistence.QuestionRepository;
+
+/**
+ * Sets up replication from the application properties. quiz.replication.role is none (the default), leader, or follower.
+ * A leader wraps the configured repository in a ReplicationLog that keeps quiz.replication.retained-writes writes
+ * (100000 by default) for followers to read at /replication. A follower copies the leader at quiz.replication.leader-url
+ * and refuses writes of its own. Replication copies a single QuestionService, so it needs quiz.shards to be 1.
+ */
+@Configuration
+public class ReplicationConfiguration {
+	
+	@Bean
+	@Primary
+	@ConditionalOnProperty(name = "quiz.replication.role", havingValue = "leader")
+	public ReplicationLog replicationLog(
+			@Qualifier("questionRepository") QuestionRepository storage,
+			@Value("${quiz.replication.retained-writes:" + ReplicationLog.DEFAULT_RETAINED_WRITES + "}") int retainedWrites,
+			ObjectProvider<MeterRegistry> meterRegistry) {
+		ReplicationLog replicationLog = new ReplicationLog(storage, retainedWrites);
+		meterRegistry.ifAvailable(replicationLog::bindTo);
+		return replicationLog;
+	}
+	
+	@Bean(destroyMethod = "close")
+	@ConditionalOnProperty(name = "quiz.replication.role", havingValue = "follower")
+	public ReplicationFollower replicationFollower(
+			QuestionService questionService,
+			@Value("${quiz.replication.leader-url}") String leaderUrl,
+			ObjectProvider<MeterRegistry> meterRegistry) {
+		ReplicationFollower follower = ReplicationFollower.overHttp(questionService, URI.create(leaderUrl));
+		meterRegistry.ifAvailable(follower::bindTo);
+		follower.start();
+		return follower;
+	}
+}
@@ -0,0 +1,369 @@
+package com.cody.portfolio.service.replication;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.UUID;
+import java.util.HashMap;
+import java.util.ArrayList;
+import java.time.Duration;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.DataInputStream;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import com.cody.portfolio.domain.Question;
+import com.cody.portfolio.service.StoreOutcome;
+import com.cody.portfolio.service.QuestionService;
+import com.cody.portfolio.service.persistence.QuestionCodec;
+
+/**
+ * The follower's side of replication: copies a leader's ReplicationLog into the local QuestionService,
+ * which then serves reads without asking the leader.
+ * 
+ * A background thread long-polls the leader for the frames after the last offset applied, and applies each one
+ * in order through the QuestionService writes, so the indexes, snapshots, and caches stay as they would on
+ * the leader. Inserts go through applyReplicated, which skips the follower's own capacity limit and DuplicatePolicy,
+ * since the leader already applied its own. When the leader answers RESYNC, because it restarted or no longer
+ * retains the frames needed, the follower loads the leader's snapshot: Questions the snapshot lacks are deleted,
+ * changed texts are edited, and missing Questions are stored; then it reads on from the snapshot's offset.
+ * 
+ * A frame that does not apply as it did on the leader, such as an insert of an id already stored or an edit or delete
+ * of a missing id, means the follower has diverged. Its offset is not applied; the follower loads the snapshot
+ * instead and replays the frames after it. If the snapshot does not apply, or the same frame fails again after it,
+ * the follower stops following and reports itself diverged.
+ * 
+ * Replication lag is published as gauges:
+ * quiz.replication.lag.writes    The writes the leader had made that the follower had not applied, as of the last poll;
+ *                                at least 1 once the follower has stopped diverged.
+ * quiz.replication.lag.seconds   The time since the follower last held every write the leader had made.
+ * quiz.replication.divergences   The frames that did not apply as they did on the leader.
+ * quiz.replication.diverged      1 once the follower has stopped diverged, otherwise 0.
+ */
+public class ReplicationFollower implements MeterBinder, AutoCloseable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ReplicationFollower.class);
+	
+	/** How long each poll waits on the leader for a new write. */
+	static final long POLL_WAIT_MILLIS = 10_000;
+	private static final long RETRY_MILLIS = 1_000;
+	private static final int SNAPSHOT_BATCH_SIZE = 512; // Questions stored per QuestionService write during a resync.
+	
+	private final QuestionService questionService;
+	private final Leader leader;
+	private final Thread poller;
+	private volatile boolean running;
+	
+	// Written only by the polling thread.
+	private long epoch;
+	private volatile long appliedOffset;
+	private volatile long leaderOffset;
+	private volatile long caughtUpNanos; // When the follower last held every write the leader had made.
+	private volatile long divergences;
+	private long divergedAt; // The offset of the last frame that did not apply, or 0.
+	private volatile boolean diverged; // The snapshot did not apply, so the follower stopped.
+	
+	/**
+	 * How a follower reaches the leader's ReplicationLog.
+	 */
+	interface Leader {
+		/** Returns the output of ReplicationLog.writeFrames. */
+		InputStream frames(long epoch, long after, long waitMillis) throws IOException, InterruptedException;
+		
+		/** Returns the output of ReplicationLog.writeSnapshot. */
+		InputStream snapshot() throws IOException, InterruptedException;
+	}
+	
+	/**
+	 * Creates a follower that reads from a leader over HTTP.
+	 * 
+	 * @param leaderUrl The base URL of the leader, such as http://localhost:8080.
+	 * @throws IllegalArgumentException If questionService or leaderUrl is null.
+	 */
+	public static ReplicationFollower overHttp(QuestionService questionService, URI leaderUrl) {
+		if (leaderUrl == null) throw new IllegalArgumentException("The parameter leaderUrl must not be null!");
+		return new ReplicationFollower(questionService, new HttpLeader(leaderUrl));
+	}
+	
+	ReplicationFollower(QuestionService questionService, Leader leader) {
+		if (questionService == null) throw new IllegalArgumentException("The parameter questionService must not be null!");
+		this.questionService = questionService;
+		this.leader = leader;
+		this.caughtUpNanos = System.nanoTime();
+		this.poller = new Thread(this::run, "question-replication");
+		this.poller.setDaemon(true);
+	}
+	
+	/**
+	 * Starts following the leader on a background thread.
+	 */
+	public void start() {
+		this.running = true;
+		this.poller.start();
+	}
+	
+	/**
+	 * Stops following the leader; the stored Questions stay as they are.
+	 */
+	@Override
+	public void close() {
+		this.running = false;
+		this.poller.interrupt();
+	}
+	
+	/**
+	 * Returns the offset of the last leader write applied.
+	 */
+	public long appliedOffset() {
+		return this.appliedOffset;
+	}
+	
+	/**
+	 * Returns the number of leader writes not yet applied, as of the last poll, and at least 1 once diverged.
+	 */
+	public long lagWrites() {
+		long lag = Math.max(0, this.leaderOffset - this.appliedOffset);
+		return this.diverged ? Math.max(1, lag) : lag;
+	}
+	
+	/**
+	 * Returns the seconds since the follower last held every write the leader had made.
+	 */
+	public double lagSeconds() {
+		if (lagWrites() == 0) return 0;
+		return (System.nanoTime() - this.caughtUpNanos) / 1e9;
+	}
+	
+	/**
+	 * Returns the number of frames that did not apply as they did on the leader.
+	 */
+	public long divergences() {
+		return this.divergences;
+	}
+	
+	/**
+	 * Returns true once the follower has stopped because it could not be brought back to match the leader.
+	 */
+	public boolean diverged() {
+		return this.diverged;
+	}
+	
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Gauge.builder("quiz.replication.lag.writes", this, ReplicationFollower::lagWrites)
+			.description("Leader writes the follower has not applied, as of its last poll")
+			.register(registry);
+		Gauge.builder("quiz.replication.lag.seconds", this, ReplicationFollower::lagSeconds)
+			.description("Seconds since the follower last held every leader write")
+			.baseUnit("seconds")
+			.register(registry);
+		FunctionCounter.builder("quiz.replication.divergences", this, ReplicationFollower::divergences)
+			.description("Leader writes that did not apply on the follower as they did on the leader")
+			.register(registry);
+		Gauge.builder("quiz.replication.diverged", this, (ReplicationFollower follower) -> follower.diverged() ? 1 : 0)
+			.description("1 if the follower stopped because it could not be brought back to match the leader")
+			.register(registry);
+	}
+	
+	/**
+	 * Polls the leader once and applies what it returns, resyncing from the snapshot when told to
+	 * or when a frame does not apply as it did on the leader.
+	 * 
+	 * @param waitMillis How long the leader may wait for a new write.
+	 * @return The number of frames applied, or RESYNC if the snapshot was loaded.
+	 * @throws IllegalStateException If the snapshot does not apply, or a frame fails again after a resync;
+	 * the follower is then diverged.
+	 */
+	int poll(long waitMillis) throws IOException, InterruptedException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(this.leader.frames(this.epoch, this.appliedOffset, waitMillis)))) {
+			long leaderEpoch = in.readLong();
+			long newest = in.readLong();
+			int count = in.readInt();
+			if (count == ReplicationLog.RESYNC) {
+				resync();
+				return ReplicationLog.RESYNC;
+			}
+			for (int i = 0; i < count; i++) {
+				long offset = in.readLong();
+				byte frame[] = new byte[in.readInt()];
+				in.readFully(frame);
+				if (offset != this.appliedOffset + 1) throw new IOException("Expected offset " + (this.appliedOffset + 1) + " but received " + offset + "!");
+				if (!apply(new DataInputStream(new ByteArrayInputStream(frame)))) {
+					this.divergences++;
+					if (offset == this.divergedAt) throw diverged(offset);
+					this.divergedAt = offset;
+					LOGGER.warn("The leader's write at offset {} did not apply on the follower; loading the leader's snapshot", offset);
+					resync();
+					return ReplicationLog.RESYNC;
+				}
+				this.appliedOffset = offset;
+			}
+			this.epoch = leaderEpoch;
+			caughtUp(newest);
+			return count;
+		}
+	}
+	
+	/**
+	 * A helper method that polls until closed, waiting before retrying when the leader cannot be reached.
+	 */
+	private void run() {
+		while (this.running) {
+			try {
+				poll(POLL_WAIT_MILLIS);
+			} catch (InterruptedException e) {
+				return;
+			} catch (IOException | RuntimeException e) {
+				if (this.diverged) return; // resync logged it and stopped the follower.
+				LOGGER.warn("Replication from the leader failed; retrying in {} ms: {}", RETRY_MILLIS, e.toString());
+				try {
+					TimeUnit.MILLISECONDS.sleep(RETRY_MILLIS);
+				} catch (InterruptedException interrupted) {
+					return;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * A helper method that applies one frame through the QuestionService writes.
+	 * 
+	 * @return True if the frame applied as it did on the leader: every Question stored, or the edited or deleted id found.
+	 */
+	private boolean apply(DataInputStream frame) throws IOException {
+		byte kind = frame.readByte();
+		return switch (kind) {
+			case ReplicationLog.INSERT -> {
+				Question[] batch = new Question[frame.readInt()];
+				for (int i = 0; i < batch.length; i++) {
+					batch[i] = QuestionCodec.read(frame);
+				}
+				yield allStored(this.questionService.applyReplicated(batch));
+			}
+			case ReplicationLog.EDIT -> {
+				Question edited = QuestionCodec.read(frame);
+				yield this.questionService.edit(edited.getID(), edited.getQuestion(), edited.getAnswer());
+			}
+			case ReplicationLog.DELETE -> this.questionService.delete(QuestionCodec.readId(frame));
+			default -> throw new IOException("Unknown frame kind " + kind + "!");
+		};
+	}
+	
+	/**
+	 * A helper method that makes the stored Questions match the leader's snapshot, then continues from its offset.
+	 * 
+	 * @throws IllegalStateException If a write of the snapshot does not apply; the follower is then diverged.
+	 */
+	private void resync() throws IOException, InterruptedException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(this.leader.snapshot()))) {
+			long leaderEpoch = in.readLong();
+			long offset = in.readLong();
+			int count = in.readInt();
+			if (count < 0) throw new IOException("Negative snapshot size!");
+			
+			Map<UUID, Question> stored = new HashMap<>();
+			this.questionService.stream(null, null).forEach(question -> stored.put(question.getID(), question)); // Unsorted, so untyped Questions can't fail the Comparator.
+			ArrayList<Question> missing = new ArrayList<>();
+			boolean applied = true;
+			for (int i = 0; i < count; i++) {
+				Question question = QuestionCodec.read(in);
+				Question local = stored.remove(question.getID());
+				if (local == null) {
+					missing.add(question);
+				} else if (!local.getQuestion().equals(question.getQuestion()) || !local.getAnswer().equals(question.getAnswer())) {
+					applied &= this.questionService.edit(question.getID(), question.getQuestion(), question.getAnswer());
+				}
+			}
+			for (UUID id : stored.keySet()) {
+				applied &= this.questionService.delete(id);
+			}
+			for (int from = 0; from < missing.size(); from += SNAPSHOT_BATCH_SIZE) {
+				applied &= allStored(this.questionService.applyReplicated(missing.subList(from, Math.min(missing.size(), from + SNAPSHOT_BATCH_SIZE)).toArray(new Question[0])));
+			}
+			if (!applied) throw diverged(offset);
+			
+			if (leaderEpoch != this.epoch) this.divergedAt = 0; // Offsets restart with a new epoch.
+			this.epoch = leaderEpoch;
+			this.appliedOffset = offset;
+			this.leaderOffset = Math.max(this.leaderOffset, offset);
+			LOGGER.info("Loaded the leader's snapshot of {} Questions at offset {}", count, offset);
+		}
+	}
+	
+	/**
+	 * A helper method that stops the follower once it cannot be brought back to match the leader.
+	 * 
+	 * @return The exception for the caller to throw.
+	 */
+	private IllegalStateException diverged(long offset) {
+		this.diverged = true;
+		this.running = false;
+		LOGGER.error("The follower diverged from the leader at offset {}; replication has stopped", offset);
+		return new IllegalStateException("The follower diverged from the leader at offset " + offset + "!");
+	}
+	
+	/**
+	 * A helper method that returns true if every Question of a batch was stored.
+	 */
+	private static boolean allStored(StoreOutcome[] outcomes) {
+		for (StoreOutcome outcome : outcomes) {
+			if (!outcome.stored()) return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * A helper method that records the leader's newest offset after a poll.
+	 */
+	private void caughtUp(long newest) {
+		this.leaderOffset = newest;
+		if (this.appliedOffset >= newest) this.caughtUpNanos = System.nanoTime();
+	}
+	
+	/**
+	 * Reaches the leader's /replication endpoints with the JDK HttpClient.
+	 */
+	private static final class HttpLeader implements Leader {
+		private final URI base;
+		private final HttpClient client;
+		
+		private HttpLeader(URI base) {
+			this.base = base;
+			this.client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+		}
+		
+		@Override
+		public InputStream frames(long epoch, long after, long waitMillis) throws IOException, InterruptedException {
+			return get("/replication/log?epoch=" + epoch + "&after=" + after + "&waitMillis=" + waitMillis, waitMillis);
+		}
+		
+		@Override
+		public InputStream snapshot() throws IOException, InterruptedException {
+			return get("/replication/snapshot", 0);
+		}
+		
+		private InputStream get(String path, long waitMillis) throws IOException, InterruptedException {
+			HttpRequest request = HttpRequest.newBuilder(this.base.resolve(path))
+					.timeout(Duration.ofMillis(waitMillis + 30_000))
+					.GET()
+					.build();
+			HttpResponse<InputStream> response = this.client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+			if (response.statusCode() != 200) {
+				response.body().close();
+				throw new IOException("The leader answered " + path + " with status " + response.statusCode() + "!");
+			}
+			return response.body();
+		}
+	}
+}
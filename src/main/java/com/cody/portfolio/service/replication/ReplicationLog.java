@@ -0,0 +1,319 @@
+package com.cody.portfolio.service.replication;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import com.cody.portfolio.domain.Question;
+import com.cody.portfolio.service.persistence.QuestionCodec;
+import com.cody.portfolio.service.persistence.QuestionRepository;
+
+/**
+ * The leader's side of replication: a QuestionRepository that passes every write on to the repository that stores
+ * it, and also keeps the writes as an ordered stream of mutations that followers read to copy the leader.
+ * 
+ * Each write becomes one frame numbered by its offset, starting at 1. The last retainedWrites frames are kept in a
+ * ring, and a snapshot of every stored Question is taken at least every retainedWrites / 2 writes, so a follower
+ * either reads on from its offset or, when the frames it needs are gone, loads the snapshot and reads on from there.
+ * The snapshot holds the Questions QuestionService hands to checkpoint and is encoded only when a follower reads it;
+ * a Question edited or deleted since then is encoded as it is now, which the frames after the snapshot repeat.
+ * 
+ * A random epoch, chosen when the log is created, tells followers when offsets restart with a new leader process.
+ * 
+ * A frame is readable as soon as the write is applied, before the storage repository makes it durable, so a follower
+ * can hold a write that a leader crash then loses.
+ * The frames are appended while QuestionService holds its write lock; followers read them under the log's own lock,
+ * which is held only to copy frame references, never while encoding or waiting on the network.
+ * close does not close the storage repository, whose owner closes it.
+ */
+public class ReplicationLog implements QuestionRepository, MeterBinder {
+	/** The number of frames kept for followers to read by default. */
+	public static final int DEFAULT_RETAINED_WRITES = 100_000;
+	/** The most frames sent in one read. */
+	public static final int MAX_FRAMES_PER_READ = 1024;
+	/** The longest a read waits for a new frame. */
+	public static final long MAX_WAIT_MILLIS = 30_000;
+	/** The frame count that tells a follower to load the snapshot. */
+	static final int RESYNC = -1;
+	
+	static final byte INSERT = 1;
+	static final byte EDIT = 2;
+	static final byte DELETE = 3;
+	
+	private final QuestionRepository storage;
+	private final long epoch;
+	private final ReentrantLock lock;
+	private final Condition appended;
+	
+	// Guarded by lock.
+	private final byte[][] frames; // Frame of offset o at (o - 1) % frames.length.
+	private long lastOffset; // The offset of the newest frame; 0 before any.
+	private Question[] snapshot; // Every stored Question as of snapshotOffset.
+	private long snapshotOffset;
+	
+	/**
+	 * @param storage The repository that stores the writes.
+	 * @param retainedWrites The number of frames kept for followers; must be at least 2.
+	 * @throws IllegalArgumentException If storage is null or retainedWrites is less than 2.
+	 */
+	public ReplicationLog(QuestionRepository storage, int retainedWrites) {
+		if (storage == null) throw new IllegalArgumentException("The parameter storage must not be null!");
+		if (retainedWrites < 2) throw new IllegalArgumentException("The parameter retainedWrites must not be less than 2!");
+		this.storage = storage;
+		this.epoch = ThreadLocalRandom.current().nextLong();
+		this.lock = new ReentrantLock();
+		this.appended = this.lock.newCondition();
+		this.frames = new byte[retainedWrites][];
+		this.snapshot = new Question[0];
+	}
+	
+	@Override
+	public Question[] load() {
+		Question[] loaded = this.storage.load();
+		this.lock.lock();
+		try {
+			this.snapshot = loaded;
+			this.snapshotOffset = this.lastOffset;
+		} finally {
+			this.lock.unlock();
+		}
+		return loaded;
+	}
+	
+	@Override
+	public Question[] hold(Question[] questions) {
+		return this.storage.hold(questions);
+	}
+	
+	@Override
+	public Question holdEdit(Question stored, Question edited) {
+		return this.storage.holdEdit(stored, edited);
+	}
+	
+	@Override
+	public CharSequence answerKey(Question held) {
+		return this.storage.answerKey(held);
+	}
+	
+	@Override
+	public long append(Question[] questions) {
+		long position = this.storage.append(questions);
+		addFrame(encode((DataOutput out) -> {
+			out.writeByte(INSERT);
+			out.writeInt(questions.length);
+			for (Question question : questions) {
+				QuestionCodec.write(out, question);
+			}
+		}));
+		return position;
+	}
+	
+	@Override
+	public long appendEdit(Question question) {
+		long position = this.storage.appendEdit(question);
+		addFrame(encode((DataOutput out) -> {
+			out.writeByte(EDIT);
+			QuestionCodec.write(out, question);
+		}));
+		return position;
+	}
+	
+	@Override
+	public long appendDelete(Question question) {
+		long position = this.storage.appendDelete(question);
+		addFrame(encode((DataOutput out) -> {
+			out.writeByte(DELETE);
+			QuestionCodec.writeId(out, question.getID());
+		}));
+		return position;
+	}
+	
+	@Override
+	public void sync(long position) {
+		this.storage.sync(position);
+	}
+	
+	/**
+	 * Due when the storage repository is due, or before the snapshot falls out of reach of the retained frames.
+	 */
+	@Override
+	public boolean checkpointDue() {
+		return this.storage.checkpointDue() || snapshotDue();
+	}
+	
+	@Override
+	public void checkpoint(Question[] questions) {
+		if (this.storage.checkpointDue()) this.storage.checkpoint(questions);
+		this.lock.lock();
+		try {
+			this.snapshot = questions;
+			this.snapshotOffset = this.lastOffset;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+	
+	@Override
+	public void close() {}
+	
+	/**
+	 * Returns the epoch of this log, which followers compare to tell a restarted leader apart.
+	 */
+	public long epoch() {
+		return this.epoch;
+	}
+	
+	/**
+	 * Returns the offset of the newest frame; 0 before any write.
+	 */
+	public long offset() {
+		this.lock.lock();
+		try {
+			return this.lastOffset;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+	
+	/**
+	 * Writes the frames after a follower's offset, waiting up to waitMillis for one if there are none yet.
+	 * The output is the epoch and the newest offset as longs, then the frame count as an int and each frame as its
+	 * offset (long), length (int), and bytes. The count is RESYNC, with no frames, when the follower must load the
+	 * snapshot: its epoch differs from this log's, or the frames after its offset are no longer retained.
+	 * 
+	 * @param epoch The epoch the follower's offset belongs to.
+	 * @param after The offset of the last frame the follower applied.
+	 * @param waitMillis How long to wait for a new frame, between 0 and MAX_WAIT_MILLIS.
+	 * @throws IllegalArgumentException If waitMillis is out of range.
+	 * @throws InterruptedException If interrupted while waiting.
+	 */
+	public void writeFrames(long epoch, long after, long waitMillis, DataOutput out) throws IOException, InterruptedException {
+		if (waitMillis < 0 || waitMillis > MAX_WAIT_MILLIS) throw new IllegalArgumentException("The parameter waitMillis must be between 0 and " + MAX_WAIT_MILLIS + "!");
+		byte[][] batch;
+		long newest;
+		this.lock.lock();
+		try {
+			long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMillis);
+			while (epoch == this.epoch && after == this.lastOffset) {
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0) break;
+				this.appended.awaitNanos(remaining);
+			}
+			newest = this.lastOffset;
+			long oldest = Math.max(1, newest - this.frames.length + 1);
+			if (epoch != this.epoch || after > newest || after + 1 < oldest) {
+				batch = null;
+			} else {
+				batch = new byte[(int) Math.min(newest - after, MAX_FRAMES_PER_READ)][];
+				for (int i = 0; i < batch.length; i++) {
+					batch[i] = this.frames[slot(after + 1 + i)];
+				}
+			}
+		} finally {
+			this.lock.unlock();
+		}
+		
+		out.writeLong(this.epoch);
+		out.writeLong(newest);
+		if (batch == null) {
+			out.writeInt(RESYNC);
+			return;
+		}
+		out.writeInt(batch.length);
+		for (int i = 0; i < batch.length; i++) {
+			out.writeLong(after + 1 + i);
+			out.writeInt(batch[i].length);
+			out.write(batch[i]);
+		}
+	}
+	
+	/**
+	 * Writes the snapshot: the epoch and the snapshot's offset as longs, then the number of Questions as an int
+	 * and each Question in insertion order.
+	 */
+	public void writeSnapshot(DataOutput out) throws IOException {
+		Question[] questions;
+		long offset;
+		this.lock.lock();
+		try {
+			questions = this.snapshot;
+			offset = this.snapshotOffset;
+		} finally {
+			this.lock.unlock();
+		}
+		out.writeLong(this.epoch);
+		out.writeLong(offset);
+		out.writeInt(questions.length);
+		for (Question question : questions) {
+			QuestionCodec.write(out, question);
+		}
+	}
+	
+	/**
+	 * Publishes quiz.replication.offset, the offset of the newest frame.
+	 */
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Gauge.builder("quiz.replication.offset", this, ReplicationLog::offset)
+			.description("The offset of the newest write in the replication log")
+			.register(registry);
+	}
+	
+	/**
+	 * A helper method that returns true when half the retained frames were appended since the snapshot.
+	 */
+	private boolean snapshotDue() {
+		this.lock.lock();
+		try {
+			return this.lastOffset - this.snapshotOffset >= this.frames.length / 2;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+	
+	/**
+	 * A helper method that appends a frame and wakes waiting followers.
+	 */
+	private void addFrame(byte[] frame) {
+		this.lock.lock();
+		try {
+			this.lastOffset++;
+			this.frames[slot(this.lastOffset)] = frame;
+			this.appended.signalAll();
+		} finally {
+			this.lock.unlock();
+		}
+	}
+	
+	private int slot(long offset) {
+		return (int) ((offset - 1) % this.frames.length);
+	}
+	
+	/**
+	 * A helper method that encodes one frame into a byte array.
+	 */
+	private static byte[] encode(FrameWriter writer) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try {
+			writer.write(new DataOutputStream(bytes));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e); // A ByteArrayOutputStream does not throw.
+		}
+		return bytes.toByteArray();
+	}
+	
+	@FunctionalInterface
+	private interface FrameWriter {
+		void write(DataOutput out) throws IOException;
+	}
+}
@@ -0,0 +1,26 @@
+package com.cody.portfolio.service.search;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Selects the DuplicatePolicy from the application properties.
+ * quiz.duplicates.action is off (the default), flag, or reject, and quiz.duplicates.threshold is the
+ * Jaccard similarity of the question texts at or above which a new Question is a near-duplicate.
+ */
+@Configuration
+public class DuplicateConfiguration {
+	
+	@Bean
+	public DuplicatePolicy duplicatePolicy(
+			@Value("${quiz.duplicates.action:off}") String action,
+			@Value("${quiz.duplicates.threshold:0.8}") double threshold) {
+		return switch (action) {
+			case "off" -> DuplicatePolicy.OFF;
+			case "flag" -> new DuplicatePolicy(DuplicatePolicy.Action.FLAG, threshold);
+			case "reject" -> new DuplicatePolicy(DuplicatePolicy.Action.REJECT, threshold);
+			default -> throw new IllegalArgumentException("quiz.duplicates.action must be off, flag, or reject!");
+		};
+	}
+}
@@ -0,0 +1,29 @@
+package com.cody.portfolio.service.search;
+
+/**
+ * How QuestionService treats a new Question whose text is nearly the same as a stored one.
+ * 
+ * @param action What to do with a near-duplicate.
+ * @param threshold The estimated Jaccard similarity of the question texts at or above which a Question is a near-duplicate.
+ */
+public record DuplicatePolicy(Action action, double threshold) {
+	/** No near-duplicate detection; nothing is indexed. */
+	public static final DuplicatePolicy OFF = new DuplicatePolicy(Action.OFF, 1);
+	
+	public enum Action {
+		/** Near-duplicates are stored without a check. */
+		OFF,
+		/** Near-duplicates are stored, and callers can look up what they duplicate. */
+		FLAG,
+		/** Near-duplicates are not stored. */
+		REJECT
+	}
+	
+	/**
+	 * @throws IllegalArgumentException If action is null, or threshold is not greater than 0 and at most 1.
+	 */
+	public DuplicatePolicy {
+		if (action == null) throw new IllegalArgumentException("The parameter action must not be null!");
+		if (!(threshold > 0 && threshold <= 1)) throw new IllegalArgumentException("The parameter threshold must be greater than 0 and at most 1!");
+	}
+}
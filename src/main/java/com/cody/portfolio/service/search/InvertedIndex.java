@@ -0,0 +1,435 @@
+package com.cody.portfolio.service.search;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.cody.portfolio.domain.Question;
+
+/**
+ * An inverted index over the question and answer text of stored Questions, for ranked keyword search.
+ * 
+ * Each indexed version of a Question is a document with a number that only grows, so every posting list
+ * is appended to in order and stays sorted without shifting. A posting list holds document numbers in an
+ * int array and term frequencies in a parallel byte array. Removing or re-indexing a Question leaves its
+ * old document as a tombstone; when tombstones outnumber live documents, the index renumbers the live
+ * documents and drops the tombstones from every list.
+ * 
+ * Questions are identified by the caller's slot number. Searches share a read lock and changes take the
+ * write lock, so a search sees each change completely or not at all.
+ */
+public class InvertedIndex {
+	private static final double K1 = 1.2; // BM25 term frequency saturation.
+	private static final double B = 0.75; // BM25 document length normalization.
+	private static final int MIN_COMPACTION = 1024; // Tombstones tolerated before compacting at all.
+	private static final int NONE = -1;
+	
+	private final ReentrantReadWriteLock lock;
+	
+	// Guarded by lock.
+	private final HashMap<String, Postings> terms;
+	private Question[] documents; // Document number -> Question, or null for a tombstone.
+	private int lengths[]; // Document number -> number of words.
+	private int slots[]; // Document number -> slot.
+	private int documentOfSlot[]; // Slot -> live document number, or NONE.
+	private int nextDocument;
+	private int live;
+	private long totalLength; // Words in live documents.
+	
+	public InvertedIndex() {
+		this.lock = new ReentrantReadWriteLock();
+		this.terms = new HashMap<>();
+		this.documents = new Question[16];
+		this.lengths = new int[16];
+		this.slots = new int[16];
+		this.documentOfSlot = new int[16];
+		Arrays.fill(this.documentOfSlot, NONE);
+	}
+	
+	/**
+	 * Indexes the current text of a Question stored in a slot, replacing whatever the slot held.
+	 * 
+	 * @param slot The caller's slot number for the Question; must not be negative.
+	 * @param question The Question to index.
+	 */
+	public void put(int slot, Question question) {
+		String[] tokens = words(question);
+		this.lock.writeLock().lock();
+		try {
+			removeSlot(slot);
+			int document = this.nextDocument++;
+			ensureDocuments(document + 1);
+			ensureSlots(slot + 1);
+			this.documents[document] = question;
+			this.lengths[document] = tokens.length;
+			this.slots[document] = slot;
+			this.documentOfSlot[slot] = document;
+			this.live++;
+			this.totalLength += tokens.length;
+			
+			for (Map.Entry<String, Integer> term : frequencies(tokens).entrySet()) {
+				this.terms.computeIfAbsent(term.getKey(), (String key) -> new Postings()).add(document, term.getValue());
+			}
+			compactIfSparse();
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+	
+	/**
+	 * Removes the Question stored in a slot from the index; does nothing if the slot holds none.
+	 */
+	public void remove(int slot) {
+		this.lock.writeLock().lock();
+		try {
+			removeSlot(slot);
+			compactIfSparse();
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+	
+	/**
+	 * Moves the Question indexed in one slot to another, empty slot, without indexing its text again.
+	 * Does nothing if the first slot holds none.
+	 * 
+	 * @param from The slot the Question is indexed in.
+	 * @param to The slot it moves to; must not be negative or hold a Question.
+	 */
+	public void move(int from, int to) {
+		this.lock.writeLock().lock();
+		try {
+			if (from >= this.documentOfSlot.length || this.documentOfSlot[from] == NONE) return;
+			int document = this.documentOfSlot[from];
+			ensureSlots(to + 1);
+			this.documentOfSlot[from] = NONE;
+			this.documentOfSlot[to] = document;
+			this.slots[document] = to;
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+	
+	/**
+	 * Returns the number of indexed Questions.
+	 */
+	public int size() {
+		this.lock.readLock().lock();
+		try {
+			return this.live;
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+	
+	/**
+	 * Finds the Questions whose text contains every word of the query, best BM25 score first,
+	 * with earlier documents first among equal scores.
+	 * 
+	 * @param query The words to find.
+	 * @param offset The number of leading results to skip.
+	 * @param limit The maximum number of results to return.
+	 * @return The results in rank order, and whether more results follow them.
+	 * @throws IllegalArgumentException If the query has no words.
+	 */
+	public Result search(String query, int offset, int limit) {
+		String[] words = frequencies(Tokenizer.tokenize(query)).keySet().toArray(new String[0]);
+		if (words.length == 0) throw new IllegalArgumentException("The query must contain at least one word!");
+		
+		this.lock.readLock().lock();
+		try {
+			Postings[] lists = new Postings[words.length];
+			for (int i = 0; i < words.length; i++) {
+				lists[i] = this.terms.get(words[i]);
+				if (lists[i] == null) return new Result(new Question[0], false);
+			}
+			// Walk the rarest word, looking the others up; the intersection can only be smaller.
+			Arrays.sort(lists, (Postings a, Postings b) -> Integer.compare(a.size, b.size));
+			double idf[] = new double[lists.length];
+			for (int i = 0; i < lists.length; i++) {
+				// Lists may still hold tombstones, so cap the document frequency at the live count.
+				int frequency = Math.min(lists[i].size, this.live);
+				idf[i] = Math.log(1 + (this.live - frequency + 0.5) / (frequency + 0.5));
+			}
+			double averageLength = (this.live == 0) ? 1 : (double) this.totalLength / this.live;
+			
+			TopDocuments top = new TopDocuments(offset + limit);
+			int cursors[] = new int[lists.length];
+			Postings rarest = lists[0];
+			candidates:
+			for (int p = 0; p < rarest.size; p++) {
+				int document = rarest.documents[p];
+				if (this.documents[document] == null) continue;
+				
+				double normalization = K1 * (1 - B + B * this.lengths[document] / averageLength);
+				double score = idf[0] * bm25(rarest.frequency(p), normalization);
+				for (int i = 1; i < lists.length; i++) {
+					cursors[i] = lists[i].seek(document, cursors[i]);
+					if (cursors[i] == lists[i].size) break candidates;
+					if (lists[i].documents[cursors[i]] != document) continue candidates;
+					score += idf[i] * bm25(lists[i].frequency(cursors[i]), normalization);
+				}
+				top.offer(document, score);
+			}
+			
+			int ranked[] = top.ranked();
+			int from = Math.min(offset, ranked.length);
+			Question[] page = new Question[ranked.length - from];
+			for (int i = from; i < ranked.length; i++) {
+				page[i - from] = this.documents[ranked[i]];
+			}
+			return new Result(page, top.overflowed());
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+	
+	/**
+	 * One page of search results.
+	 * 
+	 * @param questions The matching Questions in rank order.
+	 * @param more True if more Questions match after this page.
+	 */
+	public record Result(Question[] questions, boolean more) {}
+	
+	private static double bm25(int frequency, double normalization) {
+		return frequency * (K1 + 1) / (frequency + normalization);
+	}
+	
+	private static String[] words(Question question) {
+		String[] questionWords = Tokenizer.tokenize(question.getQuestion());
+		String[] answerWords = Tokenizer.tokenize(question.getAnswer());
+		String[] words = Arrays.copyOf(questionWords, questionWords.length + answerWords.length);
+		System.arraycopy(answerWords, 0, words, questionWords.length, answerWords.length);
+		return words;
+	}
+	
+	/**
+	 * Counts each distinct word, keeping the order words first appear in.
+	 */
+	private static LinkedHashMap<String, Integer> frequencies(String[] tokens) {
+		LinkedHashMap<String, Integer> frequencies = new LinkedHashMap<>();
+		for (String token : tokens) {
+			frequencies.merge(token, 1, Integer::sum);
+		}
+		return frequencies;
+	}
+	
+	/**
+	 * A helper method that turns the slot's document into a tombstone.
+	 * Must be called while holding the write lock.
+	 */
+	private void removeSlot(int slot) {
+		if (slot >= this.documentOfSlot.length || this.documentOfSlot[slot] == NONE) return;
+		int document = this.documentOfSlot[slot];
+		this.documentOfSlot[slot] = NONE;
+		this.documents[document] = null;
+		this.live--;
+		this.totalLength -= this.lengths[document];
+	}
+	
+	/**
+	 * A helper method that compacts once tombstones outnumber live documents, so compaction is amortized over the removals.
+	 * Must be called while holding the write lock.
+	 */
+	private void compactIfSparse() {
+		if (this.nextDocument - this.live > Math.max(this.live, MIN_COMPACTION)) compact();
+	}
+	
+	/**
+	 * A helper method that renumbers the live documents in order and drops tombstones from every posting list.
+	 * Numbering in order keeps every list sorted. Must be called while holding the write lock.
+	 */
+	private void compact() {
+		int renumbered[] = new int[this.nextDocument];
+		int next = 0;
+		for (int document = 0; document < this.nextDocument; document++) {
+			if (this.documents[document] == null) {
+				renumbered[document] = NONE;
+				continue;
+			}
+			renumbered[document] = next;
+			this.documents[next] = this.documents[document];
+			this.lengths[next] = this.lengths[document];
+			this.slots[next] = this.slots[document];
+			this.documentOfSlot[this.slots[next]] = next;
+			next++;
+		}
+		Arrays.fill(this.documents, next, this.nextDocument, null);
+		this.nextDocument = next;
+		
+		this.terms.values().removeIf((Postings postings) -> postings.renumber(renumbered) == 0);
+	}
+	
+	private void ensureDocuments(int count) {
+		if (count <= this.documents.length) return;
+		int capacity = Math.max(count, this.documents.length * 2);
+		this.documents = Arrays.copyOf(this.documents, capacity);
+		this.lengths = Arrays.copyOf(this.lengths, capacity);
+		this.slots = Arrays.copyOf(this.slots, capacity);
+	}
+	
+	private void ensureSlots(int count) {
+		if (count <= this.documentOfSlot.length) return;
+		int previous = this.documentOfSlot.length;
+		this.documentOfSlot = Arrays.copyOf(this.documentOfSlot, Math.max(count, previous * 2));
+		Arrays.fill(this.documentOfSlot, previous, this.documentOfSlot.length, NONE);
+	}
+	
+	/**
+	 * The documents containing one word, in ascending order, with the word's frequency in each.
+	 */
+	private static final class Postings {
+		private int documents[] = new int[2];
+		private byte frequencies[] = new byte[2]; // Unsigned, capped at 255.
+		private int size;
+		
+		private void add(int document, int frequency) {
+			if (this.size == this.documents.length) {
+				this.documents = Arrays.copyOf(this.documents, this.size * 2);
+				this.frequencies = Arrays.copyOf(this.frequencies, this.size * 2);
+			}
+			this.documents[this.size] = document;
+			this.frequencies[this.size] = (byte) Math.min(frequency, 255);
+			this.size++;
+		}
+		
+		private int frequency(int position) {
+			return Byte.toUnsignedInt(this.frequencies[position]);
+		}
+		
+		/**
+		 * Returns the first position at or after from whose document is at least the target, or size if none.
+		 * Gallops forward, then binary searches, so a walk over the whole list costs its length at most.
+		 */
+		private int seek(int target, int from) {
+			if (from >= this.size || this.documents[from] >= target) return from;
+			int step = 1;
+			int low = from;
+			int high = from + 1;
+			while (high < this.size && this.documents[high] < target) {
+				low = high;
+				step <<= 1;
+				high = from + step;
+			}
+			high = Math.min(high, this.size);
+			int found = Arrays.binarySearch(this.documents, low + 1, high, target);
+			return (found >= 0) ? found : -found - 1;
+		}
+		
+		/**
+		 * Maps documents to new numbers, dropping those mapped to NONE, and returns the new size.
+		 */
+		private int renumber(int renumbered[]) {
+			int next = 0;
+			for (int i = 0; i < this.size; i++) {
+				int document = renumbered[this.documents[i]];
+				if (document == NONE) continue;
+				this.documents[next] = document;
+				this.frequencies[next] = this.frequencies[i];
+				next++;
+			}
+			this.size = next;
+			return next;
+		}
+	}
+	
+	/**
+	 * Keeps the best documents seen so far in a bounded min-heap ordered by score, then by later document.
+	 */
+	private static final class TopDocuments {
+		private final int capacity;
+		private int documents[];
+		private double scores[];
+		private int size;
+		private boolean overflowed;
+		
+		private TopDocuments(int capacity) {
+			this.capacity = capacity;
+			this.documents = new int[Math.max(1, Math.min(capacity, 1024))];
+			this.scores = new double[this.documents.length];
+		}
+		
+		private void offer(int document, double score) {
+			if (this.size < this.capacity) {
+				if (this.size == this.documents.length) grow();
+				this.documents[this.size] = document;
+				this.scores[this.size] = score;
+				siftUp(this.size++);
+				return;
+			}
+			this.overflowed = true;
+			// Documents arrive in ascending order, so an equal score never displaces the root.
+			if (score <= this.scores[0]) return;
+			this.documents[0] = document;
+			this.scores[0] = score;
+			siftDown(0);
+		}
+		
+		private boolean overflowed() {
+			return this.overflowed;
+		}
+		
+		/**
+		 * Empties the heap and returns its documents, best first.
+		 */
+		private int[] ranked() {
+			int ranked[] = new int[this.size];
+			for (int i = this.size - 1; i >= 0; i--) {
+				ranked[i] = this.documents[0];
+				this.size--;
+				this.documents[0] = this.documents[this.size];
+				this.scores[0] = this.scores[this.size];
+				siftDown(0);
+			}
+			return ranked;
+		}
+		
+		/**
+		 * True if a ranks below b: a lower score, or an equal score and a later document.
+		 */
+		private boolean below(int a, int b) {
+			if (this.scores[a] != this.scores[b]) return this.scores[a] < this.scores[b];
+			return this.documents[a] > this.documents[b];
+		}
+		
+		private void siftUp(int i) {
+			while (i > 0) {
+				int parent = (i - 1) / 2;
+				if (!below(i, parent)) return;
+				swap(i, parent);
+				i = parent;
+			}
+		}
+		
+		private void siftDown(int i) {
+			while (true) {
+				int lowest = i;
+				int left = 2 * i + 1;
+				int right = left + 1;
+				if (left < this.size && below(left, lowest)) lowest = left;
+				if (right < this.size && below(right, lowest)) lowest = right;
+				if (lowest == i) return;
+				swap(i, lowest);
+				i = lowest;
+			}
+		}
+		
+		private void swap(int a, int b) {
+			int document = this.documents[a];
+			this.documents[a] = this.documents[b];
+			this.documents[b] = document;
+			double score = this.scores[a];
+			this.scores[a] = this.scores[b];
+			this.scores[b] = score;
+		}
+		
+		private void grow() {
+			int capacity = (int) Math.min((long) this.documents.length * 2, this.capacity);
+			this.documents = Arrays.copyOf(this.documents, capacity);
+			this.scores = Arrays.copyOf(this.scores, capacity);
+		}
+	}
+}
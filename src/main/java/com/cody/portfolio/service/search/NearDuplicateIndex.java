@@ -0,0 +1,315 @@
+package com.cody.portfolio.service.search;
+
+import java.util.UUID;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.cody.portfolio.domain.Question;
+
+/**
+ * Finds stored Questions whose question text is nearly the same as another's, using MinHash and locality sensitive hashing.
+ * 
+ * The question text is reduced to its words, joined by single spaces, and cut into overlapping shingles of four characters.
+ * A MinHash signature keeps the smallest shingle hash under each of SIGNATURE_LENGTH hash functions, and two signatures
+ * agree at a position with probability equal to the Jaccard similarity of the two shingle sets.
+ * The signature is split into bands, and Questions whose signatures agree on a whole band share a bucket. A lookup only
+ * compares the Questions sharing a bucket with it, so its cost follows the number of similar Questions rather than the
+ * number of stored ones. The band width is chosen from the threshold, so that pairs at the threshold share a bucket
+ * with high probability while dissimilar pairs almost never do.
+ * 
+ * Only the low byte of each signature position is kept for comparing candidates, with the chance agreement of
+ * one byte removed from the estimate, and the band keys are kept so a Question can be removed after its text changed.
+ * 
+ * Questions are identified by the caller's slot number. Lookups share a read lock and changes take the write lock.
+ */
+public class NearDuplicateIndex {
+	/** The number of hash functions in a signature. */
+	public static final int SIGNATURE_LENGTH = 128;
+	private static final int SHINGLE_LENGTH = 4;
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+	private static final double CHANCE_AGREEMENT = 1.0 / 256; // Two unrelated low bytes are equal this often.
+	
+	private final double threshold;
+	private final int rows; // Signature positions per band.
+	private final int bands;
+	private final ReentrantReadWriteLock lock;
+	
+	// Guarded by lock.
+	private final HashMap<Long, Slots> buckets; // Band key -> slots whose signatures share that band.
+	private Question[] questions; // Slot -> indexed Question, or null.
+	private byte[][] sketches; // Slot -> low byte of each signature position.
+	private long[][] keys; // Slot -> band keys.
+	private int size;
+	
+	/**
+	 * Creates an empty index.
+	 * 
+	 * @param threshold The estimated Jaccard similarity at or above which Questions are near-duplicates.
+	 * @throws IllegalArgumentException If threshold is not greater than 0 and at most 1.
+	 */
+	public NearDuplicateIndex(double threshold) {
+		if (!(threshold > 0 && threshold <= 1)) throw new IllegalArgumentException("The parameter threshold must be greater than 0 and at most 1!");
+		this.threshold = threshold;
+		this.rows = rowsFor(threshold);
+		this.bands = SIGNATURE_LENGTH / this.rows;
+		this.lock = new ReentrantReadWriteLock();
+		this.buckets = new HashMap<>();
+		this.questions = new Question[16];
+		this.sketches = new byte[16][];
+		this.keys = new long[16][];
+	}
+	
+	/**
+	 * Computes the MinHash signature of a Question's question text.
+	 * The signature depends on nothing else, so it can be computed before taking any lock.
+	 */
+	public static int[] signature(Question question) {
+		String text = String.join(" ", Tokenizer.tokenize(question.getQuestion()));
+		int signature[] = new int[SIGNATURE_LENGTH];
+		Arrays.fill(signature, Integer.MAX_VALUE);
+		
+		// A text shorter than a shingle is one shingle.
+		int last = Math.max(text.length() - SHINGLE_LENGTH, 0);
+		for (int start = 0; start <= last; start++) {
+			long shingle = 0;
+			for (int i = start; i < Math.min(start + SHINGLE_LENGTH, text.length()); i++) {
+				shingle = (shingle << 16) | text.charAt(i);
+			}
+			
+			// Hash function k is h1 + k * h2, so each shingle costs one mix per function pair instead of one per function.
+			long h1 = mix(shingle);
+			long h2 = mix(h1 ^ GOLDEN_GAMMA) | 1;
+			long hash = h1;
+			for (int k = 0; k < SIGNATURE_LENGTH; k++) {
+				int value = (int) (hash >>> 32);
+				if (value < signature[k]) signature[k] = value;
+				hash += h2;
+			}
+		}
+		return signature;
+	}
+	
+	/**
+	 * Indexes a Question stored in a slot under its signature, replacing whatever the slot held.
+	 * 
+	 * @param slot The caller's slot number for the Question; must not be negative.
+	 * @param question The Question to index.
+	 * @param signature The signature of the Question's current text.
+	 */
+	public void put(int slot, Question question, int signature[]) {
+		long bandKeys[] = bandKeys(signature);
+		byte sketch[] = sketch(signature);
+		this.lock.writeLock().lock();
+		try {
+			removeSlot(slot);
+			ensureSlots(slot + 1);
+			this.questions[slot] = question;
+			this.sketches[slot] = sketch;
+			this.keys[slot] = bandKeys;
+			this.size++;
+			for (long key : bandKeys) {
+				this.buckets.computeIfAbsent(key, (Long unused) -> new Slots()).add(slot);
+			}
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+	
+	/**
+	 * Removes the Question stored in a slot from the index; does nothing if the slot holds none.
+	 */
+	public void remove(int slot) {
+		this.lock.writeLock().lock();
+		try {
+			removeSlot(slot);
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+	
+	/**
+	 * Moves the Question indexed in one slot to another, empty slot, without computing its signature again.
+	 * Does nothing if the first slot holds none.
+	 * 
+	 * @param from The slot the Question is indexed in.
+	 * @param to The slot it moves to; must not be negative or hold a Question.
+	 */
+	public void move(int from, int to) {
+		this.lock.writeLock().lock();
+		try {
+			if (from >= this.questions.length || this.questions[from] == null) return;
+			ensureSlots(to + 1);
+			for (long key : this.keys[from]) {
+				Slots bucket = this.buckets.get(key);
+				bucket.remove(from);
+				bucket.add(to);
+			}
+			this.questions[to] = this.questions[from];
+			this.sketches[to] = this.sketches[from];
+			this.keys[to] = this.keys[from];
+			this.questions[from] = null;
+			this.sketches[from] = null;
+			this.keys[from] = null;
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+	
+	/**
+	 * Returns the estimated Jaccard similarity at or above which Questions are near-duplicates.
+	 */
+	public double threshold() {
+		return this.threshold;
+	}
+	
+	/**
+	 * Returns the number of indexed Questions.
+	 */
+	public int size() {
+		this.lock.readLock().lock();
+		try {
+			return this.size;
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+	
+	/**
+	 * Finds the indexed Question most similar to a signature, if its estimated similarity reaches the threshold.
+	 * 
+	 * @param signature The signature to compare with.
+	 * @param exclude The id of a Question to skip, such as the one the signature belongs to; may be null.
+	 * @return The most similar Question and its estimated Jaccard similarity, or null if none reaches the threshold.
+	 */
+	public Match find(int signature[], UUID exclude) {
+		long bandKeys[] = bandKeys(signature);
+		byte sketch[] = sketch(signature);
+		this.lock.readLock().lock();
+		try {
+			int bestSlot = -1;
+			double bestSimilarity = 0;
+			for (long key : bandKeys) {
+				Slots bucket = this.buckets.get(key);
+				if (bucket == null) continue;
+				for (int i = 0; i < bucket.count; i++) {
+					int slot = bucket.slots[i];
+					if (slot == bestSlot || this.questions[slot].getID().equals(exclude)) continue;
+					double similarity = similarity(sketch, this.sketches[slot]);
+					if (similarity >= this.threshold && similarity > bestSimilarity) {
+						bestSlot = slot;
+						bestSimilarity = similarity;
+					}
+				}
+			}
+			return (bestSlot < 0) ? null : new Match(this.questions[bestSlot], bestSimilarity);
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+	
+	/**
+	 * A near-duplicate and its estimated Jaccard similarity to the text that was looked up.
+	 */
+	public record Match(Question question, double similarity) {}
+	
+	/**
+	 * A helper method that drops a slot from its buckets. Must be called while holding the write lock.
+	 */
+	private void removeSlot(int slot) {
+		if (slot >= this.questions.length || this.questions[slot] == null) return;
+		for (long key : this.keys[slot]) {
+			Slots bucket = this.buckets.get(key);
+			if (bucket.remove(slot) && bucket.count == 0) this.buckets.remove(key);
+		}
+		this.questions[slot] = null;
+		this.sketches[slot] = null;
+		this.keys[slot] = null;
+		this.size--;
+	}
+	
+	private void ensureSlots(int needed) {
+		if (needed <= this.questions.length) return;
+		int length = Math.max(needed, this.questions.length * 2);
+		this.questions = Arrays.copyOf(this.questions, length);
+		this.sketches = Arrays.copyOf(this.sketches, length);
+		this.keys = Arrays.copyOf(this.keys, length);
+	}
+	
+	private long[] bandKeys(int signature[]) {
+		long bandKeys[] = new long[this.bands];
+		for (int band = 0; band < this.bands; band++) {
+			long key = band;
+			for (int row = band * this.rows; row < (band + 1) * this.rows; row++) {
+				key = mix(key * GOLDEN_GAMMA + signature[row]);
+			}
+			bandKeys[band] = key;
+		}
+		return bandKeys;
+	}
+	
+	private static byte[] sketch(int signature[]) {
+		byte sketch[] = new byte[signature.length];
+		for (int i = 0; i < signature.length; i++) {
+			sketch[i] = (byte) signature[i];
+		}
+		return sketch;
+	}
+	
+	/**
+	 * Estimates the Jaccard similarity from the fraction of agreeing low bytes, less the agreement expected by chance.
+	 */
+	private static double similarity(byte a[], byte b[]) {
+		int agreeing = 0;
+		for (int i = 0; i < a.length; i++) {
+			if (a[i] == b[i]) agreeing++;
+		}
+		double fraction = (double) agreeing / a.length;
+		return Math.max(0, (fraction - CHANCE_AGREEMENT) / (1 - CHANCE_AGREEMENT));
+	}
+	
+	/**
+	 * Returns the widest band, in powers of two, for which pairs at the threshold still share a band with high probability.
+	 * (1 / bands)^(1 / rows) approximates the similarity at which the chance of sharing a band rises most steeply.
+	 */
+	private static int rowsFor(double threshold) {
+		int rows = 1;
+		for (int candidate = 1; candidate <= SIGNATURE_LENGTH; candidate *= 2) {
+			int bands = SIGNATURE_LENGTH / candidate;
+			if (Math.pow(1.0 / bands, 1.0 / candidate) <= threshold) rows = candidate;
+		}
+		return rows;
+	}
+	
+	/**
+	 * The SplitMix64 finalizer.
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+	
+	/**
+	 * The slots in one bucket, in no particular order.
+	 */
+	private static final class Slots {
+		private int slots[] = new int[2];
+		private int count;
+		
+		private void add(int slot) {
+			if (this.count == this.slots.length) this.slots = Arrays.copyOf(this.slots, this.count * 2);
+			this.slots[this.count++] = slot;
+		}
+		
+		private boolean remove(int slot) {
+			for (int i = 0; i < this.count; i++) {
+				if (this.slots[i] == slot) {
+					this.slots[i] = this.slots[--this.count];
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+}
@@ -0,0 +1,40 @@
+package com.cody.portfolio.service.search;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Splits text into lowercase words, where a word is a run of letters and digits.
+ */
+public final class Tokenizer {
+	/** Longer words are cut to this length, so a pasted blob cannot create huge terms. */
+	static final int MAX_TOKEN_LENGTH = 64;
+	
+	private Tokenizer() {}
+	
+	/**
+	 * Returns the words of the text in order, repeats included.
+	 * 
+	 * @param text The text to split; null is treated as empty.
+	 */
+	public static String[] tokenize(String text) {
+		if (text == null) return new String[0];
+		String[] tokens = new String[8];
+		int count = 0;
+		
+		int length = text.length();
+		int i = 0;
+		while (i < length) {
+			// Skip to the start of the next word.
+			while (i < length && !Character.isLetterOrDigit(text.codePointAt(i))) i += Character.charCount(text.codePointAt(i));
+			int start = i;
+			while (i < length && Character.isLetterOrDigit(text.codePointAt(i))) i += Character.charCount(text.codePointAt(i));
+			if (i == start) break;
+			
+			if (count == tokens.length) tokens = Arrays.copyOf(tokens, count * 2);
+			String token = text.substring(start, Math.min(i, start + MAX_TOKEN_LENGTH));
+			tokens[count++] = token.toLowerCase(Locale.ROOT);
+		}
+		return Arrays.copyOf(tokens, count);
+	}
+}
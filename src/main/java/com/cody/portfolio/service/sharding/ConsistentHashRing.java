@@ -0,0 +1,83 @@
+package com.cody.portfolio.service.sharding;
+
+import java.util.UUID;
+import java.util.Arrays;
+
+/**
+ * Assigns Question ids to shards by consistent hashing.
+ * Each shard owns POINTS_PER_SHARD points on a ring of 64-bit hashes, and an id belongs to the shard owning the first
+ * point at or after the id's hash. A shard's points depend only on its number, so going from N to N + 1 shards moves
+ * only the ids whose nearest point now belongs to the new shard, about 1 in N + 1, and moves them all to it.
+ * Many points per shard keep the shards within a few percent of an equal share.
+ * 
+ * Immutable and safe for concurrent use.
+ */
+public final class ConsistentHashRing {
+	/** The points each shard owns on the ring. */
+	public static final int POINTS_PER_SHARD = 128;
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+	
+	private final int shards;
+	private final long points[]; // Sorted ascending.
+	private final int owners[]; // The shard owning each point.
+	
+	/**
+	 * @param shards The number of shards; must be at least 1.
+	 * @throws IllegalArgumentException If shards is less than 1.
+	 */
+	public ConsistentHashRing(int shards) {
+		if (shards < 1) throw new IllegalArgumentException("The parameter shards must not be less than 1!");
+		this.shards = shards;
+		
+		// Sort the points by hash, carrying each point's owner along.
+		long hashes[] = new long[shards * POINTS_PER_SHARD];
+		for (int shard = 0; shard < shards; shard++) {
+			for (int i = 0; i < POINTS_PER_SHARD; i++) {
+				hashes[shard * POINTS_PER_SHARD + i] = point(shard, i);
+			}
+		}
+		Integer[] order = new Integer[hashes.length];
+		for (int i = 0; i < order.length; i++) order[i] = i;
+		Arrays.sort(order, (Integer a, Integer b) -> Long.compare(hashes[a], hashes[b]));
+		this.points = new long[hashes.length];
+		this.owners = new int[hashes.length];
+		for (int i = 0; i < order.length; i++) {
+			this.points[i] = hashes[order[i]];
+			this.owners[i] = order[i] / POINTS_PER_SHARD;
+		}
+	}
+	
+	/**
+	 * Returns the number of shards.
+	 */
+	public int shards() {
+		return this.shards;
+	}
+	
+	/**
+	 * Returns the shard owning an id, between 0 and shards - 1.
+	 */
+	public int shardOf(UUID id) {
+		long hash = mix(id.getMostSignificantBits() ^ Long.rotateLeft(id.getLeastSignificantBits(), 32));
+		// binarySearch returns -(insertion point) - 1 when the hash is not a point.
+		int index = Arrays.binarySearch(this.points, hash);
+		if (index < 0) index = -index - 1;
+		return this.owners[(index == this.points.length) ? 0 : index];
+	}
+	
+	/**
+	 * A helper method that places the i-th point of a shard.
+	 */
+	private static long point(int shard, int i) {
+		return mix(mix(shard + 1L) + i * GOLDEN_GAMMA);
+	}
+	
+	/**
+	 * A helper method that scrambles 64 bits so that nearby inputs land far apart (the SplitMix64 finalizer).
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
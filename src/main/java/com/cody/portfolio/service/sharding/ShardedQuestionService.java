@@ -0,0 +1,976 @@
+package com.cody.portfolio.service.sharding;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.List;
+import java.util.UUID;
+import java.util.Random;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.cody.portfolio.domain.Question;
+import com.cody.portfolio.service.QuestionBank;
+import com.cody.portfolio.service.QuestionPage;
+import com.cody.portfolio.service.StoreOutcome;
+import com.cody.portfolio.service.QuestionService;
+import com.cody.portfolio.service.grading.Grade;
+import com.cody.portfolio.service.metrics.QuestionMetrics;
+import com.cody.portfolio.service.stats.QuestionStats;
+import com.cody.portfolio.service.stats.StatsSnapshot;
+import com.cody.portfolio.service.sorting.AbstractSortingStrategy;
+
+/**
+ * Partitions Questions across several QuestionService shards by a ConsistentHashRing of their ids.
+ * Each shard has its own write lock, indexes, and repository, so writes to different shards run in parallel
+ * and no shard holds more than about 1 / shards of the bank.
+ * 
+ * Lookups, edits, and deletes by id go straight to the owning shard. List reads take each shard's sorted array,
+ * which costs no copy, and merge them with a k-way merge by the sorting strategy's Comparator; Questions that compare
+ * equal keep their order within a shard and are taken from lower shards first. The merged array is cached until a
+ * shard's version changes, so repeated reads between writes do not merge again.
+ * 
+ * Near-duplicate detection, capacity limits, and statistics apply per shard. Pages walk the shards one after
+ * another, each in insertion order, and search interleaves the shards' results by their rank within each shard,
+ * since BM25 scores are computed per shard. Cursors name shards by number, so a reshard invalidates them.
+ * 
+ * Operation latencies and the occupancy gauges are recorded once per call here; shards created with
+ * QuestionMetrics.forShard count only their rejections and sorts.
+ * 
+ * reshard changes the number of shards, moving only the Questions the new ring assigns elsewhere, about 1 / shards
+ * of them when a shard is added. It blocks writes while it runs. Reads do not block: a list read during a reshard
+ * may see a moved Question twice, and lookups always find it.
+ */
+public class ShardedQuestionService implements QuestionBank {
+	private static final int ALL = Question.Type.values().length; // The cache slot of getAll.
+	private static final int DIFFICULTIES = Question.Difficulty.values().length;
+	
+	private final Comparator<Question> comparator;
+	private final IntFunction<QuestionService> newShard;
+	private final ReentrantReadWriteLock resharding; // Writes hold the read lock; reshard holds the write lock.
+	private final QuestionMetrics metrics;
+	private volatile Layout layout;
+	private volatile StatsSnapshot stats;
+	
+	// Merged list reads: one slot per Type, one for getAll, then one per Type and Difficulty pair.
+	private final AtomicReferenceArray<Merged> merged;
+	
+	/**
+	 * Creates a service of in-memory shards that sort with the same strategy.
+	 * 
+	 * @param shards The number of shards; must be at least 1.
+	 * @throws IllegalArgumentException If strategy is null or shards is less than 1.
+	 */
+	public ShardedQuestionService(AbstractSortingStrategy strategy, int shards) {
+		this(strategy, shards, (int shard) -> new QuestionService(strategy));
+	}
+	
+	/**
+	 * Creates a service whose shards are created by a factory, for example with one repository directory per shard.
+	 * Every shard must sort by the strategy's Comparator.
+	 * 
+	 * @param strategy The strategy the shards sort with.
+	 * @param shards The number of shards; must be at least 1.
+	 * @param newShard Creates the shard with the given number.
+	 * @throws IllegalArgumentException If strategy or newShard is null, or shards is less than 1.
+	 */
+	public ShardedQuestionService(AbstractSortingStrategy strategy, int shards, IntFunction<QuestionService> newShard) {
+		this(strategy, shards, newShard, QuestionMetrics.OFF);
+	}
+	
+	/**
+	 * Creates a service whose shards are created by a factory and whose operations are recorded in QuestionMetrics.
+	 * The shards should record to metrics.forShard(), so that operations are not timed twice.
+	 * 
+	 * @param strategy The strategy the shards sort with.
+	 * @param shards The number of shards; must be at least 1.
+	 * @param newShard Creates the shard with the given number.
+	 * @param metrics The meters the service records to.
+	 * @throws IllegalArgumentException If strategy, newShard, or metrics is null, or shards is less than 1.
+	 */
+	public ShardedQuestionService(AbstractSortingStrategy strategy, int shards, IntFunction<QuestionService> newShard, QuestionMetrics metrics) {
+		if (metrics == null) throw new IllegalArgumentException("The parameter metrics must not be null!");
+		if (strategy == null) throw new IllegalArgumentException("The parameter strategy must not be null!");
+		if (newShard == null) throw new IllegalArgumentException("The parameter newShard must not be null!");
+		if (shards < 1) throw new IllegalArgumentException("The parameter shards must not be less than 1!");
+		this.comparator = strategy.getComparator();
+		this.newShard = newShard;
+		this.resharding = new ReentrantReadWriteLock();
+		this.merged = new AtomicReferenceArray<>(ALL + 1 + ALL * DIFFICULTIES);
+		
+		QuestionService[] created = new QuestionService[shards];
+		for (int i = 0; i < shards; i++) {
+			created[i] = newShard.apply(i);
+		}
+		this.metrics = metrics;
+		this.stats = StatsSnapshot.EMPTY;
+		this.layout = new Layout(new ConsistentHashRing(shards), created, 0, new long[ALL]);
+		metrics.bindStore(this, ShardedQuestionService::size, ShardedQuestionService::capacity);
+	}
+	
+	/**
+	 * Stores a Question in its shard.
+	 * 
+	 * @return True if the Question was stored; see QuestionService.setQuestion.
+	 * @throws IllegalArgumentException If question is null, or its shard rejects it as a near-duplicate.
+	 */
+	@Override
+	public boolean setQuestion(Question question) {
+		if (question == null) throw new IllegalArgumentException("The parameter question must not be null!");
+		long start = System.nanoTime();
+		this.resharding.readLock().lock();
+		try {
+			return owner(this.layout, question.getID()).setQuestion(question);
+		} finally {
+			this.resharding.readLock().unlock();
+			this.metrics.record(QuestionMetrics.Operation.SET, start);
+		}
+	}
+	
+	/**
+	 * Stores a batch of Questions, as one write per shard.
+	 * 
+	 * @return What was done with each Question, in the order given; see QuestionService.setQuestions.
+	 * @throws IllegalArgumentException If batch is null or contains null.
+	 */
+	@Override
+	public StoreOutcome[] setQuestions(Question[] batch) {
+		if (batch == null) throw new IllegalArgumentException("The parameter batch must not be null!");
+		for (Question question : batch) {
+			if (question == null) throw new IllegalArgumentException("The parameter batch must not contain null!");
+		}
+		long start = System.nanoTime();
+		this.resharding.readLock().lock();
+		try {
+			Layout current = this.layout;
+			int positions[][] = positionsByShard(current, batch);
+			StoreOutcome outcomes[] = new StoreOutcome[batch.length];
+			for (int shard = 0; shard < positions.length; shard++) {
+				if (positions[shard].length == 0) continue;
+				Question[] part = new Question[positions[shard].length];
+				for (int i = 0; i < part.length; i++) {
+					part[i] = batch[positions[shard][i]];
+				}
+				StoreOutcome partOutcomes[] = current.shards[shard].setQuestions(part);
+				for (int i = 0; i < part.length; i++) {
+					outcomes[positions[shard][i]] = partOutcomes[i];
+				}
+			}
+			return outcomes;
+		} finally {
+			this.resharding.readLock().unlock();
+			this.metrics.record(QuestionMetrics.Operation.SET_MANY, start);
+		}
+	}
+	
+	/**
+	 * Retrieves a Question from its shard, counting it as served.
+	 * 
+	 * @return An Optional containing the Question, or Optional.isEmpty() if no Question has the id or id is null.
+	 */
+	@Override
+	public Optional<Question> getQuestion(UUID id) {
+		if (id == null) return Optional.empty();
+		long start = System.nanoTime();
+		Optional<Question> question = owner(this.layout, id).getQuestion(id);
+		this.metrics.record(QuestionMetrics.Operation.GET, start);
+		return question;
+	}
+	
+	/**
+	 * Finds a near-duplicate of a Question, looking through the shards in order. Each shard compares the Question
+	 * with its own Questions only, so the first shard holding a near-duplicate answers, not the most similar one.
+	 * 
+	 * @throws IllegalArgumentException If question is null.
+	 */
+	@Override
+	public Optional<Question> findNearDuplicate(Question question) {
+		if (question == null) throw new IllegalArgumentException("The parameter question must not be null!");
+		for (QuestionService shard : this.layout.shards) {
+			Optional<Question> match = shard.findNearDuplicate(question);
+			if (match.isPresent()) return match;
+		}
+		return Optional.empty();
+	}
+	
+	/**
+	 * Edits a Question in its shard; see QuestionService.edit.
+	 */
+	@Override
+	public boolean edit(UUID id, String question, String answer) {
+		long start = System.nanoTime();
+		this.resharding.readLock().lock();
+		try {
+			// A null id is stored in no shard; shard 0 still checks the texts and answers false.
+			QuestionService shard = (id == null) ? this.layout.shards[0] : owner(this.layout, id);
+			return shard.edit(id, question, answer);
+		} finally {
+			this.resharding.readLock().unlock();
+			this.metrics.record(QuestionMetrics.Operation.EDIT, start);
+		}
+	}
+	
+	/**
+	 * Deletes a Question from its shard.
+	 * 
+	 * @return True if the Question was deleted; false if no Question has the id, or id is null.
+	 */
+	@Override
+	public boolean delete(UUID id) {
+		if (id == null) return false;
+		long start = System.nanoTime();
+		this.resharding.readLock().lock();
+		try {
+			return owner(this.layout, id).delete(id);
+		} finally {
+			this.resharding.readLock().unlock();
+			this.metrics.record(QuestionMetrics.Operation.DELETE, start);
+		}
+	}
+	
+	/**
+	 * Returns every Question, merged from the shards in Comparator order.
+	 * The returned array is shared between callers and must not be modified.
+	 * 
+	 * @return An Optional containing all Questions, or Optional.isEmpty() if no Questions are stored.
+	 */
+	@Override
+	public Optional<Question[]> getAll() {
+		long start = System.nanoTime();
+		Optional<Question[]> questions = read(ALL, null, (QuestionService shard) -> shard.getAll());
+		this.metrics.record(QuestionMetrics.Operation.GET_ALL, start);
+		return questions;
+	}
+	
+	/**
+	 * Returns the Questions of a Type, merged from the shards in Comparator order.
+	 * The returned array is shared between callers and must not be modified.
+	 * 
+	 * @return An Optional containing the Questions, or Optional.isEmpty() if none are stored or type is null.
+	 */
+	@Override
+	public Optional<Question[]> getQuestions(Question.Type type) {
+		if (type == null) return Optional.empty();
+		long start = System.nanoTime();
+		Optional<Question[]> questions = read(type.ordinal(), type, (QuestionService shard) -> shard.getQuestions(type));
+		this.metrics.record(QuestionMetrics.Operation.GET_MANY, start);
+		return questions;
+	}
+	
+	/**
+	 * Returns the Questions of a Type and Difficulty, merged from the shards in Comparator order.
+	 * The returned array is shared between callers and must not be modified.
+	 * 
+	 * @return An Optional containing the Questions, or Optional.isEmpty() if none are stored or either argument is null.
+	 */
+	@Override
+	public Optional<Question[]> getQuestions(Question.Type type, Question.Difficulty difficulty) {
+		if (type == null || difficulty == null) return Optional.empty();
+		long start = System.nanoTime();
+		int slot = ALL + 1 + type.ordinal() * DIFFICULTIES + difficulty.ordinal();
+		Optional<Question[]> questions = read(slot, type, (QuestionService shard) -> shard.getQuestions(type, difficulty));
+		this.metrics.record(QuestionMetrics.Operation.GET_MANY, start);
+		return questions;
+	}
+	
+	/**
+	 * Returns one page of all Questions: the shards in order, each in insertion order.
+	 * 
+	 * @see QuestionService#getAllPage(String, int)
+	 * @throws IllegalArgumentException If the cursor is not valid or the limit is out of range.
+	 */
+	@Override
+	public QuestionPage getAllPage(String after, int limit) {
+		return page(after, limit, (QuestionService shard, String shardAfter, int shardLimit) -> shard.getAllPage(shardAfter, shardLimit));
+	}
+	
+	/**
+	 * Returns one page of the Questions of a Type: the shards in order, each in insertion order.
+	 * 
+	 * @see QuestionService#getQuestionsPage(Question.Type, String, int)
+	 * @throws IllegalArgumentException If type is null, the cursor is not valid, or the limit is out of range.
+	 */
+	@Override
+	public QuestionPage getQuestionsPage(Question.Type type, String after, int limit) {
+		if (type == null) throw new IllegalArgumentException("The parameter type must not be null!");
+		return page(after, limit, (QuestionService shard, String shardAfter, int shardLimit) -> shard.getQuestionsPage(type, shardAfter, shardLimit));
+	}
+	
+	/**
+	 * Returns one page of the Questions of a Type and Difficulty: the shards in order, each in insertion order.
+	 * 
+	 * @see QuestionService#getQuestionsPage(Question.Type, Question.Difficulty, String, int)
+	 * @throws IllegalArgumentException If either filter is null, the cursor is not valid, or the limit is out of range.
+	 */
+	@Override
+	public QuestionPage getQuestionsPage(Question.Type type, Question.Difficulty difficulty, String after, int limit) {
+		if (type == null || difficulty == null) throw new IllegalArgumentException("The parameters type and difficulty must not be null!");
+		return page(after, limit, (QuestionService shard, String shardAfter, int shardLimit) -> shard.getQuestionsPage(type, difficulty, shardAfter, shardLimit));
+	}
+	
+	/**
+	 * Returns a lazy stream over the Questions of every shard, the shards in order and each in insertion order.
+	 * Each shard's Questions are those stored when the stream reaches it.
+	 * 
+	 * @see QuestionService#stream(Question.Type, Question.Difficulty)
+	 */
+	@Override
+	public Stream<Question> stream(Question.Type type, Question.Difficulty difficulty) {
+		return Arrays.stream(this.layout.shards).flatMap((QuestionService shard) -> shard.stream(type, difficulty));
+	}
+	
+	/**
+	 * Returns one page of the Questions matching every word of the query. Each shard ranks its own matches by BM25,
+	 * and a page takes up to limit / shards of them from each shard in turn, interleaved by their rank in their shard.
+	 * A page may therefore hold fewer than limit Questions, and the last page may be empty.
+	 * 
+	 * @see QuestionService#search(String, String, int)
+	 * @throws IllegalArgumentException If the query has no words, the cursor is not valid, or the limit is out of range.
+	 */
+	@Override
+	public QuestionPage search(String query, String after, int limit) {
+		if (query == null) throw new IllegalArgumentException("The parameter query must not be null!");
+		if (limit < 1 || limit > QuestionService.MAX_PAGE_SIZE) throw new IllegalArgumentException("The parameter limit must be between 1 and " + QuestionService.MAX_PAGE_SIZE + "!");
+		QuestionService[] shards = this.layout.shards;
+		String cursors[] = (after == null) ? new String[shards.length] : SearchCursor.decode(after, shards.length);
+		
+		Question[][] parts = new Question[shards.length][];
+		int share = Math.max(1, limit / shards.length);
+		int collected = 0;
+		for (int i = 0; i < shards.length && collected < limit; i++) {
+			if (SearchCursor.DONE.equals(cursors[i])) continue;
+			QuestionPage part = shards[i].search(query, cursors[i], Math.min(share, limit - collected));
+			parts[i] = part.questions();
+			cursors[i] = (part.next() == null) ? SearchCursor.DONE : part.next();
+			collected += parts[i].length;
+		}
+		
+		Question[] page = new Question[collected];
+		int next = 0;
+		for (int rank = 0; next < collected; rank++) {
+			for (Question[] part : parts) {
+				if (part != null && rank < part.length) page[next++] = part[rank];
+			}
+		}
+		return new QuestionPage(page, SearchCursor.encode(cursors));
+	}
+	
+	/**
+	 * Draws distinct Questions uniformly at random from those matching the filters, in random order.
+	 * The number drawn from each shard is chosen by drawing positions in the shards' combined range, then each shard
+	 * draws its share; so every set of count matching Questions is equally likely, as with one QuestionService.
+	 * A write between counting and drawing may make a shard fail as if too few Questions matched.
+	 * 
+	 * @see QuestionService#sample(Set, Set, int, Random)
+	 * @throws IllegalArgumentException If count is out of range or fewer than count Questions match.
+	 */
+	@Override
+	public Question[] sample(Set<Question.Type> types, Set<Question.Difficulty> difficulties, int count, Random random) {
+		if (count < 1 || count > QuestionService.MAX_PAGE_SIZE) throw new IllegalArgumentException("The parameter count must be between 1 and " + QuestionService.MAX_PAGE_SIZE + "!");
+		QuestionService[] shards = this.layout.shards;
+		int counts[] = counts(shards, types, difficulties);
+		int total = Arrays.stream(counts).sum();
+		if (count > total) throw new IllegalArgumentException("Only " + total + " Questions match; a quiz of " + count + " cannot be generated!");
+		
+		Question[] quiz = new Question[count];
+		draw(shards, shares(counts, total, count, random), types, difficulties, random, quiz, 0);
+		return shuffle(quiz, random);
+	}
+	
+	/**
+	 * Draws a set number of distinct Questions of each Type, each Type drawn across the shards as sample draws.
+	 * 
+	 * @see QuestionService#sampleByType(Map, Set, Random)
+	 */
+	@Override
+	public Question[] sampleByType(Map<Question.Type, Integer> typeCounts, Set<Question.Difficulty> difficulties, Random random) {
+		QuestionService[] shards = this.layout.shards;
+		Question[] quiz = new Question[QuestionService.mixSize(typeCounts, "typeCounts")];
+		int next = 0;
+		for (Question.Type type : Question.Type.values()) {
+			Integer wanted = typeCounts.get(type);
+			if (wanted == null || wanted == 0) continue;
+			next = drawCategory(shards, Set.of(type), difficulties, wanted, type, random, quiz, next);
+		}
+		return shuffle(quiz, random);
+	}
+	
+	/**
+	 * Draws a set number of distinct Questions of each Difficulty, each Difficulty drawn across the shards as sample draws.
+	 * 
+	 * @see QuestionService#sampleByDifficulty(Map, Set, Random)
+	 */
+	@Override
+	public Question[] sampleByDifficulty(Map<Question.Difficulty, Integer> difficultyCounts, Set<Question.Type> types, Random random) {
+		QuestionService[] shards = this.layout.shards;
+		Question[] quiz = new Question[QuestionService.mixSize(difficultyCounts, "difficultyCounts")];
+		int next = 0;
+		for (Question.Difficulty difficulty : Question.Difficulty.values()) {
+			Integer wanted = difficultyCounts.get(difficulty);
+			if (wanted == null || wanted == 0) continue;
+			next = drawCategory(shards, types, Set.of(difficulty), wanted, difficulty, random, quiz, next);
+		}
+		return shuffle(quiz, random);
+	}
+	
+	/**
+	 * Sums the usage counters of a stored Question in its shard.
+	 * 
+	 * @return An Optional containing its statistics, or Optional.isEmpty() if no Question has the id or id is null.
+	 */
+	@Override
+	public Optional<QuestionStats> getStats(UUID id) {
+		if (id == null) return Optional.empty();
+		return owner(this.layout, id).getStats(id);
+	}
+	
+	/**
+	 * Returns the last StatsSnapshot taken by refreshStats, or StatsSnapshot.EMPTY before the first.
+	 */
+	@Override
+	public StatsSnapshot getStatsSnapshot() {
+		return this.stats;
+	}
+	
+	/**
+	 * Takes a StatsSnapshot of every shard and publishes their union, ordered by attempts, to getStatsSnapshot.
+	 * 
+	 * @return The snapshot taken.
+	 */
+	@Override
+	public StatsSnapshot refreshStats() {
+		ArrayList<QuestionStats> used = new ArrayList<>();
+		for (QuestionService shard : this.layout.shards) {
+			used.addAll(Arrays.asList(shard.refreshStats().questions()));
+		}
+		QuestionStats[] questions = used.toArray(new QuestionStats[0]);
+		Arrays.sort(questions, Comparator.comparingLong(QuestionStats::attempts).reversed());
+		StatsSnapshot next = new StatsSnapshot(System.currentTimeMillis(), questions);
+		this.stats = next;
+		return next;
+	}
+	
+	/**
+	 * Grades a batch of submitted answers, each in the shard of its Question, as one call per shard.
+	 * 
+	 * @see QuestionService#grade(UUID[], String[], long[], int)
+	 * @throws IllegalArgumentException If ids or answers is null, their lengths or that of answerMillis differ,
+	 * they exceed MAX_GRADE_SIZE, or maxEdits is out of range.
+	 */
+	@Override
+	public Grade[] grade(UUID[] ids, String[] answers, long[] answerMillis, int maxEdits) {
+		if (ids == null || answers == null) throw new IllegalArgumentException("The parameters ids and answers must not be null!");
+		if (ids.length != answers.length) throw new IllegalArgumentException("The parameters ids and answers must have the same length!");
+		if (answerMillis != null && answerMillis.length != ids.length) throw new IllegalArgumentException("The parameter answerMillis must have the same length as ids!");
+		if (ids.length > QuestionService.MAX_GRADE_SIZE) throw new IllegalArgumentException("The parameter ids must not hold more than " + QuestionService.MAX_GRADE_SIZE + " ids!");
+		long start = System.nanoTime();
+		try {
+			Layout current = this.layout;
+			int owners[] = new int[ids.length];
+			int counts[] = new int[current.shards.length];
+			for (int i = 0; i < ids.length; i++) {
+				// A null id is stored in no shard; shard 0 grades it UNKNOWN.
+				owners[i] = (ids[i] == null) ? 0 : current.ring.shardOf(ids[i]);
+				counts[owners[i]]++;
+			}
+			
+			Grade[] grades = new Grade[ids.length];
+			for (int shard = 0; shard < counts.length; shard++) {
+				// Every shard is called, even with no answers, so each checks maxEdits.
+				int positions[] = new int[counts[shard]];
+				int next = 0;
+				for (int i = 0; i < ids.length && next < positions.length; i++) {
+					if (owners[i] == shard) positions[next++] = i;
+				}
+				UUID[] partIds = new UUID[positions.length];
+				String[] partAnswers = new String[positions.length];
+				long partMillis[] = (answerMillis == null) ? null : new long[positions.length];
+				for (int i = 0; i < positions.length; i++) {
+					partIds[i] = ids[positions[i]];
+					partAnswers[i] = answers[positions[i]];
+					if (partMillis != null) partMillis[i] = answerMillis[positions[i]];
+				}
+				Grade[] partGrades = current.shards[shard].grade(partIds, partAnswers, partMillis, maxEdits);
+				for (int i = 0; i < positions.length; i++) {
+					grades[positions[i]] = partGrades[i];
+				}
+			}
+			return grades;
+		} finally {
+			this.metrics.record(QuestionMetrics.Operation.GRADE, start);
+		}
+	}
+	
+	/**
+	 * Returns the number of stored Questions across the shards.
+	 */
+	@Override
+	public int size() {
+		int size = 0;
+		for (QuestionService shard : this.layout.shards) {
+			size += shard.size();
+		}
+		return size;
+	}
+	
+	/**
+	 * Returns the number of slots across the shards.
+	 */
+	public int capacity() {
+		int capacity = 0;
+		for (QuestionService shard : this.layout.shards) {
+			capacity += shard.capacity();
+		}
+		return capacity;
+	}
+	
+	/**
+	 * Returns the sum of the shards' versions, including those of shards removed by reshard,
+	 * so it increases with every successful write to any shard.
+	 */
+	@Override
+	public long version() {
+		Layout current = this.layout;
+		long version = current.retiredVersion;
+		for (QuestionService shard : current.shards) {
+			version += shard.version();
+		}
+		return version;
+	}
+	
+	/**
+	 * Returns the sum of the shards' versions of a Type, including those of shards removed by reshard,
+	 * so it increases with every successful write to that Type in any shard.
+	 * 
+	 * @throws IllegalArgumentException If type is null.
+	 */
+	@Override
+	public long version(Question.Type type) {
+		if (type == null) throw new IllegalArgumentException("The parameter type must not be null!");
+		Layout current = this.layout;
+		long version = current.retiredTypeVersions[type.ordinal()];
+		for (QuestionService shard : current.shards) {
+			version += shard.version(type);
+		}
+		return version;
+	}
+	
+	/**
+	 * Returns the number of shards.
+	 */
+	public int shards() {
+		return this.layout.shards.length;
+	}
+	
+	/**
+	 * Changes the number of shards, moving the Questions the new ring assigns to another shard.
+	 * Shards that remain keep their Questions; added shards are created by the shard factory, and removed shards
+	 * are closed once their Questions have moved. A moved Question is inserted into its new shard before it is
+	 * deleted from its old one, removed shards included, and loses the statistics its old shard counted.
+	 * A new shard that already stores a moved Question's id, left there by a reshard that stopped before
+	 * deleting it from its old shard, keeps its copy.
+	 * 
+	 * If a shard does not store every Question moved to it, for example because it is full or the Question is a
+	 * near-duplicate of one it holds, the Questions already moved are deleted from their new shards, added shards
+	 * are closed, and the old shards are kept as they were.
+	 * 
+	 * @param shards The new number of shards; must be at least 1.
+	 * @return The number of Questions moved.
+	 * @throws IllegalArgumentException If shards is less than 1.
+	 * @throws IllegalStateException If a shard did not store the Questions moved to it; no shard was changed.
+	 */
+	public int reshard(int shards) {
+		if (shards < 1) throw new IllegalArgumentException("The parameter shards must not be less than 1!");
+		this.resharding.writeLock().lock();
+		try {
+			Layout old = this.layout;
+			if (shards == old.shards.length) return 0;
+			QuestionService[] next = Arrays.copyOf(old.shards, shards);
+			for (int i = old.shards.length; i < shards; i++) {
+				next[i] = this.newShard.apply(i);
+			}
+			// Removed shards take their versions with them, so keep adding them in and the versions never go back.
+			long retiredVersion = old.retiredVersion;
+			long retiredTypeVersions[] = old.retiredTypeVersions.clone();
+			for (int i = shards; i < old.shards.length; i++) {
+				retiredVersion += old.shards[i].version();
+				for (Question.Type type : Question.Type.values()) {
+					retiredTypeVersions[type.ordinal()] += old.shards[i].version(type);
+				}
+			}
+			Layout resharded = new Layout(new ConsistentHashRing(shards), next, retiredVersion, retiredTypeVersions);
+			
+			// Questions leaving each old shard, grouped by the shard they move to; unsorted, so untyped Questions move too.
+			List<List<Question>> arriving = newLists(shards);
+			List<List<UUID>> leaving = newLists(old.shards.length);
+			int moved = 0;
+			for (int from = 0; from < old.shards.length; from++) {
+				for (Question question : old.shards[from].stream(null, null).toList()) {
+					int to = resharded.ring.shardOf(question.getID());
+					if (to == from) continue;
+					arriving.get(to).add(question);
+					leaving.get(from).add(question.getID());
+					moved++;
+				}
+			}
+			
+			List<List<UUID>> stored = newLists(shards);
+			try {
+				for (int to = 0; to < shards; to++) {
+					if (arriving.get(to).isEmpty()) continue;
+					Question[] part = arriving.get(to).toArray(new Question[0]);
+					StoreOutcome partOutcomes[] = next[to].setQuestions(part);
+					int rejected = 0;
+					for (int i = 0; i < part.length; i++) {
+						if (partOutcomes[i].stored()) {
+							stored.get(to).add(part[i].getID());
+						} else if (partOutcomes[i] != StoreOutcome.STORED_ID || next[to].getQuestion(part[i].getID()).isEmpty()) {
+							rejected++;
+						}
+					}
+					if (rejected > 0) throw new IllegalStateException("Shard " + to + " did not store " + rejected + " of the Questions moved to it; the shards were left unchanged!");
+				}
+			} catch (RuntimeException e) {
+				rollBack(old, next, stored);
+				if (e instanceof IllegalStateException) throw e;
+				throw new IllegalStateException("Resharding failed; the shards were left unchanged!", e);
+			}
+			
+			this.layout = resharded;
+			for (int from = 0; from < leaving.size(); from++) {
+				for (UUID id : leaving.get(from)) {
+					old.shards[from].delete(id);
+				}
+			}
+			for (int from = shards; from < old.shards.length; from++) {
+				old.shards[from].close();
+			}
+			return moved;
+		} finally {
+			this.resharding.writeLock().unlock();
+		}
+	}
+	
+	/**
+	 * Closes every shard, and with them their repositories. The service must not be used afterwards.
+	 */
+	public void close() {
+		this.resharding.writeLock().lock();
+		try {
+			for (QuestionService shard : this.layout.shards) {
+				shard.close();
+			}
+		} finally {
+			this.resharding.writeLock().unlock();
+		}
+	}
+	
+	/**
+	 * Merges sorted runs into one array in Comparator order with a binary heap of the runs' heads,
+	 * taking equal Questions from lower runs first.
+	 * 
+	 * @return The merged Questions; a run itself if it is the only non-empty one.
+	 */
+	static Question[] merge(Question[][] runs, Comparator<Question> comparator) {
+		int total = 0;
+		int nonEmpty = 0;
+		Question[] only = new Question[0];
+		for (Question[] run : runs) {
+			total += run.length;
+			if (run.length > 0) {
+				nonEmpty++;
+				only = run;
+			}
+		}
+		if (nonEmpty <= 1) return only;
+		
+		int heap[] = new int[nonEmpty]; // Run numbers, ordered by their current head.
+		int next[] = new int[runs.length]; // The position of each run's head.
+		int size = 0;
+		for (int run = 0; run < runs.length; run++) {
+			if (runs[run].length > 0) heap[size++] = run;
+		}
+		for (int i = size / 2 - 1; i >= 0; i--) siftDown(heap, size, i, runs, next, comparator);
+		
+		Question[] merged = new Question[total];
+		for (int out = 0; out < total; out++) {
+			int run = heap[0];
+			merged[out] = runs[run][next[run]++];
+			if (next[run] == runs[run].length) heap[0] = heap[--size];
+			siftDown(heap, size, 0, runs, next, comparator);
+		}
+		return merged;
+	}
+	
+	/**
+	 * A helper method that restores the heap order below position i.
+	 */
+	private static void siftDown(int[] heap, int size, int i, Question[][] runs, int[] next, Comparator<Question> comparator) {
+		while (true) {
+			int smallest = i;
+			int left = 2 * i + 1;
+			int right = left + 1;
+			if (left < size && before(heap[left], heap[smallest], runs, next, comparator)) smallest = left;
+			if (right < size && before(heap[right], heap[smallest], runs, next, comparator)) smallest = right;
+			if (smallest == i) return;
+			int swap = heap[i];
+			heap[i] = heap[smallest];
+			heap[smallest] = swap;
+			i = smallest;
+		}
+	}
+	
+	/**
+	 * A helper method that returns true if run a's head comes before run b's head, breaking ties by run number.
+	 */
+	private static boolean before(int a, int b, Question[][] runs, int[] next, Comparator<Question> comparator) {
+		int order = comparator.compare(runs[a][next[a]], runs[b][next[b]]);
+		return (order != 0) ? order < 0 : a < b;
+	}
+	
+	/**
+	 * A helper method that serves a list read from the cache, or reads every shard and merges.
+	 * 
+	 * @param type The Type whose versions key the cache, or null for all Questions.
+	 */
+	private Optional<Question[]> read(int slot, Question.Type type, ShardRead shardRead) {
+		Layout current = this.layout;
+		long versions[] = new long[current.shards.length];
+		for (int i = 0; i < versions.length; i++) {
+			versions[i] = (type == null) ? current.shards[i].version() : current.shards[i].version(type);
+		}
+		Merged cached = this.merged.get(slot);
+		if (cached != null && cached.layout == current && Arrays.equals(cached.versions, versions)) return cached.result();
+		
+		// Versions are read before the runs, so the runs are at least as new as the versions that key them.
+		Question[][] runs = new Question[current.shards.length][];
+		for (int i = 0; i < runs.length; i++) {
+			runs[i] = shardRead.read(current.shards[i]).orElse(new Question[0]);
+		}
+		Merged next = new Merged(current, versions, merge(runs, this.comparator));
+		this.merged.set(slot, next);
+		return next.result();
+	}
+	
+	/**
+	 * A helper method that returns the number of Questions matching the filters in each shard.
+	 */
+	private static int[] counts(QuestionService[] shards, Set<Question.Type> types, Set<Question.Difficulty> difficulties) {
+		int counts[] = new int[shards.length];
+		for (int i = 0; i < shards.length; i++) {
+			counts[i] = shards[i].count(types, difficulties);
+		}
+		return counts;
+	}
+	
+	/**
+	 * A helper method that chooses how many of count Questions each shard draws: Floyd's algorithm draws positions
+	 * in the shards' combined range, keeping only how many fall in each shard.
+	 */
+	private static int[] shares(int counts[], int total, int count, Random random) {
+		// starts[i] is the position of shard i in the combined range.
+		int starts[] = new int[counts.length];
+		for (int i = 1; i < counts.length; i++) {
+			starts[i] = starts[i - 1] + counts[i - 1];
+		}
+		
+		Set<Integer> chosen = new LinkedHashSet<>();
+		for (int j = total - count; j < total; j++) {
+			int position = random.nextInt(j + 1);
+			chosen.add(chosen.contains(position) ? j : position);
+		}
+		int shares[] = new int[counts.length];
+		for (int position : chosen) {
+			int shard = Arrays.binarySearch(starts, position);
+			if (shard < 0) shard = -shard - 2;
+			while (shard + 1 < starts.length && starts[shard + 1] == position) shard++; // Skip shards with nothing to draw.
+			shares[shard]++;
+		}
+		return shares;
+	}
+	
+	/**
+	 * A helper method that has each shard draw its share into quiz from position at.
+	 */
+	private static void draw(QuestionService[] shards, int shares[], Set<Question.Type> types, Set<Question.Difficulty> difficulties, Random random, Question[] quiz, int at) {
+		int next = at;
+		for (int i = 0; i < shards.length; i++) {
+			if (shares[i] == 0) continue;
+			for (Question question : shards[i].sample(types, difficulties, shares[i], random)) {
+				quiz[next++] = question;
+			}
+		}
+	}
+	
+	/**
+	 * A helper method that draws the counted Questions of one category of a quiz mix across the shards,
+	 * and returns the position after them.
+	 */
+	private static int drawCategory(QuestionService[] shards, Set<Question.Type> types, Set<Question.Difficulty> difficulties, int count, Enum<?> category, Random random, Question[] quiz, int at) {
+		int counts[] = counts(shards, types, difficulties);
+		int total = Arrays.stream(counts).sum();
+		if (count > total) throw new IllegalArgumentException("Only " + total + " " + category + " Questions match; " + count + " cannot be drawn!");
+		draw(shards, shares(counts, total, count, random), types, difficulties, random, quiz, at);
+		return at + count;
+	}
+	
+	/**
+	 * A helper method that shuffles a quiz in place, since the shards' draws follow each other.
+	 */
+	private static Question[] shuffle(Question[] quiz, Random random) {
+		for (int i = quiz.length - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			Question swap = quiz[i];
+			quiz[i] = quiz[j];
+			quiz[j] = swap;
+		}
+		return quiz;
+	}
+	
+	/**
+	 * A helper method that groups the positions of a batch by the shard owning each Question, keeping their order.
+	 */
+	private static int[][] positionsByShard(Layout layout, Question[] batch) {
+		int owners[] = new int[batch.length];
+		int counts[] = new int[layout.shards.length];
+		for (int i = 0; i < batch.length; i++) {
+			owners[i] = layout.ring.shardOf(batch[i].getID());
+			counts[owners[i]]++;
+		}
+		int positions[][] = new int[counts.length][];
+		for (int shard = 0; shard < counts.length; shard++) {
+			positions[shard] = new int[counts[shard]];
+			counts[shard] = 0;
+		}
+		for (int i = 0; i < batch.length; i++) {
+			positions[owners[i]][counts[owners[i]]++] = i;
+		}
+		return positions;
+	}
+	
+	private static QuestionService owner(Layout layout, UUID id) {
+		return layout.shards[layout.ring.shardOf(id)];
+	}
+	
+	/**
+	 * A helper method that undoes a failed reshard: deletes the moved Questions each shard stored,
+	 * and closes the shards that were added for it, so their repositories hold none of the moved Questions.
+	 */
+	private static void rollBack(Layout old, QuestionService[] next, List<List<UUID>> stored) {
+		for (int to = 0; to < next.length; to++) {
+			for (UUID id : stored.get(to)) {
+				next[to].delete(id);
+			}
+			if (to >= old.shards.length) next[to].close();
+		}
+	}
+	
+	private static <T> List<List<T>> newLists(int count) {
+		List<List<T>> lists = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) lists.add(new ArrayList<>());
+		return lists;
+	}
+	
+	/**
+	 * A helper method that reads one page across the shards, taking each shard's pages in turn.
+	 * A cursor is the number of the shard to continue in, followed by a dot and the shard's own cursor
+	 * unless the page starts at the shard's beginning.
+	 */
+	private QuestionPage page(String after, int limit, PageRead pageRead) {
+		if (limit < 1 || limit > QuestionService.MAX_PAGE_SIZE) throw new IllegalArgumentException("The parameter limit must be between 1 and " + QuestionService.MAX_PAGE_SIZE + "!");
+		QuestionService[] shards = this.layout.shards;
+		int shard = 0;
+		String shardAfter = null;
+		if (after != null) {
+			int dot = after.indexOf('.');
+			try {
+				shard = Integer.parseInt((dot < 0) ? after : after.substring(0, dot));
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("The cursor is not valid!");
+			}
+			if (shard < 0 || shard >= shards.length) throw new IllegalArgumentException("The cursor is not valid!");
+			if (dot >= 0) shardAfter = after.substring(dot + 1);
+		}
+		
+		ArrayList<Question> questions = new ArrayList<>();
+		for (; shard < shards.length; shard++, shardAfter = null) {
+			QuestionPage part = pageRead.read(shards[shard], shardAfter, limit - questions.size());
+			questions.addAll(Arrays.asList(part.questions()));
+			if (part.next() != null) return new QuestionPage(questions.toArray(new Question[0]), shard + "." + part.next());
+			if (questions.size() < limit) continue;
+			
+			// The page is full at the end of a shard; continue in the next shard holding any Questions.
+			for (int later = shard + 1; later < shards.length; later++) {
+				if (pageRead.read(shards[later], null, 1).questions().length > 0) return new QuestionPage(questions.toArray(new Question[0]), String.valueOf(later));
+			}
+			break;
+		}
+		return new QuestionPage(questions.toArray(new Question[0]), null);
+	}
+	
+	/**
+	 * The ring and the shards it assigns ids to, replaced as a whole by reshard, and the versions of the shards
+	 * reshard has removed.
+	 */
+	private record Layout(ConsistentHashRing ring, QuestionService[] shards, long retiredVersion, long[] retiredTypeVersions) {}
+	
+	/**
+	 * A merged list read and the layout and shard versions it was merged from.
+	 */
+	private record Merged(Layout layout, long[] versions, Question[] questions) {
+		private Optional<Question[]> result() {
+			return (this.questions.length == 0) ? Optional.empty() : Optional.of(this.questions);
+		}
+	}
+	
+	@FunctionalInterface
+	private interface ShardRead {
+		Optional<Question[]> read(QuestionService shard);
+	}
+	
+	@FunctionalInterface
+	private interface PageRead {
+		QuestionPage read(QuestionService shard, String after, int limit);
+	}
+	
+	/**
+	 * Encodes the position of a search in every shard as one cursor: the shards' own cursors separated by dots,
+	 * empty for a shard not searched yet and DONE for one with no more results.
+	 */
+	private static final class SearchCursor {
+		private static final String DONE = "-";
+		
+		/**
+		 * @return The cursor, or null if every shard is done.
+		 */
+		private static String encode(String[] cursors) {
+			boolean done = true;
+			StringBuilder cursor = new StringBuilder();
+			for (int i = 0; i < cursors.length; i++) {
+				if (i > 0) cursor.append('.');
+				if (cursors[i] != null) cursor.append(cursors[i]);
+				done &= DONE.equals(cursors[i]);
+			}
+			return done ? null : cursor.toString();
+		}
+		
+		/**
+		 * @return Each shard's cursor, null where the shard has not been searched.
+		 * @throws IllegalArgumentException If the cursor does not hold one part per shard.
+		 */
+		private static String[] decode(String cursor, int shards) {
+			String parts[] = cursor.split("\\.", -1);
+			if (parts.length != shards) throw new IllegalArgumentException("The cursor is not valid!");
+			for (int i = 0; i < parts.length; i++) {
+				if (parts[i].isEmpty()) parts[i] = null;
+			}
+			return parts;
+		}
+	}
+}
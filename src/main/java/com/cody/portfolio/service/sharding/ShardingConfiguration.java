@@ -0,0 +1,122 @@
+package com.cody.portfolio.service.sharding;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Files;
+import java.util.stream.Stream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardCopyOption;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import com.cody.portfolio.service.CapacityPolicy;
+import com.cody.portfolio.service.QuestionService;
+import com.cody.portfolio.service.search.DuplicatePolicy;
+import com.cody.portfolio.service.metrics.QuestionMetrics;
+import com.cody.portfolio.service.sorting.AbstractSortingStrategy;
+import com.cody.portfolio.service.persistence.QuestionRepository;
+import com.cody.portfolio.service.persistence.FileQuestionRepository;
+import com.cody.portfolio.service.persistence.PersistenceConfiguration;
+
+/**
+ * Serves the Questions from a ShardedQuestionService when quiz.shards is above 1, in place of the single QuestionService.
+ * Each shard is a QuestionService with the configured policies and its own repository, kept in the shard-N subdirectory
+ * of quiz.persistence.directory, or in memory when no directory is set. A shard's capacity policy applies to that shard.
+ * Replication copies one store, so quiz.replication.role must stay none.
+ * 
+ * The number of shards is recorded in the SHARDS_FILE of the directory. A restart with a different quiz.shards opens
+ * the recorded shards and reshards them onto the new ring before serving, so every Question is found in the shard
+ * its id maps to. A directory without the file, written before it was recorded, counts its shard-N subdirectories.
+ */
+@Configuration
+@ConditionalOnExpression("${quiz.shards:1} != 1")
+public class ShardingConfiguration {
+	public static final String SHARDS_FILE = "shards"; // Holds the number of shards the directory was last opened with.
+	
+	@Bean(destroyMethod = "close")
+	public ShardedQuestionService shardedQuestionService(
+			AbstractSortingStrategy strategy,
+			DuplicatePolicy duplicatePolicy,
+			CapacityPolicy capacityPolicy,
+			QuestionMetrics metrics,
+			@Value("${quiz.shards}") int shards,
+			@Value("${quiz.persistence.directory:}") String directory,
+			@Value("${quiz.persistence.storage:log}") String storage,
+			@Value("${quiz.persistence.checkpoint-interval:" + FileQuestionRepository.DEFAULT_CHECKPOINT_INTERVAL + "}") int checkpointInterval,
+			@Value("${quiz.replication.role:none}") String replicationRole,
+			ObjectProvider<MeterRegistry> meterRegistry) {
+		if (shards < 1) throw new IllegalArgumentException("quiz.shards must not be less than 1!");
+		if (!replicationRole.equals("none")) throw new IllegalArgumentException("quiz.shards above 1 cannot be combined with quiz.replication.role!");
+		Path root = directory.isBlank() ? null : Path.of(directory);
+		int recorded = (root == null) ? shards : recordedShards(root, shards);
+		QuestionMetrics shardMetrics = metrics.forShard();
+		ShardedQuestionService service = new ShardedQuestionService(strategy, recorded, (int shard) -> {
+			QuestionRepository repository = PersistenceConfiguration.repository((root == null) ? null : root.resolve("shard-" + shard), storage, checkpointInterval);
+			PersistenceConfiguration.bindArena(repository, meterRegistry);
+			return new QuestionService(strategy, repository, duplicatePolicy, capacityPolicy, shardMetrics);
+		}, metrics);
+		if (root == null) return service;
+		
+		try {
+			service.reshard(shards);
+			recordShards(root, shards);
+		} catch (RuntimeException e) {
+			service.close();
+			throw e;
+		}
+		return service;
+	}
+	
+	/**
+	 * Returns the number of shards the Questions in a directory were stored across: the one in its SHARDS_FILE,
+	 * else one more than the highest shard-N subdirectory, else the given number for a directory with neither.
+	 * 
+	 * @throws UncheckedIOException If the directory cannot be read.
+	 * @throws IllegalStateException If the SHARDS_FILE does not hold a number of shards.
+	 */
+	static int recordedShards(Path directory, int shards) {
+		try {
+			Path file = directory.resolve(SHARDS_FILE);
+			if (Files.exists(file)) {
+				String recorded = Files.readString(file, StandardCharsets.UTF_8).trim();
+				if (!recorded.matches("[1-9]\\d{0,8}")) throw new IllegalStateException("The shard count \"" + recorded + "\" in " + file + " is not valid!");
+				return Integer.parseInt(recorded);
+			}
+			if (!Files.isDirectory(directory)) return shards;
+			try (Stream<Path> files = Files.list(directory)) {
+				int highest = files
+					.map((Path path) -> path.getFileName().toString())
+					.filter((String name) -> name.matches("shard-\\d{1,9}"))
+					.mapToInt((String name) -> Integer.parseInt(name.substring("shard-".length())))
+					.max()
+					.orElse(-1);
+				return (highest < 0) ? shards : highest + 1;
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	/**
+	 * Records the number of shards in a directory's SHARDS_FILE, replacing it atomically.
+	 * 
+	 * @throws UncheckedIOException If the file cannot be written.
+	 */
+	static void recordShards(Path directory, int shards) {
+		try {
+			Files.createDirectories(directory);
+			Path temporary = directory.resolve(SHARDS_FILE + ".tmp");
+			Files.writeString(temporary, shards + "\n", StandardCharsets.UTF_8);
+			Files.move(temporary, directory.resolve(SHARDS_FILE), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -14,6 +14,13 @@ public abstract class AbstractSortingStrategy implements SortingStrategy {
 		this.comparator = comparator;
 	}
 	
+	/**
+	 * Returns the Comparator this strategy sorts by.
+	 */
+	public Comparator<Question> getComparator() {
+		return this.comparator;
+	}
+	
 	/**
 	 * Compares two Question objects using the injected Comparator.
 	 * The comparator must be able to define a consistent ordering for the provided objects.
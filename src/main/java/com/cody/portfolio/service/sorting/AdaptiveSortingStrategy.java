@@ -0,0 +1,55 @@
+package com.cody.portfolio.service.sorting;
+
+import java.util.Comparator;
+import com.cody.portfolio.domain.Question;
+
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+/**
+ * A sorting strategy that selects a concrete strategy for each array by its length and the
+ * capabilities of the injected Comparator. This is the strategy QuestionService receives by default.
+ * 
+ * Short arrays use insertion sort. Longer arrays use counting sort when the Comparator is an
+ * OrdinalComparator, otherwise merge sort, switching to the parallel merge sort for large arrays.
+ * Every selected strategy is stable, so equal elements keep their relative order.
+ */
+@Primary
+@Component
+public class AdaptiveSortingStrategy extends AbstractSortingStrategy {
+	static final int INSERTION_SORT_MAX = 32;
+	static final int PARALLEL_SORT_MIN = 1 << 16;
+	
+	private final InsertionSortStrategy insertionSort;
+	private final MergeSortStrategy mergeSort;
+	private final ParallelMergeSortStrategy parallelMergeSort;
+	private final CountingSortStrategy countingSort; // Null unless the Comparator is an OrdinalComparator.
+	
+	public AdaptiveSortingStrategy(Comparator<Question> comparator) {
+		super(comparator);
+		this.insertionSort = new InsertionSortStrategy(comparator);
+		this.mergeSort = new MergeSortStrategy(comparator);
+		this.parallelMergeSort = new ParallelMergeSortStrategy(comparator);
+		this.countingSort = (comparator instanceof OrdinalComparator) ? new CountingSortStrategy(comparator) : null;
+	}
+	
+	/**
+	 * Returns the strategy used for an array of the given length.
+	 * @param length The number of elements to sort.
+	 */
+	public AbstractSortingStrategy select(int length) {
+		if (length <= INSERTION_SORT_MAX) return this.insertionSort;
+		if (this.countingSort != null) return this.countingSort;
+		if (length >= PARALLEL_SORT_MIN) return this.parallelMergeSort;
+		return this.mergeSort;
+	}
+	
+	/**
+	 * Sorts an array of Question objects with the strategy selected for its length.
+	 * @param questions A Question array that will be sorted.
+	 */
+	@Override
+	public void sort(Question[] questions) {
+		select(questions.length).sort(questions);
+	}
+}
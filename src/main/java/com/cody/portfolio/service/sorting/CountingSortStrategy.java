@@ -0,0 +1,49 @@
+package com.cody.portfolio.service.sorting;
+
+import java.util.Comparator;
+import com.cody.portfolio.domain.Question;
+
+/**
+ * A concrete sorting strategy that performs a stable counting sort on an array of Question objects.
+ * Requires an OrdinalComparator, whose small key range (for example the six Question Types)
+ * lets the sort run in N + K time without comparing elements to each other.
+ */
+public class CountingSortStrategy extends AbstractSortingStrategy {
+	private final OrdinalComparator ordinals;
+	
+	/**
+	 * @param comparator The ordering to sort by; must be an OrdinalComparator.
+	 * @throws IllegalArgumentException If comparator is not an OrdinalComparator.
+	 */
+	public CountingSortStrategy(Comparator<Question> comparator) {
+		super(comparator);
+		if (!(comparator instanceof OrdinalComparator)) throw new IllegalArgumentException("CountingSortStrategy requires an OrdinalComparator!");
+		this.ordinals = (OrdinalComparator) comparator;
+	}
+	
+	/**
+	 * Performs a counting sort on an array of Question objects.
+	 * Equal elements keep their relative order. The array is left untouched if a key cannot be computed.
+	 * @param questions A Question array that will be sorted.
+	 */
+	@Override
+	public void sort(Question[] questions) {
+		if (questions.length < 2) return;
+		
+		// Count each key; starts[key + 1] holds the count so the prefix sum yields start positions.
+		int starts[] = new int[this.ordinals.ordinalCount() + 1];
+		for (Question question : questions) {
+			starts[this.ordinals.ordinal(question) + 1]++;
+		}
+		for (int key = 1; key < starts.length; key++) {
+			starts[key] += starts[key - 1];
+		}
+		
+		// Place each element after the earlier elements with the same key.
+		Question[] aux = new Question[questions.length];
+		for (Question question : questions) {
+			aux[starts[this.ordinals.ordinal(question)]++] = question;
+		}
+		System.arraycopy(aux, 0, questions, 0, questions.length);
+	}
+}
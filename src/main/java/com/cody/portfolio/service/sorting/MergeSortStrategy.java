@@ -0,0 +1,74 @@
+package com.cody.portfolio.service.sorting;
+
+import java.util.Comparator;
+import com.cody.portfolio.domain.Question;
+
+/**
+ * A concrete sorting strategy that performs a stable, top-down merge sort on an array of Question objects.
+ * The ordering semantics are defined by the injected Comparator.
+ * The merge sort has N log N worst case and uses one auxiliary array of N elements.
+ * Short runs are insertion sorted, and the merge of two runs that are already in order is skipped,
+ * so an almost sorted array (a sorted array with one appended element) sorts in linear time.
+ */
+public class MergeSortStrategy extends AbstractSortingStrategy {
+	private static final int INSERTION_CUTOFF = 16;
+	
+	public MergeSortStrategy(Comparator<Question> comparator) {
+		super(comparator);
+	}
+	
+	/**
+	 * Performs a merge sort on an array of Question objects.
+	 * Equal elements keep their relative order.
+	 * @param questions A Question array that will be sorted.
+	 */
+	@Override
+	public void sort(Question[] questions) {
+		if (questions.length < 2) return;
+		sortRange(questions, new Question[questions.length], 0, questions.length);
+	}
+	
+	/**
+	 * Sorts questions[lo, hi) using aux[lo, hi) as scratch space.
+	 */
+	void sortRange(Question[] questions, Question[] aux, int lo, int hi) {
+		if (hi - lo <= INSERTION_CUTOFF) {
+			insertionSort(questions, lo, hi);
+			return;
+		}
+		int mid = (lo + hi) >>> 1;
+		sortRange(questions, aux, lo, mid);
+		sortRange(questions, aux, mid, hi);
+		merge(questions, aux, lo, mid, hi);
+	}
+	
+	/**
+	 * Merges the sorted runs questions[lo, mid) and questions[mid, hi).
+	 */
+	void merge(Question[] questions, Question[] aux, int lo, int mid, int hi) {
+		// The runs are already in order.
+		if (!comesBefore(questions[mid - 1], questions[mid])) return;
+		
+		System.arraycopy(questions, lo, aux, lo, hi - lo);
+		int left = lo;
+		int right = mid;
+		for (int k = lo; k < hi; k++) {
+			if (left == mid) questions[k] = aux[right++];
+			else if (right == hi) questions[k] = aux[left++];
+			else if (comesBefore(aux[left], aux[right])) questions[k] = aux[right++]; // Take the right only when strictly smaller.
+			else questions[k] = aux[left++];
+		}
+	}
+	
+	private void insertionSort(Question[] questions, int lo, int hi) {
+		for (int i = lo + 1; i < hi; i++) {
+			Question compare = questions[i];
+			int index = i - 1;
+			while ((index >= lo) && comesBefore(questions[index], compare)) {
+				questions[index + 1] = questions[index];
+				index--;
+			}
+			questions[index + 1] = compare;
+		}
+	}
+}
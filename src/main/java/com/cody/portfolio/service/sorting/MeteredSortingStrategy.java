@@ -0,0 +1,45 @@
+package com.cody.portfolio.service.sorting;
+
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.DistributionSummary;
+
+import com.cody.portfolio.domain.Question;
+
+/**
+ * A sorting strategy that delegates to another and records the duration and array length of every call,
+ * including calls the Comparator fails.
+ */
+public class MeteredSortingStrategy extends AbstractSortingStrategy {
+	private final AbstractSortingStrategy strategy;
+	private final Timer duration;
+	private final DistributionSummary size;
+
+	/**
+	 * @param strategy The strategy that sorts; its Comparator becomes this strategy's Comparator.
+	 * @param duration Records the time of each call.
+	 * @param size Records the length of each array.
+	 */
+	public MeteredSortingStrategy(AbstractSortingStrategy strategy, Timer duration, DistributionSummary size) {
+		super(strategy.comparator);
+		this.strategy = strategy;
+		this.duration = duration;
+		this.size = size;
+	}
+
+	/**
+	 * Sorts an array of Question objects with the delegate strategy.
+	 * @param questions A Question array that will be sorted.
+	 */
+	@Override
+	public void sort(Question[] questions) {
+		long start = System.nanoTime();
+		try {
+			this.strategy.sort(questions);
+		} finally {
+			this.duration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			this.size.record(questions.length);
+		}
+	}
+}
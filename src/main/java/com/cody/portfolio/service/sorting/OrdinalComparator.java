@@ -0,0 +1,29 @@
+package com.cody.portfolio.service.sorting;
+
+import java.util.Comparator;
+import com.cody.portfolio.domain.Question;
+
+/**
+ * A Comparator that orders Question objects by a small, dense integer key.
+ * Keys range from 0 (inclusive) to ordinalCount() (exclusive), which lets
+ * distribution sorts such as CountingSortStrategy run in O(n + k).
+ * Implementations must order Questions exactly as their keys are ordered.
+ */
+public interface OrdinalComparator extends Comparator<Question> {
+	
+	/**
+	 * Returns the key of a Question, between 0 and ordinalCount() - 1.
+	 * @param question The Question to evaluate.
+	 */
+	int ordinal(Question question);
+	
+	/**
+	 * Returns the number of distinct keys.
+	 */
+	int ordinalCount();
+	
+	@Override
+	default int compare(Question a, Question b) {
+		return Integer.compare(ordinal(a), ordinal(b));
+	}
+}
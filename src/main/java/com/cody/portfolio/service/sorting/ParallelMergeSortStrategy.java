@@ -0,0 +1,65 @@
+package com.cody.portfolio.service.sorting;
+
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.cody.portfolio.domain.Question;
+
+/**
+ * A concrete sorting strategy that performs a stable merge sort on an array of Question objects,
+ * sorting both halves of large ranges in parallel on the common ForkJoinPool.
+ * Ranges below the threshold are sorted sequentially by the inherited merge sort.
+ * Intended for large arrays, where the fork and join overhead is small compared to the work.
+ */
+public class ParallelMergeSortStrategy extends MergeSortStrategy {
+	static final int PARALLEL_THRESHOLD = 1 << 13;
+	
+	public ParallelMergeSortStrategy(Comparator<Question> comparator) {
+		super(comparator);
+	}
+	
+	/**
+	 * Performs a parallel merge sort on an array of Question objects.
+	 * Equal elements keep their relative order.
+	 * @param questions A Question array that will be sorted.
+	 */
+	@Override
+	public void sort(Question[] questions) {
+		if (questions.length <= PARALLEL_THRESHOLD) {
+			super.sort(questions);
+			return;
+		}
+		ForkJoinPool.commonPool().invoke(new SortTask(questions, new Question[questions.length], 0, questions.length));
+	}
+	
+	/**
+	 * Sorts questions[lo, hi); the two halves write to disjoint parts of aux, so they can run in parallel.
+	 */
+	private final class SortTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		
+		private final Question[] questions;
+		private final Question[] aux;
+		private final int lo;
+		private final int hi;
+		
+		private SortTask(Question[] questions, Question[] aux, int lo, int hi) {
+			this.questions = questions;
+			this.aux = aux;
+			this.lo = lo;
+			this.hi = hi;
+		}
+		
+		@Override
+		protected void compute() {
+			if (hi - lo <= PARALLEL_THRESHOLD) {
+				sortRange(questions, aux, lo, hi);
+				return;
+			}
+			int mid = (lo + hi) >>> 1;
+			invokeAll(new SortTask(questions, aux, lo, mid), new SortTask(questions, aux, mid, hi));
+			merge(questions, aux, lo, mid, hi);
+		}
+	}
+}
@@ -1,6 +1,5 @@
 package com.cody.portfolio.service.sorting;
 
-import java.util.Comparator;
 import com.cody.portfolio.domain.Question;
 import org.springframework.stereotype.Component;
 
@@ -8,12 +7,26 @@ import org.springframework.stereotype.Component;
  * Comparator for ordering Question objects by their Type field.
  * Uses the enum's declaration order as the Comparator.compare argument.
  * All compared Question instances must have a non-null Type value.
+ * The Type ordinal doubles as the key for distribution sorts.
  */
 @Component
-public class QuestionTypeComparator implements Comparator<Question> {
+public class QuestionTypeComparator implements OrdinalComparator {
+	private static final int TYPE_COUNT = Question.Type.values().length;
+	
 	@Override
 	public int compare(Question a, Question b) {
 		if (a.getType() == null || b.getType() == null) throw new IllegalArgumentException("Question.Type must not be null!");
 		return a.getType().compareTo(b.getType());
 	}
-}
\ No newline at end of file
+	
+	@Override
+	public int ordinal(Question question) {
+		if (question.getType() == null) throw new IllegalArgumentException("Question.Type must not be null!");
+		return question.getType().ordinal();
+	}
+	
+	@Override
+	public int ordinalCount() {
+		return TYPE_COUNT;
+	}
+}
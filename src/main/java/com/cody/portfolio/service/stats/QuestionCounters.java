@@ -0,0 +1,61 @@
+package com.cody.portfolio.service.stats;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The usage counters of one stored Question: how often it was served, attempted, and answered correctly,
+ * and the answer time reported with its attempts.
+ * 
+ * Every counter is a LongAdder, which spreads updates from contending threads over separate cells, so a Question
+ * every student in an exam answers at once does not become a single contended cache line. Reads sum the cells and
+ * are not atomic across counters; a concurrent read may see an attempt counted before its correct answer.
+ */
+public final class QuestionCounters {
+	private final LongAdder served = new LongAdder();
+	private final LongAdder attempts = new LongAdder();
+	private final LongAdder correct = new LongAdder();
+	private final LongAdder timed = new LongAdder(); // Attempts that reported an answer time.
+	private final LongAdder answerMillis = new LongAdder();
+	
+	/**
+	 * Counts the Question being served to a client.
+	 */
+	public void served() {
+		this.served.increment();
+	}
+	
+	/**
+	 * Counts a graded attempt.
+	 * 
+	 * @param correct True if the answer was graded correct.
+	 * @param answerMillis The time taken to answer, or 0 or less if it was not reported.
+	 */
+	public void attempted(boolean correct, long answerMillis) {
+		this.attempts.increment();
+		if (correct) this.correct.increment();
+		if (answerMillis > 0) {
+			this.timed.increment();
+			this.answerMillis.add(answerMillis);
+		}
+	}
+	
+	/**
+	 * Returns true if the Question was never served or attempted.
+	 */
+	public boolean unused() {
+		return this.served.sum() == 0 && this.attempts.sum() == 0;
+	}
+	
+	/**
+	 * Sums the counters into the statistics of the Question with the given id.
+	 */
+	public QuestionStats stats(UUID id) {
+		long attempts = this.attempts.sum();
+		long correct = this.correct.sum();
+		long timed = this.timed.sum();
+		double correctRate = (attempts == 0) ? 0 : (double) correct / attempts;
+		double averageAnswerMillis = (timed == 0) ? 0 : (double) this.answerMillis.sum() / timed;
+		return new QuestionStats(id, this.served.sum(), attempts, correct, correctRate, averageAnswerMillis);
+	}
+}
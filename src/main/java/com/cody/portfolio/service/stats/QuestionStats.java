@@ -0,0 +1,22 @@
+package com.cody.portfolio.service.stats;
+
+import java.util.UUID;
+
+/**
+ * The usage statistics of one stored Question.
+ * 
+ * @param id The id of the Question.
+ * @param served How often the Question was served by id or in a quiz.
+ * @param attempts How often an answer to the Question was graded.
+ * @param correct How many of the attempts were graded correct.
+ * @param correctRate correct divided by attempts, or 0 without attempts.
+ * @param averageAnswerMillis The mean answer time of the attempts that reported one, or 0 if none did.
+ */
+public record QuestionStats(
+	UUID id,
+	long served,
+	long attempts,
+	long correct,
+	double correctRate,
+	double averageAnswerMillis
+) {}
@@ -0,0 +1,16 @@
+package com.cody.portfolio.service.stats;
+
+/**
+ * The statistics of every stored Question that was served or attempted, taken at one point in time.
+ * Questions never used are left out, and the rest are ordered by attempts, most first.
+ * 
+ * @param takenAt When the snapshot was taken, in milliseconds since the epoch; 0 if none has been taken yet.
+ * @param questions The statistics of each used Question.
+ */
+public record StatsSnapshot(
+	long takenAt,
+	QuestionStats[] questions
+) {
+	/** The snapshot before the first one is taken. */
+	public static final StatsSnapshot EMPTY = new StatsSnapshot(0, new QuestionStats[0]);
+}
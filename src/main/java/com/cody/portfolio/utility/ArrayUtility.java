@@ -1,5 +1,6 @@
 package com.cody.portfolio.utility;
 
+import java.util.Arrays;
 import java.util.function.IntFunction;
 
 /**
@@ -35,4 +36,49 @@ public final class ArrayUtility {
 		
 		return result;
 	}
+	
+	/**
+	 * Copies an array with the elements of a second array appended to the end.
+	 * 
+	 * @param <T> The element type stored in the arrays.
+	 * @param array The source array; it is not modified.
+	 * @param elements The elements to append, in order.
+	 * @return A new array holding the source elements followed by the appended elements.
+	 */
+	public static <T> T[] appendAll(T[] array, T[] elements) {
+		T[] result = Arrays.copyOf(array, array.length + elements.length);
+		System.arraycopy(elements, 0, result, array.length, elements.length);
+		return result;
+	}
+	
+	/**
+	 * Copies an array without the first occurrence of an element, compared by identity.
+	 * The order of the remaining elements is preserved.
+	 * 
+	 * @param <T> The element type stored in the array.
+	 * @param array The source array; it is not modified.
+	 * @param element The element to remove.
+	 * @return A new array, one shorter than the source, or the source itself if the element is absent.
+	 */
+	public static <T> T[] remove(T[] array, T element) {
+		int index = 0;
+		while (index < array.length && array[index] != element) index++;
+		if (index == array.length) return array;
+		return removeAt(array, index);
+	}
+	
+	/**
+	 * Copies an array without the element at an index.
+	 * The order of the remaining elements is preserved.
+	 * 
+	 * @param <T> The element type stored in the array.
+	 * @param array The source array; it is not modified.
+	 * @param index The index of the element to remove.
+	 * @return A new array, one shorter than the source.
+	 */
+	public static <T> T[] removeAt(T[] array, int index) {
+		T[] result = Arrays.copyOf(array, array.length - 1);
+		System.arraycopy(array, index + 1, result, index, array.length - index - 1);
+		return result;
+	}
 }
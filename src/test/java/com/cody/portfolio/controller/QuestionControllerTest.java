@@ -2,32 +2,56 @@ package com.cody.portfolio.controller;
 
 import java.util.UUID;
 import java.util.Optional;
+import java.util.stream.Stream;
+import java.io.ByteArrayInputStream;
+import java.util.zip.GZIPInputStream;
+import java.nio.charset.StandardCharsets;
 
 import com.cody.portfolio.domain.Question;
+import com.cody.portfolio.service.QuestionPage;
+import com.cody.portfolio.service.StoreOutcome;
 import com.cody.portfolio.service.QuestionService;
+import com.cody.portfolio.service.IdConfiguration;
+import com.cody.portfolio.service.persistence.StorageFullException;
 
 import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc; // Send mock http requests to the DispatchServlet.
+import org.springframework.test.web.servlet.MvcResult; // Holds an async request until it is dispatched.
 import org.springframework.beans.factory.annotation.Autowired; // Inject Spring beans.
+import org.springframework.context.annotation.Import; // Adds a configuration the slice does not scan.
 import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest; // Creates a sliced/limited WebApplicationContext.
 import org.springframework.test.context.bean.override.mockito.MockitoBean; // Overrides the service bean with a Mokito mock.
 
 // Factory method to create HTTP request.
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 
 // Method to write assertions for the returned HTTP request.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 
 // Method to print the http response.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
-@WebMvcTest(QuestionController.class) // Creates a sliced WebApplicationContext with a QuestionController and Spring MVC infrastructure.
+// Creates a sliced WebApplicationContext with a QuestionController and Spring MVC infrastructure.
+// The context is shared by every test, so the response cache is disabled to keep one test's bodies from answering another.
+// New Questions take their ids from the IdGenerator that IdConfiguration builds, here for node 7.
+@WebMvcTest(value = QuestionController.class, properties = {"quiz.response-cache.max-bytes=0", "quiz.ids.node=7"})
+@Import(IdConfiguration.class)
 public class QuestionControllerTest {
 	
 	@MockitoBean // Create the service to be called in the sliced WebApplicationContext.
@@ -56,6 +80,26 @@ public class QuestionControllerTest {
 				.andExpect(jsonPath("$.message").value("Success: Question stored!"));
 	}
 	
+	@Test
+	void setSingleStoresAQuestionWithAnIdFromTheConfiguredGenerator() throws Exception {
+		String requestJson = """
+		{
+		  "question": "a valid question",
+		  "answer": "a valid answer"
+		}
+		""";
+
+		when(questionService.setQuestion(any(Question.class))).thenReturn(true);
+		
+		mockMVC.perform(post("/questions/set-single")
+				             .contentType(MediaType.APPLICATION_JSON)
+				             .content(requestJson))
+		
+				.andExpect(status().isOk());
+		verify(questionService).setQuestion(argThat((Question question) ->
+			question.getID().version() == 7 && ((question.getID().getLeastSignificantBits() >>> 52) & 1023) == 7));
+	}
+	
 	@Test
 	void setSingleReturns400BadRequestWhenTheQuestionArrayIsFull() throws Exception {
 		String requestJson = """
@@ -76,6 +120,44 @@ public class QuestionControllerTest {
 				.andExpect(jsonPath("$.message").value("Failed: The question array is full!"));
 	}
 	
+	@Test
+	void setSingleReturns507InsufficientStorageWhenTheRepositoryIsFull() throws Exception {
+		String requestJson = """
+		{
+		  "question": "a valid question",
+		  "answer": "a valid answer"
+		}
+		""";
+		
+		when(questionService.setQuestion(any(Question.class))).thenThrow(new StorageFullException("The disk holding the question arena is full!"));
+		
+		mockMVC.perform(post("/questions/set-single")
+				             .contentType(MediaType.APPLICATION_JSON)
+				             .content(requestJson))
+
+				.andExpect(status().isInsufficientStorage())
+				.andExpect(jsonPath("$.success").value(false))
+				.andExpect(jsonPath("$.message").value("The disk holding the question arena is full!"));
+	}
+	
+	@Test
+	void setManyReportsABatchTheRepositoryHasNoRoomForAsFailed() throws Exception {
+		String requestNdjson = """
+		{"question": "a valid question", "answer": "a valid answer"}
+		""";
+		
+		when(questionService.setQuestions(any())).thenThrow(new StorageFullException("The disk holding the question arena is full!"));
+		
+		String[] lines = mockMVC.perform(post("/questions/set-many")
+						.contentType("application/x-ndjson")
+						.content(requestNdjson))
+			.andExpect(status().isOk())
+			.andReturn().getResponse().getContentAsString().split("\n");
+		
+		assertEquals(1, lines.length);
+		assertTrue(lines[0].contains("\"success\":false") && lines[0].contains("The disk holding the question arena is full!"));
+	}
+	
 	@Test
 	void setSingleReturns400BadRequestWhenTheQuestionFieldIsInvalid() throws Exception {
 		String requestJson = """
@@ -118,6 +200,175 @@ public class QuestionControllerTest {
 			.andExpect(jsonPath("$.message").value("The parameter answer must have non-null, non-blank text!"));
 	}
 	
+	@Test
+	void setSingleStoresTheTypeAndDifficultyFromTheRequestBody() throws Exception {
+		String requestJson = """
+		{
+		  "type": "Networks",
+		  "difficulty": "Hard",
+		  "question": "a valid question",
+		  "answer": "a valid answer"
+		}
+		""";
+		
+		when(questionService.setQuestion(argThat((Question question) ->
+				question.getType() == Question.Type.Networks && question.getDifficulty() == Question.Difficulty.Hard)))
+			.thenReturn(true);
+		
+		mockMVC.perform(post("/questions/set-single")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(requestJson))
+		
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.success").value(true));
+	}
+	
+	@Test
+	void setSingleReturns400BadRequestWhenTheTypeIsUnknown() throws Exception {
+		String requestJson = """
+		{
+		  "type": "Cooking",
+		  "question": "a valid question",
+		  "answer": "a valid answer"
+		}
+		""";
+		
+		mockMVC.perform(post("/questions/set-single")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(requestJson))
+		
+			.andExpect(status().isBadRequest())
+			.andExpect(jsonPath("$.success").value(false));
+	}
+	
+	@Test
+	void setManyReportsAResultForEveryQuestionInAJsonArray() throws Exception {
+		String requestJson = """
+		[
+		  {"question": "a valid question", "answer": "a valid answer"},
+		  {"question": "", "answer": "a valid answer"},
+		  {"question": "another valid question", "answer": "another valid answer"}
+		]
+		""";
+		
+		// Store the first valid question and reject the second as if the service were full.
+		when(questionService.setQuestions(argThat((Question[] batch) -> batch.length == 2))).thenReturn(new StoreOutcome[] {StoreOutcome.STORED, StoreOutcome.FULL});
+		
+		String[] lines = mockMVC.perform(post("/questions/set-many")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(requestJson))
+			.andExpect(status().isOk())
+			.andReturn().getResponse().getContentAsString().split("\n");
+		
+		assertEquals(3, lines.length);
+		assertTrue(lines[0].contains("\"index\":0") && lines[0].contains("\"success\":true"));
+		assertTrue(lines[1].contains("\"index\":1") && lines[1].contains("The parameter question must have non-null, non-blank text!"));
+		assertTrue(lines[2].contains("\"index\":2") && lines[2].contains("Failed: The question array is full!"));
+	}
+	
+	@Test
+	void setSingleReportsTheNearDuplicateOfAFlaggedQuestion() throws Exception {
+		Question stored = new Question("What is a hash map?", "A key to value table");
+		String requestJson = """
+		{
+		  "question": "What is a hashmap?",
+		  "answer": "a valid answer"
+		}
+		""";
+		
+		when(questionService.setQuestion(any(Question.class))).thenReturn(true);
+		when(questionService.findNearDuplicate(any(Question.class))).thenReturn(Optional.of(stored));
+		
+		mockMVC.perform(post("/questions/set-single")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(requestJson))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.success").value(true))
+			.andExpect(jsonPath("$.message").value("Success: Question stored! It is a near-duplicate of " + stored.getID() + "!"));
+	}
+	
+	@Test
+	void setSingleReturns400BadRequestWhenTheQuestionIsARejectedNearDuplicate() throws Exception {
+		UUID storedId = UUID.randomUUID();
+		String requestJson = """
+		{
+		  "question": "What is a hashmap?",
+		  "answer": "a valid answer"
+		}
+		""";
+		
+		when(questionService.setQuestion(any(Question.class))).thenThrow(new IllegalArgumentException("The question is a near-duplicate of " + storedId + "!"));
+		
+		mockMVC.perform(post("/questions/set-single")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(requestJson))
+			.andExpect(status().isBadRequest())
+			.andExpect(jsonPath("$.success").value(false))
+			.andExpect(jsonPath("$.message").value("The question is a near-duplicate of " + storedId + "!"));
+	}
+	
+	@Test
+	void setManyReportsRejectedNearDuplicates() throws Exception {
+		Question stored = new Question("What is a hash map?", "A key to value table");
+		String requestNdjson = """
+		{"question": "What is a hashmap?", "answer": "a valid answer"}
+		""";
+		
+		when(questionService.setQuestions(any())).thenReturn(new StoreOutcome[] {StoreOutcome.NEAR_DUPLICATE});
+		when(questionService.findNearDuplicate(any(Question.class))).thenReturn(Optional.of(stored));
+		
+		String[] lines = mockMVC.perform(post("/questions/set-many")
+						.contentType("application/x-ndjson")
+						.content(requestNdjson))
+			.andExpect(status().isOk())
+			.andReturn().getResponse().getContentAsString().split("\n");
+		
+		assertEquals(1, lines.length);
+		assertTrue(lines[0].contains("\"success\":false") && lines[0].contains("The question is a near-duplicate of " + stored.getID() + "!"));
+	}
+	
+	@Test
+	void setManyReportsTheReasonTheServiceGaveRatherThanAFlaggedNearDuplicate() throws Exception {
+		Question stored = new Question("What is a hash map?", "A key to value table");
+		String requestNdjson = """
+		{"question": "What is a hashmap?", "answer": "a valid answer"}
+		""";
+		
+		// Flagged near-duplicates are found too, but the service turned this one away because it is full.
+		when(questionService.setQuestions(any())).thenReturn(new StoreOutcome[] {StoreOutcome.FULL});
+		when(questionService.findNearDuplicate(any(Question.class))).thenReturn(Optional.of(stored));
+		
+		String[] lines = mockMVC.perform(post("/questions/set-many")
+						.contentType("application/x-ndjson")
+						.content(requestNdjson))
+			.andExpect(status().isOk())
+			.andReturn().getResponse().getContentAsString().split("\n");
+		
+		assertEquals(1, lines.length);
+		assertTrue(lines[0].contains("\"success\":false") && lines[0].contains("Failed: The question array is full!"));
+	}
+	
+	@Test
+	void setManyAcceptsNewlineDelimitedJsonAndStopsAtMalformedInput() throws Exception {
+		String requestNdjson = """
+		{"type": "Networks", "question": "a valid question", "answer": "a valid answer"}
+		{"question": "broken
+		""";
+		
+		when(questionService.setQuestions(argThat((Question[] batch) -> batch.length == 1 && batch[0].getType() == Question.Type.Networks)))
+			.thenReturn(new StoreOutcome[] {StoreOutcome.STORED});
+		
+		String[] lines = mockMVC.perform(post("/questions/set-many")
+						.contentType("application/x-ndjson")
+						.content(requestNdjson))
+			.andExpect(status().isOk())
+			.andReturn().getResponse().getContentAsString().split("\n");
+		
+		assertEquals(2, lines.length);
+		assertTrue(lines[0].contains("\"success\":true"));
+		assertTrue(lines[1].contains("\"index\":1") && lines[1].contains("Failed: Malformed JSON!"));
+	}
+	
 	@Test
 	void getSingleReturns200RequestSucceededWhenTheQuestionIdIsValid() throws Exception {
 		Question question = new Question("a valid question", "a valid answer");
@@ -168,6 +419,29 @@ public class QuestionControllerTest {
 			.andExpect(status().isNotFound());
 	}
 	
+	@Test
+	void getManyByTypeAndDifficultyReturns200RequestSucceededWhenQuestionsMatch() throws Exception {
+		Question question = new Question("a valid question", "a valid answer");
+		question.setType(Question.Type.Networks);
+		question.setDifficulty(Question.Difficulty.Hard);
+		Question questionArray[] = {question};
+		
+		when(questionService.getQuestions(Question.Type.Networks, Question.Difficulty.Hard)).thenReturn(Optional.of(questionArray));
+		
+		mockMVC.perform(get("/questions/get-many/Networks/Hard"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$[0].type").value("Networks"))
+			.andExpect(jsonPath("$[0].difficulty").value("Hard"));
+	}
+	
+	@Test
+	void getManyByTypeAndDifficultyReturns404NotFoundWhenNoQuestionsMatch() throws Exception {
+		when(questionService.getQuestions(Question.Type.Networks, Question.Difficulty.Hard)).thenReturn(Optional.empty());
+		
+		mockMVC.perform(get("/questions/get-many/Networks/Hard"))
+			.andExpect(status().isNotFound());
+	}
+	
 	@Test
 	void getAllReturns200RequestSucceededWhenThereAreQuestionsInTheArray() throws Exception {
 		Question question = new Question("a valid question", "a valid answer");
@@ -189,6 +463,206 @@ public class QuestionControllerTest {
 			.andExpect(status().isNotFound());
 	}
 	
+	@Test
+	void getAllReturnsAStrongETagThatCachesMustRevalidate() throws Exception {
+		Question questionArray[] = {new Question("a valid question", "a valid answer")};
+		
+		when(questionService.version()).thenReturn(7L);
+		when(questionService.getAll()).thenReturn(Optional.of(questionArray));
+		
+		String etag = mockMVC.perform(get("/questions/get-all"))
+			.andExpect(status().isOk())
+			.andExpect(header().string("Cache-Control", "no-cache"))
+			.andReturn().getResponse().getHeader("ETag");
+		
+		assertTrue(etag.matches("\"[0-9a-f]+-all-7\""), etag);
+	}
+	
+	@Test
+	void getAllReturns304WithoutReadingTheQuestionsWhenTheETagMatches() throws Exception {
+		Question questionArray[] = {new Question("a valid question", "a valid answer")};
+		
+		when(questionService.version()).thenReturn(7L);
+		when(questionService.getAll()).thenReturn(Optional.of(questionArray));
+		
+		String etag = mockMVC.perform(get("/questions/get-all")).andReturn().getResponse().getHeader("ETag");
+		
+		mockMVC.perform(get("/questions/get-all").header("If-None-Match", "\"other\", W/" + etag))
+			.andExpect(status().isNotModified())
+			.andExpect(header().string("ETag", etag))
+			.andExpect(content().string(""));
+		verify(questionService, times(1)).getAll();
+		
+		when(questionService.version()).thenReturn(8L);
+		mockMVC.perform(get("/questions/get-all").header("If-None-Match", etag))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$[0].question").value("a valid question"));
+	}
+	
+	@Test
+	void getAllReturnsGzipWithItsOwnETagWhenTheClientAcceptsIt() throws Exception {
+		Question questionArray[] = {new Question("a valid question", "a valid answer")};
+		
+		when(questionService.version()).thenReturn(7L);
+		when(questionService.getAll()).thenReturn(Optional.of(questionArray));
+		
+		MvcResult result = mockMVC.perform(get("/questions/get-all").header("Accept-Encoding", "br;q=1.0, gzip;q=0.8"))
+			.andExpect(status().isOk())
+			.andExpect(header().string("Content-Encoding", "gzip"))
+			.andExpect(header().string("Vary", "Accept-Encoding"))
+			.andReturn();
+		String etag = result.getResponse().getHeader("ETag");
+		
+		try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))) {
+			String json = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+			assertTrue(json.contains("\"question\":\"a valid question\""), json);
+		}
+		assertTrue(etag.endsWith("-7-gzip\""), etag);
+		
+		mockMVC.perform(get("/questions/get-all").header("Accept-Encoding", "gzip").header("If-None-Match", etag))
+			.andExpect(status().isNotModified());
+		mockMVC.perform(get("/questions/get-all").header("Accept-Encoding", "gzip;q=0").header("If-None-Match", etag))
+			.andExpect(status().isOk())
+			.andExpect(header().doesNotExist("Content-Encoding"));
+	}
+	
+	@Test
+	void getManyETagsFollowTheVersionOfTheirType() throws Exception {
+		Question.Type type = Question.Type.Programming;
+		Question question = new Question("a valid question", "a valid answer");
+		question.setType(type);
+		
+		when(questionService.version(type)).thenReturn(3L);
+		when(questionService.getQuestions(type, Question.Difficulty.Easy)).thenReturn(Optional.of(new Question[] {question}));
+		
+		String etag = mockMVC.perform(get("/questions/get-many/" + type + "/Easy"))
+			.andExpect(status().isOk())
+			.andReturn().getResponse().getHeader("ETag");
+		
+		mockMVC.perform(get("/questions/get-many/" + type + "/Easy").header("If-None-Match", etag))
+			.andExpect(status().isNotModified());
+		
+		when(questionService.version(type)).thenReturn(5L);
+		mockMVC.perform(get("/questions/get-many/" + type + "/Easy").header("If-None-Match", etag))
+			.andExpect(status().isOk());
+	}
+	
+	@Test
+	void getAllWithALimitReturns200AndOnePageWithTheNextCursor() throws Exception {
+		Question question = new Question("a valid question", "a valid answer");
+		Question questionArray[] = {question};
+		
+		when(questionService.getAllPage(null, 1)).thenReturn(new QuestionPage(questionArray, "next-cursor"));
+		
+		mockMVC.perform(get("/questions/get-all").param("limit", "1"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.questions[0].question").value("a valid question"))
+			.andExpect(jsonPath("$.next").value("next-cursor"));
+	}
+	
+	@Test
+	void getManyWithALimitPassesTheCursorToTheService() throws Exception {
+		Question.Type type = Question.Type.Programming;
+		
+		when(questionService.getQuestionsPage(type, "some-cursor", 5)).thenReturn(new QuestionPage(new Question[0], null));
+		
+		mockMVC.perform(get("/questions/get-many/" + type).param("limit", "5").param("after", "some-cursor"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.questions").isEmpty())
+			.andExpect(jsonPath("$.next").doesNotExist());
+	}
+	
+	@Test
+	void getAllWithALimitReturns400BadRequestWhenTheCursorIsInvalid() throws Exception {
+		when(questionService.getAllPage("bad", 5)).thenThrow(new IllegalArgumentException("The cursor is not valid!"));
+		
+		mockMVC.perform(get("/questions/get-all").param("limit", "5").param("after", "bad"))
+			.andExpect(status().isBadRequest())
+			.andExpect(jsonPath("$.success").value(false))
+			.andExpect(jsonPath("$.message").value("The cursor is not valid!"));
+	}
+	
+	@Test
+	void exportAllStreamsOneJsonQuestionPerLine() throws Exception {
+		Question first = new Question("first question", "first answer");
+		Question second = new Question("second question", "second answer");
+		
+		when(questionService.stream(Question.Type.Networks, null)).thenReturn(Stream.of(first, second));
+		
+		MvcResult result = mockMVC.perform(get("/questions/export-all").param("type", "Networks"))
+			.andExpect(request().asyncStarted())
+			.andReturn();
+		
+		String[] lines = mockMVC.perform(asyncDispatch(result))
+			.andExpect(status().isOk())
+			.andExpect(content().contentType("application/x-ndjson"))
+			.andReturn().getResponse().getContentAsString().split("\n");
+		
+		assertEquals(2, lines.length);
+		assertTrue(lines[0].contains("\"question\":\"first question\""));
+		assertTrue(lines[1].contains("\"ID\":\"" + second.getID() + "\""));
+	}
+	
+	@Test
+	void searchReturns200AndOnePageOfRankedQuestions() throws Exception {
+		Question question = new Question("What is a hash map?", "A key to value table");
+		
+		when(questionService.search("hash map", null, 20)).thenReturn(new QuestionPage(new Question[] {question}, "next-cursor"));
+		
+		mockMVC.perform(get("/questions/search").param("q", "hash map"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.questions[0].question").value("What is a hash map?"))
+			.andExpect(jsonPath("$.next").value("next-cursor"));
+	}
+	
+	@Test
+	void searchReturns400BadRequestWhenTheQueryHasNoWords() throws Exception {
+		when(questionService.search("?!", null, 20)).thenThrow(new IllegalArgumentException("The query must contain at least one word!"));
+		
+		mockMVC.perform(get("/questions/search").param("q", "?!"))
+			.andExpect(status().isBadRequest())
+			.andExpect(jsonPath("$.success").value(false))
+			.andExpect(jsonPath("$.message").value("The query must contain at least one word!"));
+	}
+	
+	@Test
+	void editQuestionReturns200RequestSucceededWhenTheQuestionIsEdited() throws Exception {
+		UUID id = UUID.randomUUID();
+		String requestJson = """
+		{
+		  "answer": "a new answer"
+		}
+		""";
+		
+		when(questionService.edit(id, null, "a new answer")).thenReturn(true);
+		
+		mockMVC.perform(put("/questions/edit-single/" + id)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(requestJson))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.success").value(true))
+			.andExpect(jsonPath("$.message").value("Success: Question edited!"));
+	}
+	
+	@Test
+	void editQuestionReturns400BadRequestWhenTheQuestionIdCannotBeFound() throws Exception {
+		UUID invalidId = UUID.randomUUID();
+		String requestJson = """
+		{
+		  "question": "a new question"
+		}
+		""";
+		
+		when(questionService.edit(invalidId, "a new question", null)).thenReturn(false);
+		
+		mockMVC.perform(put("/questions/edit-single/" + invalidId)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(requestJson))
+			.andExpect(status().isBadRequest())
+			.andExpect(jsonPath("$.success").value(false))
+			.andExpect(jsonPath("$.message").value("Failed: Question not found in array!"));
+	}
+	
 	@Test
 	void deleteQuestionReturns200RequestSucceededWhenTheQuestionIdIsDeleted() throws Exception {
 		Question question = new Question("a valid question", "a valid answer");
@@ -0,0 +1,180 @@
+package com.cody.portfolio.controller;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.Random;
+import java.util.UUID;
+import java.util.EnumSet;
+import java.util.Optional;
+
+import com.cody.portfolio.domain.Question;
+import com.cody.portfolio.service.QuestionService;
+import com.cody.portfolio.service.grading.Grade;
+import com.cody.portfolio.service.stats.QuestionStats;
+import com.cody.portfolio.service.stats.StatsSnapshot;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.verify;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.isNull;
+
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc; // Send mock http requests to the DispatchServlet.
+import org.springframework.beans.factory.annotation.Autowired; // Inject Spring beans.
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest; // Creates a sliced/limited WebApplicationContext.
+import org.springframework.test.context.bean.override.mockito.MockitoBean; // Overrides the service bean with a Mokito mock.
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+
+@WebMvcTest(QuizController.class) // Creates a sliced WebApplicationContext with a QuizController and Spring MVC infrastructure.
+public class QuizControllerTest {
+	
+	@MockitoBean // Create the service to be called in the sliced WebApplicationContext.
+	private QuestionService questionService;
+	
+	@Autowired // Simulates requests to the endpoints through the DispatcherServlet.
+	private MockMvc mockMVC;
+	
+	@Test
+	void generateReturns200WithTheQuestionsAndTheSeed() throws Exception {
+		Question question = new Question("a valid question", "a valid answer");
+		Set<Question.Type> types = EnumSet.of(Question.Type.Programming, Question.Type.DiscreteMath);
+		
+		when(questionService.sample(eq(types), isNull(), eq(1), any(Random.class))).thenReturn(new Question[] {question});
+		
+		mockMVC.perform(get("/quizzes/generate")
+						.param("count", "1")
+						.param("type", "Programming", "DiscreteMath")
+						.param("seed", "42"))
+		
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.seed").value(42))
+			.andExpect(jsonPath("$.questions[0].question").value("a valid question"));
+		verify(questionService).sample(eq(types), isNull(), eq(1), any(Random.class));
+	}
+	
+	@Test
+	void generateReturns400BadRequestWhenTheCountCannotBeFilled() throws Exception {
+		when(questionService.sample(any(), any(), anyInt(), any(Random.class))).thenThrow(new IllegalArgumentException("Only 0 Questions match; a quiz of 5 cannot be generated!"));
+		
+		mockMVC.perform(get("/quizzes/generate")
+						.param("count", "5"))
+		
+			.andExpect(status().isBadRequest())
+			.andExpect(jsonPath("$.success").value(false))
+			.andExpect(jsonPath("$.message").value("Only 0 Questions match; a quiz of 5 cannot be generated!"));
+	}
+	
+	@Test
+	void generateWithTypeCountsDrawsTheMixFromTheService() throws Exception {
+		Question question = new Question("a valid question", "a valid answer");
+		Map<Question.Type, Integer> typeCounts = Map.of(Question.Type.Programming, 3, Question.Type.Networks, 2);
+		
+		when(questionService.sampleByType(eq(typeCounts), eq(EnumSet.of(Question.Difficulty.Easy)), any(Random.class))).thenReturn(new Question[] {question});
+		
+		mockMVC.perform(get("/quizzes/generate")
+						.param("typeCounts", "Programming:3,Networks:2")
+						.param("difficulty", "Easy")
+						.param("count", "5")
+						.param("seed", "42"))
+		
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.seed").value(42))
+			.andExpect(jsonPath("$.questions[0].question").value("a valid question"));
+		verify(questionService).sampleByType(eq(typeCounts), eq(EnumSet.of(Question.Difficulty.Easy)), any(Random.class));
+	}
+	
+	@ParameterizedTest
+	@CsvSource(delimiter = '|', value = {
+		"typeCounts=Programming:3,Networks:2&count=4|The parameter count must equal the sum of typeCounts!",
+		"typeCounts=Programming:3&type=Networks|The parameters type and typeCounts must not both be given!",
+		"typeCounts=Programming:3&difficultyCounts=Easy:1|The parameters typeCounts and difficultyCounts must not both be given!",
+		"difficultyCounts=Easy:1,Easy:2|The parameter difficultyCounts must not name Easy twice!",
+		"difficultyCounts=Simple:1|The parameter difficultyCounts must hold Name:count pairs of a known Difficulty and a number!",
+		"type=Networks|The parameter count must be given unless typeCounts or difficultyCounts is!"
+	})
+	void generateReturns400BadRequestOnAnInvalidMix(String query, String message) throws Exception {
+		mockMVC.perform(get("/quizzes/generate?" + query))
+		
+			.andExpect(status().isBadRequest())
+			.andExpect(jsonPath("$.success").value(false))
+			.andExpect(jsonPath("$.message").value(message));
+	}
+	
+	@Test
+	void gradeReturns200WithTheGradesInOrderAndTheCorrectCount() throws Exception {
+		UUID first = UUID.randomUUID();
+		UUID second = UUID.randomUUID();
+		when(questionService.grade(new UUID[] {first, second}, new String[] {"O(n log n)", "a guess"}, new long[] {1500, 0}, 1))
+			.thenReturn(new Grade[] {Grade.CORRECT, Grade.UNKNOWN});
+		
+		mockMVC.perform(post("/quizzes/grade")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"submissions\":[{\"questionId\":\"" + first + "\",\"answer\":\"O(n log n)\",\"answerMillis\":1500},"
+								+ "{\"questionId\":\"" + second + "\",\"answer\":\"a guess\"}],\"maxEdits\":1}"))
+		
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.correct").value(1))
+			.andExpect(jsonPath("$.grades[0]").value("CORRECT"))
+			.andExpect(jsonPath("$.grades[1]").value("UNKNOWN"));
+	}
+	
+	@Test
+	void gradeAllowsNoEditsWhenMaxEditsIsOmitted() throws Exception {
+		UUID id = UUID.randomUUID();
+		when(questionService.grade(new UUID[] {id}, new String[] {"a guess"}, new long[] {0}, 0))
+			.thenReturn(new Grade[] {Grade.INCORRECT});
+		
+		mockMVC.perform(post("/quizzes/grade")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"submissions\":[{\"questionId\":\"" + id + "\",\"answer\":\"a guess\"}]}"))
+		
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.correct").value(0))
+			.andExpect(jsonPath("$.grades[0]").value("INCORRECT"));
+	}
+	
+	@Test
+	void gradeReturns400BadRequestWithoutSubmissions() throws Exception {
+		mockMVC.perform(post("/quizzes/grade")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"maxEdits\":1}"))
+		
+			.andExpect(status().isBadRequest())
+			.andExpect(jsonPath("$.success").value(false))
+			.andExpect(jsonPath("$.message").value("The parameter submissions must not be null!"));
+	}
+	
+	@Test
+	void statsReturnsTheLastSnapshotAndTheStatsOfOneQuestion() throws Exception {
+		UUID id = UUID.randomUUID();
+		QuestionStats stats = new QuestionStats(id, 3, 2, 1, 0.5, 1200);
+		when(questionService.getStatsSnapshot()).thenReturn(new StatsSnapshot(42, new QuestionStats[] {stats}));
+		when(questionService.getStats(id)).thenReturn(Optional.of(stats));
+		
+		mockMVC.perform(get("/quizzes/stats"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.takenAt").value(42))
+			.andExpect(jsonPath("$.questions[0].id").value(id.toString()));
+		mockMVC.perform(get("/quizzes/stats/" + id))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.correctRate").value(0.5));
+	}
+	
+	@Test
+	void statsReturns404NotFoundForAnUnknownQuestion() throws Exception {
+		UUID id = UUID.randomUUID();
+		when(questionService.getStats(id)).thenReturn(Optional.empty());
+		
+		mockMVC.perform(get("/quizzes/stats/" + id))
+			.andExpect(status().isNotFound());
+	}
+}
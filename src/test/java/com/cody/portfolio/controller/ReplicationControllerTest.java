@@ -0,0 +1,65 @@
+package com.cody.portfolio.controller;
+
+import java.io.DataOutput;
+
+import com.cody.portfolio.service.replication.ReplicationLog;
+
+import org.junit.jupiter.api.Test;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.anyLong;
+
+import org.springframework.test.web.servlet.MockMvc; // Send mock http requests to the DispatchServlet.
+import org.springframework.beans.factory.annotation.Autowired; // Inject Spring beans.
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest; // Creates a sliced/limited WebApplicationContext.
+import org.springframework.test.context.bean.override.mockito.MockitoBean; // Overrides the log bean with a Mokito mock.
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+
+@WebMvcTest(ReplicationController.class) // Creates a sliced WebApplicationContext with a ReplicationController and Spring MVC infrastructure.
+public class ReplicationControllerTest {
+	
+	@MockitoBean // Makes this instance a leader with a mock log.
+	private ReplicationLog replicationLog;
+	
+	@Autowired // Simulates requests to the endpoints through the DispatcherServlet.
+	private MockMvc mockMVC;
+	
+	@Test
+	void logReturns200WithTheFramesAfterTheOffset() throws Exception {
+		mockMVC.perform(get("/replication/log")
+						.param("epoch", "7")
+						.param("after", "42")
+						.param("waitMillis", "100"))
+		
+			.andExpect(status().isOk())
+			.andExpect(content().contentType("application/octet-stream"));
+		verify(replicationLog).writeFrames(eq(7L), eq(42L), eq(100L), any(DataOutput.class));
+	}
+	
+	@Test
+	void logReturns400BadRequestOnAnInvalidWait() throws Exception {
+		doThrow(new IllegalArgumentException("The parameter waitMillis must be between 0 and 30000!"))
+			.when(replicationLog).writeFrames(anyLong(), anyLong(), eq(-1L), any(DataOutput.class));
+		
+		mockMVC.perform(get("/replication/log")
+						.param("epoch", "7")
+						.param("after", "42")
+						.param("waitMillis", "-1"))
+		
+			.andExpect(status().isBadRequest())
+			.andExpect(jsonPath("$.success").value(false));
+	}
+	
+	@Test
+	void snapshotReturns200() throws Exception {
+		mockMVC.perform(get("/replication/snapshot"))
+			.andExpect(status().isOk());
+		verify(replicationLog).writeSnapshot(any(DataOutput.class));
+	}
+}
@@ -0,0 +1,111 @@
+package com.cody.portfolio.controller;
+
+import java.io.IOException;
+import java.io.ByteArrayInputStream;
+import java.util.zip.GZIPInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the ResponseCache.
+ */
+public class ResponseCacheTest {
+	
+	@Test
+	void constructorThrowsExceptionOnANegativeBudget() {
+		assertThrows(IllegalArgumentException.class, () ->
+			new ResponseCache(-1)
+		);
+	}
+	
+	@Test
+	void bodyEncodesOncePerVersion() {
+		ResponseCache cache = new ResponseCache(1024);
+		AtomicInteger encodes = new AtomicInteger();
+		
+		byte first[] = cache.body("all", 1, false, () -> json("[1]", encodes));
+		byte second[] = cache.body("all", 1, false, () -> json("[2]", encodes));
+		byte bumped[] = cache.body("all", 2, false, () -> json("[3]", encodes));
+		
+		assertSame(first, second);
+		assertEquals("[3]", new String(bumped, StandardCharsets.UTF_8));
+		assertEquals(2, encodes.get());
+		assertEquals(3, cache.bytes());
+	}
+	
+	@Test
+	void bodyCompressesTheKeptJsonWithoutEncodingItAgain() throws IOException {
+		ResponseCache cache = new ResponseCache(1024);
+		AtomicInteger encodes = new AtomicInteger();
+		
+		cache.body("all", 1, false, () -> json("[\"a question\"]", encodes));
+		byte compressed[] = cache.body("all", 1, true, () -> json("[\"another question\"]", encodes));
+		
+		assertEquals(1, encodes.get());
+		assertSame(compressed, cache.body("all", 1, true, () -> json("[]", encodes)));
+		try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+			assertEquals("[\"a question\"]", new String(input.readAllBytes(), StandardCharsets.UTF_8));
+		}
+	}
+	
+	@Test
+	void bodyKeepsNothingForAnEmptyView() {
+		ResponseCache cache = new ResponseCache(1024);
+		
+		assertNull(cache.body("all", 1, true, () -> null));
+		assertEquals(0, cache.bytes());
+	}
+	
+	@Test
+	void bodyEvictsTheLeastRecentlyUsedViewsToStayWithinTheBudget() {
+		ResponseCache cache = new ResponseCache(10);
+		AtomicInteger encodes = new AtomicInteger();
+		
+		cache.body("Programming", 1, false, () -> json("1234", encodes));
+		cache.body("Networks", 1, false, () -> json("1234", encodes));
+		cache.body("Programming", 1, false, () -> json("1234", encodes)); // Networks is now the least recently used.
+		cache.body("DataStructures", 1, false, () -> json("1234", encodes));
+		assertEquals(3, encodes.get());
+		assertEquals(8, cache.bytes());
+		
+		cache.body("Programming", 1, false, () -> json("1234", encodes));
+		cache.body("Networks", 1, false, () -> json("1234", encodes));
+		assertEquals(4, encodes.get());
+		
+		// A body larger than the budget is returned without being kept.
+		assertEquals(11, cache.body("all", 1, false, () -> json("12345678901", encodes)).length);
+		assertEquals(8, cache.bytes());
+	}
+	
+	@Test
+	void bodyDoesNotReplaceANewerVersion() {
+		ResponseCache cache = new ResponseCache(1024);
+		AtomicInteger encodes = new AtomicInteger();
+		
+		cache.body("all", 2, false, () -> json("[2]", encodes));
+		assertEquals("[1]", new String(cache.body("all", 1, false, () -> json("[1]", encodes)), StandardCharsets.UTF_8));
+		assertEquals("[2]", new String(cache.body("all", 2, false, () -> json("[x]", encodes)), StandardCharsets.UTF_8));
+	}
+	
+	@Test
+	void bodyCountsHitsAndMisses() {
+		ResponseCache cache = new ResponseCache(1024);
+		AtomicInteger encodes = new AtomicInteger();
+		
+		cache.body("all", 1, false, () -> json("[1]", encodes));
+		cache.body("all", 1, false, () -> json("[1]", encodes));
+		cache.body("all", 1, true, () -> json("[1]", encodes)); // Compresses the kept JSON.
+		cache.body("all", 1, true, () -> json("[1]", encodes));
+		
+		assertEquals(2, cache.hits());
+		assertEquals(2, cache.misses());
+	}
+	
+	private static byte[] json(String text, AtomicInteger encodes) {
+		encodes.incrementAndGet();
+		return text.getBytes(StandardCharsets.UTF_8);
+	}
+}
@@ -1,5 +1,7 @@
 package com.cody.portfolio.domain;
 
+import java.util.UUID;
+
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -26,6 +28,20 @@ public class QuestionTest {
 		);
 	}
 	
+	@Test
+	void constructorThrowsExceptionOnNullId() {
+		assertThrows(IllegalArgumentException.class, () ->
+			new Question("a valid question", "a valid answer", null)
+		);
+	}
+	
+	@Test
+	void constructorKeepsAKnownId() {
+		UUID id = UUID.randomUUID();
+		
+		assertEquals(id, new Question("a valid question", "a valid answer", id).getID());
+	}
+	
 	@Test
 	void setQuestionThrowsExceptionOnNullQuestion() {
 		Question question = new Question("a valid question", "a valid answer");
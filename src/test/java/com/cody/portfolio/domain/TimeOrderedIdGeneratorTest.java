@@ -0,0 +1,82 @@
+package com.cody.portfolio.domain;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Unit tests for the TimeOrderedIdGenerator.
+ */
+public class TimeOrderedIdGeneratorTest {
+	
+	@ParameterizedTest
+	@ValueSource(ints = {-1, TimeOrderedIdGenerator.MAX_NODE + 1})
+	void constructorThrowsExceptionOnInvalidNode(int node) {
+		assertThrows(IllegalArgumentException.class, () -> new TimeOrderedIdGenerator(node));
+	}
+	
+	@Test
+	void idsAreVersion7UuidsThatParseBackAndCarryTheTimestampAndNode() {
+		UUID id = new TimeOrderedIdGenerator(5, () -> 1_700_000_000_000L).next();
+		
+		assertEquals(7, id.version());
+		assertEquals(2, id.variant());
+		assertEquals(id, UUID.fromString(id.toString()));
+		assertEquals(1_700_000_000_000L, id.getMostSignificantBits() >>> 16);
+		assertEquals(5, (id.getLeastSignificantBits() >>> 52) & TimeOrderedIdGenerator.MAX_NODE);
+	}
+	
+	@Test
+	void idsOfOneThreadIncreaseEvenWhenTheClockStepsBack() {
+		AtomicLong millis = new AtomicLong(1_000);
+		TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(0, millis::get);
+		
+		UUID previous = generator.next();
+		for (long step : new long[] {0, 1, 0, -5, 3, 0}) {
+			millis.addAndGet(step);
+			UUID next = generator.next();
+			assertTrue(next.compareTo(previous) > 0); // Every id shares the variant bits, so the signed comparison orders them.
+			previous = next;
+		}
+	}
+	
+	@Test
+	void idsAreUniqueAcrossThreadsInTheSameMillisecond() throws InterruptedException {
+		TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(0, () -> 1_000);
+		Set<UUID> ids = ConcurrentHashMap.newKeySet();
+		ArrayList<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 8; t++) {
+			Thread thread = new Thread(() -> {
+				for (int i = 0; i < 10_000; i++) ids.add(generator.next());
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) thread.join();
+		
+		assertEquals(80_000, ids.size());
+	}
+	
+	@Test
+	void threadTagsAreTheLowBitsOfTheThreadId() throws InterruptedException {
+		TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(0);
+		UUID[] id = new UUID[1];
+		Thread thread = new Thread(() -> id[0] = generator.next());
+		thread.start();
+		thread.join();
+		
+		assertEquals(thread.getId() & ((1 << 22) - 1), (id[0].getLeastSignificantBits() >>> 30) & ((1 << 22) - 1));
+	}
+	
+	@Test
+	void questionsCreatedWithoutAnIdGetATimeOrderedOne() {
+		assertEquals(7, new Question("a valid question", "a valid answer").getID().version());
+	}
+}
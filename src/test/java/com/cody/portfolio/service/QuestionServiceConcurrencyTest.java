@@ -0,0 +1,173 @@
+package com.cody.portfolio.service;
+
+import java.util.Set;
+import java.util.List;
+import java.util.UUID;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.nio.file.Path;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import com.cody.portfolio.domain.Question;
+import com.cody.portfolio.service.sorting.InsertionSortStrategy;
+import com.cody.portfolio.service.sorting.QuestionTypeComparator;
+import com.cody.portfolio.service.persistence.FileQuestionRepository;
+
+/**
+ * Multithreaded stress tests for the QuestionService service object.
+ */
+public class QuestionServiceConcurrencyTest {
+	private static final int THREADS = 8;
+	private static final int PER_THREAD = 500;
+	
+	@Test
+	void parallelInsertsAreNeitherLostNorStoredInTheSameSlot() throws Exception {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		
+		// A fixed capacity that fits exactly every insert; a slot claimed twice would make one insert fail.
+		QuestionService questionService = new QuestionService(insertionSort, THREADS * PER_THREAD);
+		
+		List<List<Question>> inserted = runInParallel(() -> {
+			List<Question> mine = new ArrayList<>();
+			for (int i = 0; i < PER_THREAD; i++) {
+				Question question = new Question("a valid question", "a valid answer");
+				question.setType(Question.Type.values()[i % Question.Type.values().length]);
+				assertTrue(questionService.setQuestion(question));
+				mine.add(question);
+			}
+			return mine;
+		});
+		
+		// Every question is retrievable by id and appears once in the list view.
+		for (List<Question> mine : inserted) {
+			for (Question question : mine) {
+				assertSame(question, questionService.getQuestion(question.getID()).orElseThrow());
+			}
+		}
+		Question[] all = questionService.getAll().orElseThrow();
+		Set<UUID> ids = Arrays.stream(all).map((Question question) -> question.getID()).collect(Collectors.toSet());
+		assertEquals(THREADS * PER_THREAD, all.length);
+		assertEquals(THREADS * PER_THREAD, ids.size());
+		
+		// The service is exactly full.
+		assertFalse(questionService.setQuestion(new Question("a valid question", "a valid answer")));
+	}
+	
+	@Test
+	void parallelInsertAndDeleteChurnKeepsTheFreeSlotsConsistent() throws Exception {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		int capacity = THREADS * 4;
+		QuestionService questionService = new QuestionService(insertionSort, capacity);
+		
+		// Each thread repeatedly stores and deletes its own questions, never holding more than 4 at once.
+		runInParallel(() -> {
+			for (int i = 0; i < PER_THREAD; i++) {
+				Question question = new Question("a valid question", "a valid answer");
+				question.setType(Question.Type.Programming);
+				assertTrue(questionService.setQuestion(question));
+				assertTrue(questionService.delete(question.getID()));
+			}
+			return null;
+		});
+		
+		assertEquals(0, questionService.size());
+		assertTrue(questionService.getAll().isEmpty());
+		
+		// A slot released twice would let the service accept more than its capacity.
+		for (int i = 0; i < capacity; i++) {
+			assertTrue(questionService.setQuestion(new Question("a valid question", "a valid answer")));
+		}
+		assertFalse(questionService.setQuestion(new Question("a valid question", "a valid answer")));
+	}
+	
+	@Test
+	void readersNeverSeeAPartiallyUpdatedTypeBucket() throws Exception {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		QuestionService questionService = new QuestionService(insertionSort);
+		
+		runInParallel(() -> {
+			for (int i = 0; i < PER_THREAD; i++) {
+				Question question = new Question("a valid question", "a valid answer");
+				question.setType(Question.Type.Networks);
+				questionService.setQuestion(question);
+				
+				// A reader must only ever observe fully stored Networks questions.
+				for (Question stored : questionService.getQuestions(Question.Type.Networks).orElseThrow()) {
+					assertNotNull(stored);
+					assertEquals(Question.Type.Networks, stored.getType());
+				}
+			}
+			return null;
+		});
+		
+		assertEquals(THREADS * PER_THREAD, questionService.getQuestions(Question.Type.Networks).orElseThrow().length);
+	}
+	
+	@Test
+	void durableWritesFromThousandsOfVirtualThreadsAreAllStored(@TempDir Path directory) throws Exception {
+		assumeTrue(Runtime.version().feature() >= 21, "Virtual threads need Java 21 or later.");
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		FileQuestionRepository repository = new FileQuestionRepository(directory);
+		QuestionService questionService = new QuestionService(insertionSort, repository);
+		int writers = 5000;
+		
+		// Far more writers than carrier threads wait on the write lock and the log flush at once.
+		ExecutorService executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		try {
+			List<Future<Boolean>> futures = new ArrayList<>();
+			for (int i = 0; i < writers; i++) {
+				futures.add(executor.submit(() -> questionService.setQuestion(new Question("a valid question", "a valid answer"))));
+			}
+			for (Future<Boolean> future : futures) {
+				assertTrue(future.get(30, TimeUnit.SECONDS));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		repository.close();
+		
+		repository = new FileQuestionRepository(directory);
+		assertEquals(writers, new QuestionService(insertionSort, repository).size());
+		repository.close();
+	}
+	
+	/**
+	 * Starts the task on every thread at the same time and waits for all of them.
+	 */
+	private static <T> List<T> runInParallel(Callable<T> task) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CyclicBarrier start = new CyclicBarrier(THREADS);
+		try {
+			List<Future<T>> futures = new ArrayList<>();
+			for (int i = 0; i < THREADS; i++) {
+				futures.add(executor.submit(() -> {
+					start.await();
+					return task.call();
+				}));
+			}
+			
+			List<T> results = new ArrayList<>();
+			for (Future<T> future : futures) {
+				results.add(future.get(30, TimeUnit.SECONDS));
+			}
+			return results;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -1,11 +1,19 @@
 package com.cody.portfolio.service;
 
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.Random;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.EnumSet;
+import java.util.TreeMap;
+import java.util.stream.Stream;
 import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
@@ -13,6 +21,16 @@ import org.junit.jupiter.params.provider.ValueSource;
 import com.cody.portfolio.domain.Question;
 import com.cody.portfolio.service.sorting.InsertionSortStrategy;
 import com.cody.portfolio.service.sorting.QuestionTypeComparator;
+import com.cody.portfolio.service.persistence.FileQuestionRepository;
+import com.cody.portfolio.service.persistence.InMemoryQuestionRepository;
+import com.cody.portfolio.service.persistence.ArenaQuestionRepository;
+import com.cody.portfolio.service.search.DuplicatePolicy;
+import com.cody.portfolio.service.grading.Grade;
+import com.cody.portfolio.service.stats.QuestionStats;
+import com.cody.portfolio.service.stats.StatsSnapshot;
+import com.cody.portfolio.service.metrics.QuestionMetrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 /**
  * Unit tests for the QuestionService service object.
@@ -42,13 +60,13 @@ public class QuestionServiceTest {
 	
 	@ParameterizedTest
 	@ValueSource(ints = {20})
-	void setQuestionReturnsFalseWhenTheInternalArrayIsFull(int defaultArraySize) {
+	void setQuestionReturnsFalseWhenTheInternalArrayIsFull(int fixedArraySize) {
 		QuestionTypeComparator comparator = new QuestionTypeComparator();
 		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
-		QuestionService questionService = new QuestionService(insertionSort);
+		QuestionService questionService = new QuestionService(insertionSort, fixedArraySize);
 		
 		// Fill the service.
-		for (int i = 0; i < defaultArraySize; i++) {
+		for (int i = 0; i < fixedArraySize; i++) {
 			Question question = new Question("a valid question", "a valid answer");
 			questionService.setQuestion(question);
 		}
@@ -58,6 +76,97 @@ public class QuestionServiceTest {
 		assertFalse(questionService.setQuestion(question));
 	}
 	
+	@ParameterizedTest
+	@ValueSource(ints = {20})
+	void setQuestionGrowsPastTheDefaultCapacity(int defaultArraySize) {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		QuestionService questionService = new QuestionService(insertionSort);
+		
+		// Store more questions than the initial capacity.
+		for (int i = 0; i < defaultArraySize * 3; i++) {
+			Question question = new Question("a valid question", "a valid answer");
+			assertTrue(questionService.setQuestion(question));
+		}
+		
+		assertEquals(defaultArraySize * 3, questionService.size());
+	}
+	
+	@Test
+	void setQuestionReturnsFalseWhenTheQuestionIsAlreadyStored() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		QuestionService questionService = new QuestionService(insertionSort);
+		Question question = new Question("a valid question", "a valid answer");
+		
+		questionService.setQuestion(question);
+		assertFalse(questionService.setQuestion(question));
+		assertEquals(1, questionService.size());
+	}
+	
+	@Test
+	void setQuestionThrowsExceptionOnNullQuestion() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		QuestionService questionService = new QuestionService(insertionSort);
+		
+		assertThrows(IllegalArgumentException.class, () ->
+			questionService.setQuestion(null)
+		);
+	}
+	
+	@Test
+	void setQuestionsStoresABatchAsOneWrite() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		QuestionService questionService = new QuestionService(insertionSort);
+		Question.Type[] types = Question.Type.values();
+		Question[] batch = new Question[types.length];
+		
+		// Build the batch in reverse enum order.
+		for (int i = 0; i < types.length; i++) {
+			batch[i] = new Question("a valid question", "a valid answer");
+			batch[i].setType(types[types.length - 1 - i]);
+			batch[i].setDifficulty(Question.Difficulty.Easy);
+		}
+		long version = questionService.version();
+		
+		StoreOutcome[] stored = questionService.setQuestions(batch);
+		
+		assertTrue(Arrays.stream(stored).allMatch(StoreOutcome::stored));
+		assertEquals(version + 1, questionService.version());
+		assertEquals(types[0], questionService.getAll().orElseThrow()[0].getType());
+		assertArrayEquals(new Question[] {batch[0]}, questionService.getQuestions(types[types.length - 1], Question.Difficulty.Easy).orElseThrow());
+	}
+	
+	@Test
+	void setQuestionsRejectsRepeatsAndQuestionsBeyondTheCapacity() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		QuestionService questionService = new QuestionService(insertionSort, 2);
+		Question stored = new Question("q1", "a1");
+		Question repeated = new Question("q2", "a2");
+		Question overflow = new Question("q3", "a3");
+		questionService.setQuestion(stored);
+		
+		StoreOutcome[] results = questionService.setQuestions(new Question[] {stored, repeated, repeated, overflow});
+		
+		assertArrayEquals(new StoreOutcome[] {StoreOutcome.STORED_ID, StoreOutcome.STORED, StoreOutcome.FULL, StoreOutcome.FULL}, results);
+		assertEquals(2, questionService.size());
+	}
+	
+	@Test
+	void setQuestionsThrowsExceptionAndStoresNothingWhenTheBatchContainsNull() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		QuestionService questionService = new QuestionService(insertionSort);
+		
+		assertThrows(IllegalArgumentException.class, () ->
+			questionService.setQuestions(new Question[] {new Question("q1", "a1"), null})
+		);
+		assertEquals(0, questionService.size());
+	}
+	
 	@Test
 	void getQuestionReturnsTheCorrectQuestionByUUID() {
 		QuestionTypeComparator comparator = new QuestionTypeComparator();
@@ -76,6 +185,16 @@ public class QuestionServiceTest {
 		assertEquals(question, questionService.getQuestion(id).orElseThrow());
 	}
 	
+	@Test
+	void getQuestionReturnsEmptyWhenTheUUIDIsNotStored() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		QuestionService questionService = new QuestionService(insertionSort);
+		questionService.setQuestion(new Question("a valid question", "a valid answer"));
+		
+		assertTrue(questionService.getQuestion(UUID.randomUUID()).isEmpty());
+	}
+	
 	@Test
 	void sortMethodThroughGetQuestionsMethodReturnsQuestionsOfTheMatchingTypesByInsertionOrder() {
 		QuestionTypeComparator comparator = new QuestionTypeComparator();
@@ -104,6 +223,63 @@ public class QuestionServiceTest {
 		assertArrayEquals(insertionOrder, stored);
 	}
 	
+	@Test
+	void getQuestionsReturnsEmptyWhenNoQuestionsOfTheTypeAreStored() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		QuestionService questionService = new QuestionService(insertionSort);
+		
+		Question question = new Question("a valid question", "a valid answer");
+		question.setType(Question.Type.Programming);
+		questionService.setQuestion(question);
+		
+		assertTrue(questionService.getQuestions(Question.Type.Networks).isEmpty());
+	}
+	
+	@Test
+	void getQuestionsNoLongerReturnsADeletedQuestion() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		QuestionService questionService = new QuestionService(insertionSort);
+		Question.Type type = Question.Type.Programming;
+		
+		Question q1 = new Question("q1", "a1");
+		q1.setType(type);
+		questionService.setQuestion(q1);
+		
+		Question q2 = new Question("q2", "a2");
+		q2.setType(type);
+		questionService.setQuestion(q2);
+		
+		questionService.delete(q1.getID());
+		
+		assertArrayEquals(new Question[] {q2}, questionService.getQuestions(type).orElseThrow());
+	}
+	
+	@Test
+	void getQuestionsByTypeAndDifficultyReturnsOnlyQuestionsMatchingBoth() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		QuestionService questionService = new QuestionService(insertionSort);
+		
+		// Store one question for every Type and Difficulty pair.
+		for (Question.Type type : Question.Type.values()) {
+			for (Question.Difficulty difficulty : Question.Difficulty.values()) {
+				Question question = new Question("a valid question", "a valid answer");
+				question.setType(type);
+				question.setDifficulty(difficulty);
+				questionService.setQuestion(question);
+			}
+		}
+		
+		Question[] stored = questionService.getQuestions(Question.Type.DiscreteMath, Question.Difficulty.Medium).orElseThrow();
+		
+		assertEquals(1, stored.length);
+		assertEquals(Question.Type.DiscreteMath, stored[0].getType());
+		assertEquals(Question.Difficulty.Medium, stored[0].getDifficulty());
+		assertEquals(Question.Difficulty.values().length, questionService.getQuestions(Question.Type.DiscreteMath).orElseThrow().length);
+	}
+	
 	@Test
 	void getAllReturnsQuestionsForAllUniqueTypes() {
 		QuestionTypeComparator comparator = new QuestionTypeComparator();
@@ -132,6 +308,171 @@ public class QuestionServiceTest {
 		assertEquals(questionServiceStoredTypes, enumTypes);
 	}
 	
+	@Test
+	void getAllReturnsTheSortedSnapshotWithoutCopyingBetweenWrites() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		QuestionService questionService = new QuestionService(insertionSort);
+		Question.Type[] types = Question.Type.values();
+		
+		// Store in reverse enum order.
+		for (int i = types.length - 1; i >= 0; i--) {
+			Question question = new Question("a valid question", "a valid answer");
+			question.setType(types[i]);
+			questionService.setQuestion(question);
+		}
+		
+		Question[] first = questionService.getAll().orElseThrow();
+		Question.Type[] sortedTypes = Arrays.stream(first)
+		                                    .map((Question question) -> question.getType())
+		                                    .toArray((int arraySize) -> new Question.Type[arraySize]);
+		
+		assertArrayEquals(types, sortedTypes);
+		assertSame(first, questionService.getAll().orElseThrow());
+		
+		// A write publishes a new snapshot.
+		questionService.delete(first[0].getID());
+		assertNotSame(first, questionService.getAll().orElseThrow());
+		assertEquals(types.length - 1, questionService.getAll().orElseThrow().length);
+	}
+	
+	@Test
+	void versionIncreasesWithEverySuccessfulWrite() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		QuestionService questionService = new QuestionService(insertionSort);
+		Question question = new Question("a valid question", "a valid answer");
+		long initial = questionService.version();
+		
+		questionService.setQuestion(question);
+		assertEquals(initial + 1, questionService.version());
+		
+		// Rejected writes leave the version alone.
+		questionService.setQuestion(question);
+		questionService.delete(UUID.randomUUID());
+		assertEquals(initial + 1, questionService.version());
+		
+		questionService.delete(question.getID());
+		assertEquals(initial + 2, questionService.version());
+	}
+	
+	@Test
+	void setQuestionStoresQuestionsTheComparatorCannotOrder() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		QuestionService questionService = new QuestionService(insertionSort);
+		Question untyped = new Question("q1", "a1");
+		Question typed = new Question("q2", "a2");
+		typed.setType(Question.Type.Networks);
+		
+		assertTrue(questionService.setQuestion(untyped));
+		assertTrue(questionService.setQuestion(typed));
+		assertEquals(2, questionService.size());
+		assertArrayEquals(new Question[] {typed}, questionService.getQuestions(Question.Type.Networks).orElseThrow());
+		
+		// Once the untyped question is gone the snapshot is sorted again.
+		questionService.delete(untyped.getID());
+		assertArrayEquals(new Question[] {typed}, questionService.getAll().orElseThrow());
+	}
+	
+	@Test
+	void getAllPageWalksEveryQuestionInInsertionOrder() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		QuestionService questionService = new QuestionService(insertionSort);
+		Question[] inserted = new Question[7];
+		for (int i = 0; i < inserted.length; i++) {
+			inserted[i] = new Question("q" + i, "a" + i);
+			inserted[i].setType(Question.Type.values()[(inserted.length - i) % Question.Type.values().length]);
+			questionService.setQuestion(inserted[i]);
+		}
+		
+		QuestionPage first = questionService.getAllPage(null, 3);
+		QuestionPage second = questionService.getAllPage(first.next(), 3);
+		QuestionPage third = questionService.getAllPage(second.next(), 3);
+		
+		assertArrayEquals(Arrays.copyOfRange(inserted, 0, 3), first.questions());
+		assertArrayEquals(Arrays.copyOfRange(inserted, 3, 6), second.questions());
+		assertArrayEquals(Arrays.copyOfRange(inserted, 6, 7), third.questions());
+		assertNull(third.next());
+	}
+	
+	@Test
+	void getQuestionsPageCursorSurvivesDeletesAndInserts() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		QuestionService questionService = new QuestionService(insertionSort);
+		Question.Type type = Question.Type.Programming;
+		Question[] inserted = new Question[4];
+		for (int i = 0; i < inserted.length; i++) {
+			inserted[i] = new Question("q" + i, "a" + i);
+			inserted[i].setType(type);
+			questionService.setQuestion(inserted[i]);
+		}
+		
+		QuestionPage first = questionService.getQuestionsPage(type, null, 2);
+		
+		// Delete the last question of the page and store a new one before reading on.
+		questionService.delete(inserted[1].getID());
+		Question later = new Question("q4", "a4");
+		later.setType(type);
+		questionService.setQuestion(later);
+		
+		QuestionPage second = questionService.getQuestionsPage(type, first.next(), 10);
+		
+		assertArrayEquals(new Question[] {inserted[2], inserted[3], later}, second.questions());
+		assertNull(second.next());
+	}
+	
+	@ParameterizedTest
+	@ValueSource(ints = {0, QuestionService.MAX_PAGE_SIZE + 1})
+	void getAllPageThrowsExceptionOnALimitOutOfRange(int invalidLimit) {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		QuestionService questionService = new QuestionService(insertionSort);
+		
+		assertThrows(IllegalArgumentException.class, () ->
+			questionService.getAllPage(null, invalidLimit)
+		);
+	}
+	
+	@ParameterizedTest
+	@ValueSource(strings = {"not a cursor", "AAAA"})
+	void getAllPageThrowsExceptionOnAnInvalidCursor(String invalidCursor) {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		QuestionService questionService = new QuestionService(insertionSort);
+		
+		assertThrows(IllegalArgumentException.class, () ->
+			questionService.getAllPage(invalidCursor, 10)
+		);
+	}
+	
+	@Test
+	void streamAppliesTheOptionalFiltersAndIgnoresLaterWrites() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		QuestionService questionService = new QuestionService(insertionSort);
+		for (Question.Type type : Question.Type.values()) {
+			for (Question.Difficulty difficulty : Question.Difficulty.values()) {
+				Question question = new Question("a valid question", "a valid answer");
+				question.setType(type);
+				question.setDifficulty(difficulty);
+				questionService.setQuestion(question);
+			}
+		}
+		int types = Question.Type.values().length;
+		int difficulties = Question.Difficulty.values().length;
+		
+		Stream<Question> all = questionService.stream(null, null);
+		questionService.setQuestion(new Question("a later question", "a later answer"));
+		
+		assertEquals(types * difficulties, all.count());
+		assertEquals(difficulties, questionService.stream(Question.Type.Networks, null).count());
+		assertEquals(types, questionService.stream(null, Question.Difficulty.Hard).count());
+		assertEquals(1, questionService.stream(Question.Type.Networks, Question.Difficulty.Hard).count());
+	}
+	
 	@Test
 	void deleteReturnsTrueWhenAQuestionIsDeletedFromTheService() {
 		QuestionTypeComparator comparator = new QuestionTypeComparator();
@@ -143,4 +484,687 @@ public class QuestionServiceTest {
 		questionService.setQuestion(question);
 		assertTrue(questionService.delete(id));
 	}
+	
+	@Test
+	void deleteAfterAnEarlierDeleteAndOnAPartiallyFilledServiceDoesNotThrow() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		QuestionService questionService = new QuestionService(insertionSort, 5);
+		Question first = new Question("q1", "a1");
+		Question second = new Question("q2", "a2");
+		Question third = new Question("q3", "a3");
+		questionService.setQuestions(new Question[] {first, second, third});
+		
+		// The freed slot sits between stored Questions, and two slots were never used.
+		assertTrue(questionService.delete(second.getID()));
+		assertFalse(questionService.delete(second.getID()));
+		assertFalse(questionService.delete(UUID.randomUUID()));
+		assertTrue(questionService.delete(third.getID()));
+		assertTrue(questionService.delete(first.getID()));
+		assertEquals(0, questionService.size());
+	}
+	
+	@Test
+	void nullIdsAreNotFound() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		QuestionService questionService = new QuestionService(insertionSort);
+		questionService.setQuestion(new Question("q1", "a1"));
+		
+		assertTrue(questionService.getQuestion(null).isEmpty());
+		assertFalse(questionService.edit(null, "q2", null));
+		assertFalse(questionService.delete(null));
+	}
+	
+	@Test
+	void insertAndDeleteChurnReusesFreedSlots() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		QuestionService questionService = new QuestionService(insertionSort);
+		Question[] stored = new Question[10];
+		for (int i = 0; i < stored.length; i++) {
+			stored[i] = new Question("q" + i, "a" + i);
+		}
+		questionService.setQuestions(stored);
+		int capacity = questionService.capacity();
+		
+		for (int round = 0; round < 1000; round++) {
+			int victim = round % stored.length;
+			assertTrue(questionService.delete(stored[victim].getID()));
+			stored[victim] = new Question("q" + round, "a" + round);
+			assertTrue(questionService.setQuestion(stored[victim]));
+		}
+		
+		assertEquals(stored.length, questionService.size());
+		assertEquals(capacity, questionService.capacity());
+		for (Question question : stored) {
+			assertSame(question, questionService.getQuestion(question.getID()).orElseThrow());
+		}
+	}
+	
+	@Test
+	void deleteFreesTheSlotForTheNextQuestionInAFullService() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		QuestionService questionService = new QuestionService(insertionSort, 1);
+		Question first = new Question("q1", "a1");
+		Question second = new Question("q2", "a2");
+		
+		questionService.setQuestion(first);
+		assertFalse(questionService.setQuestion(second));
+		
+		// Deleting releases the only slot.
+		assertTrue(questionService.delete(first.getID()));
+		assertTrue(questionService.setQuestion(second));
+		assertTrue(questionService.getQuestion(first.getID()).isEmpty());
+		assertEquals(second, questionService.getQuestion(second.getID()).orElseThrow());
+	}
+	
+	@Test
+	void constructorLoadsTheQuestionsStoredInTheRepository(@TempDir Path directory) {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		Question kept = new Question("a kept question", "a kept answer");
+		kept.setType(Question.Type.Programming);
+		kept.setDifficulty(Question.Difficulty.Easy);
+		Question deleted = new Question("a deleted question", "a deleted answer");
+		
+		FileQuestionRepository repository = new FileQuestionRepository(directory);
+		QuestionService questionService = new QuestionService(insertionSort, repository);
+		questionService.setQuestions(new Question[] {kept, deleted});
+		questionService.delete(deleted.getID());
+		repository.close();
+		
+		// Start again from the same directory, as after a restart.
+		repository = new FileQuestionRepository(directory);
+		QuestionService restarted = new QuestionService(insertionSort, repository);
+		assertEquals(1, restarted.size());
+		assertEquals("a kept question", restarted.getQuestion(kept.getID()).orElseThrow().getQuestion());
+		assertEquals(1, restarted.getQuestions(Question.Type.Programming, Question.Difficulty.Easy).orElseThrow().length);
+		assertTrue(restarted.getQuestion(deleted.getID()).isEmpty());
+		repository.close();
+	}
+	
+	@Test
+	void constructorLoadsQuestionsAcrossACheckpoint(@TempDir Path directory) {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		
+		FileQuestionRepository repository = new FileQuestionRepository(directory, 3);
+		QuestionService questionService = new QuestionService(insertionSort, repository);
+		for (int i = 0; i < 10; i++) {
+			Question question = new Question("question " + i, "answer " + i);
+			question.setType(Question.Type.Programming);
+			questionService.setQuestion(question);
+		}
+		repository.close();
+		
+		repository = new FileQuestionRepository(directory, 3);
+		QuestionService restarted = new QuestionService(insertionSort, repository);
+		Question[] loaded = restarted.getAllPage(null, 10).questions();
+		assertEquals(10, loaded.length);
+		for (int i = 0; i < 10; i++) {
+			assertEquals("question " + i, loaded[i].getQuestion());
+		}
+		repository.close();
+	}
+	
+	@Test
+	void serviceBackedByAnArenaHoldsViewsAndReloadsThem(@TempDir Path directory) {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		Question question = new Question("a valid question", "a valid answer");
+		question.setType(Question.Type.SoftwareEngineering);
+		
+		ArenaQuestionRepository repository = new ArenaQuestionRepository(directory);
+		QuestionService questionService = new QuestionService(insertionSort, repository);
+		assertTrue(questionService.setQuestion(question));
+		
+		// The service holds a view of the arena record rather than the caller's object.
+		Question held = questionService.getQuestion(question.getID()).orElseThrow();
+		assertNotSame(question, held);
+		assertEquals("a valid question", held.getQuestion());
+		assertTrue(questionService.delete(question.getID()));
+		assertTrue(questionService.setQuestion(new Question("another question", "another answer")));
+		repository.close();
+		
+		repository = new ArenaQuestionRepository(directory);
+		QuestionService restarted = new QuestionService(insertionSort, repository);
+		assertEquals(1, restarted.size());
+		assertEquals("another question", restarted.getAll().orElseThrow()[0].getQuestion());
+		repository.close();
+	}
+	
+	@Test
+	void sampleDrawsDistinctQuestionsMatchingTheFilters() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		QuestionService questionService = new QuestionService(insertionSort);
+		for (int i = 0; i < 60; i++) {
+			Question question = new Question("question " + i, "answer " + i);
+			question.setType(Question.Type.values()[i % 3]);
+			question.setDifficulty(Question.Difficulty.values()[i % Question.Difficulty.values().length]);
+			questionService.setQuestion(question);
+		}
+		Set<Question.Type> types = EnumSet.of(Question.Type.values()[0], Question.Type.values()[2]);
+		Set<Question.Difficulty> difficulties = EnumSet.of(Question.Difficulty.values()[0]);
+		int matching = (int) questionService.stream(null, null)
+			.filter((Question question) -> types.contains(question.getType()) && difficulties.contains(question.getDifficulty()))
+			.count();
+		
+		Question[] quiz = questionService.sample(types, difficulties, matching, new Random(7));
+		
+		assertEquals(matching, quiz.length);
+		assertEquals(matching, Arrays.stream(quiz).map(Question::getID).distinct().count());
+		for (Question question : quiz) {
+			assertTrue(types.contains(question.getType()));
+			assertTrue(difficulties.contains(question.getDifficulty()));
+		}
+	}
+	
+	@Test
+	void sampleDrawsTheSameQuizForTheSameSeed() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		QuestionService questionService = new QuestionService(insertionSort);
+		for (int i = 0; i < 100; i++) {
+			questionService.setQuestion(new Question("question " + i, "answer " + i));
+		}
+		
+		Question[] first = questionService.sample(null, null, 10, new Random(42));
+		Question[] second = questionService.sample(null, null, 10, new Random(42));
+		
+		assertArrayEquals(first, second);
+	}
+	
+	@Test
+	void sampleReachesEveryQuestion() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		QuestionService questionService = new QuestionService(insertionSort);
+		for (int i = 0; i < 10; i++) {
+			Question question = new Question("question " + i, "answer " + i);
+			question.setType(Question.Type.values()[i % Question.Type.values().length]);
+			questionService.setQuestion(question);
+		}
+		
+		Random random = new Random(1);
+		Set<Question> drawn = new HashSet<>();
+		for (int i = 0; i < 200; i++) {
+			drawn.add(questionService.sample(EnumSet.allOf(Question.Type.class), null, 1, random)[0]);
+		}
+		assertEquals(10, drawn.size());
+	}
+	
+	@Test
+	void sampleByTypeDrawsTheCountOfEachType() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		QuestionService questionService = new QuestionService(insertionSort);
+		for (int i = 0; i < 60; i++) {
+			Question question = new Question("question " + i, "answer " + i);
+			question.setType(Question.Type.values()[i % 3]);
+			question.setDifficulty(Question.Difficulty.values()[(i / 3) % Question.Difficulty.values().length]);
+			questionService.setQuestion(question);
+		}
+		Map<Question.Type, Integer> typeCounts = Map.of(Question.Type.values()[0], 3, Question.Type.values()[2], 1);
+		
+		Question[] quiz = questionService.sampleByType(typeCounts, EnumSet.of(Question.Difficulty.Easy), new Random(7));
+		
+		assertEquals(4, Arrays.stream(quiz).map(Question::getID).distinct().count());
+		assertEquals(3, Arrays.stream(quiz).filter((Question question) -> question.getType() == Question.Type.values()[0]).count());
+		assertEquals(1, Arrays.stream(quiz).filter((Question question) -> question.getType() == Question.Type.values()[2]).count());
+		assertTrue(Arrays.stream(quiz).allMatch((Question question) -> question.getDifficulty() == Question.Difficulty.Easy));
+		assertArrayEquals(quiz, questionService.sampleByType(new TreeMap<>(typeCounts), EnumSet.of(Question.Difficulty.Easy), new Random(7)));
+		
+		Question[] byDifficulty = questionService.sampleByDifficulty(Map.of(Question.Difficulty.Hard, 15), null, new Random(7));
+		assertEquals(15, Arrays.stream(byDifficulty).map(Question::getID).distinct().count());
+		assertTrue(Arrays.stream(byDifficulty).allMatch((Question question) -> question.getDifficulty() == Question.Difficulty.Hard));
+	}
+	
+	@Test
+	void sampleByTypeThrowsExceptionOnAnInvalidMixOrATypeItCannotFill() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		QuestionService questionService = new QuestionService(insertionSort);
+		for (int i = 0; i < 5; i++) {
+			Question question = new Question("question " + i, "answer " + i);
+			question.setType(Question.Type.Programming);
+			questionService.setQuestion(question);
+		}
+		
+		assertThrows(IllegalArgumentException.class, () -> questionService.sampleByType(null, null, new Random()));
+		assertThrows(IllegalArgumentException.class, () -> questionService.sampleByType(Map.of(), null, new Random()));
+		assertThrows(IllegalArgumentException.class, () -> questionService.sampleByType(Map.of(Question.Type.Programming, -1, Question.Type.Networks, 2), null, new Random()));
+		assertThrows(IllegalArgumentException.class, () -> questionService.sampleByType(Map.of(Question.Type.Programming, QuestionService.MAX_PAGE_SIZE + 1), null, new Random()));
+		assertThrows(IllegalArgumentException.class, () -> questionService.sampleByType(Map.of(Question.Type.Programming, 2, Question.Type.Networks, 1), null, new Random()));
+		assertEquals(5, questionService.sampleByType(Map.of(Question.Type.Programming, 5, Question.Type.Networks, 0), null, new Random()).length);
+	}
+	
+	@ParameterizedTest
+	@ValueSource(ints = {0, 6, QuestionService.MAX_PAGE_SIZE + 1})
+	void sampleThrowsExceptionWhenTheCountCannotBeFilled(int invalidCount) {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		QuestionService questionService = new QuestionService(insertionSort);
+		for (int i = 0; i < 5; i++) {
+			questionService.setQuestion(new Question("question " + i, "answer " + i));
+		}
+		
+		assertThrows(IllegalArgumentException.class, () ->
+			questionService.sample(null, null, invalidCount, new Random())
+		);
+	}
+	
+	@Test
+	void searchFindsQuestionsByTheirCurrentText() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		QuestionService questionService = new QuestionService(insertionSort);
+		Question edited = new Question("What is a stack?", "Last in first out");
+		Question deleted = new Question("What is a queue?", "First in first out");
+		questionService.setQuestions(new Question[] {edited, deleted});
+		long version = questionService.version();
+		
+		assertTrue(questionService.edit(edited.getID(), "What is a heap?", null));
+		assertTrue(questionService.delete(deleted.getID()));
+		
+		Question stored = questionService.getQuestion(edited.getID()).orElseThrow();
+		assertEquals(version + 2, questionService.version());
+		assertEquals(0, questionService.search("stack", null, 10).questions().length);
+		assertEquals(0, questionService.search("queue", null, 10).questions().length);
+		assertArrayEquals(new Question[] {stored}, questionService.search("heap", null, 10).questions());
+		assertArrayEquals(new Question[] {stored}, questionService.search("FIRST out", null, 10).questions());
+	}
+	
+	@Test
+	void searchPagesWithTheNextCursor() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		QuestionService questionService = new QuestionService(insertionSort);
+		for (int i = 0; i < 5; i++) {
+			questionService.setQuestion(new Question("question " + i, "answer"));
+		}
+		
+		QuestionPage first = questionService.search("answer", null, 3);
+		QuestionPage second = questionService.search("answer", first.next(), 3);
+		
+		assertEquals(3, first.questions().length);
+		assertEquals(2, second.questions().length);
+		assertNull(second.next());
+		assertEquals("question 3", second.questions()[0].getQuestion());
+	}
+	
+	@Test
+	void editReturnsFalseForAnUnknownIdAndThrowsExceptionOnBlankText() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		QuestionService questionService = new QuestionService(insertionSort);
+		Question question = new Question("a valid question", "a valid answer");
+		questionService.setQuestion(question);
+		
+		assertFalse(questionService.edit(UUID.randomUUID(), "a new question", null));
+		assertThrows(IllegalArgumentException.class, () -> questionService.edit(question.getID(), null, null));
+		assertThrows(IllegalArgumentException.class, () -> questionService.edit(question.getID(), "a new question", " "));
+		assertEquals("a valid question", question.getQuestion());
+	}
+	
+	@Test
+	void editReplacesTheQuestionWithAnEditedCopyEverywhere() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		QuestionService questionService = new QuestionService(insertionSort);
+		Question first = new Question("What is a stack?", "Last in first out");
+		first.setType(Question.Type.DataStructures);
+		first.setDifficulty(Question.Difficulty.Easy);
+		Question second = new Question("What is a queue?", "First in first out");
+		second.setType(Question.Type.DataStructures);
+		questionService.setQuestions(new Question[] {first, second});
+		
+		assertTrue(questionService.edit(first.getID(), null, "LIFO"));
+		
+		// A reader holding the stored Question still sees the text it had.
+		assertEquals("Last in first out", first.getAnswer());
+		Question edited = questionService.getQuestion(first.getID()).orElseThrow();
+		assertNotSame(first, edited);
+		assertEquals("What is a stack?", edited.getQuestion());
+		assertEquals("LIFO", edited.getAnswer());
+		assertEquals(Question.Type.DataStructures, edited.getType());
+		assertEquals(Question.Difficulty.Easy, edited.getDifficulty());
+		assertArrayEquals(new Question[] {edited, second}, questionService.getAll().orElseThrow());
+		assertArrayEquals(new Question[] {edited, second}, questionService.getQuestions(Question.Type.DataStructures).orElseThrow());
+		assertArrayEquals(new Question[] {edited}, questionService.getQuestions(Question.Type.DataStructures, Question.Difficulty.Easy).orElseThrow());
+		assertArrayEquals(new Question[] {edited, second}, questionService.getAllPage(null, 10).questions());
+		
+		assertTrue(questionService.delete(first.getID()));
+		assertArrayEquals(new Question[] {second}, questionService.getAll().orElseThrow());
+	}
+	
+	@Test
+	void gradeGradesEachAnswerInOrderAndFollowsEdits() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		QuestionService questionService = new QuestionService(insertionSort);
+		Question first = new Question("a valid question", "Depth-first search");
+		Question second = new Question("another valid question", "O(1)");
+		questionService.setQuestion(first);
+		questionService.setQuestion(second);
+		
+		UUID[] ids = {first.getID(), second.getID(), UUID.randomUUID(), null};
+		assertArrayEquals(new Grade[] {Grade.CORRECT, Grade.INCORRECT, Grade.UNKNOWN, Grade.UNKNOWN},
+			questionService.grade(ids, new String[] {"depth first SEARCH", "O(n)", "x", "x"}, 0));
+		assertEquals(Grade.CORRECT, questionService.grade(ids, new String[] {"depth frist search", "o 1", null, null}, 2)[0]);
+		
+		questionService.edit(second.getID(), null, "O(n)");
+		assertEquals(Grade.CORRECT, questionService.grade(ids, new String[] {null, "o(N)", null, null}, 0)[1]);
+		assertEquals(Grade.INCORRECT, questionService.grade(ids, new String[] {null, "O(1)", null, null}, 0)[1]);
+	}
+	
+	@Test
+	void gradeUsesTheAnswerKeysAnArenaKeepsAcrossEditsAndReopening(@TempDir Path directory) {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		Question first = new Question("a valid question", "Depth-first search");
+		Question second = new Question("another valid question", "?");
+		
+		ArenaQuestionRepository repository = new ArenaQuestionRepository(directory);
+		QuestionService questionService = new QuestionService(insertionSort, repository);
+		questionService.setQuestion(first);
+		questionService.setQuestion(second);
+		UUID[] ids = {first.getID(), second.getID()};
+		assertArrayEquals(new Grade[] {Grade.CORRECT, Grade.CORRECT}, questionService.grade(ids, new String[] {"depth first SEARCH", "?"}, 0));
+		assertArrayEquals(new Grade[] {Grade.CORRECT, Grade.INCORRECT}, questionService.grade(ids, new String[] {"depth frist search", "!"}, 2));
+		
+		questionService.edit(first.getID(), null, "Breadth-first search");
+		assertEquals(Grade.INCORRECT, questionService.grade(ids, new String[] {"depth first search", null}, 0)[0]);
+		repository.close();
+		
+		repository = new ArenaQuestionRepository(directory);
+		QuestionService restarted = new QuestionService(insertionSort, repository);
+		assertArrayEquals(new Grade[] {Grade.CORRECT, Grade.CORRECT}, restarted.grade(ids, new String[] {"breadth first search", " ? "}, 0));
+		assertEquals(Grade.INCORRECT, restarted.grade(ids, new String[] {null, "."}, 0)[1]);
+		repository.close();
+	}
+	
+	@Test
+	void gradeThrowsExceptionOnMismatchedOrOversizedBatches() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		QuestionService questionService = new QuestionService(insertionSort);
+		
+		assertThrows(IllegalArgumentException.class, () -> questionService.grade(new UUID[1], new String[2], 0));
+		assertThrows(IllegalArgumentException.class, () -> questionService.grade(null, new String[0], 0));
+		assertThrows(IllegalArgumentException.class, () -> questionService.grade(new UUID[0], new String[0], -1));
+		int oversized = QuestionService.MAX_GRADE_SIZE + 1;
+		assertThrows(IllegalArgumentException.class, () -> questionService.grade(new UUID[oversized], new String[oversized], 0));
+	}
+	
+	@Test
+	void statsCountServesAttemptsAndAnswerTimeAcrossEdits() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		QuestionService questionService = new QuestionService(insertionSort);
+		Question question = new Question("a valid question", "a valid answer");
+		questionService.setQuestion(question);
+		UUID[] ids = {question.getID()};
+		
+		questionService.getQuestion(question.getID());
+		questionService.sample(null, null, 1, new Random(42));
+		questionService.grade(ids, new String[] {"a valid answer"}, new long[] {1000}, 0);
+		questionService.edit(question.getID(), null, "an edited answer");
+		questionService.grade(ids, new String[] {"a valid answer"}, new long[] {3000}, 0);
+		questionService.grade(ids, new String[] {"an edited answer"}, 0);
+		
+		QuestionStats stats = questionService.getStats(question.getID()).orElseThrow();
+		assertEquals(2, stats.served());
+		assertEquals(3, stats.attempts());
+		assertEquals(2, stats.correct());
+		assertEquals(2.0 / 3, stats.correctRate(), 1e-9);
+		assertEquals(2000, stats.averageAnswerMillis(), 1e-9); // The attempt without a time is not averaged.
+		assertTrue(questionService.getStats(UUID.randomUUID()).isEmpty());
+	}
+	
+	@Test
+	void refreshStatsPublishesOnlyUsedQuestionsMostAttemptedFirst() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		QuestionService questionService = new QuestionService(insertionSort);
+		Question unused = new Question("an unused question", "an answer");
+		Question once = new Question("a question answered once", "an answer");
+		Question twice = new Question("a question answered twice", "an answer");
+		questionService.setQuestions(new Question[] {unused, once, twice});
+		assertSame(StatsSnapshot.EMPTY, questionService.getStatsSnapshot());
+		
+		questionService.grade(new UUID[] {once.getID(), twice.getID(), twice.getID()}, new String[] {"x", "an answer", "y"}, 0);
+		StatsSnapshot snapshot = questionService.refreshStats();
+		
+		assertSame(snapshot, questionService.getStatsSnapshot());
+		assertTrue(snapshot.takenAt() > 0);
+		assertEquals(2, snapshot.questions().length);
+		assertEquals(twice.getID(), snapshot.questions()[0].id());
+		assertEquals(once.getID(), snapshot.questions()[1].id());
+	}
+	
+	@Test
+	void editIsReplayedFromTheRepository(@TempDir Path directory) {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		Question question = new Question("a valid question", "a valid answer");
+		
+		FileQuestionRepository repository = new FileQuestionRepository(directory);
+		QuestionService questionService = new QuestionService(insertionSort, repository);
+		questionService.setQuestion(question);
+		questionService.edit(question.getID(), null, "an edited answer");
+		repository.close();
+		
+		repository = new FileQuestionRepository(directory);
+		QuestionService restarted = new QuestionService(insertionSort, repository);
+		assertEquals("an edited answer", restarted.getQuestion(question.getID()).orElseThrow().getAnswer());
+		assertEquals(1, restarted.search("edited", null, 10).questions().length);
+		repository.close();
+	}
+	
+	@Test
+	void setQuestionThrowsExceptionOnANearDuplicateWhenTheyAreRejected() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		QuestionService questionService = new QuestionService(insertionSort, new InMemoryQuestionRepository(), new DuplicatePolicy(DuplicatePolicy.Action.REJECT, 0.7));
+		Question stored = new Question("What is the time complexity of a binary search on a sorted array?", "O(log n)");
+		questionService.setQuestion(stored);
+		
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () ->
+			questionService.setQuestion(new Question("What's the time complexity of binary search on a sorted array?", "Logarithmic"))
+		);
+		assertEquals("The question is a near-duplicate of " + stored.getID() + "!", e.getMessage());
+		assertTrue(questionService.setQuestion(new Question("How does a hash map resolve collisions?", "Chaining or probing")));
+		assertEquals(2, questionService.size());
+	}
+	
+	@Test
+	void setQuestionsSkipsNearDuplicatesOfStoredAndEarlierQuestionsWhenTheyAreRejected() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		QuestionService questionService = new QuestionService(insertionSort, new InMemoryQuestionRepository(), new DuplicatePolicy(DuplicatePolicy.Action.REJECT, 0.7));
+		questionService.setQuestion(new Question("What is the time complexity of a binary search on a sorted array?", "O(log n)"));
+		
+		StoreOutcome stored[] = questionService.setQuestions(new Question[] {
+			new Question("What is the time complexity of binary search on a sorted array?", "Logarithmic"),
+			new Question("Which layer of the OSI model handles routing between networks?", "The network layer"),
+			new Question("Which layer of the OSI model handles routing between the networks?", "Layer three")
+		});
+		
+		assertArrayEquals(new StoreOutcome[] {StoreOutcome.NEAR_DUPLICATE, StoreOutcome.STORED, StoreOutcome.NEAR_DUPLICATE}, stored);
+		assertEquals(2, questionService.size());
+	}
+	
+	@Test
+	void flaggedNearDuplicatesAreStoredAndFoundUntilDeleted() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		QuestionService questionService = new QuestionService(insertionSort, new InMemoryQuestionRepository(), new DuplicatePolicy(DuplicatePolicy.Action.FLAG, 0.7));
+		Question original = new Question("What is the time complexity of a binary search on a sorted array?", "O(log n)");
+		Question duplicate = new Question("What is the time complexity of binary search on a sorted array?", "Logarithmic");
+		
+		assertTrue(questionService.setQuestion(original));
+		assertTrue(questionService.findNearDuplicate(original).isEmpty());
+		assertTrue(questionService.setQuestion(duplicate));
+		assertSame(original, questionService.findNearDuplicate(duplicate).orElseThrow());
+		
+		questionService.edit(original.getID(), "Which layer of the OSI model handles routing between networks?", null);
+		assertTrue(questionService.findNearDuplicate(duplicate).isEmpty());
+		assertSame(questionService.getQuestion(original.getID()).orElseThrow(), questionService.findNearDuplicate(new Question("Which layer of the OSI model handles routing between the networks?", "Layer three")).orElseThrow());
+		
+		questionService.delete(original.getID());
+		assertTrue(questionService.findNearDuplicate(new Question("Which layer of the OSI model handles routing between the networks?", "Layer three")).isEmpty());
+	}
+	
+	@Test
+	void findNearDuplicateIsEmptyWhenDetectionIsOff() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		QuestionService questionService = new QuestionService(insertionSort);
+		Question question = new Question("What is a binary tree?", "A tree with at most two children");
+		questionService.setQuestion(question);
+		
+		assertTrue(questionService.setQuestion(new Question("What is a binary tree?", "A tree with at most two children")));
+		assertTrue(questionService.findNearDuplicate(question).isEmpty());
+	}
+	
+	@Test
+	void typeVersionsChangeOnlyWithWritesToTheirType() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		QuestionService questionService = new QuestionService(insertionSort);
+		Question programming = new Question("a programming question", "a valid answer");
+		programming.setType(Question.Type.Programming);
+		Question networks = new Question("a networks question", "a valid answer");
+		networks.setType(Question.Type.Networks);
+		
+		assertEquals(0, questionService.version(Question.Type.Programming));
+		questionService.setQuestion(programming);
+		long afterInsert = questionService.version(Question.Type.Programming);
+		assertEquals(questionService.version(), afterInsert);
+		
+		questionService.setQuestion(networks);
+		questionService.setQuestion(new Question("an untyped question", "a valid answer"));
+		assertEquals(afterInsert, questionService.version(Question.Type.Programming));
+		assertEquals(questionService.version() - 1, questionService.version(Question.Type.Networks));
+		
+		questionService.edit(programming.getID(), "an edited question", null);
+		long afterEdit = questionService.version(Question.Type.Programming);
+		assertTrue(afterEdit > afterInsert);
+		
+		questionService.delete(programming.getID());
+		assertTrue(questionService.version(Question.Type.Programming) > afterEdit);
+		assertEquals(questionService.version(), questionService.version(Question.Type.Programming));
+		assertThrows(IllegalArgumentException.class, () -> questionService.version(null));
+	}
+	
+	@Test
+	void metricsRecordOperationsSortsRejectionsAndOccupancy() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		QuestionService questionService = new QuestionService(insertionSort, new InMemoryQuestionRepository(), DuplicatePolicy.OFF, new QuestionMetrics(registry));
+		Question q1 = new Question("q1", "a1");
+		q1.setType(Question.Type.Programming);
+		Question q2 = new Question("q2", "a2");
+		q2.setType(Question.Type.Networks);
+		
+		questionService.setQuestion(q1);
+		questionService.setQuestion(q1);
+		questionService.setQuestions(new Question[] {q2, q1});
+		questionService.getQuestion(q1.getID());
+		questionService.getQuestions(Question.Type.Programming);
+		questionService.getAll();
+		questionService.delete(q1.getID());
+		questionService.delete(q1.getID());
+		
+		assertEquals(2, registry.get("quiz.questions.operation").tag("operation", "set").timer().count());
+		assertEquals(1, registry.get("quiz.questions.operation").tag("operation", "set-many").timer().count());
+		assertEquals(1, registry.get("quiz.questions.operation").tag("operation", "get").timer().count());
+		assertEquals(1, registry.get("quiz.questions.operation").tag("operation", "get-many").timer().count());
+		assertEquals(1, registry.get("quiz.questions.operation").tag("operation", "get-all").timer().count());
+		assertEquals(2, registry.get("quiz.questions.operation").tag("operation", "delete").timer().count());
+		assertEquals(2, registry.get("quiz.questions.rejected").tag("reason", "stored-id").counter().count());
+		assertEquals(0, registry.get("quiz.questions.rejected").tag("reason", "full").counter().count());
+		assertTrue(registry.get("quiz.sort.duration").timer().count() > 0);
+		assertEquals(2, registry.get("quiz.sort.size").summary().max());
+		assertEquals(1, registry.get("quiz.questions.stored").gauge().value());
+		assertEquals(questionService.capacity(), registry.get("quiz.questions.capacity").gauge().value());
+	}
+	
+	@Test
+	void metricsOffRegistersAndRecordsNothing() {
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(new QuestionTypeComparator());
+		assertSame(insertionSort, QuestionMetrics.OFF.meter(insertionSort));
+		assertSame(QuestionMetrics.OFF, QuestionMetrics.OFF.forShard());
+		
+		QuestionService first = new QuestionService(insertionSort, new InMemoryQuestionRepository(), DuplicatePolicy.OFF, QuestionMetrics.OFF);
+		QuestionService second = new QuestionService(insertionSort, new InMemoryQuestionRepository(), DuplicatePolicy.OFF, QuestionMetrics.OFF);
+		Question question = new Question("q1", "a1");
+		assertTrue(first.setQuestion(question));
+		assertFalse(first.setQuestion(question));
+		assertTrue(second.setQuestion(question));
+		assertTrue(first.getAll().isPresent());
+	}
+	
+	@Test
+	void capacityPolicyGrowsTheSlotsUpToTheLimit() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		QuestionService questionService = new QuestionService(insertionSort, new InMemoryQuestionRepository(), DuplicatePolicy.OFF, new CapacityPolicy(2, 3), QuestionMetrics.OFF);
+		assertEquals(2, questionService.capacity());
+		
+		assertTrue(questionService.setQuestion(new Question("q1", "a1")));
+		assertTrue(questionService.setQuestion(new Question("q2", "a2")));
+		assertTrue(questionService.setQuestion(new Question("q3", "a3")));
+		assertFalse(questionService.setQuestion(new Question("q4", "a4")));
+		assertArrayEquals(new StoreOutcome[] {StoreOutcome.FULL}, questionService.setQuestions(new Question[] {new Question("q5", "a5")}));
+		assertEquals(3, questionService.size());
+		assertEquals(4, questionService.capacity());
+	}
+	
+	@Test
+	void capacityPolicyRejectsInvalidCapacities() {
+		assertThrows(IllegalArgumentException.class, () -> new CapacityPolicy(0, CapacityPolicy.NO_LIMIT));
+		assertThrows(IllegalArgumentException.class, () -> new CapacityPolicy(10, 5));
+		assertThrows(IllegalArgumentException.class, () -> new CapacityPolicy(10, -1));
+		assertFalse(CapacityPolicy.DEFAULT.limited());
+		assertTrue(CapacityPolicy.fixed(5).limited());
+	}
+	
+	@Test
+	void deletesThatLeaveLargeHolesCompactTheSlots() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(comparator);
+		QuestionService questionService = new QuestionService(insertionSort, new InMemoryQuestionRepository(), new DuplicatePolicy(DuplicatePolicy.Action.FLAG, 0.8), QuestionMetrics.OFF);
+		Question[] batch = new Question[5000];
+		for (int i = 0; i < batch.length; i++) {
+			batch[i] = new Question("question number " + i + " about topic" + i, "answer" + i);
+			batch[i].setType(Question.Type.values()[i % Question.Type.values().length]);
+		}
+		questionService.setQuestions(batch);
+		int grown = questionService.capacity();
+		assertTrue(grown >= batch.length);
+		
+		// Keep every 100th Question, the last ones in the highest slots.
+		for (int i = 0; i < batch.length; i++) {
+			if (i % 100 != 99) questionService.delete(batch[i].getID());
+		}
+		
+		assertEquals(50, questionService.size());
+		assertTrue(questionService.capacity() < grown / 4);
+		for (int i = 99; i < batch.length; i += 100) {
+			assertSame(batch[i], questionService.getQuestion(batch[i].getID()).orElseThrow());
+			assertArrayEquals(new Question[] {batch[i]}, questionService.search("topic" + i, null, 10).questions());
+			assertSame(batch[i], questionService.findNearDuplicate(new Question("question number " + i + " about topic" + i, "another answer")).orElseThrow());
+		}
+		
+		// Moved Questions are deleted from their new slots, and freed slots are reused.
+		assertTrue(questionService.delete(batch[4999].getID()));
+		assertTrue(questionService.search("topic4999", null, 10).questions().length == 0);
+		assertTrue(questionService.setQuestion(new Question("a new question", "a new answer")));
+		assertEquals(50, questionService.size());
+	}
 }
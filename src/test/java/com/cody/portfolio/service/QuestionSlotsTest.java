@@ -0,0 +1,52 @@
+package com.cody.portfolio.service;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.cody.portfolio.domain.Question;
+
+/**
+ * Unit tests for the QuestionSlots array.
+ */
+public class QuestionSlotsTest {
+	
+	@Test
+	void constructorThrowsExceptionOnInvalidCapacity() {
+		assertThrows(IllegalArgumentException.class, () ->
+			new QuestionSlots(0)
+		);
+	}
+	
+	@Test
+	void growDoublesTheSlots() {
+		QuestionSlots slots = new QuestionSlots(3);
+		slots.grow();
+		assertEquals(6, slots.capacity());
+		slots.grow();
+		assertEquals(12, slots.capacity());
+	}
+	
+	@Test
+	void slotsKeepTheirQuestionsAcrossGrowAndShrink() {
+		QuestionSlots slots = new QuestionSlots(5);
+		Question first = new Question("q1", "a1");
+		Question last = new Question("q2", "a2");
+		slots.set(0, first);
+		slots.set(4, last);
+		
+		while (slots.capacity() <= 100) slots.grow();
+		Question beyond = new Question("q3", "a3");
+		slots.set(100, beyond);
+		assertSame(first, slots.get(0));
+		assertSame(last, slots.get(4));
+		assertSame(beyond, slots.get(100));
+		
+		slots.set(100, null);
+		slots.shrink(10);
+		assertEquals(10, slots.capacity());
+		assertSame(first, slots.get(0));
+		assertSame(last, slots.get(4));
+		assertNull(slots.get(9));
+		assertThrows(IllegalArgumentException.class, () -> slots.shrink(11));
+	}
+}
@@ -0,0 +1,85 @@
+package com.cody.portfolio.service.grading;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Unit tests for AnswerKey normalization and Grader matching.
+ */
+public class GraderTest {
+	
+	@Test
+	void answerKeyIgnoresCaseWhitespaceAndPunctuation() {
+		assertEquals("o n log n", AnswerKey.of("  O(n  log N).").toString());
+		assertEquals("?!", AnswerKey.of(" ?! ").toString());
+		assertThrows(IllegalArgumentException.class, () -> AnswerKey.of(null));
+	}
+	
+	@ParameterizedTest
+	@ValueSource(ints = {-1, Grader.MAX_EDITS + 1})
+	void constructorThrowsExceptionOnInvalidMaxEdits(int maxEdits) {
+		assertThrows(IllegalArgumentException.class, () -> new Grader(maxEdits));
+	}
+	
+	@Test
+	void exactGradingAcceptsOnlyTheNormalizedAnswer() {
+		Grader grader = new Grader(0);
+		AnswerKey key = AnswerKey.of("Binary search tree");
+		
+		assertEquals(Grade.CORRECT, grader.grade(key, "binary-search   TREE!"));
+		assertEquals(Grade.INCORRECT, grader.grade(key, "binary serch tree"));
+		assertEquals(Grade.INCORRECT, grader.grade(key, "binary search trees"));
+		assertEquals(Grade.INCORRECT, grader.grade(key, null));
+	}
+	
+	@Test
+	void tolerantGradingAcceptsAnswersWithinTheEdits() {
+		Grader grader = new Grader(2);
+		AnswerKey key = AnswerKey.of("Binary search tree");
+		
+		assertEquals(Grade.CORRECT, grader.grade(key, "binary serch tree")); // Deletion.
+		assertEquals(Grade.CORRECT, grader.grade(key, "binary search trees")); // Insertion.
+		assertEquals(Grade.CORRECT, grader.grade(key, "binary saerch tree")); // Two substitutions.
+		assertEquals(Grade.CORRECT, grader.grade(key, "bnary serch tree")); // Two deletions.
+		assertEquals(Grade.INCORRECT, grader.grade(key, "bnary serch tre"));
+		assertEquals(Grade.INCORRECT, grader.grade(key, "binary heap"));
+		assertEquals(Grade.INCORRECT, grader.grade(key, "binary search tree and much more besides"));
+	}
+	
+	@Test
+	void shortAnswersAllowFewerEdits() {
+		Grader grader = new Grader(Grader.MAX_EDITS);
+		
+		assertEquals(Grade.INCORRECT, grader.grade(AnswerKey.of("4"), "5"));
+		assertEquals(Grade.CORRECT, grader.grade(AnswerKey.of("heap"), "heep"));
+		assertEquals(Grade.INCORRECT, grader.grade(AnswerKey.of("heap"), "help me"));
+	}
+	
+	@Test
+	void graderReusedAcrossKeysOfDifferentLengths() {
+		Grader grader = new Grader(3);
+		StringBuilder longAnswer = new StringBuilder();
+		for (int i = 0; i < 50; i++) longAnswer.append("word ");
+		AnswerKey longKey = AnswerKey.of(longAnswer.toString());
+		
+		assertEquals(Grade.CORRECT, grader.grade(AnswerKey.of("stack"), "stak"));
+		assertEquals(Grade.CORRECT, grader.grade(longKey, longAnswer.toString().replaceFirst("word", "wodr")));
+		assertEquals(Grade.CORRECT, grader.grade(AnswerKey.of("queue"), "queue"));
+		assertEquals(Grade.INCORRECT, grader.grade(longKey, longAnswer.toString().replace("word", "ward")));
+	}
+	
+	@Test
+	void gradeMatchesAnAnswerWithoutWordsOnlyAsWritten() {
+		Grader grader = new Grader(Grader.MAX_EDITS);
+		AnswerKey key = AnswerKey.of("?");
+		
+		assertEquals(Grade.CORRECT, grader.grade(key, " ? "));
+		assertEquals(Grade.INCORRECT, grader.grade(key, "!"));
+		assertEquals(Grade.INCORRECT, grader.grade(key, "..."));
+		assertEquals(Grade.INCORRECT, grader.grade(key, "what?"));
+		assertEquals(Grade.INCORRECT, grader.grade(AnswerKey.of("stack"), "?"));
+		assertThrows(IllegalArgumentException.class, () -> grader.grade(null, "stack"));
+	}
+}
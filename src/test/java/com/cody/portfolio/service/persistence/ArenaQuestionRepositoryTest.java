@@ -0,0 +1,376 @@
+package com.cody.portfolio.service.persistence;
+
+import java.nio.file.Path;
+import java.nio.file.Files;
+import java.nio.ByteBuffer;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.cody.portfolio.domain.Question;
+
+/**
+ * Unit tests for the ArenaQuestionRepository and its memory-mapped QuestionArena.
+ */
+public class ArenaQuestionRepositoryTest {
+	
+	@TempDir
+	Path directory;
+	
+	@ParameterizedTest
+	@ValueSource(ints = {0})
+	void constructorThrowsExceptionOnInvalidInitialRecords(int invalidInitialRecords) {
+		assertThrows(IllegalArgumentException.class, () ->
+			new ArenaQuestionRepository(this.directory, invalidInitialRecords)
+		);
+	}
+	
+	@ParameterizedTest
+	@ValueSource(ints = {0, -1})
+	void constructorThrowsExceptionOnInvalidSegmentSize(int invalidSegmentSize) {
+		assertThrows(IllegalArgumentException.class, () ->
+			new ArenaQuestionRepository(this.directory, 1, invalidSegmentSize)
+		);
+	}
+	
+	@Test
+	void holdReturnsViewsThatDecodeTheStoredRecord() {
+		Question question = new Question("a valid question ✓", "a valid answer");
+		question.setType(Question.Type.DataStructures);
+		
+		ArenaQuestionRepository repository = new ArenaQuestionRepository(this.directory);
+		Question view = repository.hold(new Question[] {question})[0];
+		
+		assertNotSame(question, view);
+		assertEquals(question.getID(), view.getID());
+		assertEquals("a valid question ✓", view.getQuestion());
+		assertEquals("a valid answer", view.getAnswer());
+		assertEquals("a valid answer", repository.answerKey(view).toString());
+		assertEquals(Question.Type.DataStructures, view.getType());
+		assertNull(view.getDifficulty());
+		repository.close();
+	}
+	
+	@Test
+	void viewsAreReadOnly() {
+		ArenaQuestionRepository repository = new ArenaQuestionRepository(this.directory);
+		Question view = repository.hold(new Question[] {new Question("a valid question", "a valid answer")})[0];
+		
+		assertThrows(UnsupportedOperationException.class, () -> view.setQuestion("a replacement question"));
+		assertThrows(UnsupportedOperationException.class, () -> view.setAnswer("a replacement answer"));
+		assertThrows(UnsupportedOperationException.class, () -> view.setType(Question.Type.Networks));
+		assertThrows(UnsupportedOperationException.class, () -> view.setDifficulty(Question.Difficulty.Medium));
+		assertEquals("a valid question", view.getQuestion());
+		assertNull(view.getDifficulty());
+		repository.close();
+	}
+	
+	@Test
+	void loadReturnsTheLiveRecordsInInsertionOrderAfterReopening() {
+		ArenaQuestionRepository repository = new ArenaQuestionRepository(this.directory, 1);
+		Question[] views = new Question[100];
+		for (int i = 0; i < views.length; i++) {
+			Question question = new Question("question " + i, "answer " + i);
+			question.setType(Question.Type.values()[i % Question.Type.values().length]);
+			views[i] = repository.hold(new Question[] {question})[0];
+			repository.sync(repository.append(new Question[] {views[i]}));
+		}
+		repository.sync(repository.appendDelete(views[50]));
+		repository.close();
+		
+		repository = new ArenaQuestionRepository(this.directory, 1);
+		Question[] loaded = repository.load();
+		assertEquals(99, loaded.length);
+		assertEquals(views[0].getID(), loaded[0].getID());
+		assertEquals("question 51", loaded[50].getQuestion());
+		assertEquals(views[99].getType(), loaded[98].getType());
+		repository.close();
+	}
+	
+	@Test
+	void loadDropsRecordsThatWereNeverSynced() {
+		ArenaQuestionRepository repository = new ArenaQuestionRepository(this.directory);
+		Question synced = repository.hold(new Question[] {new Question("a synced question", "a synced answer")})[0];
+		repository.sync(repository.append(new Question[] {synced}));
+		repository.hold(new Question[] {new Question("an unsynced question", "an unsynced answer")});
+		
+		// Reopen without closing, as after a crash.
+		ArenaQuestionRepository reopened = new ArenaQuestionRepository(this.directory);
+		Question[] loaded = reopened.load();
+		assertEquals(1, loaded.length);
+		assertEquals("a synced question", loaded[0].getQuestion());
+		reopened.close();
+		repository.close();
+	}
+	
+	@Test
+	void loadReturnsTheLastReplacementOfAnEditedRecordInItsPlace() {
+		ArenaQuestionRepository repository = new ArenaQuestionRepository(this.directory);
+		Question first = repository.hold(new Question[] {new Question("a first question", "a first answer")})[0];
+		Question second = repository.hold(new Question[] {new Question("a second question", "a second answer")})[0];
+		repository.sync(repository.append(new Question[] {first, second}));
+		
+		Question edited = repository.holdEdit(first, new Question("an edited question", "a first answer", first.getID()));
+		repository.sync(repository.appendEdit(edited));
+		Question editedAgain = repository.holdEdit(edited, new Question("an edited question", "an edited answer", first.getID()));
+		repository.sync(repository.appendEdit(editedAgain));
+		
+		assertEquals("a first question", first.getQuestion());
+		assertEquals("an edited answer", editedAgain.getAnswer());
+		repository.close();
+		
+		repository = new ArenaQuestionRepository(this.directory);
+		Question[] loaded = repository.load();
+		assertEquals(2, loaded.length);
+		assertEquals(first.getID(), loaded[0].getID());
+		assertEquals("an edited question", loaded[0].getQuestion());
+		assertEquals("an edited answer", loaded[0].getAnswer());
+		assertEquals("a second question", loaded[1].getQuestion());
+		
+		// Deleting the replacement deletes the Question, not just its latest text.
+		repository.sync(repository.appendDelete(loaded[0]));
+		repository.close();
+		repository = new ArenaQuestionRepository(this.directory);
+		loaded = repository.load();
+		assertEquals(1, loaded.length);
+		assertEquals("a second question", loaded[0].getQuestion());
+		repository.close();
+	}
+	
+	@Test
+	void loadKeepsTheEditedRecordWhenItsReplacementWasNeverSynced() {
+		ArenaQuestionRepository repository = new ArenaQuestionRepository(this.directory);
+		Question stored = repository.hold(new Question[] {new Question("a synced question", "a synced answer")})[0];
+		repository.sync(repository.append(new Question[] {stored}));
+		repository.appendEdit(repository.holdEdit(stored, new Question("an unsynced question", "a synced answer", stored.getID())));
+		
+		// Reopen without closing, as after a crash.
+		ArenaQuestionRepository reopened = new ArenaQuestionRepository(this.directory);
+		Question[] loaded = reopened.load();
+		assertEquals(1, loaded.length);
+		assertEquals("a synced question", loaded[0].getQuestion());
+		reopened.close();
+		repository.close();
+	}
+	
+	@Test
+	void appendDeleteThrowsExceptionOnAQuestionNotHeldByTheRepository() {
+		ArenaQuestionRepository repository = new ArenaQuestionRepository(this.directory);
+		
+		assertThrows(IllegalArgumentException.class, () ->
+			repository.appendDelete(new Question("a valid question", "a valid answer"))
+		);
+		repository.close();
+	}
+	
+	@Test
+	void textIsMappedInSegmentsAndReadBackAfterReopening() {
+		// 64 byte segments hold two of these texts at most, so the Questions fill dozens of segments.
+		ArenaQuestionRepository repository = new ArenaQuestionRepository(this.directory, 1, 64);
+		Question[] views = new Question[50];
+		for (int i = 0; i < views.length; i++) {
+			views[i] = repository.hold(new Question[] {new Question("segmented question " + i, "answer " + i)})[0];
+		}
+		repository.sync(repository.append(views));
+		for (int i = 0; i < views.length; i++) {
+			assertEquals("segmented question " + i, views[i].getQuestion());
+		}
+		assertThrows(IllegalArgumentException.class, () ->
+			repository.hold(new Question[] {new Question("a question longer than a whole text segment of the arena it is stored in", "an answer")})
+		);
+		repository.close();
+		
+		ArenaQuestionRepository reopened = new ArenaQuestionRepository(this.directory, 1, 64);
+		Question[] loaded = reopened.load();
+		assertEquals(50, loaded.length);
+		for (int i = 0; i < loaded.length; i++) {
+			assertEquals("segmented question " + i, loaded[i].getQuestion());
+			assertEquals("answer " + i, loaded[i].getAnswer());
+		}
+		reopened.close();
+	}
+	
+	@Test
+	void reopeningCompactsDeletedAndReplacedRecords() throws IOException {
+		ArenaQuestionRepository repository = new ArenaQuestionRepository(this.directory, 1);
+		Question[] views = new Question[10];
+		for (int i = 0; i < views.length; i++) {
+			Question question = new Question("question " + i, "answer " + i);
+			question.setType(Question.Type.Networks);
+			views[i] = repository.hold(new Question[] {question})[0];
+		}
+		repository.sync(repository.append(views));
+		for (int i = 0; i < 6; i++) {
+			repository.sync(repository.appendDelete(views[i]));
+		}
+		Question edit = new Question("an edited question", "answer 7", views[7].getID());
+		edit.setType(Question.Type.Networks);
+		Question edited = repository.holdEdit(views[7], edit);
+		repository.sync(repository.appendEdit(edited));
+		
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		repository.bindTo(registry);
+		assertEquals(4, registry.get("quiz.arena.records").tag("state", "live").gauge().value());
+		assertEquals(7, registry.get("quiz.arena.records").tag("state", "dead").gauge().value());
+		assertTrue(registry.get("quiz.arena.text").tag("state", "dead").gauge().value() > 0);
+		repository.close();
+		long textBefore = Files.size(this.directory.resolve(QuestionArena.TEXT_FILE));
+		
+		repository = new ArenaQuestionRepository(this.directory, 1);
+		registry = new SimpleMeterRegistry();
+		repository.bindTo(registry);
+		assertEquals(4, registry.get("quiz.arena.records").tag("state", "live").gauge().value());
+		assertEquals(0, registry.get("quiz.arena.records").tag("state", "dead").gauge().value());
+		assertEquals(0, registry.get("quiz.arena.text").tag("state", "dead").gauge().value());
+		assertTrue(Files.size(this.directory.resolve(QuestionArena.TEXT_FILE)) < textBefore);
+		
+		Question[] loaded = repository.load();
+		assertEquals(4, loaded.length);
+		assertEquals("question 6", loaded[0].getQuestion());
+		assertEquals(views[7].getID(), loaded[1].getID());
+		assertEquals("an edited question", loaded[1].getQuestion());
+		assertEquals(Question.Type.Networks, loaded[1].getType());
+		assertEquals("answer 9", loaded[3].getAnswer());
+		
+		// The compacted arena takes writes and edits like any other.
+		Question added = repository.hold(new Question[] {new Question("a later question", "a later answer")})[0];
+		repository.sync(repository.append(new Question[] {added}));
+		repository.sync(repository.appendEdit(repository.holdEdit(loaded[0], new Question("question 6", "an edited answer", loaded[0].getID()))));
+		repository.close();
+		
+		repository = new ArenaQuestionRepository(this.directory, 1);
+		loaded = repository.load();
+		assertEquals(5, loaded.length);
+		assertEquals("an edited answer", loaded[0].getAnswer());
+		assertEquals("a later question", loaded[4].getQuestion());
+		repository.close();
+	}
+	
+	@Test
+	void reopeningDiscardsACompactionThatWasNotMarkedComplete() throws IOException {
+		ArenaQuestionRepository repository = new ArenaQuestionRepository(this.directory);
+		Question stored = repository.hold(new Question[] {new Question("a stored question", "a stored answer")})[0];
+		repository.sync(repository.append(new Question[] {stored}));
+		repository.close();
+		
+		// A crash while writing the compacted files leaves them without the marker.
+		Files.write(this.directory.resolve(QuestionArena.RECORD_FILE + QuestionArena.COMPACT_SUFFIX), new byte[12]);
+		Files.write(this.directory.resolve(QuestionArena.TEXT_FILE + QuestionArena.COMPACT_SUFFIX), new byte[5]);
+		
+		repository = new ArenaQuestionRepository(this.directory);
+		Question[] loaded = repository.load();
+		assertEquals(1, loaded.length);
+		assertEquals("a stored question", loaded[0].getQuestion());
+		assertFalse(Files.exists(this.directory.resolve(QuestionArena.RECORD_FILE + QuestionArena.COMPACT_SUFFIX)));
+		assertFalse(Files.exists(this.directory.resolve(QuestionArena.TEXT_FILE + QuestionArena.COMPACT_SUFFIX)));
+		repository.close();
+	}
+	
+	@Test
+	void reopeningFinishesACompactionThatWasMarkedComplete() throws IOException {
+		ArenaQuestionRepository repository = new ArenaQuestionRepository(this.directory);
+		Question[] views = repository.hold(new Question[] {new Question("a deleted question", "a deleted answer"), new Question("a kept question", "a kept answer")});
+		repository.sync(repository.append(views));
+		repository.sync(repository.appendDelete(views[0]));
+		repository.close();
+		
+		// Compact a copy, then hand its files back as if a crash came after the marker but before the first move.
+		Path copy = Files.createDirectory(this.directory.resolve("copy"));
+		Files.copy(this.directory.resolve(QuestionArena.RECORD_FILE), copy.resolve(QuestionArena.RECORD_FILE));
+		Files.copy(this.directory.resolve(QuestionArena.TEXT_FILE), copy.resolve(QuestionArena.TEXT_FILE));
+		assertTrue(QuestionArena.compact(copy, QuestionArena.DEFAULT_SEGMENT_SIZE));
+		Files.copy(copy.resolve(QuestionArena.RECORD_FILE), this.directory.resolve(QuestionArena.RECORD_FILE + QuestionArena.COMPACT_SUFFIX));
+		Files.copy(copy.resolve(QuestionArena.TEXT_FILE), this.directory.resolve(QuestionArena.TEXT_FILE + QuestionArena.COMPACT_SUFFIX));
+		Files.createFile(this.directory.resolve(QuestionArena.COMPACTED_FILE));
+		
+		repository = new ArenaQuestionRepository(this.directory);
+		Question[] loaded = repository.load();
+		assertEquals(1, loaded.length);
+		assertEquals("a kept question", loaded[0].getQuestion());
+		assertFalse(Files.exists(this.directory.resolve(QuestionArena.COMPACTED_FILE)));
+		assertFalse(Files.exists(this.directory.resolve(QuestionArena.RECORD_FILE + QuestionArena.COMPACT_SUFFIX)));
+		repository.close();
+	}
+	
+	@Test
+	void reopeningUpgradesAnArenaWrittenBeforeTheFormatHadAVersion() throws IOException {
+		Question first = new Question("a first question", "a first answer");
+		Question second = new Question("a second question", "a second answer");
+		byte text[] = (first.getQuestion() + first.getAnswer() + second.getQuestion() + second.getAnswer()).getBytes(StandardCharsets.UTF_8);
+		
+		// A 64 byte header with an int text end, then 40 byte records with offset and length packed in one long.
+		ByteBuffer records = ByteBuffer.allocate(64 + 2 * 40);
+		records.putInt(0, 0x51415245);
+		records.putInt(8, 2);
+		records.putInt(16, text.length);
+		int offset = 0;
+		Question[] questions = {first, second};
+		for (int i = 0; i < questions.length; i++) {
+			int at = 64 + i * 40;
+			records.putLong(at, questions[i].getID().getMostSignificantBits());
+			records.putLong(at + 8, questions[i].getID().getLeastSignificantBits());
+			int questionLength = questions[i].getQuestion().length();
+			int answerLength = questions[i].getAnswer().length();
+			records.putLong(at + 16, ((long) offset << 32) | questionLength);
+			records.putLong(at + 24, ((long) (offset + questionLength) << 32) | answerLength);
+			offset += questionLength + answerLength;
+			records.put(at + 32, (byte) Question.Type.Networks.ordinal());
+			records.put(at + 33, (byte) -1);
+			records.put(at + 34, (byte) 1);
+		}
+		Files.write(this.directory.resolve(QuestionArena.RECORD_FILE), records.array());
+		Files.write(this.directory.resolve(QuestionArena.TEXT_FILE), text);
+		
+		ArenaQuestionRepository repository = new ArenaQuestionRepository(this.directory);
+		Question[] loaded = repository.load();
+		assertEquals(2, loaded.length);
+		assertEquals(first.getID(), loaded[0].getID());
+		assertEquals("a first answer", loaded[0].getAnswer());
+		assertEquals("a second question", loaded[1].getQuestion());
+		assertEquals(Question.Type.Networks, loaded[1].getType());
+		assertNull(loaded[1].getDifficulty());
+		assertEquals("a second answer", repository.answerKey(loaded[1]).toString());
+		repository.close();
+	}
+	
+	@Test
+	void reopeningUpgradesAnArenaWrittenWithoutAnswerKeys() throws IOException {
+		Question question = new Question("a stored question", "O(log n).");
+		byte text[] = (question.getQuestion() + question.getAnswer()).getBytes(StandardCharsets.UTF_8);
+		
+		// Version 2: a long text end and segment size in the header, then 48 byte records without an answer key.
+		ByteBuffer records = ByteBuffer.allocate(64 + 48);
+		records.putInt(0, 0x51415245);
+		records.putInt(4, 2);
+		records.putInt(8, 1);
+		records.putLong(16, text.length);
+		records.putInt(24, QuestionArena.DEFAULT_SEGMENT_SIZE);
+		records.putLong(64, question.getID().getMostSignificantBits());
+		records.putLong(64 + 8, question.getID().getLeastSignificantBits());
+		records.putLong(64 + 16, 0);
+		records.putInt(64 + 24, question.getQuestion().length());
+		records.putLong(64 + 28, question.getQuestion().length());
+		records.putInt(64 + 36, question.getAnswer().length());
+		records.put(64 + 40, (byte) -1);
+		records.put(64 + 41, (byte) Question.Difficulty.Hard.ordinal());
+		records.put(64 + 42, (byte) 1);
+		Files.write(this.directory.resolve(QuestionArena.RECORD_FILE), records.array());
+		Files.write(this.directory.resolve(QuestionArena.TEXT_FILE), text);
+		
+		ArenaQuestionRepository repository = new ArenaQuestionRepository(this.directory);
+		Question[] loaded = repository.load();
+		assertEquals(1, loaded.length);
+		assertEquals(question.getID(), loaded[0].getID());
+		assertEquals("O(log n).", loaded[0].getAnswer());
+		assertEquals(Question.Difficulty.Hard, loaded[0].getDifficulty());
+		assertEquals("o log n", repository.answerKey(loaded[0]).toString());
+		repository.close();
+	}
+}
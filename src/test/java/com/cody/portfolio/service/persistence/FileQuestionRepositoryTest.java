@@ -0,0 +1,123 @@
+package com.cody.portfolio.service.persistence;
+
+import java.nio.file.Path;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.io.IOException;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.cody.portfolio.domain.Question;
+
+/**
+ * Unit tests for the FileQuestionRepository write-ahead log and snapshots.
+ */
+public class FileQuestionRepositoryTest {
+	
+	@TempDir
+	Path directory;
+	
+	@ParameterizedTest
+	@ValueSource(ints = {0})
+	void constructorThrowsExceptionOnInvalidCheckpointInterval(int invalidInterval) {
+		assertThrows(IllegalArgumentException.class, () ->
+			new FileQuestionRepository(this.directory, invalidInterval)
+		);
+	}
+	
+	@Test
+	void loadReturnsNothingForAnEmptyDirectory() {
+		FileQuestionRepository repository = new FileQuestionRepository(this.directory);
+		
+		assertEquals(0, repository.load().length);
+		repository.close();
+	}
+	
+	@Test
+	void loadReplaysInsertsAndDeletesInInsertionOrder() {
+		Question first = new Question("first question", "first answer");
+		first.setType(Question.Type.Programming);
+		first.setDifficulty(Question.Difficulty.Hard);
+		Question second = new Question("second question", "second answer");
+		Question third = new Question("third question", "third answer");
+		third.setType(Question.Type.DiscreteMath);
+		
+		FileQuestionRepository repository = new FileQuestionRepository(this.directory);
+		repository.sync(repository.append(new Question[] {first, second}));
+		repository.sync(repository.appendDelete(second));
+		repository.sync(repository.append(new Question[] {third}));
+		repository.close();
+		
+		repository = new FileQuestionRepository(this.directory);
+		Question[] loaded = repository.load();
+		repository.close();
+		assertEquals(2, loaded.length);
+		assertEquals(first.getID(), loaded[0].getID());
+		assertEquals("first question", loaded[0].getQuestion());
+		assertEquals("first answer", loaded[0].getAnswer());
+		assertEquals(Question.Type.Programming, loaded[0].getType());
+		assertEquals(Question.Difficulty.Hard, loaded[0].getDifficulty());
+		assertEquals(third.getID(), loaded[1].getID());
+		assertEquals(Question.Type.DiscreteMath, loaded[1].getType());
+		assertNull(loaded[1].getDifficulty());
+	}
+	
+	@Test
+	void checkpointWritesASnapshotAndDeletesTheLogsItCovers() throws IOException {
+		Question first = new Question("first question", "first answer");
+		Question second = new Question("second question", "second answer");
+		
+		FileQuestionRepository repository = new FileQuestionRepository(this.directory, 1);
+		repository.sync(repository.append(new Question[] {first}));
+		assertTrue(repository.checkpointDue());
+		repository.checkpoint(new Question[] {first});
+		assertFalse(repository.checkpointDue());
+		repository.sync(repository.append(new Question[] {second}));
+		repository.close();
+		
+		assertTrue(Files.exists(this.directory.resolve(FileQuestionRepository.SNAPSHOT_FILE)));
+		try (Stream<Path> files = Files.list(this.directory)) {
+			assertEquals(1, files.filter((Path file) -> file.toString().endsWith(".log")).count());
+		}
+		repository = new FileQuestionRepository(this.directory);
+		Question[] loaded = repository.load();
+		repository.close();
+		assertEquals(2, loaded.length);
+		assertEquals(first.getID(), loaded[0].getID());
+		assertEquals(second.getID(), loaded[1].getID());
+	}
+	
+	@Test
+	void loadIgnoresATornRecordAtTheEndOfTheLog() throws IOException {
+		Question stored = new Question("a valid question", "a valid answer");
+		
+		FileQuestionRepository repository = new FileQuestionRepository(this.directory);
+		repository.sync(repository.append(new Question[] {stored}));
+		repository.close();
+		
+		// Simulate a crash part way through appending the next record.
+		Path log;
+		try (Stream<Path> files = Files.list(this.directory)) {
+			log = files.filter((Path file) -> file.toString().endsWith(".log")).findFirst().orElseThrow();
+		}
+		Files.write(log, new byte[] {0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+		
+		repository = new FileQuestionRepository(this.directory);
+		Question[] loaded = repository.load();
+		assertEquals(1, loaded.length);
+		assertEquals(stored.getID(), loaded[0].getID());
+		
+		// New records go to a fresh log, so they are not hidden behind the torn one.
+		Question next = new Question("another question", "another answer");
+		repository.sync(repository.append(new Question[] {next}));
+		repository.close();
+		repository = new FileQuestionRepository(this.directory);
+		assertEquals(2, repository.load().length);
+		repository.close();
+	}
+}
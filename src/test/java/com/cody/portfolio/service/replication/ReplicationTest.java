@@ -0,0 +1,275 @@
+package com.cody.portfolio.service.replication;
+
+import java.util.UUID;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.cody.portfolio.domain.Question;
+import com.cody.portfolio.service.CapacityPolicy;
+import com.cody.portfolio.service.QuestionService;
+import com.cody.portfolio.service.search.DuplicatePolicy;
+import com.cody.portfolio.service.metrics.QuestionMetrics;
+import com.cody.portfolio.service.sorting.InsertionSortStrategy;
+import com.cody.portfolio.service.sorting.QuestionTypeComparator;
+import com.cody.portfolio.service.persistence.QuestionRepository;
+import com.cody.portfolio.service.persistence.InMemoryQuestionRepository;
+
+/**
+ * Unit tests for a ReplicationLog and a ReplicationFollower reading it in the same JVM.
+ */
+public class ReplicationTest {
+	
+	@Test
+	void constructorThrowsExceptionOnInvalidArguments() {
+		assertThrows(IllegalArgumentException.class, () -> new ReplicationLog(null, 10));
+		assertThrows(IllegalArgumentException.class, () -> new ReplicationLog(new InMemoryQuestionRepository(), 1));
+	}
+	
+	@Test
+	void followerAppliesInsertsEditsAndDeletesInOrder() throws Exception {
+		ReplicationLog log = new ReplicationLog(new InMemoryQuestionRepository(), 100);
+		QuestionService leader = service(log);
+		QuestionService followerService = service(new InMemoryQuestionRepository());
+		ReplicationFollower follower = new ReplicationFollower(followerService, local(log));
+		
+		assertEquals(ReplicationLog.RESYNC, follower.poll(0)); // The first poll always loads the snapshot.
+		Question kept = new Question("a kept question", "a kept answer");
+		Question deleted = new Question("a deleted question", "a deleted answer");
+		kept.setType(Question.Type.Networks);
+		leader.setQuestions(new Question[] {kept, deleted});
+		leader.edit(kept.getID(), null, "an edited answer");
+		leader.delete(deleted.getID());
+		
+		assertEquals(3, follower.poll(0));
+		assertEquals(3, follower.appliedOffset());
+		assertEquals(0, follower.lagWrites());
+		Question copy = followerService.getQuestion(kept.getID()).orElseThrow();
+		assertEquals("an edited answer", copy.getAnswer());
+		assertEquals(Question.Type.Networks, copy.getType());
+		assertTrue(followerService.getQuestion(deleted.getID()).isEmpty());
+		assertEquals(0, follower.poll(0));
+	}
+	
+	@Test
+	void followerLoadsTheSnapshotWhenTheFramesItNeedsAreNoLongerRetained() throws Exception {
+		ReplicationLog log = new ReplicationLog(new InMemoryQuestionRepository(), 4);
+		QuestionService leader = service(log);
+		QuestionService followerService = service(new InMemoryQuestionRepository());
+		ReplicationFollower follower = new ReplicationFollower(followerService, local(log));
+		follower.poll(0);
+		
+		Question stale = new Question("a stale question", "a stale answer");
+		followerService.setQuestion(stale); // Not on the leader, so the resync must remove it.
+		Question[] written = new Question[10];
+		for (int i = 0; i < written.length; i++) {
+			written[i] = new Question("question " + i, "answer " + i);
+			leader.setQuestion(written[i]);
+		}
+		leader.delete(written[0].getID());
+		
+		while (follower.poll(0) != 0) {}
+		assertEquals(log.offset(), follower.appliedOffset());
+		assertEquals(leader.size(), followerService.size());
+		assertTrue(followerService.getQuestion(stale.getID()).isEmpty());
+		assertTrue(followerService.getQuestion(written[0].getID()).isEmpty());
+		for (int i = 1; i < written.length; i++) {
+			assertEquals("answer " + i, followerService.getQuestion(written[i].getID()).orElseThrow().getAnswer());
+		}
+	}
+	
+	@Test
+	void followerResyncsWhenTheLeaderRestartsWithANewEpoch() throws Exception {
+		ReplicationLog first = new ReplicationLog(new InMemoryQuestionRepository(), 100);
+		QuestionService leader = service(first);
+		Question question = new Question("a valid question", "a valid answer");
+		leader.setQuestion(question);
+		QuestionService followerService = service(new InMemoryQuestionRepository());
+		Leader restartable = new Leader(first);
+		ReplicationFollower follower = new ReplicationFollower(followerService, restartable);
+		while (follower.poll(0) != 0) {}
+		assertEquals(1, followerService.size());
+		
+		restartable.log = new ReplicationLog(new InMemoryQuestionRepository(), 100);
+		QuestionService restarted = service(restartable.log);
+		Question other = new Question("another valid question", "another valid answer");
+		restarted.setQuestion(other);
+		
+		assertEquals(ReplicationLog.RESYNC, follower.poll(0));
+		while (follower.poll(0) != 0) {}
+		assertTrue(followerService.getQuestion(question.getID()).isEmpty());
+		assertTrue(followerService.getQuestion(other.getID()).isPresent());
+	}
+	
+	@Test
+	void followerResyncsWhileHoldingUntypedQuestions() throws Exception {
+		ReplicationLog first = new ReplicationLog(new InMemoryQuestionRepository(), 100);
+		QuestionService leader = service(first);
+		Question untyped = new Question("an untyped question", "an untyped answer");
+		Question other = new Question("another untyped question", "another untyped answer");
+		leader.setQuestions(new Question[] {untyped, other});
+		QuestionService followerService = service(new InMemoryQuestionRepository());
+		Leader restartable = new Leader(first);
+		ReplicationFollower follower = new ReplicationFollower(followerService, restartable);
+		while (follower.poll(0) != 0) {}
+		assertEquals(2, followerService.size());
+		assertThrows(IllegalArgumentException.class, () -> followerService.getAll()); // The Comparator rejects untyped Questions.
+		
+		restartable.log = new ReplicationLog(new InMemoryQuestionRepository(), 100);
+		QuestionService restarted = service(restartable.log);
+		restarted.setQuestion(untyped);
+		
+		assertEquals(ReplicationLog.RESYNC, follower.poll(0));
+		while (follower.poll(0) != 0) {}
+		assertEquals(1, followerService.size());
+		assertTrue(followerService.getQuestion(untyped.getID()).isPresent());
+		assertTrue(followerService.getQuestion(other.getID()).isEmpty());
+	}
+	
+	@Test
+	void followerHoldsWhatTheLeaderStoredDespiteStricterLocalPolicies() throws Exception {
+		ReplicationLog log = new ReplicationLog(new InMemoryQuestionRepository(), 100);
+		QuestionService leader = service(log);
+		QuestionService followerService = new QuestionService(new InsertionSortStrategy(new QuestionTypeComparator()), new InMemoryQuestionRepository(),
+			new DuplicatePolicy(DuplicatePolicy.Action.REJECT, 0.5), new CapacityPolicy(2, 2), QuestionMetrics.OFF);
+		ReplicationFollower follower = new ReplicationFollower(followerService, local(log));
+		follower.poll(0);
+		
+		Question[] written = new Question[4];
+		for (int i = 0; i < written.length; i++) {
+			written[i] = new Question("what does the same near-duplicate question ask", "answer " + i);
+		}
+		leader.setQuestions(written);
+		
+		assertEquals(1, follower.poll(0));
+		assertEquals(log.offset(), follower.appliedOffset());
+		assertEquals(4, followerService.size());
+		assertEquals(0, follower.divergences());
+		assertFalse(followerService.setQuestion(new Question("a client question", "a client answer"))); // Client writes keep the limit.
+	}
+	
+	@Test
+	void followerResyncsWhenAWriteDoesNotApply() throws Exception {
+		ReplicationLog log = new ReplicationLog(new InMemoryQuestionRepository(), 100);
+		QuestionService leader = service(log);
+		QuestionService followerService = service(new InMemoryQuestionRepository());
+		ReplicationFollower follower = new ReplicationFollower(followerService, local(log));
+		follower.poll(0);
+		Question question = new Question("a valid question", "a valid answer");
+		leader.setQuestion(question);
+		assertEquals(1, follower.poll(0));
+		
+		followerService.delete(question.getID()); // The follower no longer holds what the leader edits next.
+		leader.edit(question.getID(), null, "an edited answer");
+		
+		assertEquals(ReplicationLog.RESYNC, follower.poll(0));
+		while (follower.poll(0) != 0) {} // Replays the frames after the snapshot.
+		assertEquals(1, follower.divergences());
+		assertFalse(follower.diverged());
+		assertEquals(log.offset(), follower.appliedOffset());
+		assertEquals(0, follower.lagWrites());
+		assertEquals("an edited answer", followerService.getQuestion(question.getID()).orElseThrow().getAnswer());
+	}
+	
+	@Test
+	void followerStopsDivergedWhenAWriteFailsAgainAfterAResync() throws Exception {
+		ReplicationLog log = new ReplicationLog(new InMemoryQuestionRepository(), 100);
+		QuestionService leader = service(log);
+		QuestionService followerService = new QuestionService(new InsertionSortStrategy(new QuestionTypeComparator()), new InMemoryQuestionRepository()) {
+			@Override
+			public boolean edit(UUID id, String question, String answer) {
+				return false; // Stands in for a follower that no longer matches the leader.
+			}
+		};
+		ReplicationFollower follower = new ReplicationFollower(followerService, local(log));
+		follower.poll(0);
+		Question question = new Question("a valid question", "a valid answer");
+		leader.setQuestion(question);
+		follower.poll(0);
+		
+		leader.edit(question.getID(), null, "an edited answer");
+		
+		assertEquals(ReplicationLog.RESYNC, follower.poll(0));
+		assertFalse(follower.diverged());
+		assertThrows(IllegalStateException.class, () -> follower.poll(0));
+		assertTrue(follower.diverged());
+		assertEquals(2, follower.divergences());
+		assertTrue(follower.lagWrites() >= 1);
+	}
+	
+	@Test
+	void writeFramesWaitsForTheNextWrite() throws Exception {
+		ReplicationLog log = new ReplicationLog(new InMemoryQuestionRepository(), 100);
+		QuestionService leader = service(log);
+		Thread writer = new Thread(() -> {
+			try {
+				Thread.sleep(50);
+			} catch (InterruptedException e) {
+				return;
+			}
+			leader.setQuestion(new Question("a valid question", "a valid answer"));
+		});
+		writer.start();
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		log.writeFrames(log.epoch(), 0, 5_000, new DataOutputStream(bytes));
+		writer.join();
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		assertEquals(log.epoch(), in.readLong());
+		assertEquals(1, in.readLong());
+		assertEquals(1, in.readInt());
+		assertThrows(IllegalArgumentException.class, () -> log.writeFrames(log.epoch(), 0, -1, new DataOutputStream(new ByteArrayOutputStream())));
+	}
+	
+	@Test
+	void snapshotHoldsTheLoadedQuestionsBeforeAnyWrite() throws Exception {
+		ReplicationLog log = new ReplicationLog(new InMemoryQuestionRepository(), 100);
+		service(log);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		log.writeSnapshot(new DataOutputStream(bytes));
+		
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		assertEquals(log.epoch(), in.readLong());
+		assertEquals(0, in.readLong());
+		assertEquals(0, in.readInt());
+	}
+	
+	private static QuestionService service(QuestionRepository repository) {
+		return new QuestionService(new InsertionSortStrategy(new QuestionTypeComparator()), repository, DuplicatePolicy.OFF, QuestionMetrics.OFF);
+	}
+	
+	private static ReplicationFollower.Leader local(ReplicationLog log) {
+		return new Leader(log);
+	}
+	
+	/**
+	 * Reads a ReplicationLog in the same JVM, through the same encoding the HTTP endpoints send.
+	 */
+	private static final class Leader implements ReplicationFollower.Leader {
+		private ReplicationLog log;
+		
+		private Leader(ReplicationLog log) {
+			this.log = log;
+		}
+		
+		@Override
+		public InputStream frames(long epoch, long after, long waitMillis) throws IOException, InterruptedException {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			this.log.writeFrames(epoch, after, waitMillis, new DataOutputStream(bytes));
+			return new ByteArrayInputStream(bytes.toByteArray());
+		}
+		
+		@Override
+		public InputStream snapshot() throws IOException {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			this.log.writeSnapshot(new DataOutputStream(bytes));
+			return new ByteArrayInputStream(bytes.toByteArray());
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package com.cody.portfolio.service.search;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.cody.portfolio.domain.Question;
+
+/**
+ * Unit tests for the InvertedIndex and its Tokenizer.
+ */
+public class InvertedIndexTest {
+	
+	@Test
+	void tokenizeSplitsOnNonAlphanumericsAndLowercases() {
+		assertArrayEquals(new String[] {"what", "is", "o", "n", "log", "n", "ünïcode", "42"}, Tokenizer.tokenize("What is O(n log n)? Ünïcode-42!"));
+	}
+	
+	@ParameterizedTest
+	@ValueSource(strings = {"", " ", "?!", "---"})
+	void searchThrowsExceptionOnAQueryWithoutWords(String invalidQuery) {
+		InvertedIndex index = new InvertedIndex();
+		
+		assertThrows(IllegalArgumentException.class, () ->
+			index.search(invalidQuery, 0, 10)
+		);
+	}
+	
+	@Test
+	void searchReturnsOnlyQuestionsContainingEveryWord() {
+		InvertedIndex index = new InvertedIndex();
+		Question both = new Question("What is a binary tree?", "A tree with at most two children");
+		Question one = new Question("What is a hash map?", "A table of keys");
+		Question answerOnly = new Question("Name a balanced structure", "A red black binary tree");
+		index.put(0, both);
+		index.put(1, one);
+		index.put(2, answerOnly);
+		
+		Question[] found = index.search("Binary TREE", 0, 10).questions();
+		
+		assertEquals(2, found.length);
+		assertTrue(found[0] == both || found[1] == both);
+		assertTrue(found[0] == answerOnly || found[1] == answerOnly);
+		assertEquals(0, index.search("binary map", 0, 10).questions().length);
+		assertEquals(0, index.search("missing", 0, 10).questions().length);
+	}
+	
+	@Test
+	void searchRanksMoreFrequentAndRarerMatchesFirst() {
+		InvertedIndex index = new InvertedIndex();
+		Question weak = new Question("A question about graphs and many other long winded topics", "Some answer about nothing in particular");
+		Question strong = new Question("Graphs graphs graphs", "Graphs");
+		index.put(0, weak);
+		index.put(1, strong);
+		
+		Question[] found = index.search("graphs", 0, 10).questions();
+		
+		assertSame(strong, found[0]);
+		assertSame(weak, found[1]);
+	}
+	
+	@Test
+	void searchPagesThroughTiesInInsertionOrder() {
+		InvertedIndex index = new InvertedIndex();
+		Question[] questions = new Question[5];
+		for (int i = 0; i < questions.length; i++) {
+			questions[i] = new Question("same words", "same answer");
+			index.put(i, questions[i]);
+		}
+		
+		InvertedIndex.Result first = index.search("same", 0, 2);
+		InvertedIndex.Result last = index.search("same", 4, 2);
+		
+		assertArrayEquals(new Question[] {questions[0], questions[1]}, first.questions());
+		assertTrue(first.more());
+		assertArrayEquals(new Question[] {questions[4]}, last.questions());
+		assertFalse(last.more());
+	}
+	
+	@Test
+	void putReplacesTheSlotAndRemoveForgetsIt() {
+		InvertedIndex index = new InvertedIndex();
+		Question question = new Question("an old question", "a plain answer");
+		index.put(3, question);
+		
+		question.setQuestion("a new question");
+		index.put(3, question);
+		assertEquals(1, index.size());
+		assertEquals(1, index.search("new", 0, 10).questions().length);
+		assertEquals(0, index.search("old", 0, 10).questions().length);
+		
+		index.remove(3);
+		assertEquals(0, index.size());
+		assertEquals(0, index.search("new", 0, 10).questions().length);
+	}
+	
+	@Test
+	void compactionKeepsEveryLiveQuestionSearchable() {
+		InvertedIndex index = new InvertedIndex();
+		Question kept = new Question("a kept question", "kept");
+		index.put(0, kept);
+		
+		// Churn one slot until tombstones force several compactions.
+		for (int i = 0; i < 10_000; i++) {
+			index.put(1, new Question("churn question " + i, "churn"));
+		}
+		index.remove(1);
+		
+		assertEquals(1, index.size());
+		assertArrayEquals(new Question[] {kept}, index.search("question", 0, 10).questions());
+		assertEquals(0, index.search("churn", 0, 10).questions().length);
+	}
+}
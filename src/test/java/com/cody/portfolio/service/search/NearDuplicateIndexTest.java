@@ -0,0 +1,79 @@
+package com.cody.portfolio.service.search;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.cody.portfolio.domain.Question;
+
+/**
+ * Unit tests for the NearDuplicateIndex.
+ */
+public class NearDuplicateIndexTest {
+	
+	@ParameterizedTest
+	@ValueSource(doubles = {0, -0.5, 1.01, Double.NaN})
+	void constructorThrowsExceptionOnAThresholdOutOfRange(double invalidThreshold) {
+		assertThrows(IllegalArgumentException.class, () ->
+			new NearDuplicateIndex(invalidThreshold)
+		);
+	}
+	
+	@Test
+	void signatureIgnoresCaseAndPunctuation() {
+		Question question = new Question("What is the time complexity of binary search?", "O(log n)");
+		Question reworded = new Question("what is the TIME complexity of binary search...", "Logarithmic");
+		
+		assertArrayEquals(NearDuplicateIndex.signature(question), NearDuplicateIndex.signature(reworded));
+	}
+	
+	@Test
+	void findReturnsATrivialRewordingAndNotAnUnrelatedQuestion() {
+		NearDuplicateIndex index = new NearDuplicateIndex(0.7);
+		Question stored = new Question("What is the time complexity of a binary search on a sorted array?", "O(log n)");
+		Question unrelated = new Question("Which layer of the OSI model handles routing between networks?", "The network layer");
+		index.put(0, stored, NearDuplicateIndex.signature(stored));
+		index.put(1, unrelated, NearDuplicateIndex.signature(unrelated));
+		
+		Question reworded = new Question("What is the time complexity of binary search on a sorted array?", "Logarithmic");
+		NearDuplicateIndex.Match match = index.find(NearDuplicateIndex.signature(reworded), reworded.getID());
+		
+		assertNotNull(match);
+		assertSame(stored, match.question());
+		assertTrue(match.similarity() >= 0.7 && match.similarity() <= 1);
+		
+		Question different = new Question("How does a hash map resolve collisions?", "Chaining or probing");
+		assertNull(index.find(NearDuplicateIndex.signature(different), different.getID()));
+	}
+	
+	@Test
+	void findSkipsTheExcludedId() {
+		NearDuplicateIndex index = new NearDuplicateIndex(0.8);
+		Question stored = new Question("What is a binary tree?", "A tree with at most two children");
+		index.put(0, stored, NearDuplicateIndex.signature(stored));
+		
+		assertNull(index.find(NearDuplicateIndex.signature(stored), stored.getID()));
+		assertSame(stored, index.find(NearDuplicateIndex.signature(stored), null).question());
+	}
+	
+	@Test
+	void putReplacesTheSlotAndRemoveForgetsIt() {
+		NearDuplicateIndex index = new NearDuplicateIndex(0.8);
+		Question question = new Question("What is a binary tree?", "A tree with at most two children");
+		int oldSignature[] = NearDuplicateIndex.signature(question);
+		index.put(4, question, oldSignature);
+		
+		question.setQuestion("Which sorting algorithm is stable and runs in N log N time?");
+		int newSignature[] = NearDuplicateIndex.signature(question);
+		index.put(4, question, newSignature);
+		assertEquals(1, index.size());
+		assertNull(index.find(oldSignature, null));
+		assertSame(question, index.find(newSignature, null).question());
+		
+		index.remove(4);
+		index.remove(4);
+		assertEquals(0, index.size());
+		assertNull(index.find(newSignature, null));
+	}
+}
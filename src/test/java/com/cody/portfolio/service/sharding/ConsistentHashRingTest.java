@@ -0,0 +1,57 @@
+package com.cody.portfolio.service.sharding;
+
+import java.util.UUID;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the ConsistentHashRing.
+ */
+public class ConsistentHashRingTest {
+	private static final int KEYS = 100_000;
+	
+	@Test
+	void constructorThrowsExceptionOnInvalidShards() {
+		assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(0));
+	}
+	
+	@Test
+	void shardsReceiveRoughlyEqualShares() {
+		ConsistentHashRing ring = new ConsistentHashRing(8);
+		int counts[] = new int[8];
+		Random random = new Random(42);
+		for (int i = 0; i < KEYS; i++) {
+			counts[ring.shardOf(new UUID(random.nextLong(), random.nextLong()))]++;
+		}
+		for (int count : counts) {
+			assertEquals(KEYS / 8.0, count, KEYS / 8.0 * 0.25);
+		}
+	}
+	
+	@Test
+	void addingAShardMovesAboutOneInNKeysAllToTheNewShard() {
+		ConsistentHashRing before = new ConsistentHashRing(8);
+		ConsistentHashRing after = new ConsistentHashRing(9);
+		Random random = new Random(7);
+		int moved = 0;
+		for (int i = 0; i < KEYS; i++) {
+			UUID id = new UUID(random.nextLong(), random.nextLong());
+			int from = before.shardOf(id);
+			int to = after.shardOf(id);
+			if (from != to) {
+				assertEquals(8, to);
+				moved++;
+			}
+		}
+		assertEquals(KEYS / 9.0, moved, KEYS / 9.0 * 0.25);
+	}
+	
+	@Test
+	void oneShardOwnsEveryKey() {
+		ConsistentHashRing ring = new ConsistentHashRing(1);
+		assertEquals(0, ring.shardOf(UUID.randomUUID()));
+		assertEquals(0, ring.shardOf(new UUID(Long.MAX_VALUE, Long.MAX_VALUE)));
+	}
+}
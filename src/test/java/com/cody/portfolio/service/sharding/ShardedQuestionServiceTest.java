@@ -0,0 +1,434 @@
+package com.cody.portfolio.service.sharding;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.Random;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Comparator;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.cody.portfolio.domain.Question;
+import com.cody.portfolio.service.QuestionPage;
+import com.cody.portfolio.service.StoreOutcome;
+import com.cody.portfolio.service.CapacityPolicy;
+import com.cody.portfolio.service.QuestionService;
+import com.cody.portfolio.service.grading.Grade;
+import com.cody.portfolio.service.metrics.QuestionMetrics;
+import com.cody.portfolio.service.search.DuplicatePolicy;
+import com.cody.portfolio.service.persistence.InMemoryQuestionRepository;
+import com.cody.portfolio.service.persistence.FileQuestionRepository;
+import com.cody.portfolio.service.persistence.PersistenceConfiguration;
+import com.cody.portfolio.service.sorting.InsertionSortStrategy;
+import com.cody.portfolio.service.sorting.QuestionTypeComparator;
+
+/**
+ * Unit tests for the ShardedQuestionService.
+ */
+public class ShardedQuestionServiceTest {
+	
+	private static final ObjectProvider<MeterRegistry> NO_REGISTRY = new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class);
+	
+	@Test
+	void constructorThrowsExceptionOnInvalidShards() {
+		assertThrows(IllegalArgumentException.class, () ->
+			new ShardedQuestionService(new InsertionSortStrategy(new QuestionTypeComparator()), 0)
+		);
+	}
+	
+	@Test
+	void pointOperationsGoToTheOwningShard() {
+		ShardedQuestionService service = new ShardedQuestionService(new InsertionSortStrategy(new QuestionTypeComparator()), 4);
+		Question question = new Question("a valid question", "a valid answer");
+		
+		assertTrue(service.setQuestion(question));
+		assertFalse(service.setQuestion(question));
+		assertSame(question, service.getQuestion(question.getID()).orElseThrow());
+		assertTrue(service.edit(question.getID(), null, "an edited answer"));
+		assertEquals("an edited answer", service.getQuestion(question.getID()).orElseThrow().getAnswer());
+		assertTrue(service.delete(question.getID()));
+		assertFalse(service.delete(question.getID()));
+		assertFalse(service.delete(null));
+		assertTrue(service.getQuestion(null).isEmpty());
+		assertEquals(0, service.size());
+	}
+	
+	@Test
+	void listReadsMergeTheShardsInComparatorOrder() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		ShardedQuestionService service = new ShardedQuestionService(new InsertionSortStrategy(comparator), 4);
+		Question[] batch = questions(200);
+		
+		StoreOutcome stored[] = service.setQuestions(batch);
+		for (StoreOutcome outcome : stored) assertEquals(StoreOutcome.STORED, outcome);
+		
+		Question[] all = service.getAll().orElseThrow();
+		assertEquals(200, all.length);
+		for (int i = 1; i < all.length; i++) {
+			assertTrue(comparator.compare(all[i - 1], all[i]) <= 0);
+		}
+		Question[] networks = service.getQuestions(Question.Type.Networks).orElseThrow();
+		assertTrue(Arrays.stream(networks).allMatch((Question q) -> q.getType() == Question.Type.Networks));
+		assertEquals(Arrays.stream(batch).filter((Question q) -> q.getType() == Question.Type.Networks).count(), networks.length);
+		assertTrue(service.getQuestions(Question.Type.Networks, networks[0].getDifficulty()).isPresent());
+		assertTrue(service.getQuestions(null).isEmpty());
+	}
+	
+	@Test
+	void listReadsAreCachedUntilAShardChanges() {
+		ShardedQuestionService service = new ShardedQuestionService(new InsertionSortStrategy(new QuestionTypeComparator()), 4);
+		service.setQuestions(questions(50));
+		
+		Question[] first = service.getAll().orElseThrow();
+		assertSame(first, service.getAll().orElseThrow());
+		service.setQuestion(questions(1)[0]);
+		assertEquals(51, service.getAll().orElseThrow().length);
+	}
+	
+	@Test
+	void reshardMovesOnlyTheQuestionsTheNewRingAssignsElsewhere() {
+		ShardedQuestionService service = new ShardedQuestionService(new InsertionSortStrategy(new QuestionTypeComparator()), 4);
+		Question[] batch = questions(2000);
+		service.setQuestions(batch);
+		
+		int moved = service.reshard(5);
+		assertEquals(5, service.shards());
+		assertEquals(2000 / 5.0, moved, 2000 / 5.0 * 0.35);
+		assertEquals(2000, service.size());
+		assertEquals(2000, service.getAll().orElseThrow().length);
+		for (Question question : batch) {
+			assertSame(question, service.getQuestion(question.getID()).orElseThrow());
+		}
+		
+		service.reshard(2);
+		assertEquals(2000, service.size());
+		for (Question question : batch) {
+			assertTrue(service.getQuestion(question.getID()).isPresent());
+		}
+		assertEquals(0, service.reshard(2));
+	}
+	
+	@Test
+	void reshardMovesUntypedQuestions() {
+		ShardedQuestionService service = new ShardedQuestionService(new InsertionSortStrategy(new QuestionTypeComparator()), 2);
+		Question[] batch = new Question[100];
+		for (int i = 0; i < batch.length; i++) {
+			batch[i] = new Question("untyped question " + i, "untyped answer " + i);
+		}
+		service.setQuestions(batch);
+		
+		assertTrue(service.reshard(3) > 0);
+		assertEquals(100, service.size());
+		for (Question question : batch) {
+			assertSame(question, service.getQuestion(question.getID()).orElseThrow());
+		}
+	}
+	
+	@Test
+	void reshardLeavesTheShardsUnchangedWhenAShardRejectsTheQuestionsMovedToIt() {
+		InsertionSortStrategy strategy = new InsertionSortStrategy(new QuestionTypeComparator());
+		ShardedQuestionService service = new ShardedQuestionService(strategy, 4, (int shard) -> new QuestionService(strategy, 100));
+		Question[] batch = questions(300);
+		service.setQuestions(batch);
+		
+		assertThrows(IllegalStateException.class, () -> service.reshard(1)); // One shard holds at most 100.
+		assertEquals(4, service.shards());
+		assertEquals(300, service.size());
+		for (Question question : batch) {
+			assertSame(question, service.getQuestion(question.getID()).orElseThrow());
+		}
+	}
+	
+	@Test
+	void reshardKeepsTheCopyAnInterruptedReshardLeftInTheNewShard() {
+		InsertionSortStrategy strategy = new InsertionSortStrategy(new QuestionTypeComparator());
+		Question[] batch = questions(100);
+		Question copied = Arrays.stream(batch).filter((Question q) -> new ConsistentHashRing(3).shardOf(q.getID()) == 2).findFirst().orElseThrow();
+		ShardedQuestionService service = new ShardedQuestionService(strategy, 2, (int shard) -> {
+			QuestionService created = new QuestionService(strategy);
+			if (shard == 2) created.setQuestion(copied);
+			return created;
+		});
+		service.setQuestions(batch);
+		
+		service.reshard(3);
+		assertEquals(100, service.size());
+		assertEquals(100, service.getAll().orElseThrow().length);
+		assertSame(copied, service.getQuestion(copied.getID()).orElseThrow());
+	}
+	
+	@Test
+	void restartingWithADifferentShardCountReshardsThePersistedShards(@TempDir Path directory) throws IOException {
+		Question[] batch = questions(60);
+		ShardedQuestionService service = open(directory, 2);
+		service.setQuestions(batch);
+		service.close();
+		assertEquals("2", Files.readString(directory.resolve(ShardingConfiguration.SHARDS_FILE)).trim());
+		
+		for (int shards : new int[] {3, 2, 4}) {
+			service = open(directory, shards);
+			assertEquals(shards, service.shards());
+			assertEquals(60, service.size());
+			assertEquals(60, service.getAll().orElseThrow().length);
+			for (Question question : batch) {
+				assertEquals(question.getQuestion(), service.getQuestion(question.getID()).orElseThrow().getQuestion());
+				assertFalse(service.setQuestion(question));
+			}
+			service.close();
+			assertEquals(Integer.toString(shards), Files.readString(directory.resolve(ShardingConfiguration.SHARDS_FILE)).trim());
+		}
+		
+		service = open(directory, 3);
+		assertTrue(service.delete(batch[0].getID()));
+		assertTrue(service.edit(batch[1].getID(), null, "an edited answer"));
+		service.close();
+		service = open(directory, 2);
+		assertTrue(service.getQuestion(batch[0].getID()).isEmpty());
+		assertEquals("an edited answer", service.getQuestion(batch[1].getID()).orElseThrow().getAnswer());
+		assertEquals(59, service.size());
+		service.close();
+		
+		assertThrows(IllegalStateException.class, () ->
+			new PersistenceConfiguration().questionRepository(directory.toString(), "log", FileQuestionRepository.DEFAULT_CHECKPOINT_INTERVAL, NO_REGISTRY)
+		);
+	}
+	
+	@Test
+	void shardCountOfADirectoryWithoutTheShardsFileIsOneMoreThanItsHighestShard(@TempDir Path directory) throws IOException {
+		assertEquals(5, ShardingConfiguration.recordedShards(directory, 5));
+		Files.createDirectories(directory.resolve("shard-0"));
+		Files.createDirectories(directory.resolve("shard-2"));
+		assertEquals(3, ShardingConfiguration.recordedShards(directory, 5));
+		
+		Files.writeString(directory.resolve(ShardingConfiguration.SHARDS_FILE), "zero");
+		assertThrows(IllegalStateException.class, () -> ShardingConfiguration.recordedShards(directory, 5));
+	}
+	
+	@Test
+	void reshardClosesTheShardsItRemoves() {
+		InsertionSortStrategy strategy = new InsertionSortStrategy(new QuestionTypeComparator());
+		ClosingRepository repositories[] = new ClosingRepository[4];
+		ShardedQuestionService service = new ShardedQuestionService(strategy, 4, (int shard) -> {
+			repositories[shard] = new ClosingRepository();
+			return new QuestionService(strategy, repositories[shard]);
+		});
+		service.setQuestions(questions(100));
+		
+		service.reshard(2);
+		assertFalse(repositories[0].closed);
+		assertFalse(repositories[1].closed);
+		assertTrue(repositories[2].closed);
+		assertTrue(repositories[3].closed);
+		
+		service.close();
+		assertTrue(repositories[0].closed);
+		assertTrue(repositories[1].closed);
+	}
+	
+	@Test
+	void pagesWalkEveryShardOnce() {
+		ShardedQuestionService service = new ShardedQuestionService(new InsertionSortStrategy(new QuestionTypeComparator()), 4);
+		Question[] batch = questions(103);
+		service.setQuestions(batch);
+		
+		Set<UUID> seen = new HashSet<>();
+		String after = null;
+		do {
+			QuestionPage page = service.getAllPage(after, 10);
+			assertTrue(page.questions().length <= 10);
+			for (Question question : page.questions()) {
+				assertTrue(seen.add(question.getID()));
+			}
+			after = page.next();
+		} while (after != null);
+		assertEquals(103, seen.size());
+		
+		assertEquals(103, service.getAllPage(null, 103).questions().length);
+		assertNull(service.getAllPage(null, 103).next());
+		assertThrows(IllegalArgumentException.class, () -> service.getAllPage("9", 10));
+		assertThrows(IllegalArgumentException.class, () -> service.getAllPage("x", 10));
+		assertThrows(IllegalArgumentException.class, () -> service.getAllPage(null, 0));
+	}
+	
+	@Test
+	void searchFindsMatchesInEveryShard() {
+		ShardedQuestionService service = new ShardedQuestionService(new InsertionSortStrategy(new QuestionTypeComparator()), 3);
+		service.setQuestions(questions(60));
+		
+		Set<UUID> seen = new HashSet<>();
+		String after = null;
+		do {
+			QuestionPage page = service.search("question", after, 7);
+			for (Question question : page.questions()) {
+				assertTrue(seen.add(question.getID()));
+			}
+			after = page.next();
+		} while (after != null);
+		assertEquals(60, seen.size());
+		assertEquals(0, service.search("missing", null, 10).questions().length);
+		assertThrows(IllegalArgumentException.class, () -> service.search("question", "a.b", 10));
+	}
+	
+	@Test
+	void sampleDrawsDistinctMatchingQuestionsFromEveryShard() {
+		ShardedQuestionService service = new ShardedQuestionService(new InsertionSortStrategy(new QuestionTypeComparator()), 4);
+		Question[] batch = questions(400);
+		service.setQuestions(batch);
+		
+		Question[] quiz = service.sample(Set.of(Question.Type.Networks), null, 50, new Random(7));
+		assertEquals(50, Arrays.stream(quiz).map(Question::getID).distinct().count());
+		assertTrue(Arrays.stream(quiz).allMatch((Question q) -> q.getType() == Question.Type.Networks));
+		assertArrayEquals(quiz, service.sample(Set.of(Question.Type.Networks), null, 50, new Random(7)));
+		
+		Question[] all = service.sample(null, null, 400, new Random(1));
+		assertEquals(400, Arrays.stream(all).map(Question::getID).distinct().count());
+		assertThrows(IllegalArgumentException.class, () -> service.sample(null, null, 401, new Random(1)));
+	}
+	
+	@Test
+	void sampleByTypeDrawsTheCountOfEachTypeFromEveryShard() {
+		ShardedQuestionService service = new ShardedQuestionService(new InsertionSortStrategy(new QuestionTypeComparator()), 4);
+		service.setQuestions(questions(400));
+		Map<Question.Type, Integer> typeCounts = Map.of(Question.Type.Networks, 30, Question.Type.Programming, 10);
+		
+		Question[] quiz = service.sampleByType(typeCounts, null, new Random(7));
+		assertEquals(40, Arrays.stream(quiz).map(Question::getID).distinct().count());
+		assertEquals(30, Arrays.stream(quiz).filter((Question q) -> q.getType() == Question.Type.Networks).count());
+		assertEquals(10, Arrays.stream(quiz).filter((Question q) -> q.getType() == Question.Type.Programming).count());
+		assertArrayEquals(quiz, service.sampleByType(typeCounts, null, new Random(7)));
+		
+		Question[] byDifficulty = service.sampleByDifficulty(Map.of(Question.Difficulty.Hard, 25), Set.of(Question.Type.Networks), new Random(3));
+		assertTrue(Arrays.stream(byDifficulty).allMatch((Question q) -> q.getType() == Question.Type.Networks && q.getDifficulty() == Question.Difficulty.Hard));
+		assertThrows(IllegalArgumentException.class, () -> service.sampleByDifficulty(Map.of(Question.Difficulty.Hard, 200), Set.of(Question.Type.Networks), new Random(3)));
+	}
+	
+	@Test
+	void gradeAndStatsGoToTheOwningShards() {
+		ShardedQuestionService service = new ShardedQuestionService(new InsertionSortStrategy(new QuestionTypeComparator()), 4);
+		Question[] batch = questions(20);
+		service.setQuestions(batch);
+		UUID ids[] = new UUID[batch.length + 1];
+		String answers[] = new String[batch.length + 1];
+		for (int i = 0; i < batch.length; i++) {
+			ids[i] = batch[i].getID();
+			answers[i] = (i % 2 == 0) ? batch[i].getAnswer() : "wrong";
+		}
+		
+		Grade[] grades = service.grade(ids, answers, null, 0);
+		for (int i = 0; i < batch.length; i++) {
+			assertEquals((i % 2 == 0) ? Grade.CORRECT : Grade.INCORRECT, grades[i]);
+		}
+		assertEquals(Grade.UNKNOWN, grades[batch.length]);
+		assertEquals(1, service.getStats(batch[0].getID()).orElseThrow().attempts());
+		assertEquals(20, service.refreshStats().questions().length);
+		assertSame(service.getStatsSnapshot(), service.getStatsSnapshot());
+		assertThrows(IllegalArgumentException.class, () -> service.grade(new UUID[0], new String[0], null, -1));
+	}
+	
+	@Test
+	void versionsOnlyGrowAcrossReshards() {
+		ShardedQuestionService service = new ShardedQuestionService(new InsertionSortStrategy(new QuestionTypeComparator()), 4);
+		service.setQuestions(questions(100));
+		long version = service.version();
+		long networks = service.version(Question.Type.Networks);
+		
+		service.reshard(2);
+		assertTrue(service.version() > version);
+		assertTrue(service.version(Question.Type.Networks) >= networks);
+		version = service.version();
+		service.setQuestion(questions(1)[0]);
+		assertTrue(service.version() > version);
+	}
+	
+	@Test
+	void mergeKeepsEqualQuestionsInRunOrder() {
+		Comparator<Question> byType = new QuestionTypeComparator();
+		Question a = typed("a", Question.Type.Programming);
+		Question b = typed("b", Question.Type.Programming);
+		Question c = typed("c", Question.Type.Networks);
+		Question[][] runs = {{b}, {}, {a, c}};
+		
+		Question[] merged = ShardedQuestionService.merge(runs, byType);
+		assertEquals(3, merged.length);
+		for (int i = 1; i < merged.length; i++) {
+			assertTrue(byType.compare(merged[i - 1], merged[i]) <= 0);
+		}
+		assertTrue(Arrays.asList(merged).indexOf(b) < Arrays.asList(merged).indexOf(a));
+		assertSame(runs[2], ShardedQuestionService.merge(new Question[][] {{}, runs[2]}, byType));
+	}
+	
+	@Test
+	void metricsTimeEachOperationOnceRatherThanOncePerShard() {
+		InsertionSortStrategy insertionSort = new InsertionSortStrategy(new QuestionTypeComparator());
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		QuestionMetrics metrics = new QuestionMetrics(registry);
+		QuestionMetrics shardMetrics = metrics.forShard();
+		ShardedQuestionService service = new ShardedQuestionService(insertionSort, 4,
+				(int shard) -> new QuestionService(insertionSort, new InMemoryQuestionRepository(), DuplicatePolicy.OFF, shardMetrics), metrics);
+		Question[] batch = questions(20);
+		
+		service.setQuestions(batch);
+		service.getAll();
+		service.getAll(); // Served from the merged cache.
+		service.getQuestions(Question.Type.Networks);
+		
+		assertEquals(1, registry.get("quiz.questions.operation").tag("operation", "set-many").timer().count());
+		assertEquals(2, registry.get("quiz.questions.operation").tag("operation", "get-all").timer().count());
+		assertEquals(1, registry.get("quiz.questions.operation").tag("operation", "get-many").timer().count());
+		assertEquals(20, registry.get("quiz.questions.stored").gauge().value());
+	}
+	
+	private static Question[] questions(int count) {
+		Question.Type[] types = Question.Type.values();
+		Question.Difficulty[] difficulties = Question.Difficulty.values();
+		Question[] questions = new Question[count];
+		for (int i = 0; i < count; i++) {
+			questions[i] = new Question("question " + i, "answer " + i);
+			questions[i].setType(types[i % types.length]);
+			questions[i].setDifficulty(difficulties[i % difficulties.length]);
+		}
+		return questions;
+	}
+	
+	private static ShardedQuestionService open(Path directory, int shards) {
+		return new ShardingConfiguration().shardedQuestionService(
+			new InsertionSortStrategy(new QuestionTypeComparator()),
+			DuplicatePolicy.OFF,
+			CapacityPolicy.DEFAULT,
+			QuestionMetrics.OFF,
+			shards,
+			directory.toString(),
+			"log",
+			FileQuestionRepository.DEFAULT_CHECKPOINT_INTERVAL,
+			"none",
+			NO_REGISTRY
+		);
+	}
+	
+	private static Question typed(String text, Question.Type type) {
+		Question question = new Question(text, text);
+		question.setType(type);
+		return question;
+	}
+	
+	private static final class ClosingRepository extends InMemoryQuestionRepository {
+		private boolean closed;
+		
+		@Override
+		public void close() {
+			this.closed = true;
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package com.cody.portfolio.service.sorting;
+
+import java.util.Random;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.cody.portfolio.domain.Question;
+
+/**
+ * Unit tests for the AdaptiveSortingStrategy object that is injected into QuestionService.
+ */
+public class AdaptiveSortingStrategyTest {
+	
+	@Test
+	void selectUsesInsertionSortForShortArrays() {
+		AdaptiveSortingStrategy strategy = new AdaptiveSortingStrategy(new QuestionTypeComparator());
+		
+		assertInstanceOf(InsertionSortStrategy.class, strategy.select(AdaptiveSortingStrategy.INSERTION_SORT_MAX));
+	}
+	
+	@Test
+	void selectUsesCountingSortForLongerArraysWhenTheComparatorHasOrdinals() {
+		AdaptiveSortingStrategy strategy = new AdaptiveSortingStrategy(new QuestionTypeComparator());
+		
+		assertInstanceOf(CountingSortStrategy.class, strategy.select(AdaptiveSortingStrategy.INSERTION_SORT_MAX + 1));
+		assertInstanceOf(CountingSortStrategy.class, strategy.select(AdaptiveSortingStrategy.PARALLEL_SORT_MIN));
+	}
+	
+	@Test
+	void selectUsesMergeSortsWhenTheComparatorHasNoOrdinals() {
+		Comparator<Question> byDifficulty = Comparator.comparing((Question question) -> question.getDifficulty());
+		AdaptiveSortingStrategy strategy = new AdaptiveSortingStrategy(byDifficulty);
+		
+		AbstractSortingStrategy medium = strategy.select(AdaptiveSortingStrategy.INSERTION_SORT_MAX + 1);
+		assertInstanceOf(MergeSortStrategy.class, medium);
+		assertFalse(medium instanceof ParallelMergeSortStrategy);
+		assertInstanceOf(ParallelMergeSortStrategy.class, strategy.select(AdaptiveSortingStrategy.PARALLEL_SORT_MIN));
+	}
+	
+	@ParameterizedTest
+	@ValueSource(ints = {0, 1, 20, 1000})
+	void sortMatchesAStableReferenceSortAtEverySize(int arraySize) {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		AdaptiveSortingStrategy strategy = new AdaptiveSortingStrategy(comparator);
+		Question[] questionArray = MergeSortStrategyTest.randomlyTypedQuestions(arraySize, new Random(arraySize));
+		
+		Question[] expected = questionArray.clone();
+		Arrays.sort(expected, comparator);
+		strategy.sort(questionArray);
+		
+		assertArrayEquals(expected, questionArray);
+	}
+}
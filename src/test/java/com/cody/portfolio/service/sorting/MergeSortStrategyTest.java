@@ -0,0 +1,92 @@
+package com.cody.portfolio.service.sorting;
+
+import java.util.Random;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.cody.portfolio.domain.Question;
+
+/**
+ * Unit tests for the MergeSortStrategy object.
+ */
+public class MergeSortStrategyTest {
+	
+	@ParameterizedTest
+	@ValueSource(ints = {2, 17, 1000, 5000})
+	void sortMatchesAStableReferenceSortOnRandomTypes(int arraySize) {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		MergeSortStrategy strategy = new MergeSortStrategy(comparator);
+		Question[] questionArray = randomlyTypedQuestions(arraySize, new Random(arraySize));
+		
+		// Arrays.sort on objects is a stable merge sort.
+		Question[] expected = questionArray.clone();
+		Arrays.sort(expected, comparator);
+		strategy.sort(questionArray);
+		
+		assertArrayEquals(expected, questionArray);
+	}
+	
+	@Test
+	void sortMustNotThrowAndMustNotModifyArrayOfLengthZero() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		MergeSortStrategy strategy = new MergeSortStrategy(comparator);
+		Question questionArray[] = new Question[0];
+		strategy.sort(questionArray);
+		
+		assertEquals(0, questionArray.length);
+	}
+	
+	@Test
+	void sortThrowsExceptionOnQuestionWithoutAType() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		MergeSortStrategy strategy = new MergeSortStrategy(comparator);
+		Question[] questionArray = randomlyTypedQuestions(64, new Random(64));
+		questionArray[32].setType(null);
+		
+		assertThrows(IllegalArgumentException.class, () ->
+			strategy.sort(questionArray)
+		);
+	}
+	
+	@Test
+	void sortLeavesAnAlreadySortedArrayUnchanged() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		MergeSortStrategy strategy = new MergeSortStrategy(comparator);
+		Question[] questionArray = randomlyTypedQuestions(500, new Random(500));
+		Arrays.sort(questionArray, comparator);
+		
+		Question[] compareArray = questionArray.clone();
+		strategy.sort(questionArray);
+		
+		assertArrayEquals(compareArray, questionArray);
+	}
+	
+	@Test
+	void sortThrowsExceptionOnArrayContainingNullElements() {
+		QuestionTypeComparator comparator = new QuestionTypeComparator();
+		MergeSortStrategy strategy = new MergeSortStrategy(comparator);
+		Question questionArray[] = new Question[20];
+		
+		assertThrows(NullPointerException.class, () ->
+			strategy.sort(questionArray)
+		);
+	}
+	
+	/**
+	 * Creates questions with random Types; equal Types are only distinguishable by identity.
+	 */
+	static Question[] randomlyTypedQuestions(int arraySize, Random random) {
+		Question.Type[] types = Question.Type.values();
+		Question[] questionArray = new Question[arraySize];
+		for (int i = 0; i < arraySize; i++) {
+			Question question = new Question("a valid question", "a valid answer");
+			question.setType(types[random.nextInt(types.length)]);
+			questionArray[i] = question;
+		}
+		return questionArray;
+	}
+}